@@ -34,6 +34,8 @@ object ProjectVersions {
 
     const val lombokVersion = "1.18.30"
 
+    const val jmhVersion = "1.37"
+
     const val flatLafVersion = "3.2.5-rl4"
 
     const val unethicaliteVersion = "1.0.20-STABLE"
@@ -31,6 +31,13 @@ plugins {
 
 description = "Cache"
 
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+        runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath
+    }
+}
+
 dependencies {
     annotationProcessor(group = "org.projectlombok", name = "lombok", version = ProjectVersions.lombokVersion)
 
@@ -55,6 +62,9 @@ dependencies {
 
     testImplementation(group = "junit", name = "junit", version = "4.13.1")
     testImplementation(group = "net.runelite.rs", name = "cache", version = "${ProjectVersions.cacheversion}")
+
+    "jmhImplementation"(group = "org.openjdk.jmh", name = "jmh-core", version = ProjectVersions.jmhVersion)
+    "jmhAnnotationProcessor"(group = "org.openjdk.jmh", name = "jmh-generator-annprocess", version = ProjectVersions.jmhVersion)
 }
 
 tasks {
@@ -75,4 +85,12 @@ tasks {
     test {
         maxHeapSize = "16192m"
     }
+
+    register<JavaExec>("jmh") {
+        group = "openosrs"
+        description = "Runs the JMH benchmarks, JMH options can be passed with --args"
+
+        classpath = project.sourceSets["jmh"].runtimeClasspath
+        mainClass.set("org.openjdk.jmh.Main")
+    }
 }
@@ -128,13 +128,9 @@ public class CollisionChecker
 						for (int y = 0; y < Region.Y; ++y)
 						{
 							int regionY = baseY + y;
-							for (Location loc : region.getLocations())
+							for (Location loc : region.getLocations(z, x, y))
 							{
 								Position pos = loc.getPosition();
-								if (pos.getX() != regionX || pos.getY() != regionY || pos.getZ() != z)
-								{
-									continue;
-								}
 								if (loc.getId() == objId || (pos.getX() == userX && pos.getY() == userY && pos.getZ() == userZ))
 								{
 									System.out.println("Found object at " + regionX + ", " + regionY + ", " + z);
@@ -26,30 +26,42 @@
  */
 package net.runelite.cache;
 
-import java.io.ByteArrayOutputStream;
+import com.google.gson.Gson;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.definitions.ObjectDefinition;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.DiskStorage;
 import net.runelite.cache.region.Location;
-import net.runelite.cache.region.Position;
 import net.runelite.cache.region.Region;
 import net.runelite.cache.region.RegionLoader;
 import net.runelite.cache.util.KeyProvider;
@@ -70,6 +82,7 @@ import org.apache.commons.cli.ParseException;
  * --cachedir "path\to\cache folder"
  * --xteapath "path\to\xtea keys file"
  * --outputdir "path\to\output folder"
+ * and optionally --incremental to only rebuild the regions which changed since the last run
  */
 @Slf4j
 @Getter
@@ -99,6 +112,255 @@ public class CollisionMapDumper
 		return this;
 	}
 
+	/**
+	 * Makes the collision maps of the given regions, on an executor sized to the machine
+	 */
+	public void makeCollisionMaps(Collection<Region> regions) throws IOException
+	{
+		int total = regions.size();
+
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		List<Future<Void>> futures = new ArrayList<>();
+
+		for (Region region : regions)
+		{
+			futures.add(executor.submit(() ->
+			{
+				makeCollisionMap(region);
+				return null;
+			}));
+		}
+
+		executor.shutdown();
+
+		try
+		{
+			int n = 0;
+			for (Future<Void> future : futures)
+			{
+				future.get(); // wait for task to complete
+				if (++n % 100 == 0)
+				{
+					log.info("Processed " + n + " / " + total + " regions");
+				}
+			}
+		}
+		catch (ExecutionException | InterruptedException e)
+		{
+			executor.shutdownNow();
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Updates a collision map written by an earlier run, recomputing only the regions whose own or neighbouring
+	 * map or locations archives have changed, or which are next to objects whose collision has changed, since the
+	 * manifest was written. The other regions are read back from the collision map. Regions are loaded as needed,
+	 * so this is used instead of {@link #load()}.
+	 * <p>
+	 * The updated collision map is written first, and the manifest only once it was, so a failed write is
+	 * retried from the previous manifest on the next run.
+	 *
+	 * @return the number of regions recomputed
+	 */
+	public int update(File collisionMap, File manifestFile) throws IOException
+	{
+		objectManager.load();
+
+		Manifest previous = Manifest.read(manifestFile);
+		if (!collisionMap.isFile())
+		{
+			previous = new Manifest();
+		}
+
+		Manifest manifest = new Manifest();
+		for (ObjectDefinition object : objectManager.getObjects())
+		{
+			manifest.objects.put(object.getId(), Objects.hash(object.getSizeX(), object.getSizeY(), object.getInteractType(),
+				object.getWallOrDoor(), object.getMapSceneID(), object.getObjectModels() != null));
+		}
+
+		Set<Integer> changedObjects = new HashSet<>();
+		for (Map.Entry<Integer, Integer> entry : manifest.objects.entrySet())
+		{
+			if (!entry.getValue().equals(previous.objects.get(entry.getKey())))
+			{
+				changedObjects.add(entry.getKey());
+			}
+		}
+		for (int id : previous.objects.keySet())
+		{
+			if (!manifest.objects.containsKey(id))
+			{
+				changedObjects.add(id);
+			}
+		}
+
+		Map<Integer, Integer> regionHashes = new HashMap<>();
+		for (int i = 0; i < RegionLoader.MAX_REGION; ++i)
+		{
+			int hash = regionLoader.getRegionHash(i);
+			if (hash != 0)
+			{
+				regionHashes.put(i, hash);
+			}
+		}
+
+		// neighbouring regions add their collisions to the edges of a region
+		Set<Integer> changed = new HashSet<>();
+		for (int regionId : regionHashes.keySet())
+		{
+			int hash = 0;
+			boolean objectsChanged = false;
+			for (int dx = -1; dx <= 1; ++dx)
+			{
+				for (int dy = -1; dy <= 1; ++dy)
+				{
+					int neighborId = neighborId(regionId, dx, dy);
+					hash = 31 * hash + regionHashes.getOrDefault(neighborId, 0);
+
+					int[] objects = previous.regionObjects.get(neighborId);
+					if (objects != null && Arrays.stream(objects).anyMatch(changedObjects::contains))
+					{
+						objectsChanged = true;
+					}
+				}
+			}
+
+			manifest.regions.put(regionId, hash);
+			if (objectsChanged || !Integer.valueOf(hash).equals(previous.regions.get(regionId)))
+			{
+				changed.add(regionId);
+			}
+		}
+
+		Set<Integer> needed = new HashSet<>();
+		for (int regionId : changed)
+		{
+			for (int dx = -1; dx <= 1; ++dx)
+			{
+				for (int dy = -1; dy <= 1; ++dy)
+				{
+					int neighborId = neighborId(regionId, dx, dy);
+					if (regionHashes.containsKey(neighborId))
+					{
+						needed.add(neighborId);
+					}
+				}
+			}
+		}
+
+		for (int regionId : needed)
+		{
+			try
+			{
+				regionLoader.loadRegionFromArchive(regionId);
+			}
+			catch (IOException ex)
+			{
+				log.debug("Can't decrypt region " + regionId, ex);
+			}
+		}
+
+		List<Region> changedRegions = new ArrayList<>();
+		for (int regionId : changed)
+		{
+			Region region = regionLoader.findRegionForRegionCoordinates(regionId >> 8, regionId & 0xFF);
+			if (region == null)
+			{
+				// left out of the manifest so it is tried again
+				manifest.regions.remove(regionId);
+				continue;
+			}
+
+			changedRegions.add(region);
+			manifest.regionObjects.put(regionId, region.getLocations().stream().mapToInt(Location::getId).distinct().toArray());
+		}
+
+		makeCollisionMaps(changedRegions);
+
+		if (collisionMap.isFile())
+		{
+			ByteBuffer buffer;
+			try (InputStream in = new GZIPInputStream(new FileInputStream(collisionMap)))
+			{
+				buffer = ByteBuffer.wrap(in.readAllBytes());
+			}
+
+			while (buffer.hasRemaining())
+			{
+				int regionId = buffer.getShort() & 0xFFFF;
+				FlagMap flagMap = FlagMap.read(regionId, buffer);
+				if (manifest.regions.containsKey(regionId) && !changed.contains(regionId))
+				{
+					regions[regionId] = flagMap;
+					manifest.regionObjects.put(regionId, previous.regionObjects.get(regionId));
+				}
+			}
+		}
+
+		// regions missing from the collision map are recomputed next time
+		manifest.regions.keySet().removeIf(regionId -> regions[regionId] == null);
+		manifest.regionObjects.keySet().retainAll(manifest.regions.keySet());
+
+		write(collisionMap);
+		manifest.write(manifestFile);
+
+		return changedRegions.size();
+	}
+
+	private static int neighborId(int regionId, int dx, int dy)
+	{
+		int x = (regionId >> 8) + dx;
+		int y = (regionId & 0xFF) + dy;
+		if (x < 0 || y < 0 || y > 0xFF)
+		{
+			return -1;
+		}
+		return (x << 8) | y;
+	}
+
+	/**
+	 * What the regions of a collision map were computed from
+	 */
+	private static class Manifest
+	{
+		/**
+		 * object id -> hash of the properties of the object which affect collision
+		 */
+		private Map<Integer, Integer> objects = new HashMap<>();
+		/**
+		 * region id -> hash of the map and locations archives of the region and its neighbours
+		 */
+		private Map<Integer, Integer> regions = new HashMap<>();
+		/**
+		 * region id -> ids of the objects located in the region
+		 */
+		private Map<Integer, int[]> regionObjects = new HashMap<>();
+
+		static Manifest read(File file) throws IOException
+		{
+			if (!file.isFile())
+			{
+				return new Manifest();
+			}
+
+			try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+			{
+				Manifest manifest = new Gson().fromJson(reader, Manifest.class);
+				return manifest != null ? manifest : new Manifest();
+			}
+		}
+
+		void write(File file) throws IOException
+		{
+			try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))
+			{
+				new Gson().toJson(this, writer);
+			}
+		}
+	}
+
 	private ObjectDefinition findObject(int id)
 	{
 		return objectManager.getObject(id);
@@ -121,9 +383,8 @@ public class CollisionMapDumper
 		return buffer.array();
 	}
 
-	public File writeToFile(String outputDir)
+	public static File getOutputFile(String outputDir)
 	{
-		byte[] bytes = toBytes();
 		if (outputDir == null || outputDir.equals("null/regions"))
 		{
 			outputDir = "runelite-client/src/main/resources/regions";
@@ -132,36 +393,29 @@ public class CollisionMapDumper
 		{
 			outputDir = outputDir.replace("%userprofile%", System.getProperty("user.home"));
 		}
-		System.out.println("Writing collision map to " + outputDir);
-		File fileLoc = new File(outputDir);
-		if (!fileLoc.isFile())
-		{
-			try
-			{
-				fileLoc.createNewFile();
-			}
-			catch (IOException e)
-			{
-				e.printStackTrace();
-			}
-		}
+		return new File(outputDir);
+	}
 
-		try (ByteArrayOutputStream bos = new ByteArrayOutputStream(bytes.length);
-		     GZIPOutputStream gos = new GZIPOutputStream(bos);
-		     FileOutputStream fos = new FileOutputStream(fileLoc))
-		{
-			gos.write(bytes);
-			gos.finish();
-			fos.write(bos.toByteArray());
-			gos.flush();
-			fos.flush();
-		}
-		catch (IOException e)
+	public File writeToFile(String outputDir) throws IOException
+	{
+		File fileLoc = getOutputFile(outputDir);
+		System.out.println("Writing collision map to " + fileLoc);
+		write(fileLoc);
+		return fileLoc;
+	}
+
+	/**
+	 * Writes the gzipped collision map through a temporary file, so a failed write leaves the previous map in place
+	 */
+	public void write(File file) throws IOException
+	{
+		File tmp = new File(file.getPath() + ".tmp");
+		try (OutputStream out = new GZIPOutputStream(new FileOutputStream(tmp)))
 		{
-			e.printStackTrace();
+			out.write(toBytes());
 		}
 
-		return fileLoc;
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
 	}
 
 	public static void main(String[] args) throws IOException
@@ -170,6 +424,7 @@ public class CollisionMapDumper
 		options.addOption(Option.builder().longOpt("cachedir").hasArg().required().build());
 		options.addOption(Option.builder().longOpt("xteapath").hasArg().required().build());
 		options.addOption(Option.builder().longOpt("outputdir").hasArg().build());
+		options.addOption(Option.builder().longOpt("incremental").build());
 
 		CommandLineParser parser = new DefaultParser();
 		CommandLine cmd;
@@ -187,6 +442,7 @@ public class CollisionMapDumper
 		final String cacheDirectory = cmd.getOptionValue("cachedir");
 		final String xteaJSONPath = cmd.getOptionValue("xteapath");
 		final String outputDirectory = cmd.getOptionValue("outputdir") + "/regions";
+		final boolean incremental = cmd.hasOption("incremental");
 
 		XteaKeyManager xteaKeyManager = new XteaKeyManager();
 		try (FileInputStream fin = new FileInputStream(xteaJSONPath))
@@ -196,51 +452,26 @@ public class CollisionMapDumper
 
 		File base = new File(cacheDirectory);
 
-		try (Store store = new Store(base))
+		try (Store store = new Store(new DiskStorage(base, true)))
 		{
 			store.load();
 
 			CollisionMapDumper dumper = new CollisionMapDumper(store, xteaKeyManager);
-			dumper.load();
-
-			Collection<Region> regions = dumper.regionLoader.getRegions();
-
-			int total = regions.size();
-
-			ExecutorService executor = Executors.newFixedThreadPool(6);
-			List<Future<Void>> futures = new ArrayList<>();
-
-			for (Region region : regions)
+			if (incremental)
 			{
-				futures.add(executor.submit(() ->
-				{
-					dumper.makeCollisionMap(region);
-					return null;
-				}));
+				File collisionMap = getOutputFile(outputDirectory);
+				int n = dumper.update(collisionMap, new File(collisionMap.getPath() + ".manifest.json"));
+				log.info("Recomputed " + n + " regions, wrote collision map to " + collisionMap);
 			}
-
-			executor.shutdown();
-
-			int n = 0;
-			for (Future<Void> future : futures)
+			else
 			{
-				future.get(); // wait for task to complete
-				if (++n % 100 == 0)
-				{
-					log.info("Processed " + n + " / " + total + " regions");
-				}
-			}
+				dumper.load();
+				dumper.makeCollisionMaps(dumper.regionLoader.getRegions());
 
-			File file = dumper.writeToFile(outputDirectory);
-			if (file != null)
-			{
+				File file = dumper.writeToFile(outputDirectory);
 				log.info("Wrote collision map to " + file);
 			}
 		}
-		catch (ExecutionException | InterruptedException e)
-		{
-			throw new RuntimeException(e);
-		}
 	}
 
 	private void makeCollisionMap(Region region)
@@ -293,13 +524,8 @@ public class CollisionMapDumper
 					boolean isBridge = (region.getTileSetting(1, localX, localY) & 2) != 0;
 					int tileZ = z + (isBridge ? 1 : 0);
 
-					for (Location loc : region.getLocations())
+					for (Location loc : region.getLocations(tileZ, localX, localY))
 					{
-						Position pos = loc.getPosition();
-						if (pos.getX() != regionX || pos.getY() != regionY || pos.getZ() != tileZ)
-						{
-							continue;
-						}
 						boolean tile = FlagMap.TILE_BLOCKED;
 						Boolean exclusion = Exclusion.matches(loc.getId());
 
@@ -589,16 +815,39 @@ public class CollisionMapDumper
 			flags.set(0, flags.size(), value);
 		}
 
+		/**
+		 * Reads the flags of a region written by {@link #write(ByteBuffer)}
+		 */
+		public static FlagMap read(int regionId, ByteBuffer buffer)
+		{
+			int baseX = (regionId >> 8) * Region.X;
+			int baseY = (regionId & 0xFF) * Region.Y;
+
+			FlagMap flagMap = new FlagMap(baseX, baseY, baseX + Region.X - 1, baseY + Region.Y - 1);
+			ByteBuffer bytes = buffer.slice();
+			bytes.limit(flagMap.byteCount());
+			buffer.position(buffer.position() + flagMap.byteCount());
+
+			flagMap.flags.clear();
+			flagMap.flags.or(BitSet.valueOf(bytes));
+			return flagMap;
+		}
+
 		public byte[] toBytes()
 		{
 			return flags.toByteArray();
 		}
 
+		private int byteCount()
+		{
+			return (width * height * PLANE_COUNT * FLAG_COUNT + 7) / 8;
+		}
+
 		public void write(ByteBuffer buffer)
 		{
 			var startPos = buffer.position();
 			buffer.put(toBytes());
-			buffer.position(startPos + (width * height * PLANE_COUNT * FLAG_COUNT + 7) / 8);
+			buffer.position(startPos + byteCount());
 		}
 
 		public void set(int x, int y, int z, int flag, boolean value)
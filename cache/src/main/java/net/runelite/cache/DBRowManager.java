@@ -35,7 +35,6 @@ import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.ArchiveFiles;
 import net.runelite.cache.fs.FSFile;
 import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 
 public class DBRowManager
@@ -52,7 +51,6 @@ public class DBRowManager
 	{
 		DBRowLoader loader = new DBRowLoader();
 
-		Storage storage = store.getStorage();
 		Index index = store.getIndex(IndexType.CONFIGS);
 		Archive archive = index.getArchive(ConfigType.DBROW.getId());
 
@@ -62,8 +60,7 @@ public class DBRowManager
 			return;
 		}
 
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		ArchiveFiles files = store.loadFiles(archive);
 
 		for (FSFile f : files.getFiles())
 		{
@@ -0,0 +1,521 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import net.runelite.cache.fs.ArchivePipeline.FileParser;
+
+/**
+ * Column oriented store of the definitions of a config archive, indexed by id.
+ * <p>
+ * The definitions are held in their encoded form, packed into a single array, and decoded into a definition
+ * object when requested. Decoded definitions are only softly referenced, so the collector can drop those nobody
+ * holds on to and they are decoded again on the next request. The name and actions of every definition are kept
+ * decoded in columns of indexes into a table of interned strings, so they can be scanned without decoding any
+ * definitions.
+ * <p>
+ * A store can be written to a snapshot file and read back without going through the cache.
+ */
+public class DefinitionStore<T>
+{
+	private static final int MAGIC = 0x44454653; // DEFS
+	private static final int VERSION = 1;
+	private static final int NULL = -1;
+
+	private final FileParser<T> parser;
+	private final int crc;
+
+	// definition of id i is data[offsets[i]] to data[offsets[i + 1]], and is missing if that is empty
+	private final int[] offsets;
+	private final byte[] data;
+
+	private final String[] strings;
+	private final Map<String, Integer> stringIds = new HashMap<>();
+	private final int[] names;
+	// actions of id i are actions[actionOffsets[i]] to actions[actionOffsets[i + 1]]
+	private final int[] actionOffsets;
+	private final int[] actions;
+
+	private final int[] ids;
+	private final AtomicReferenceArray<SoftReference<T>> definitions;
+	// definitions changed after they were decoded, which are kept as they cannot be decoded again
+	private final T[] changed;
+
+	private DefinitionStore(FileParser<T> parser, int crc, int[] offsets, byte[] data, String[] strings, int[] names, int[] actionOffsets, int[] actions,
+		T[] changed)
+	{
+		this.parser = parser;
+		this.crc = crc;
+		this.offsets = offsets;
+		this.data = data;
+		this.strings = strings;
+		this.names = names;
+		this.actionOffsets = actionOffsets;
+		this.actions = actions;
+		this.changed = changed;
+
+		for (int i = 0; i < strings.length; ++i)
+		{
+			stringIds.put(strings[i], i);
+		}
+
+		ids = IntStream.range(0, names.length)
+			.filter(this::contains)
+			.toArray();
+		definitions = new AtomicReferenceArray<>(names.length);
+	}
+
+	/**
+	 * @param name extracts the name of a definition
+	 * @param actions extracts the actions of a definition, which may contain nulls
+	 */
+	public static <T> Builder<T> builder(FileParser<T> parser, int crc, Function<T, String> name, Function<T, String[]> actions)
+	{
+		return new Builder<>(parser, crc, name, actions);
+	}
+
+	/**
+	 * Builds the name and action columns of the encoded definitions
+	 *
+	 * @param name the name of the definition of an id
+	 * @param actions the actions of the definition of an id, which may contain nulls
+	 * @param changed the definitions to keep, or null to decode them when they are requested
+	 */
+	private static <T> DefinitionStore<T> create(FileParser<T> parser, int crc, int[] offsets, byte[] data,
+		IntFunction<String> name, IntFunction<String[]> actions, T[] changed)
+	{
+		int count = offsets.length - 1;
+		List<String> strings = new ArrayList<>();
+		Map<String, Integer> stringIds = new HashMap<>();
+		Function<String, Integer> intern = s -> s == null ? NULL : stringIds.computeIfAbsent(s, k ->
+		{
+			strings.add(k);
+			return strings.size() - 1;
+		});
+
+		int[] names = new int[count];
+		int[] actionOffsets = new int[count + 1];
+		List<Integer> actionList = new ArrayList<>();
+
+		for (int id = 0; id < count; ++id)
+		{
+			actionOffsets[id] = actionList.size();
+			names[id] = NULL;
+
+			if (offsets[id] != offsets[id + 1])
+			{
+				names[id] = intern.apply(name.apply(id));
+
+				String[] a = actions.apply(id);
+				if (a != null)
+				{
+					for (String action : a)
+					{
+						actionList.add(intern.apply(action));
+					}
+				}
+			}
+		}
+		actionOffsets[count] = actionList.size();
+
+		return new DefinitionStore<>(parser, crc, offsets, data, strings.toArray(new String[0]), names,
+			actionOffsets, actionList.stream().mapToInt(Integer::intValue).toArray(), changed);
+	}
+
+	/**
+	 * Rebuilds the columns from the decoded definitions, for definitions which were changed after they were
+	 * decoded. Every definition is decoded, and the returned store keeps the decoded definitions of this one for
+	 * as long as it is used, so callers have to hold on to the definitions they change until this is called.
+	 * The encoded definitions are unchanged, so a snapshot of the returned store should not be read back
+	 * without changing the definitions the same way.
+	 */
+	@SuppressWarnings("unchecked")
+	public DefinitionStore<T> withColumns(Function<T, String> name, Function<T, String[]> actions)
+	{
+		T[] decoded = (T[]) new Object[names.length];
+		for (int id : ids)
+		{
+			decoded[id] = get(id);
+		}
+
+		return create(parser, crc, offsets, data, id -> name.apply(decoded[id]), id -> actions.apply(decoded[id]), decoded);
+	}
+
+	/**
+	 * @return the crc of the archive the definitions were read from
+	 */
+	public int getCrc()
+	{
+		return crc;
+	}
+
+	public boolean contains(int id)
+	{
+		return id >= 0 && id < names.length && offsets[id] != offsets[id + 1];
+	}
+
+	/**
+	 * @return number of definitions
+	 */
+	public int size()
+	{
+		return ids.length;
+	}
+
+	/**
+	 * @return the ids of the definitions, in ascending order
+	 */
+	public int[] getIds()
+	{
+		return ids.clone();
+	}
+
+	/**
+	 * @return the definition, decoding it unless it is still held from an earlier request, or null if there is
+	 * none with the id
+	 */
+	public T get(int id)
+	{
+		if (!contains(id))
+		{
+			return null;
+		}
+
+		if (changed != null)
+		{
+			return changed[id];
+		}
+
+		while (true)
+		{
+			SoftReference<T> reference = definitions.get(id);
+			T definition = reference == null ? null : reference.get();
+			if (definition != null)
+			{
+				return definition;
+			}
+
+			try
+			{
+				definition = parser.parse(id, Arrays.copyOfRange(data, offsets[id], offsets[id + 1]));
+			}
+			catch (IOException ex)
+			{
+				throw new UncheckedIOException(ex);
+			}
+
+			// another thread may have decoded it at the same time, everyone gets the same definition
+			if (definitions.compareAndSet(id, reference, new SoftReference<>(definition)))
+			{
+				return definition;
+			}
+		}
+	}
+
+	/**
+	 * @return all of the definitions, in order of id, which are decoded as they are accessed
+	 */
+	public List<T> getAll()
+	{
+		return new AbstractList<>()
+		{
+			@Override
+			public T get(int index)
+			{
+				return DefinitionStore.this.get(ids[index]);
+			}
+
+			@Override
+			public int size()
+			{
+				return ids.length;
+			}
+		};
+	}
+
+	public String getName(int id)
+	{
+		return contains(id) ? string(names[id]) : null;
+	}
+
+	public String[] getActions(int id)
+	{
+		if (!contains(id))
+		{
+			return null;
+		}
+
+		String[] a = new String[actionOffsets[id + 1] - actionOffsets[id]];
+		for (int i = 0; i < a.length; ++i)
+		{
+			a[i] = string(actions[actionOffsets[id] + i]);
+		}
+		return a;
+	}
+
+	/**
+	 * @return ids of the definitions with the name, in ascending order
+	 */
+	public int[] findByName(String name)
+	{
+		Integer string = stringIds.get(name);
+		if (string == null)
+		{
+			return new int[0];
+		}
+
+		return Arrays.stream(ids)
+			.filter(id -> names[id] == string)
+			.toArray();
+	}
+
+	/**
+	 * @return ids of the definitions with the action, in ascending order
+	 */
+	public int[] findByAction(String action)
+	{
+		Integer string = stringIds.get(action);
+		if (string == null)
+		{
+			return new int[0];
+		}
+
+		return Arrays.stream(ids)
+			.filter(id -> IntStream.range(actionOffsets[id], actionOffsets[id + 1]).anyMatch(i -> actions[i] == string))
+			.toArray();
+	}
+
+	private String string(int id)
+	{
+		return id == NULL ? null : strings[id];
+	}
+
+	public void write(File file) throws IOException
+	{
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))))
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(crc);
+
+			writeInts(out, offsets);
+			out.writeInt(data.length);
+			out.write(data);
+
+			out.writeInt(strings.length);
+			for (String string : strings)
+			{
+				byte[] b = string.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(b.length);
+				out.write(b);
+			}
+
+			writeInts(out, names);
+			writeInts(out, actionOffsets);
+			writeInts(out, actions);
+		}
+	}
+
+	/**
+	 * Reads a store written by {@link #write(File)}
+	 *
+	 * @param parser decodes the definitions
+	 */
+	public static <T> DefinitionStore<T> read(File file, FileParser<T> parser) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		try
+		{
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+			{
+				throw new IOException("not a definition store snapshot: " + file);
+			}
+
+			int crc = buffer.getInt();
+
+			int[] offsets = readInts(buffer);
+			byte[] data = new byte[buffer.getInt()];
+			buffer.get(data);
+
+			String[] strings = new String[buffer.getInt()];
+			for (int i = 0; i < strings.length; ++i)
+			{
+				byte[] b = new byte[buffer.getInt()];
+				buffer.get(b);
+				strings[i] = new String(b, StandardCharsets.UTF_8);
+			}
+
+			int[] names = readInts(buffer);
+			int[] actionOffsets = readInts(buffer);
+			int[] actions = readInts(buffer);
+
+			if (offsets.length != names.length + 1 || actionOffsets.length != names.length + 1)
+			{
+				throw new IOException("corrupt definition store snapshot: " + file);
+			}
+
+			return new DefinitionStore<>(parser, crc, offsets, data, strings, names, actionOffsets, actions, null);
+		}
+		catch (BufferUnderflowException | NegativeArraySizeException ex)
+		{
+			throw new IOException("truncated definition store snapshot: " + file, ex);
+		}
+	}
+
+	private static void writeInts(DataOutputStream out, int[] ints) throws IOException
+	{
+		out.writeInt(ints.length);
+		for (int i : ints)
+		{
+			out.writeInt(i);
+		}
+	}
+
+	private static int[] readInts(ByteBuffer buffer)
+	{
+		int[] ints = new int[buffer.getInt()];
+		buffer.asIntBuffer().get(ints);
+		buffer.position(buffer.position() + ints.length * Integer.BYTES);
+		return ints;
+	}
+
+	/**
+	 * An encoded definition along with the definition decoded from it and its name and actions
+	 */
+	public static class Entry<T>
+	{
+		private final int id;
+		private final byte[] data;
+		private final T definition;
+		private final String name;
+		private final String[] actions;
+
+		private Entry(int id, byte[] data, T definition, String name, String[] actions)
+		{
+			this.id = id;
+			this.data = data;
+			this.definition = definition;
+			this.name = name;
+			this.actions = actions;
+		}
+	}
+
+	public static class Builder<T>
+	{
+		private final FileParser<T> parser;
+		private final int crc;
+		private final Function<T, String> name;
+		private final Function<T, String[]> actions;
+
+		private final List<Entry<T>> entries = new ArrayList<>();
+
+		private Builder(FileParser<T> parser, int crc, Function<T, String> name, Function<T, String[]> actions)
+		{
+			this.parser = parser;
+			this.crc = crc;
+			this.name = name;
+			this.actions = actions;
+		}
+
+		/**
+		 * Decodes a definition and extracts its columns. This does not modify the builder and may be called from
+		 * any thread.
+		 */
+		public Entry<T> parse(int id, byte[] data) throws IOException
+		{
+			T definition = parser.parse(id, data);
+			return new Entry<>(id, data, definition, name.apply(definition), actions.apply(definition));
+		}
+
+		public Builder<T> add(Entry<T> entry)
+		{
+			entries.add(entry);
+			return this;
+		}
+
+		/**
+		 * Builds the store from the columns extracted by {@link #parse(int, byte[])}. The decoded definitions are
+		 * handed to the store, which only softly references them.
+		 */
+		@SuppressWarnings("unchecked")
+		public DefinitionStore<T> build()
+		{
+			int count = entries.stream().mapToInt(e -> e.id + 1).max().orElse(0);
+			Entry<T>[] byId = new Entry[count];
+			for (Entry<T> entry : entries)
+			{
+				byId[entry.id] = entry;
+			}
+
+			int[] offsets = new int[count + 1];
+			int dataLength = 0;
+			for (int id = 0; id < count; ++id)
+			{
+				offsets[id] = dataLength;
+				if (byId[id] != null)
+				{
+					dataLength += byId[id].data.length;
+				}
+			}
+			offsets[count] = dataLength;
+
+			byte[] data = new byte[dataLength];
+			for (int id = 0; id < count; ++id)
+			{
+				if (byId[id] != null)
+				{
+					System.arraycopy(byId[id].data, 0, data, offsets[id], byId[id].data.length);
+				}
+			}
+
+			DefinitionStore<T> store = create(parser, crc, offsets, data, id -> byId[id].name, id -> byId[id].actions, null);
+			for (Entry<T> entry : entries)
+			{
+				store.definitions.set(entry.id, new SoftReference<>(entry.definition));
+			}
+			return store;
+		}
+	}
+}
@@ -26,56 +26,104 @@ package net.runelite.cache;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import net.runelite.cache.definitions.ItemDefinition;
 import net.runelite.cache.definitions.exporters.ItemExporter;
 import net.runelite.cache.definitions.loaders.ItemLoader;
 import net.runelite.cache.definitions.providers.ItemProvider;
 import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.ArchivePipeline;
 import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.util.IDClass;
 
 public class ItemManager implements ItemProvider
 {
 	private final Store store;
-	private final Map<Integer, ItemDefinition> items = new HashMap<>();
+	private final ItemLoader loader = new ItemLoader();
+	private DefinitionStore<ItemDefinition> items;
 
 	public ItemManager(Store store)
 	{
 		this.store = store;
+		this.items = builder(0).build();
 	}
 
-	public void load() throws IOException
+	private DefinitionStore.Builder<ItemDefinition> builder(int crc)
 	{
-		ItemLoader loader = new ItemLoader();
+		return DefinitionStore.builder(loader::load, crc, ItemManager::name, ItemManager::actions);
+	}
 
-		Storage storage = store.getStorage();
+	private static String name(ItemDefinition item)
+	{
+		return item.name;
+	}
+
+	private static String[] actions(ItemDefinition item)
+	{
+		return item.interfaceOptions;
+	}
+
+	private Archive getArchive()
+	{
 		Index index = store.getIndex(IndexType.CONFIGS);
-		Archive archive = index.getArchive(ConfigType.ITEM.getId());
+		return index.getArchive(ConfigType.ITEM.getId());
+	}
+
+	public void load() throws IOException
+	{
+		Archive archive = getArchive();
 
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		DefinitionStore.Builder<ItemDefinition> builder = builder(archive.getCrc());
+		new ArchivePipeline(store).forEachFile(Collections.singletonList(archive), builder::parse, builder::add);
+		items = builder.build();
+	}
 
-		for (FSFile f : files.getFiles())
+	/**
+	 * Loads the items from a snapshot written by an earlier call if it was made from the same cache, and
+	 * otherwise loads them from the cache and writes the snapshot
+	 */
+	public void load(File snapshot) throws IOException
+	{
+		Archive archive = getArchive();
+		if (snapshot.isFile())
 		{
-			ItemDefinition def = loader.load(f.getFileId(), f.getContents());
-			items.put(f.getFileId(), def);
+			try
+			{
+				DefinitionStore<ItemDefinition> definitions = DefinitionStore.read(snapshot, loader::load);
+				if (definitions.getCrc() == archive.getCrc())
+				{
+					items = definitions;
+					return;
+				}
+			}
+			catch (IOException ex)
+			{
+				// rewritten below
+			}
 		}
+
+		load();
+		items.write(snapshot);
 	}
 
+	/**
+	 * Links noted, bought and placeholder items to the items they are made from, and updates the name and
+	 * action columns of the definitions to match
+	 */
 	public void link()
 	{
-		for (ItemDefinition oc : items.values())
+		// held until the columns are rebuilt, so none of the linked definitions are dropped and decoded again
+		List<ItemDefinition> definitions = new ArrayList<>(items.getAll());
+		for (ItemDefinition oc : definitions)
 		{
 			link(oc);
 		}
+
+		items = items.withColumns(ItemManager::name, ItemManager::actions);
 	}
 
 	private void link(ItemDefinition item)
@@ -96,7 +144,16 @@ public class ItemManager implements ItemProvider
 
 	public Collection<ItemDefinition> getItems()
 	{
-		return Collections.unmodifiableCollection(items.values());
+		return items.getAll();
+	}
+
+	/**
+	 * @return the item definitions, with their interface options as the actions. The names and actions of
+	 * noted, bought and placeholder items are those of the items they are made from once {@link #link()} was called.
+	 */
+	public DefinitionStore<ItemDefinition> getDefinitions()
+	{
+		return items;
 	}
 
 	public ItemDefinition getItem(int itemId)
@@ -108,7 +165,7 @@ public class ItemManager implements ItemProvider
 	{
 		out.mkdirs();
 
-		for (ItemDefinition def : items.values())
+		for (ItemDefinition def : items.getAll())
 		{
 			ItemExporter exporter = new ItemExporter(def);
 
@@ -123,15 +180,16 @@ public class ItemManager implements ItemProvider
 		try (IDClass ids = IDClass.create(java, "ItemID");
 			IDClass nulls = IDClass.create(java, "NullItemID"))
 		{
-			for (ItemDefinition def : items.values())
+			for (int id : items.getIds())
 			{
-				if (def.name.equalsIgnoreCase("NULL"))
+				String name = items.getName(id);
+				if (name.equalsIgnoreCase("NULL"))
 				{
-					nulls.add(def.name, def.id);
+					nulls.add(name, id);
 				}
 				else
 				{
-					ids.add(def.name, def.id);
+					ids.add(name, id);
 				}
 			}
 		}
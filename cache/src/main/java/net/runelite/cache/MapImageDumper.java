@@ -24,17 +24,33 @@
  */
 package net.runelite.cache;
 
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 import javax.imageio.ImageIO;
 import lombok.Getter;
 import lombok.Setter;
@@ -56,6 +72,7 @@ import net.runelite.cache.fs.FSFile;
 import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.DiskStorage;
 import net.runelite.cache.item.RSTextureProvider;
 import net.runelite.cache.models.JagexColor;
 import net.runelite.cache.region.Location;
@@ -78,6 +95,7 @@ public class MapImageDumper
 {
 	private static final int MAP_SCALE = 4; // this squared is the number of pixels per map square
 	private static final int BLEND = 5; // number of surrounding tiles for ground blending
+	private static final int TILE_SIZE = Region.X * MAP_SCALE; // pixels per side of a tile, which is one region at level 0
 
 	private static byte[][][] TILE_SHAPE_2D;
 
@@ -160,6 +178,7 @@ public class MapImageDumper
 		options.addOption(Option.builder().longOpt("cachedir").hasArg().required().build());
 		options.addOption(Option.builder().longOpt("xteapath").hasArg().required().build());
 		options.addOption(Option.builder().longOpt("outputdir").hasArg().required().build());
+		options.addOption(Option.builder().longOpt("tiles").desc("write a pyramid of region tiles instead of one image per plane").build());
 
 		CommandLineParser parser = new DefaultParser();
 		CommandLine cmd;
@@ -177,6 +196,7 @@ public class MapImageDumper
 		final String cacheDirectory = cmd.getOptionValue("cachedir");
 		final String xteaJSONPath = cmd.getOptionValue("xteapath");
 		final String outputDirectory = cmd.getOptionValue("outputdir");
+		final boolean tiles = cmd.hasOption("tiles");
 
 		XteaKeyManager xteaKeyManager = new XteaKeyManager();
 		try (FileInputStream fin = new FileInputStream(xteaJSONPath))
@@ -188,7 +208,7 @@ public class MapImageDumper
 		File outDir = new File(outputDirectory);
 		outDir.mkdirs();
 
-		try (Store store = new Store(base))
+		try (Store store = new Store(new DiskStorage(base, true)))
 		{
 			store.load();
 
@@ -197,6 +217,13 @@ public class MapImageDumper
 
 			for (int i = 0; i < Region.Z; ++i)
 			{
+				if (tiles)
+				{
+					int drawn = dumper.drawTiles(outDir, i, ForkJoinPool.commonPool());
+					log.info("Drew {} regions of plane {}", drawn, i);
+					continue;
+				}
+
 				BufferedImage image = dumper.drawMap(i);
 
 				File imageFile = new File(outDir, "img-" + i + ".png");
@@ -219,6 +246,12 @@ public class MapImageDumper
 		loadOverlays(store);
 		objectManager.load();
 
+		if (TILE_SHAPE_2D == null)
+		{
+			// before any drawing, as regions may be drawn concurrently
+			generateTileShapes();
+		}
+
 		TextureManager textureManager = new TextureManager(store);
 		textureManager.load();
 		rsTextureProvider = new RSTextureProvider(textureManager, sprites);
@@ -303,6 +336,337 @@ public class MapImageDumper
 		return image;
 	}
 
+	/**
+	 * Draws plane z as a pyramid of tiles, written to {@code outDir/z/level/x_y.png}. Level 0 has a tile for each
+	 * region, drawn as by {@link #drawRegion(Region, int)}, and each level above halves the resolution so that
+	 * a tile covers 2x2 tiles of the level below. x and y are the region coordinates shifted right by the level.
+	 * <p>
+	 * Tiles are drawn in parallel on the given pool. A hash of the map data each region was drawn from, and of the
+	 * definitions it was drawn with, is kept in a manifest in the plane directory, and only regions whose own or
+	 * neighbouring map data or definitions have changed since the last run, along with the tiles above them, are
+	 * drawn again.
+	 *
+	 * @return the number of regions drawn
+	 */
+	public int drawTiles(File outDir, int z, ForkJoinPool pool) throws IOException
+	{
+		File planeDir = new File(outDir, Integer.toString(z));
+		File manifestFile = new File(planeDir, "tiles.json");
+
+		Map<Integer, Integer> previous = readManifest(manifestFile);
+		Map<Integer, Integer> manifest = new HashMap<>();
+
+		DefinitionHashes definitionHashes = new DefinitionHashes();
+		Map<Integer, Integer> regionHashes = new HashMap<>();
+		for (Region region : regionLoader.getRegions())
+		{
+			regionHashes.put(region.getRegionID(), 31 * regionLoader.getRegionHash(region.getRegionID()) + definitionHashes.getRegionHash(region));
+		}
+
+		int settingsHash = getSettingsHash();
+		List<Region> changedRegions = new ArrayList<>();
+		Set<Integer> changed = new HashSet<>();
+		for (Region region : regionLoader.getRegions())
+		{
+			int rx = region.getRegionX();
+			int ry = region.getRegionY();
+
+			// neighbours are blended into the ground and their objects may overhang the region
+			int hash = settingsHash;
+			for (int dx = -1; dx <= 1; ++dx)
+			{
+				for (int dy = -1; dy <= 1; ++dy)
+				{
+					hash = 31 * hash + regionHashes.getOrDefault(((rx + dx) << 8) | (ry + dy), 0);
+				}
+			}
+
+			manifest.put(region.getRegionID(), hash);
+			if (!Objects.equals(previous.get(region.getRegionID()), hash) || !tileFile(planeDir, 0, rx, ry).exists())
+			{
+				changedRegions.add(region);
+				changed.add(region.getRegionID());
+			}
+		}
+
+		for (int regionId : previous.keySet())
+		{
+			if (!manifest.containsKey(regionId))
+			{
+				Files.deleteIfExists(tileFile(planeDir, 0, regionId >> 8, regionId & 0xFF).toPath());
+				changed.add(regionId);
+			}
+		}
+
+		log.debug("Drawing {} of {} regions of plane {}", changedRegions.size(), manifest.size(), z);
+
+		drawAll(pool, changedRegions, region ->
+			writeTile(drawRegion(region, z), tileFile(planeDir, 0, region.getRegionX(), region.getRegionY())));
+
+		int minX = regionLoader.getLowestX().getRegionX();
+		int maxX = regionLoader.getHighestX().getRegionX();
+		int minY = regionLoader.getLowestY().getRegionY();
+		int maxY = regionLoader.getHighestY().getRegionY();
+
+		for (int level = 1; (minX >> (level - 1)) != (maxX >> (level - 1)) || (minY >> (level - 1)) != (maxY >> (level - 1)); ++level)
+		{
+			Set<Integer> parents = new HashSet<>();
+			for (int tile : changed)
+			{
+				parents.add(((tile >> 9) << 8) | ((tile & 0xFF) >> 1));
+			}
+
+			final int parentLevel = level;
+			drawAll(pool, parents, tile -> drawParentTile(planeDir, parentLevel, tile >> 8, tile & 0xFF));
+			changed = parents;
+		}
+
+		// only once every tile is written, so an interrupted run is redone
+		writeManifest(manifestFile, manifest);
+
+		return changedRegions.size();
+	}
+
+	private interface TileDrawer<T>
+	{
+		void draw(T tile) throws IOException;
+	}
+
+	private static <T> void drawAll(ForkJoinPool pool, Collection<T> tiles, TileDrawer<T> drawer) throws IOException
+	{
+		List<CompletableFuture<Void>> futures = new ArrayList<>(tiles.size());
+		for (T tile : tiles)
+		{
+			futures.add(CompletableFuture.runAsync(() ->
+			{
+				try
+				{
+					drawer.draw(tile);
+				}
+				catch (IOException ex)
+				{
+					throw new UncheckedIOException(ex);
+				}
+			}, pool));
+		}
+
+		for (CompletableFuture<Void> future : futures)
+		{
+			try
+			{
+				future.join();
+			}
+			catch (CompletionException e)
+			{
+				if (e.getCause() instanceof UncheckedIOException)
+				{
+					throw ((UncheckedIOException) e.getCause()).getCause();
+				}
+				throw e;
+			}
+		}
+	}
+
+	private void drawParentTile(File planeDir, int level, int x, int y) throws IOException
+	{
+		BufferedImage image = null;
+		Graphics2D graphics = null;
+
+		for (int i = 0; i < 4; ++i)
+		{
+			int dx = i & 1;
+			int dy = i >> 1;
+
+			File childFile = tileFile(planeDir, level - 1, x * 2 + dx, y * 2 + dy);
+			if (!childFile.exists())
+			{
+				continue;
+			}
+
+			if (image == null)
+			{
+				image = new BufferedImage(TILE_SIZE, TILE_SIZE, transparency ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+				graphics = image.createGraphics();
+				graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			}
+
+			// north is up, so the child with the greater y is on top
+			BufferedImage child = ImageIO.read(childFile);
+			graphics.drawImage(child, dx * TILE_SIZE / 2, (1 - dy) * TILE_SIZE / 2, TILE_SIZE / 2, TILE_SIZE / 2, null);
+		}
+
+		File file = tileFile(planeDir, level, x, y);
+		if (image == null)
+		{
+			Files.deleteIfExists(file.toPath());
+			return;
+		}
+
+		graphics.dispose();
+		writeTile(image, file);
+	}
+
+	private static File tileFile(File planeDir, int level, int x, int y)
+	{
+		return new File(planeDir, level + File.separator + x + "_" + y + ".png");
+	}
+
+	private static void writeTile(BufferedImage image, File file) throws IOException
+	{
+		file.getParentFile().mkdirs();
+		ImageIO.write(image, "png", file);
+	}
+
+	/**
+	 * @return a hash of the settings which tiles are drawn with
+	 */
+	private int getSettingsHash()
+	{
+		return Objects.hash(labelRegions, outlineRegions, renderMap, renderObjects, renderIcons, renderWalls,
+			renderOverlays, transparency);
+	}
+
+	/**
+	 * Hashes of the definitions which regions are drawn with. Only the properties the tiles are drawn from are
+	 * hashed, so an update of the configs, sprites or textures only draws the regions using what it changed.
+	 */
+	private class DefinitionHashes
+	{
+		private final Map<Integer, Integer> underlays = new HashMap<>();
+		private final Map<Integer, Integer> overlays = new HashMap<>();
+		private final Map<Integer, Integer> objects = new HashMap<>();
+		private final Map<Integer, Integer> areaHashes = new HashMap<>();
+		// region id -> hash of the world map elements in the region
+		private final Map<Integer, Integer> elements = new HashMap<>();
+
+		private DefinitionHashes()
+		{
+			for (WorldMapElementDefinition element : worldMapManager.getElements())
+			{
+				Position position = element.getWorldPosition();
+				int regionId = ((position.getX() / Region.X) << 8) | (position.getY() / Region.Y);
+				int hash = Objects.hash(position.getX(), position.getY(), position.getZ(), getAreaHash(element.getAreaDefinitionId()));
+				elements.merge(regionId, hash, (a, b) -> 31 * a + b);
+			}
+		}
+
+		/**
+		 * @return a hash of the underlays, overlays and objects used by the region, and of the map functions and
+		 * world map elements shown in it
+		 */
+		private int getRegionHash(Region region)
+		{
+			Set<Integer> underlayIds = new TreeSet<>();
+			Set<Integer> overlayIds = new TreeSet<>();
+			for (int z = 0; z < Region.Z; ++z)
+			{
+				for (int x = 0; x < Region.X; ++x)
+				{
+					for (int y = 0; y < Region.Y; ++y)
+					{
+						underlayIds.add(region.getUnderlayId(z, x, y));
+						overlayIds.add(region.getOverlayId(z, x, y));
+					}
+				}
+			}
+
+			Set<Integer> objectIds = new TreeSet<>();
+			for (Location location : region.getLocations())
+			{
+				objectIds.add(location.getId());
+			}
+
+			int hash = elements.getOrDefault(region.getRegionID(), 0);
+			for (int id : underlayIds)
+			{
+				hash = 31 * hash + (id > 0 ? underlays.computeIfAbsent(id - 1, this::getUnderlayHash) : 0);
+			}
+			for (int id : overlayIds)
+			{
+				hash = 31 * hash + (id > 0 ? overlays.computeIfAbsent(id - 1, this::getOverlayHash) : 0);
+			}
+			for (int id : objectIds)
+			{
+				hash = 31 * hash + objects.computeIfAbsent(id, this::getObjectHash);
+			}
+			return hash;
+		}
+
+		private int getUnderlayHash(int id)
+		{
+			UnderlayDefinition underlay = findUnderlay(id);
+			return underlay == null ? 0 : Objects.hash(underlay.getHue(), underlay.getSaturation(), underlay.getLightness(),
+				underlay.getHueMultiplier());
+		}
+
+		private int getOverlayHash(int id)
+		{
+			OverlayDefinition overlay = findOverlay(id);
+			if (overlay == null)
+			{
+				return 0;
+			}
+
+			int texture = overlay.getTexture();
+			return Objects.hash(overlay.getRgbColor(), overlay.getSecondaryRgbColor(), texture,
+				texture >= 0 ? rsTextureProvider.getAverageTextureRGB(texture) : 0, overlay.getHue(), overlay.getSaturation(),
+				overlay.getLightness(), overlay.getOtherHue(), overlay.getOtherSaturation(), overlay.getOtherLightness());
+		}
+
+		private int getObjectHash(int id)
+		{
+			ObjectDefinition object = findObject(id);
+			if (object == null)
+			{
+				return 0;
+			}
+
+			int mapScene = object.getMapSceneID();
+			return Objects.hash(object.getSizeX(), object.getSizeY(), object.getOffsetY(), object.getWallOrDoor(), mapScene,
+				mapScene >= 0 && mapScene < mapDecorations.length ? getSpriteHash(mapDecorations[mapScene]) : 0,
+				object.getMapAreaId() != -1 ? getAreaHash(object.getMapAreaId()) : 0);
+		}
+
+		private int getAreaHash(int id)
+		{
+			return areaHashes.computeIfAbsent(id, k ->
+			{
+				AreaDefinition area = areas.getArea(k);
+				return area == null ? 0 : Objects.hash(area.getName() != null, area.spriteId,
+					getSpriteHash(sprites.findSprite(area.spriteId, 0)));
+			});
+		}
+
+		private int getSpriteHash(SpriteDefinition sprite)
+		{
+			return sprite == null ? 0 : Objects.hash(sprite.getWidth(), sprite.getHeight(), sprite.getMaxWidth(),
+				sprite.getMaxHeight(), sprite.getOffsetX(), sprite.getOffsetY(), Arrays.hashCode(sprite.getPixels()));
+		}
+	}
+
+	private static Map<Integer, Integer> readManifest(File file) throws IOException
+	{
+		if (!file.exists())
+		{
+			return new HashMap<>();
+		}
+
+		try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+		{
+			Map<Integer, Integer> manifest = new Gson().fromJson(reader, new TypeToken<Map<Integer, Integer>>() { }.getType());
+			return manifest != null ? manifest : new HashMap<>();
+		}
+	}
+
+	private static void writeManifest(File file, Map<Integer, Integer> manifest) throws IOException
+	{
+		file.getParentFile().mkdirs();
+		try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))
+		{
+			new Gson().toJson(manifest, writer);
+		}
+	}
+
 	private void drawMap(BufferedImage image, int drawBaseX, int drawBaseY, int z, Region region)
 	{
 		if (!renderMap)
@@ -1312,32 +1676,20 @@ public class MapImageDumper
 		List<List<Location>> layers = Arrays.asList(planeLocs, pushDownLocs);
 		for (int localX = 0; localX < Region.X; localX++)
 		{
-			int regionX = localX + region.getBaseX();
 			for (int localY = 0; localY < Region.Y; localY++)
 			{
-				int regionY = localY + region.getBaseY();
-
 				planeLocs.clear();
 				pushDownLocs.clear();
 				boolean isBridge = (region.getTileSetting(1, localX, localY) & 2) != 0;
 				int tileZ = z + (isBridge ? 1 : 0);
 
-				for (Location loc : region.getLocations())
+				if ((region.getTileSetting(z, localX, localY) & 24) == 0)
 				{
-					Position pos = loc.getPosition();
-					if (pos.getX() != regionX || pos.getY() != regionY)
-					{
-						continue;
-					}
-
-					if (pos.getZ() == tileZ && (region.getTileSetting(z, localX, localY) & 24) == 0)
-					{
-						planeLocs.add(loc);
-					}
-					else if (z < 3 && pos.getZ() == tileZ + 1 && (region.getTileSetting(z + 1, localX, localY) & 8) != 0)
-					{
-						pushDownLocs.add(loc);
-					}
+					planeLocs.addAll(region.getLocations(tileZ, localX, localY));
+				}
+				if (z < 3 && (region.getTileSetting(z + 1, localX, localY) & 8) != 0)
+				{
+					pushDownLocs.addAll(region.getLocations(tileZ + 1, localX, localY));
 				}
 
 				for (List<Location> locs : layers)
@@ -28,52 +28,87 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 import net.runelite.cache.definitions.NpcDefinition;
 import net.runelite.cache.definitions.exporters.NpcExporter;
 import net.runelite.cache.definitions.loaders.NpcLoader;
 import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.ArchivePipeline;
 import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.util.IDClass;
 
 public class NpcManager
 {
 	private final Store store;
-	private final Map<Integer, NpcDefinition> npcs = new HashMap<>();
+	private final NpcLoader loader = new NpcLoader();
+	private DefinitionStore<NpcDefinition> npcs;
 
 	public NpcManager(Store store)
 	{
 		this.store = store;
+		this.npcs = builder(0).build();
 	}
 
-	public void load() throws IOException
+	private DefinitionStore.Builder<NpcDefinition> builder(int crc)
 	{
-		NpcLoader loader = new NpcLoader();
+		return DefinitionStore.builder(loader::load, crc, def -> def.name, def -> def.actions);
+	}
 
-		Storage storage = store.getStorage();
+	private Archive getArchive()
+	{
 		Index index = store.getIndex(IndexType.CONFIGS);
 		Archive archive = index.getArchive(ConfigType.NPC.getId());
 
 		loader.configureForRevision(archive.getRevision());
 
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		return archive;
+	}
+
+	public void load() throws IOException
+	{
+		Archive archive = getArchive();
 
-		for (FSFile f : files.getFiles())
+		DefinitionStore.Builder<NpcDefinition> builder = builder(archive.getCrc());
+		new ArchivePipeline(store).forEachFile(Collections.singletonList(archive), builder::parse, builder::add);
+		npcs = builder.build();
+	}
+
+	/**
+	 * Loads the npcs from a snapshot written by an earlier call if it was made from the same cache, and
+	 * otherwise loads them from the cache and writes the snapshot
+	 */
+	public void load(File snapshot) throws IOException
+	{
+		Archive archive = getArchive();
+		if (snapshot.isFile())
 		{
-			NpcDefinition npc = loader.load(f.getFileId(), f.getContents());
-			npcs.put(f.getFileId(), npc);
+			try
+			{
+				DefinitionStore<NpcDefinition> definitions = DefinitionStore.read(snapshot, loader::load);
+				if (definitions.getCrc() == archive.getCrc())
+				{
+					npcs = definitions;
+					return;
+				}
+			}
+			catch (IOException ex)
+			{
+				// rewritten below
+			}
 		}
+
+		load();
+		npcs.write(snapshot);
 	}
 
 	public Collection<NpcDefinition> getNpcs()
 	{
-		return Collections.unmodifiableCollection(npcs.values());
+		return npcs.getAll();
+	}
+
+	public DefinitionStore<NpcDefinition> getDefinitions()
+	{
+		return npcs;
 	}
 
 	public NpcDefinition get(int npcId)
@@ -85,7 +120,7 @@ public class NpcManager
 	{
 		out.mkdirs();
 
-		for (NpcDefinition def : npcs.values())
+		for (NpcDefinition def : npcs.getAll())
 		{
 			NpcExporter exporter = new NpcExporter(def);
 
@@ -100,15 +135,16 @@ public class NpcManager
 		try (IDClass ids = IDClass.create(java, "NpcID");
 			IDClass nulls = IDClass.create(java, "NullNpcID"))
 		{
-			for (NpcDefinition def : npcs.values())
+			for (int id : npcs.getIds())
 			{
-				if (def.name.equalsIgnoreCase("NULL"))
+				String name = npcs.getName(id);
+				if (name.equalsIgnoreCase("NULL"))
 				{
-					nulls.add(def.name, def.id);
+					nulls.add(name, id);
 				}
 				else
 				{
-					ids.add(def.name, def.id);
+					ids.add(name, id);
 				}
 			}
 		}
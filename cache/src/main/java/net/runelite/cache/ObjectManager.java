@@ -28,52 +28,87 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 import net.runelite.cache.definitions.ObjectDefinition;
 import net.runelite.cache.definitions.exporters.ObjectExporter;
 import net.runelite.cache.definitions.loaders.ObjectLoader;
 import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.ArchiveFiles;
-import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.ArchivePipeline;
 import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.util.IDClass;
 
 public class ObjectManager
 {
 	private final Store store;
-	private final Map<Integer, ObjectDefinition> objects = new HashMap<>();
+	private final ObjectLoader loader = new ObjectLoader();
+	private DefinitionStore<ObjectDefinition> objects;
 
 	public ObjectManager(Store store)
 	{
 		this.store = store;
+		this.objects = builder(0).build();
 	}
 
-	public void load() throws IOException
+	private DefinitionStore.Builder<ObjectDefinition> builder(int crc)
 	{
-		ObjectLoader loader = new ObjectLoader();
+		return DefinitionStore.builder(loader::load, crc, ObjectDefinition::getName, ObjectDefinition::getActions);
+	}
 
-		Storage storage = store.getStorage();
+	private Archive getArchive()
+	{
 		Index index = store.getIndex(IndexType.CONFIGS);
 		Archive archive = index.getArchive(ConfigType.OBJECT.getId());
 
 		loader.configureForRevision(archive.getRevision());
 
-		byte[] archiveData = storage.loadArchive(archive);
-		ArchiveFiles files = archive.getFiles(archiveData);
+		return archive;
+	}
+
+	public void load() throws IOException
+	{
+		Archive archive = getArchive();
 
-		for (FSFile f : files.getFiles())
+		DefinitionStore.Builder<ObjectDefinition> builder = builder(archive.getCrc());
+		new ArchivePipeline(store).forEachFile(Collections.singletonList(archive), builder::parse, builder::add);
+		objects = builder.build();
+	}
+
+	/**
+	 * Loads the objects from a snapshot written by an earlier call if it was made from the same cache, and
+	 * otherwise loads them from the cache and writes the snapshot
+	 */
+	public void load(File snapshot) throws IOException
+	{
+		Archive archive = getArchive();
+		if (snapshot.isFile())
 		{
-			ObjectDefinition def = loader.load(f.getFileId(), f.getContents());
-			objects.put(f.getFileId(), def);
+			try
+			{
+				DefinitionStore<ObjectDefinition> definitions = DefinitionStore.read(snapshot, loader::load);
+				if (definitions.getCrc() == archive.getCrc())
+				{
+					objects = definitions;
+					return;
+				}
+			}
+			catch (IOException ex)
+			{
+				// rewritten below
+			}
 		}
+
+		load();
+		objects.write(snapshot);
 	}
 
 	public Collection<ObjectDefinition> getObjects()
 	{
-		return Collections.unmodifiableCollection(objects.values());
+		return objects.getAll();
+	}
+
+	public DefinitionStore<ObjectDefinition> getDefinitions()
+	{
+		return objects;
 	}
 
 	public ObjectDefinition getObject(int id)
@@ -85,7 +120,7 @@ public class ObjectManager
 	{
 		out.mkdirs();
 
-		for (ObjectDefinition def : objects.values())
+		for (ObjectDefinition def : objects.getAll())
 		{
 			ObjectExporter exporter = new ObjectExporter(def);
 
@@ -100,15 +135,16 @@ public class ObjectManager
 		try (IDClass ids = IDClass.create(java, "ObjectID");
 			IDClass nulls = IDClass.create(java, "NullObjectID"))
 		{
-			for (ObjectDefinition def : objects.values())
+			for (int id : objects.getIds())
 			{
-				if ("null".equals(def.getName()))
+				String name = objects.getName(id);
+				if ("null".equals(name))
 				{
-					nulls.add(def.getName(), def.getId());
+					nulls.add(name, id);
 				}
 				else
 				{
-					ids.add(def.getName(), def.getId());
+					ids.add(name, id);
 				}
 			}
 		}
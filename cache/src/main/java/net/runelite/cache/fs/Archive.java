@@ -43,7 +43,6 @@ public class Archive
 	@Getter
 	private final int archiveId;
 	@Getter
-	@Setter
 	private int nameHash;
 	@Getter
 	@Setter
@@ -70,6 +69,16 @@ public class Archive
 		this.archiveId = id;
 	}
 
+	public void setNameHash(int nameHash)
+	{
+		int previousHash = this.nameHash;
+		this.nameHash = nameHash;
+		if (index != null && previousHash != nameHash)
+		{
+			index.nameHashChanged(this, previousHash);
+		}
+	}
+
 	public byte[] decompress(byte[] data) throws IOException
 	{
 		return decompress(data, null);
@@ -115,8 +124,14 @@ public class Archive
 
 	public ArchiveFiles getFiles(byte[] data, int[] keys) throws IOException
 	{
-		byte[] decompressedData = decompress(data, keys);
+		return splitFiles(decompress(data, keys));
+	}
 
+	/**
+	 * Splits the decompressed contents of this archive into its files
+	 */
+	ArchiveFiles splitFiles(byte[] decompressedData)
+	{
 		ArchiveFiles files = new ArchiveFiles();
 		for (FileData fileEntry : fileData)
 		{
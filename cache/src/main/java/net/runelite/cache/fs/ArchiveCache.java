@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.io.IOException;
+import lombok.Value;
+
+/**
+ * Cache of decompressed archive data, bounded by the total size of the data held. Entries are keyed on the
+ * crc and revision of the archive as well as its id, so an archive which is written again is not served stale.
+ * <p>
+ * The cached arrays are shared between callers and must not be modified.
+ */
+public class ArchiveCache
+{
+	@Value
+	private static class Key
+	{
+		int index;
+		int archive;
+		int crc;
+		int revision;
+	}
+
+	private final Cache<Key, byte[]> cache;
+
+	/**
+	 * @param maximumSize total size of the decompressed data to hold, in bytes
+	 */
+	public ArchiveCache(long maximumSize)
+	{
+		cache = CacheBuilder.newBuilder()
+			.maximumWeight(maximumSize)
+			.weigher((Key key, byte[] data) -> data.length)
+			.recordStats()
+			.build();
+	}
+
+	private static Key key(Archive archive)
+	{
+		return new Key(archive.getIndex().getId(), archive.getArchiveId(), archive.getCrc(), archive.getRevision());
+	}
+
+	/**
+	 * @return the decompressed data of the archive, or null if it is not cached
+	 */
+	public byte[] get(Archive archive)
+	{
+		return cache.getIfPresent(key(archive));
+	}
+
+	public void put(Archive archive, byte[] data)
+	{
+		cache.put(key(archive), data);
+	}
+
+	/**
+	 * Loads and decompresses the archive from storage if it is not cached
+	 *
+	 * @return the decompressed data of the archive, or null if the storage does not have it
+	 */
+	public byte[] load(Storage storage, Archive archive, int[] keys) throws IOException
+	{
+		byte[] data = get(archive);
+		if (data == null)
+		{
+			data = archive.decompress(storage.loadArchive(archive), keys);
+			if (data != null)
+			{
+				put(archive, data);
+			}
+		}
+		return data;
+	}
+
+	public void invalidateAll()
+	{
+		cache.invalidateAll();
+	}
+
+	/**
+	 * @return number of archives cached
+	 */
+	public long size()
+	{
+		return cache.size();
+	}
+
+	/**
+	 * @return hit, miss and eviction counts since the cache was created
+	 */
+	public CacheStats stats()
+	{
+		return cache.stats();
+	}
+}
@@ -25,6 +25,7 @@
 package net.runelite.cache.fs;
 
 import com.google.common.base.Preconditions;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -108,6 +109,19 @@ public class ArchiveFiles
 			}
 		}
 
+		if (chunks == 1)
+		{
+			// the files are stored whole one after another, so they can be slices of the archive
+			ByteBuffer buffer = ByteBuffer.wrap(data);
+			Iterator<FSFile> iter = files.values().iterator();
+			for (int i = 0, offset = 0; i < filesCount; offset += filesSize[i++])
+			{
+				buffer.limit(offset + filesSize[i]).position(offset);
+				iter.next().setBuffer(buffer.slice());
+			}
+			return;
+		}
+
 		byte[][] fileContents = new byte[filesCount][];
 		int[] fileOffsets = new int[filesCount];
 
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing table from name hash to archive. When several archives share a name hash, like
+ * the unnamed archives of an index which all hash to 0, the one with the lowest id is kept, along with
+ * the number of archives with the hash.
+ */
+class ArchiveNames
+{
+	private static final int MIN_CAPACITY = 16;
+
+	private int[] hashes = new int[MIN_CAPACITY];
+	private Archive[] archives = new Archive[MIN_CAPACITY];
+	private int[] counts = new int[MIN_CAPACITY];
+	private int size;
+
+	Archive get(int hash)
+	{
+		int mask = archives.length - 1;
+		for (int slot = mix(hash) & mask; archives[slot] != null; slot = (slot + 1) & mask)
+		{
+			if (hashes[slot] == hash)
+			{
+				return archives[slot];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Counts another archive with the hash, and maps the hash to it unless it is already mapped to an archive
+	 * with a lower id.
+	 */
+	void add(int hash, Archive archive)
+	{
+		int mask = archives.length - 1;
+		int slot = mix(hash) & mask;
+		for (; archives[slot] != null; slot = (slot + 1) & mask)
+		{
+			if (hashes[slot] == hash)
+			{
+				if (archive.getArchiveId() < archives[slot].getArchiveId())
+				{
+					archives[slot] = archive;
+				}
+				++counts[slot];
+				return;
+			}
+		}
+
+		insert(slot, hash, archive, 1);
+		if (++size * 2 > archives.length)
+		{
+			resize(archives.length * 2);
+		}
+	}
+
+	/**
+	 * Maps the hash to an archive already counted with it.
+	 */
+	void replace(int hash, Archive archive)
+	{
+		archives[find(hash)] = archive;
+	}
+
+	/**
+	 * Uncounts an archive with the hash, and unmaps the hash once no archive has it.
+	 *
+	 * @return whether the hash was mapped to the archive and other archives still have it, which the
+	 * caller then has to {@link #replace} it with
+	 */
+	boolean remove(int hash, Archive archive)
+	{
+		int slot = find(hash);
+		if (slot < 0)
+		{
+			return false;
+		}
+
+		if (--counts[slot] > 0)
+		{
+			return archives[slot] == archive;
+		}
+
+		// Shift later entries of the probe sequence back into the gap
+		int mask = archives.length - 1;
+		int gap = slot;
+		for (slot = (slot + 1) & mask; archives[slot] != null; slot = (slot + 1) & mask)
+		{
+			int home = mix(hashes[slot]) & mask;
+			if (((slot - home) & mask) >= ((slot - gap) & mask))
+			{
+				insert(gap, hashes[slot], archives[slot], counts[slot]);
+				gap = slot;
+			}
+		}
+
+		insert(gap, 0, null, 0);
+		--size;
+		return false;
+	}
+
+	void clear()
+	{
+		Arrays.fill(hashes, 0);
+		Arrays.fill(archives, null);
+		Arrays.fill(counts, 0);
+		size = 0;
+	}
+
+	private int find(int hash)
+	{
+		int mask = archives.length - 1;
+		for (int slot = mix(hash) & mask; archives[slot] != null; slot = (slot + 1) & mask)
+		{
+			if (hashes[slot] == hash)
+			{
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	private void insert(int slot, int hash, Archive archive, int count)
+	{
+		hashes[slot] = hash;
+		archives[slot] = archive;
+		counts[slot] = count;
+	}
+
+	private void resize(int capacity)
+	{
+		int[] oldHashes = hashes;
+		Archive[] oldArchives = archives;
+		int[] oldCounts = counts;
+		hashes = new int[capacity];
+		archives = new Archive[capacity];
+		counts = new int[capacity];
+
+		int mask = capacity - 1;
+		for (int i = 0; i < oldArchives.length; i++)
+		{
+			if (oldArchives[i] != null)
+			{
+				int slot = mix(oldHashes[i]) & mask;
+				while (archives[slot] != null)
+				{
+					slot = (slot + 1) & mask;
+				}
+				insert(slot, oldHashes[i], oldArchives[i], oldCounts[i]);
+			}
+		}
+	}
+
+	private static int mix(int hash)
+	{
+		// Djb2 hashes of similar names, like m50_50 and m50_51, differ only in their low bits
+		int h = hash * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads archives in three stages: a reader thread loads them from storage, a work stealing pool decrypts,
+ * decompresses and parses them, and the results are handed out as a stream in the order the archives were
+ * given. At most {@code window} archives are between the reader and the consumer of the stream, so memory
+ * stays bounded however many archives are loaded.
+ * <p>
+ * Streams not consumed to the end should be closed, which stops their reader.
+ */
+public class ArchivePipeline
+{
+	private static final Logger logger = LoggerFactory.getLogger(ArchivePipeline.class);
+
+	// files parsed by one task when parsing the files of an archive in parallel
+	private static final int FILES_PER_TASK = 256;
+
+	private static final Object END = new Object();
+
+	@FunctionalInterface
+	public interface ArchiveParser<T>
+	{
+		/**
+		 * @param data the decrypted and decompressed contents of the archive
+		 */
+		T parse(Archive archive, byte[] data) throws IOException;
+	}
+
+	@FunctionalInterface
+	public interface FileParser<T>
+	{
+		T parse(int fileId, byte[] contents) throws IOException;
+	}
+
+	private final Storage storage;
+	private final ArchiveCache cache;
+	private final ForkJoinPool pool;
+	private final int window;
+
+	public ArchivePipeline(Storage storage)
+	{
+		this(storage, null, ForkJoinPool.commonPool(), ForkJoinPool.commonPool().getParallelism() * 2);
+	}
+
+	/**
+	 * Creates a pipeline on the storage of the store, which goes through its archive cache if it has one
+	 */
+	public ArchivePipeline(Store store)
+	{
+		this(store.getStorage(), store.getArchiveCache(), ForkJoinPool.commonPool(), ForkJoinPool.commonPool().getParallelism() * 2);
+	}
+
+	public ArchivePipeline(Storage storage, ForkJoinPool pool, int window)
+	{
+		this(storage, null, pool, window);
+	}
+
+	/**
+	 * @param cache cache of decompressed archives to use, or null to decompress every archive loaded
+	 */
+	public ArchivePipeline(Storage storage, ArchiveCache cache, ForkJoinPool pool, int window)
+	{
+		if (window < 1)
+		{
+			throw new IllegalArgumentException("window must be positive");
+		}
+
+		this.storage = storage;
+		this.cache = cache;
+		this.pool = pool;
+		this.window = window;
+	}
+
+	/**
+	 * Loads and parses the archives.
+	 *
+	 * @param keys xtea keys of each archive, or null if none are encrypted
+	 * @return the parsed archives, in the order of {@code archives}. A failure to load or parse an archive is
+	 * thrown from the stream as an {@link UncheckedIOException} once it is reached.
+	 */
+	public <T> Stream<T> load(Collection<Archive> archives, Function<Archive, int[]> keys, ArchiveParser<T> parser)
+	{
+		BlockingQueue<Object> queue = new ArrayBlockingQueue<>(window);
+		Reader<T> reader = new Reader<>(new ArrayList<>(archives), keys, parser, queue);
+		Thread thread = new Thread(reader, "cache-reader");
+		thread.setDaemon(true);
+		thread.start();
+
+		return StreamSupport.stream(new Results<T>(queue), false)
+			.onClose(thread::interrupt);
+	}
+
+	public <T> Stream<T> load(Collection<Archive> archives, ArchiveParser<T> parser)
+	{
+		return load(archives, null, parser);
+	}
+
+	/**
+	 * Loads the archives and parses each of their files, the files of an archive are parsed in parallel.
+	 *
+	 * @return the parsed files, archive by archive in the order of {@code archives} and in file order within each
+	 */
+	public <T> Stream<T> loadFiles(Collection<Archive> archives, FileParser<T> parser)
+	{
+		return load(archives, null, files(parser)).flatMap(List::stream);
+	}
+
+	/**
+	 * Loads and parses the archives, passing each result to {@code action} on the calling thread in the order of
+	 * {@code archives}.
+	 */
+	public <T> void forEach(Collection<Archive> archives, ArchiveParser<T> parser, Consumer<? super T> action) throws IOException
+	{
+		try (Stream<T> stream = load(archives, parser))
+		{
+			stream.forEachOrdered(action);
+		}
+		catch (UncheckedIOException e)
+		{
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Loads the archives and parses each of their files, passing each result to {@code action} on the calling
+	 * thread in the order of {@link #loadFiles(Collection, FileParser)}.
+	 */
+	public <T> void forEachFile(Collection<Archive> archives, FileParser<T> parser, Consumer<? super T> action) throws IOException
+	{
+		try (Stream<T> stream = loadFiles(archives, parser))
+		{
+			stream.forEachOrdered(action);
+		}
+		catch (UncheckedIOException e)
+		{
+			throw e.getCause();
+		}
+	}
+
+	private <T> ArchiveParser<List<T>> files(FileParser<T> parser)
+	{
+		return (archive, data) ->
+		{
+			List<FSFile> list = new ArrayList<>(archive.splitFiles(data).getFiles());
+			if (list.size() <= FILES_PER_TASK)
+			{
+				return new ParseFiles<>(parser, list).compute();
+			}
+			return pool.invoke(new ParseFiles<>(parser, list));
+		};
+	}
+
+	private class Reader<T> implements Runnable
+	{
+		private final List<Archive> archives;
+		private final Function<Archive, int[]> keys;
+		private final ArchiveParser<T> parser;
+		private final BlockingQueue<Object> queue;
+
+		Reader(List<Archive> archives, Function<Archive, int[]> keys, ArchiveParser<T> parser, BlockingQueue<Object> queue)
+		{
+			this.archives = archives;
+			this.keys = keys;
+			this.parser = parser;
+			this.queue = queue;
+		}
+
+		@Override
+		public void run()
+		{
+			try
+			{
+				for (Archive archive : archives)
+				{
+					CompletableFuture<T> result;
+					try
+					{
+						byte[] cached = cache != null ? cache.get(archive) : null;
+						if (cached != null)
+						{
+							result = CompletableFuture.supplyAsync(() -> parse(archive, cached), pool);
+						}
+						else
+						{
+							byte[] compressed = storage.loadArchive(archive);
+							int[] key = keys != null ? keys.apply(archive) : null;
+							result = CompletableFuture.supplyAsync(() -> decode(archive, compressed, key), pool);
+						}
+					}
+					catch (IOException | RuntimeException e)
+					{
+						result = new CompletableFuture<>();
+						result.completeExceptionally(e);
+					}
+
+					queue.put(result);
+				}
+
+				queue.put(END);
+			}
+			catch (InterruptedException e)
+			{
+				logger.debug("Archive pipeline closed before all archives were loaded");
+			}
+		}
+
+		private T decode(Archive archive, byte[] compressed, int[] key)
+		{
+			try
+			{
+				if (compressed == null)
+				{
+					throw new IOException("Unable to read archive " + archive.getIndex().getId() + "/" + archive.getArchiveId());
+				}
+
+				byte[] data = archive.decompress(compressed, key);
+				if (cache != null)
+				{
+					cache.put(archive, data);
+				}
+				return parser.parse(archive, data);
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		private T parse(Archive archive, byte[] data)
+		{
+			try
+			{
+				return parser.parse(archive, data);
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private static class Results<T> extends Spliterators.AbstractSpliterator<T>
+	{
+		private final BlockingQueue<Object> queue;
+		private boolean done;
+
+		Results(BlockingQueue<Object> queue)
+		{
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+			this.queue = queue;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean tryAdvance(Consumer<? super T> action)
+		{
+			if (done)
+			{
+				return false;
+			}
+
+			Object next;
+			try
+			{
+				next = queue.take();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for an archive", e);
+			}
+
+			if (next == END)
+			{
+				done = true;
+				return false;
+			}
+
+			try
+			{
+				action.accept(((CompletableFuture<T>) next).join());
+			}
+			catch (CompletionException e)
+			{
+				done = true;
+				Throwable cause = e.getCause();
+				if (cause instanceof UncheckedIOException)
+				{
+					throw (UncheckedIOException) cause;
+				}
+				if (cause instanceof IOException)
+				{
+					throw new UncheckedIOException((IOException) cause);
+				}
+				throw e;
+			}
+			return true;
+		}
+	}
+
+	private static class ParseFiles<T> extends RecursiveTask<List<T>>
+	{
+		private final FileParser<T> parser;
+		private final List<FSFile> files;
+
+		ParseFiles(FileParser<T> parser, List<FSFile> files)
+		{
+			this.parser = parser;
+			this.files = files;
+		}
+
+		@Override
+		protected List<T> compute()
+		{
+			if (files.size() > FILES_PER_TASK)
+			{
+				int half = files.size() / 2;
+				ParseFiles<T> left = new ParseFiles<>(parser, files.subList(0, half));
+				ParseFiles<T> right = new ParseFiles<>(parser, files.subList(half, files.size()));
+				ForkJoinTask.invokeAll(left, right);
+
+				List<T> parsed = new ArrayList<>(files.size());
+				parsed.addAll(left.join());
+				parsed.addAll(right.join());
+				return parsed;
+			}
+
+			List<T> parsed = new ArrayList<>(files.size());
+			for (FSFile file : files)
+			{
+				try
+				{
+					parsed.add(parser.parse(file.getFileId(), file.getContents()));
+				}
+				catch (IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+			}
+			return parsed;
+		}
+	}
+}
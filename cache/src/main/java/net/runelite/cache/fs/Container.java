@@ -27,8 +27,9 @@ package net.runelite.cache.fs;
 import static com.google.common.primitives.Bytes.concat;
 import com.google.common.primitives.Ints;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import net.runelite.cache.fs.jagex.CompressionType;
-import net.runelite.cache.io.InputStream;
 import net.runelite.cache.io.OutputStream;
 import net.runelite.cache.util.BZip2;
 import net.runelite.cache.util.Crc32;
@@ -37,6 +38,11 @@ import net.runelite.cache.util.Xtea;
 
 public class Container
 {
+	// deflate can not expand data more than this
+	private static final int MAX_DEFLATE_RATIO = 1032;
+	// bzip2 can expand data almost without bound, but no archive comes close to this size
+	private static final int MAX_BZIP2_LENGTH = 32 * 1024 * 1024;
+
 	public byte[] data;
 	public int compression; // compression
 	public int revision;
@@ -90,79 +96,69 @@ public class Container
 		this.crc = crc32.getHash();
 	}
 
+	/**
+	 * Decodes a container. The payload is checksummed and decompressed where it is in {@code b}, and
+	 * decompressed straight into the container data. Encrypted payloads are copied once to be decrypted,
+	 * so {@code b} is never modified.
+	 */
 	public static Container decompress(byte[] b, int[] keys) throws IOException
 	{
-		InputStream stream = new InputStream(b);
+		ByteBuffer buffer = ByteBuffer.wrap(b);
 
-		int compression = stream.readUnsignedByte();
-		int compressedLength = stream.readInt();
+		int compression = buffer.get() & 0xFF;
+		int compressedLength = buffer.getInt();
 		if (compressedLength < 0)
 		{
 			throw new RuntimeException("Invalid data");
 		}
 
+		// compressed payloads are prefixed with their decompressed length
+		int payloadLength = compression == CompressionType.NONE ? compressedLength : compressedLength + 4;
+		if (buffer.remaining() < payloadLength)
+		{
+			throw new IOException("Container is truncated, " + buffer.remaining() + " < " + payloadLength);
+		}
+
 		Crc32 crc32 = new Crc32();
-		crc32.update(b, 0, 5); // compression + length
+		crc32.update(b, 0, 5 + payloadLength); // compression + length + payload
+
+		byte[] payload = b;
+		int offset = 5;
+		if (keys != null)
+		{
+			payload = Arrays.copyOfRange(b, offset, offset + payloadLength);
+			offset = 0;
+			new Xtea(keys).decrypt(payload, 0, payloadLength);
+		}
 
 		byte[] data;
 		switch (compression)
 		{
 			case CompressionType.NONE:
-			{
-				byte[] encryptedData = new byte[compressedLength];
-				stream.readBytes(encryptedData, 0, compressedLength);
-
-				crc32.update(encryptedData, 0, compressedLength);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
-				data = decryptedData;
-
+				data = payload != b ? payload : Arrays.copyOfRange(b, offset, offset + payloadLength);
 				break;
-			}
 			case CompressionType.BZ2:
-			{
-				byte[] encryptedData = new byte[compressedLength + 4];
-				stream.readBytes(encryptedData);
-
-				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
-				InputStream decryptedStream = new InputStream(decryptedData);
-
-				int decompressedLength = decryptedStream.readInt();
-				data = BZip2.decompress(decryptedStream.getRemaining(), compressedLength);
-				assert data.length == decompressedLength;
-
+				data = new byte[decompressedLength(payload, offset, MAX_BZIP2_LENGTH)];
+				BZip2.decompress(payload, offset + 4, compressedLength, data);
 				break;
-			}
 			case CompressionType.GZ:
-			{
-				byte[] encryptedData = new byte[compressedLength + 4];
-				stream.readBytes(encryptedData);
-
-				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
-				InputStream decryptedStream = new InputStream(decryptedData);
-
-				int decompressedLength = decryptedStream.readInt();
-				data = GZip.decompress(decryptedStream.getRemaining(), compressedLength);
-				assert data.length == decompressedLength;
-
+				data = new byte[decompressedLength(payload, offset, (long) compressedLength * MAX_DEFLATE_RATIO)];
+				GZip.decompress(payload, offset + 4, compressedLength, data);
 				break;
-			}
 			default:
 				throw new RuntimeException("Unknown compression type");
 		}
 
+		buffer.position(5 + payloadLength);
+
 		int revision = -1;
-		if (stream.remaining() >= 4)
+		if (buffer.remaining() >= 4)
 		{
-			revision = stream.readInt();
+			revision = buffer.getInt();
 		}
-		else if (stream.remaining() >= 2)
+		else if (buffer.remaining() >= 2)
 		{
-			revision = stream.readUnsignedShort();
+			revision = buffer.getShort() & 0xFFFF;
 		}
 
 		Container container = new Container(compression, revision);
@@ -171,15 +167,18 @@ public class Container
 		return container;
 	}
 
-	private static byte[] decrypt(byte[] data, int length, int[] keys)
+	/**
+	 * Reads the decompressed length the output buffer is allocated with. It is bounded by what the compressed
+	 * data can expand to, as an archive decrypted with the wrong keys has a garbage length.
+	 */
+	private static int decompressedLength(byte[] payload, int offset, long max) throws IOException
 	{
-		if (keys == null)
+		int length = Ints.fromBytes(payload[offset], payload[offset + 1], payload[offset + 2], payload[offset + 3]);
+		if (length < 0 || length > max)
 		{
-			return data;
+			throw new IOException("Invalid decompressed length " + length);
 		}
-
-		Xtea xtea = new Xtea(keys);
-		return xtea.decrypt(data, length);
+		return length;
 	}
 
 	private static byte[] encrypt(byte[] data, int length, int[] keys)
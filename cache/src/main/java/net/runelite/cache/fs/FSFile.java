@@ -25,6 +25,7 @@
 
 package net.runelite.cache.fs;
 
+import java.nio.ByteBuffer;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
@@ -37,17 +38,56 @@ public class FSFile
 	@Getter
 	@Setter
 	private int nameHash;
-	@Getter
-	@Setter
 	private byte[] contents;
+	// read only slice of the archive the file was loaded from, until the contents are needed as an array
+	private ByteBuffer buffer;
 
 	public FSFile(int fileId)
 	{
 		this.fileId = fileId;
 	}
 
+	/**
+	 * @return the contents of the file. A file loaded as a slice of its archive is copied out of it on first use.
+	 */
+	public byte[] getContents()
+	{
+		if (contents == null && buffer != null)
+		{
+			byte[] b = new byte[buffer.remaining()];
+			buffer.duplicate().get(b);
+			contents = b;
+		}
+		return contents;
+	}
+
+	public void setContents(byte[] contents)
+	{
+		this.contents = contents;
+		this.buffer = null;
+	}
+
+	/**
+	 * @return a read only view of the contents of the file, which is not copied for a file loaded as a
+	 * slice of its archive
+	 */
+	public ByteBuffer getBuffer()
+	{
+		if (buffer != null)
+		{
+			return buffer.duplicate();
+		}
+		return contents != null ? ByteBuffer.wrap(contents).asReadOnlyBuffer() : null;
+	}
+
+	void setBuffer(ByteBuffer buffer)
+	{
+		this.contents = null;
+		this.buffer = buffer.asReadOnlyBuffer();
+	}
+
 	public int getSize()
 	{
-		return contents.length;
+		return buffer != null ? buffer.remaining() : contents.length;
 	}
 }
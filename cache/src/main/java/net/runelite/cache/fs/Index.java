@@ -61,6 +61,7 @@ public class Index
 	private int compression; // compression method of this index's data in 255
 
 	private final List<Archive> archives = new ArrayList<>();
+	private final ArchiveNames names = new ArchiveNames();
 
 	public Index(int id)
 	{
@@ -83,6 +84,7 @@ public class Index
 		idx = -idx - 1;
 		Archive archive = new Archive(this, id);
 		this.archives.add(idx, archive);
+		names.add(archive.getNameHash(), archive);
 		return archive;
 	}
 
@@ -127,20 +129,58 @@ public class Index
 
 	public boolean removeArchive(Archive archive)
 	{
-		return archives.remove(archive);
+		int idx = archives.indexOf(archive);
+		if (idx < 0)
+		{
+			return false;
+		}
+
+		Archive removed = archives.remove(idx);
+		unname(removed.getNameHash(), removed, idx);
+		return true;
 	}
 
 	public Archive findArchiveByName(String name)
 	{
-		int hash = Djb2.hash(name);
-		for (Archive a : archives)
+		return names.get(Djb2.hash(name));
+	}
+
+	/**
+	 * Called by archives of this index when their name hash changes, which the storage loaders do
+	 * after adding them.
+	 */
+	void nameHashChanged(Archive archive, int previousHash)
+	{
+		int idx = findArchiveIndex(archive.getArchiveId());
+		if (idx < 0 || archives.get(idx) != archive)
+		{
+			return;
+		}
+
+		unname(previousHash, archive, idx + 1);
+		names.add(archive.getNameHash(), archive);
+	}
+
+	/**
+	 * @param next position of the first archive after the unnamed one
+	 */
+	private void unname(int hash, Archive archive, int next)
+	{
+		if (!names.remove(hash, archive))
+		{
+			return;
+		}
+
+		// the archive had the lowest id of those sharing the hash, the next lowest comes after it
+		for (int i = next; i < archives.size(); i++)
 		{
+			Archive a = archives.get(i);
 			if (a.getNameHash() == hash)
 			{
-				return a;
+				names.replace(hash, a);
+				return;
 			}
 		}
-		return null;
 	}
 
 	public IndexData toIndexData()
@@ -38,6 +38,7 @@ public final class Store implements Closeable
 {
 	private final Storage storage;
 	private final List<Index> indexes = new ArrayList<>();
+	private ArchiveCache archiveCache;
 
 	public Store(File folder) throws IOException
 	{
@@ -57,6 +58,19 @@ public final class Store implements Closeable
 		return storage;
 	}
 
+	public ArchiveCache getArchiveCache()
+	{
+		return archiveCache;
+	}
+
+	/**
+	 * Sets the cache used for the decompressed data of archives loaded through this store, or null to not cache it
+	 */
+	public void setArchiveCache(ArchiveCache archiveCache)
+	{
+		this.archiveCache = archiveCache;
+	}
+
 	@Override
 	public void close() throws IOException
 	{
@@ -95,6 +109,19 @@ public final class Store implements Closeable
 		storage.save(this);
 	}
 
+	/**
+	 * Loads the files of an archive, through the archive cache if one is set
+	 */
+	public ArchiveFiles loadFiles(Archive archive) throws IOException
+	{
+		if (archiveCache == null)
+		{
+			return archive.getFiles(storage.loadArchive(archive));
+		}
+
+		return archive.splitFiles(archiveCache.load(storage, archive, null));
+	}
+
 	public List<Index> getIndexes()
 	{
 		return indexes;
@@ -27,8 +27,12 @@ package net.runelite.cache.fs.jagex;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.Container;
 import net.runelite.cache.fs.Index;
@@ -52,12 +56,37 @@ public class DiskStorage implements Storage
 	private final IndexFile index255;
 	private final List<IndexFile> indexFiles = new ArrayList<>();
 
+	// read paths used instead of the files above when memory mapped, indexed by index id
+	private final MappedDataFile mappedData;
+	private final AtomicReferenceArray<MappedIndexFile> mappedIndexFiles = new AtomicReferenceArray<>(256);
+	// set by writes, the mappings are refreshed before the next read
+	private volatile boolean mappingsStale;
+
 	public DiskStorage(File folder) throws IOException
+	{
+		this(folder, false);
+	}
+
+	/**
+	 * @param memoryMapped whether to read archives through memory mappings of the cache files, which
+	 *                     concurrent readers do not have to take turns on. Writes still go through the files.
+	 */
+	public DiskStorage(File folder, boolean memoryMapped) throws IOException
 	{
 		this.folder = folder;
 
 		this.data = new DataFile(new File(folder, MAIN_FILE_CACHE_DAT));
 		this.index255 = new IndexFile(255, new File(folder, MAIN_FILE_CACHE_IDX + "255"));
+
+		if (memoryMapped)
+		{
+			this.mappedData = new MappedDataFile(new File(folder, MAIN_FILE_CACHE_DAT));
+			this.mappedIndexFiles.set(255, new MappedIndexFile(index255));
+		}
+		else
+		{
+			this.mappedData = null;
+		}
 	}
 
 	@Override
@@ -81,6 +110,19 @@ public class DiskStorage implements Storage
 		{
 			indexFile.close();
 		}
+
+		if (mappedData != null)
+		{
+			mappedData.close();
+			for (int i = 0; i < mappedIndexFiles.length(); ++i)
+			{
+				MappedIndexFile mappedIndexFile = mappedIndexFiles.get(i);
+				if (mappedIndexFile != null)
+				{
+					mappedIndexFile.close();
+				}
+			}
+		}
 	}
 
 	private IndexFile getIndex(int i) throws FileNotFoundException
@@ -103,38 +145,115 @@ public class DiskStorage implements Storage
 		return indexFile;
 	}
 
+	private MappedIndexFile getMappedIndex(int i) throws IOException
+	{
+		if (mappingsStale)
+		{
+			remap();
+		}
+
+		MappedIndexFile mappedIndexFile = mappedIndexFiles.get(i);
+		if (mappedIndexFile != null)
+		{
+			return mappedIndexFile;
+		}
+
+		synchronized (this)
+		{
+			mappedIndexFile = mappedIndexFiles.get(i);
+			if (mappedIndexFile == null)
+			{
+				mappedIndexFile = new MappedIndexFile(getIndex(i));
+				mappedIndexFiles.set(i, mappedIndexFile);
+			}
+			return mappedIndexFile;
+		}
+	}
+
 	@Override
 	public void load(Store store) throws IOException
 	{
+		// read the indexes here, and decode them on the common pool while the next is read
+		List<CompletableFuture<Void>> decoded = new ArrayList<>();
 		for (Index index : store.getIndexes())
 		{
-			loadIndex(index);
+			logger.trace("Loading index {}", index.getId());
+
+			byte[] indexData = readIndex(index.getId());
+			if (indexData != null)
+			{
+				decoded.add(CompletableFuture.runAsync(() -> decodeIndex(index, indexData)));
+			}
+		}
+
+		for (CompletableFuture<Void> future : decoded)
+		{
+			try
+			{
+				future.join();
+			}
+			catch (CompletionException e)
+			{
+				if (e.getCause() instanceof UncheckedIOException)
+				{
+					throw ((UncheckedIOException) e.getCause()).getCause();
+				}
+				throw e;
+			}
 		}
 	}
 
 	public byte[] readIndex(int indexId) throws IOException
 	{
-		IndexEntry entry = index255.read(indexId);
+		IndexEntry entry = mappedData != null ? getMappedIndex(255).read(indexId) : index255.read(indexId);
 		if (entry == null)
 		{
 			return null;
 		}
 
-		byte[] indexData = data.read(index255.getIndexFileId(), entry.getId(), entry.getSector(), entry.getLength());
-		return indexData;
+		return read(index255.getIndexFileId(), entry);
 	}
 
-	private void loadIndex(Index index) throws IOException
+	private synchronized void remap() throws IOException
 	{
-		logger.trace("Loading index {}", index.getId());
-
-		byte[] indexData = readIndex(index.getId());
-		if (indexData == null)
+		if (!mappingsStale)
 		{
 			return;
 		}
 
-		Container res = Container.decompress(indexData, null);
+		mappedData.remap();
+		for (int i = 0; i < mappedIndexFiles.length(); ++i)
+		{
+			MappedIndexFile mappedIndexFile = mappedIndexFiles.get(i);
+			if (mappedIndexFile != null)
+			{
+				mappedIndexFile.remap();
+			}
+		}
+		mappingsStale = false;
+	}
+
+	private byte[] read(int index, IndexEntry entry) throws IOException
+	{
+		if (mappedData != null)
+		{
+			return mappedData.read(index, entry.getId(), entry.getSector(), entry.getLength());
+		}
+
+		return data.read(index, entry.getId(), entry.getSector(), entry.getLength());
+	}
+
+	private static void decodeIndex(Index index, byte[] indexData)
+	{
+		Container res;
+		try
+		{
+			res = Container.decompress(indexData, null);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
 		byte[] data = res.data;
 
 		IndexData id = new IndexData();
@@ -191,11 +310,20 @@ public class DiskStorage implements Storage
 	@Override
 	public byte[] load(int index, int archive) throws IOException
 	{
-		IndexFile indexFile = getIndex(index);
+		IndexEntry entry;
+		if (mappedData != null)
+		{
+			entry = getMappedIndex(index).read(archive);
+		}
+		else
+		{
+			IndexFile indexFile = getIndex(index);
 
-		assert indexFile.getIndexFileId() == index;
+			assert indexFile.getIndexFileId() == index;
+
+			entry = indexFile.read(archive);
+		}
 
-		IndexEntry entry = indexFile.read(archive);
 		if (entry == null)
 		{
 			logger.debug("can't read archive {} from index {}", archive, index);
@@ -207,7 +335,7 @@ public class DiskStorage implements Storage
 		logger.trace("Loading archive {} for index {} from sector {} length {}",
 			archive, index, entry.getSector(), entry.getLength());
 
-		byte[] archiveData = data.read(index, entry.getId(), entry.getSector(), entry.getLength());
+		byte[] archiveData = read(index, entry);
 		return archiveData;
 	}
 
@@ -220,6 +348,8 @@ public class DiskStorage implements Storage
 		DataFileWriteResult res = data.write(index, archive, archiveData);
 		indexFile.write(new IndexEntry(indexFile, archive, res.sector, res.compressedLength));
 
+		mappingsStale = mappedData != null;
+
 		logger.trace("Saved archive {}/{} at sector {}, compressed length {}",
 			index, archive, res.sector, res.compressedLength);
 	}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.jagex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read only mapping of a file made of fixed size records. A single buffer can map at most 2GB, so
+ * larger files are mapped in segments, each holding a whole number of records.
+ */
+final class FileMapping
+{
+	private final MappedByteBuffer[] segments;
+	private final int segmentSize;
+	private final long length;
+
+	private FileMapping(MappedByteBuffer[] segments, int segmentSize, long length)
+	{
+		this.segments = segments;
+		this.segmentSize = segmentSize;
+		this.length = length;
+	}
+
+	static FileMapping map(FileChannel channel, int recordSize) throws IOException
+	{
+		long length = channel.size();
+		int segmentSize = Integer.MAX_VALUE / recordSize * recordSize;
+		MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((length + segmentSize - 1) / segmentSize)];
+		for (int i = 0; i < segments.length; ++i)
+		{
+			long position = (long) i * segmentSize;
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segmentSize, length - position));
+		}
+		return new FileMapping(segments, segmentSize, length);
+	}
+
+	long length()
+	{
+		return length;
+	}
+
+	/**
+	 * @return a buffer of its own, positioned at the start of the record and limited to the end of the
+	 * file or segment, so concurrent readers do not share a position
+	 */
+	ByteBuffer record(long position)
+	{
+		if (position < 0 || position >= length)
+		{
+			return ByteBuffer.allocate(0);
+		}
+
+		ByteBuffer segment = segments[(int) (position / segmentSize)].duplicate();
+		segment.position((int) (position % segmentSize));
+		return segment;
+	}
+}
@@ -43,6 +43,7 @@ public class IndexFile implements Closeable
 
 	@Getter
 	private final int indexFileId;
+	@Getter
 	private final File file;
 	private final RandomAccessFile idx;
 	private final byte[] buffer = new byte[INDEX_ENTRY_LEN];
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.jagex;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads a {@link DataFile} through a memory mapping. Reads take no lock, so concurrent readers scale
+ * with the cores available. Data written after the file was mapped is only visible after a {@link #remap()}.
+ */
+public class MappedDataFile implements Closeable
+{
+	private static final Logger logger = LoggerFactory.getLogger(MappedDataFile.class);
+
+	private static final int SECTOR_SIZE = 520;
+
+	private final FileChannel channel;
+	private volatile FileMapping mapping;
+
+	public MappedDataFile(File file) throws IOException
+	{
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		this.mapping = FileMapping.map(channel, SECTOR_SIZE);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+
+	/**
+	 * Maps the file again, to pick up data written since it was mapped
+	 */
+	public synchronized void remap() throws IOException
+	{
+		mapping = FileMapping.map(channel, SECTOR_SIZE);
+	}
+
+	/**
+	 * Reads the same bytes {@link DataFile#read(int, int, int, int)} does.
+	 *
+	 * @param indexId expected index of archive of contents being read
+	 * @param archiveId expected archive of contents being read
+	 * @param sector sector to start reading at
+	 * @param size size of file
+	 * @return
+	 */
+	public byte[] read(int indexId, int archiveId, int sector, int size)
+	{
+		final FileMapping mapping = this.mapping;
+		final long sectors = mapping.length() / SECTOR_SIZE;
+		if (sector <= 0L || sectors < (long) sector)
+		{
+			logger.warn("bad read, dat length {}, requested sector {}", mapping.length(), sector);
+			return null;
+		}
+
+		byte[] data = new byte[size];
+
+		for (int part = 0, readBytesCount = 0, nextSector;
+			size > readBytesCount;
+			sector = nextSector)
+		{
+			if (sector == 0)
+			{
+				logger.warn("Unexpected end of file");
+				return null;
+			}
+
+			ByteBuffer buffer = mapping.record((long) SECTOR_SIZE * sector);
+
+			int dataBlockSize = size - readBytesCount;
+			int headerSize;
+			int currentIndex;
+			int currentPart;
+			int currentArchive;
+			if (archiveId > 0xFFFF)
+			{
+				headerSize = 10;
+				if (dataBlockSize > SECTOR_SIZE - headerSize)
+				{
+					dataBlockSize = SECTOR_SIZE - headerSize;
+				}
+
+				if (buffer.remaining() < headerSize + dataBlockSize)
+				{
+					logger.warn("Short read when reading file data for {}/{}", indexId, archiveId);
+					return null;
+				}
+
+				currentArchive = buffer.getInt();
+				currentPart = buffer.getShort() & 0xFFFF;
+				nextSector = getMedium(buffer);
+				currentIndex = buffer.get() & 0xFF;
+			}
+			else
+			{
+				headerSize = 8;
+				if (dataBlockSize > SECTOR_SIZE - headerSize)
+				{
+					dataBlockSize = SECTOR_SIZE - headerSize;
+				}
+
+				if (buffer.remaining() < headerSize + dataBlockSize)
+				{
+					logger.warn("short read");
+					return null;
+				}
+
+				currentArchive = buffer.getShort() & 0xFFFF;
+				currentPart = buffer.getShort() & 0xFFFF;
+				nextSector = getMedium(buffer);
+				currentIndex = buffer.get() & 0xFF;
+			}
+
+			if (archiveId != currentArchive || currentPart != part || indexId != currentIndex)
+			{
+				logger.warn("data mismatch {} != {}, {} != {}, {} != {}",
+					archiveId, currentArchive,
+					part, currentPart,
+					indexId, currentIndex);
+				return null;
+			}
+
+			if (nextSector < 0 || sectors < (long) nextSector)
+			{
+				logger.warn("Invalid next sector");
+				return null;
+			}
+
+			buffer.get(data, readBytesCount, dataBlockSize);
+			readBytesCount += dataBlockSize;
+
+			++part;
+		}
+
+		return data;
+	}
+
+	private static int getMedium(ByteBuffer buffer)
+	{
+		return (buffer.get() & 0xFF) << 16 | (buffer.get() & 0xFF) << 8 | (buffer.get() & 0xFF);
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.jagex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads an {@link IndexFile} through a memory mapping, without locking. Entries written after the file
+ * was mapped are only visible after a {@link #remap()}.
+ */
+public class MappedIndexFile implements Closeable
+{
+	private static final Logger logger = LoggerFactory.getLogger(MappedIndexFile.class);
+
+	private static final int INDEX_ENTRY_LEN = 6;
+
+	private final IndexFile indexFile;
+	private final FileChannel channel;
+	private volatile FileMapping mapping;
+
+	public MappedIndexFile(IndexFile indexFile) throws IOException
+	{
+		this.indexFile = indexFile;
+		this.channel = FileChannel.open(indexFile.getFile().toPath(), StandardOpenOption.READ);
+		this.mapping = FileMapping.map(channel, INDEX_ENTRY_LEN);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+
+	/**
+	 * Maps the file again, to pick up entries written since it was mapped
+	 */
+	public synchronized void remap() throws IOException
+	{
+		mapping = FileMapping.map(channel, INDEX_ENTRY_LEN);
+	}
+
+	/**
+	 * Reads the same entry {@link IndexFile#read(int)} does, the entry refers to the wrapped index file.
+	 */
+	public IndexEntry read(int id)
+	{
+		ByteBuffer buffer = mapping.record((long) id * INDEX_ENTRY_LEN);
+		if (buffer.remaining() < INDEX_ENTRY_LEN)
+		{
+			logger.debug("short read for id {} on index {}: {}", id, indexFile.getIndexFileId(), buffer.remaining());
+			return null;
+		}
+
+		int length = (buffer.get() & 0xFF) << 16 | (buffer.get() & 0xFF) << 8 | (buffer.get() & 0xFF);
+		int sector = (buffer.get() & 0xFF) << 16 | (buffer.get() & 0xFF) << 8 | (buffer.get() & 0xFF);
+
+		if (length <= 0 || sector <= 0)
+		{
+			logger.debug("invalid length or sector {}/{}", length, sector);
+			return null;
+		}
+
+		return new IndexEntry(indexFile, id, sector, length);
+	}
+}
@@ -25,6 +25,8 @@
 package net.runelite.cache.region;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import net.runelite.cache.definitions.LocationsDefinition;
 import net.runelite.cache.definitions.MapDefinition;
@@ -49,6 +51,10 @@ public class Region
 	private final short[][][] underlayIds = new short[Z][X][Y];
 
 	private final List<Location> locations = new ArrayList<>();
+	// locations grouped by tile, those on tile i are tileLocations[tileOffsets[i]] to tileLocations[tileOffsets[i + 1] - 1],
+	// or null until the locations are loaded
+	private int[] tileOffsets;
+	private Location[] tileLocations;
 
 	public Region(int id)
 	{
@@ -125,6 +131,58 @@ public class Region
 					loc.getPosition().getZ()));
 			locations.add(newLoc);
 		}
+
+		indexLocations();
+	}
+
+	/**
+	 * Groups the locations by tile with a counting sort, which keeps the locations of each tile in load order
+	 */
+	private void indexLocations()
+	{
+		int[] offsets = new int[Z * X * Y + 1];
+		for (Location loc : locations)
+		{
+			int tile = tileIndex(loc.getPosition());
+			if (tile != -1)
+			{
+				++offsets[tile + 1];
+			}
+		}
+
+		for (int i = 0; i < Z * X * Y; ++i)
+		{
+			offsets[i + 1] += offsets[i];
+		}
+
+		Location[] sorted = new Location[offsets[Z * X * Y]];
+		int[] next = Arrays.copyOf(offsets, Z * X * Y);
+		for (Location loc : locations)
+		{
+			int tile = tileIndex(loc.getPosition());
+			if (tile != -1)
+			{
+				sorted[next[tile]++] = loc;
+			}
+		}
+
+		tileOffsets = offsets;
+		tileLocations = sorted;
+	}
+
+	private int tileIndex(Position position)
+	{
+		return tileIndex(position.getZ(), position.getX() - baseX, position.getY() - baseY);
+	}
+
+	private static int tileIndex(int z, int x, int y)
+	{
+		if (z < 0 || z >= Z || x < 0 || x >= X || y < 0 || y >= Y)
+		{
+			return -1;
+		}
+
+		return (z * X + x) * Y + y;
 	}
 
 	public int getRegionID()
@@ -177,6 +235,25 @@ public class Region
 		return locations;
 	}
 
+	/**
+	 * Gets the locations on a tile, as loaded by {@link #loadLocations(LocationsDefinition)}.
+	 *
+	 * @param z plane
+	 * @param x local x
+	 * @param y local y
+	 * @return the locations, empty for tiles outside the region
+	 */
+	public List<Location> getLocations(int z, int x, int y)
+	{
+		int tile = tileIndex(z, x, y);
+		if (tile == -1 || tileOffsets == null || tileOffsets[tile] == tileOffsets[tile + 1])
+		{
+			return Collections.emptyList();
+		}
+
+		return Collections.unmodifiableList(Arrays.asList(tileLocations).subList(tileOffsets[tile], tileOffsets[tile + 1]));
+	}
+
 	public int getRegionX()
 	{
 		return baseX >> 6;
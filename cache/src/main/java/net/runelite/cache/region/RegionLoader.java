@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.definitions.LocationsDefinition;
@@ -43,7 +44,7 @@ import net.runelite.cache.util.KeyProvider;
 @Slf4j
 public class RegionLoader
 {
-	private static final int MAX_REGION = 32768;
+	public static final int MAX_REGION = 32768;
 
 	private final Store store;
 	private final Index index;
@@ -116,6 +117,26 @@ public class RegionLoader
 		return region;
 	}
 
+	/**
+	 * @return a hash of the map and locations archives of the region, which changes when either of them is
+	 * updated, or 0 if the region has no map
+	 */
+	public int getRegionHash(int i)
+	{
+		int x = i >> 8;
+		int y = i & 0xFF;
+
+		Archive map = index.findArchiveByName("m" + x + "_" + y);
+		Archive land = index.findArchiveByName("l" + x + "_" + y);
+
+		if (map == null || land == null)
+		{
+			return 0;
+		}
+
+		return Objects.hash(map.getCrc(), map.getRevision(), land.getCrc(), land.getRevision(), keyProvider.getKey(i) != null);
+	}
+
 	public Region loadRegion(int id, MapDefinition map, LocationsDefinition locs)
 	{
 		Region r = new Region(id);
@@ -30,6 +30,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.util.Arrays;
 import static net.runelite.cache.util.LibBZip2.BZ_FINISH_OK;
 import static net.runelite.cache.util.LibBZip2.BZ_OK;
@@ -142,4 +143,28 @@ public class BZip2
 
 		return os.toByteArray();
 	}
+
+	/**
+	 * Decompresses {@code len} bytes of {@code bytes} starting at {@code off}, which lack the bzip2 header,
+	 * directly into {@code out}, which must be exactly the size of the decompressed data.
+	 */
+	public static void decompress(byte[] bytes, int off, int len, byte[] out) throws IOException
+	{
+		BZip2Decoder.decode(bytes, off, len, out);
+	}
+
+	/**
+	 * Same as {@link #decompress(byte[], int, int, byte[])}, through commons-compress
+	 */
+	public static void decompressApache(byte[] bytes, int off, int len, byte[] out) throws IOException
+	{
+		InputStream in = new SequenceInputStream(new ByteArrayInputStream(BZIP_HEADER), new ByteArrayInputStream(bytes, off, len));
+		try (InputStream is = new BZip2CompressorInputStream(in))
+		{
+			if (is.readNBytes(out, 0, out.length) != out.length || is.read() != -1)
+			{
+				throw new IOException("Decompressed size does not match, expected " + out.length);
+			}
+		}
+	}
 }
@@ -0,0 +1,536 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.util;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Decoder for the bzip2 streams in the cache, which are written with a block size of 100k and without the
+ * stream header. It decodes straight from the compressed array into the output array, and Huffman codes of
+ * up to {@link #LOOKUP_BITS} bits, which are most of them, are decoded with a single table lookup.
+ * <p>
+ * Decoders are reused per thread, as the block buffer is 400KB.
+ */
+final class BZip2Decoder
+{
+	private static final long BLOCK_MAGIC = 0x314159265359L;
+	private static final long END_MAGIC = 0x177245385090L;
+
+	private static final int BLOCK_SIZE = 100_000;
+	private static final int MAX_GROUPS = 6;
+	private static final int MAX_SELECTORS = 18002;
+	private static final int MAX_ALPHA_SIZE = 258;
+	private static final int MAX_CODE_LEN = 20;
+	private static final int GROUP_SIZE = 50;
+	private static final int RUNB = 1;
+
+	private static final int LOOKUP_BITS = 10;
+	private static final int LOOKUP_MASK = (1 << LOOKUP_BITS) - 1;
+
+	private static final int[] CRC_TABLE = new int[256];
+
+	static
+	{
+		for (int i = 0; i < 256; ++i)
+		{
+			int crc = i << 24;
+			for (int j = 0; j < 8; ++j)
+			{
+				crc = (crc & 0x80000000) != 0 ? crc << 1 ^ 0x04C11DB7 : crc << 1;
+			}
+			CRC_TABLE[i] = crc;
+		}
+	}
+
+	private static final ThreadLocal<BZip2Decoder> DECODERS = ThreadLocal.withInitial(BZip2Decoder::new);
+
+	private final int[] tt = new int[BLOCK_SIZE];
+	private final int[] unzftab = new int[256];
+	private final int[] cftab = new int[257];
+	private final byte[] seqToUnseq = new byte[256];
+	private final byte[] mtf = new byte[256];
+	private final byte[] selectors = new byte[MAX_SELECTORS];
+	private final byte[] lengths = new byte[MAX_ALPHA_SIZE];
+
+	// decoding tables of each group. lookup entries are symbol << 5 | code length, or 0 for longer codes
+	private final int[][] lookup = new int[MAX_GROUPS][1 << LOOKUP_BITS];
+	private final int[][] limit = new int[MAX_GROUPS][MAX_CODE_LEN + 1];
+	private final int[][] firstCode = new int[MAX_GROUPS][MAX_CODE_LEN + 1];
+	private final int[][] firstIndex = new int[MAX_GROUPS][MAX_CODE_LEN + 1];
+	private final int[][] perm = new int[MAX_GROUPS][MAX_ALPHA_SIZE];
+	private final int[] maxLen = new int[MAX_GROUPS];
+
+	private byte[] in;
+	private int pos;
+	private int end;
+	private long bitBuffer;
+	private int bitCount;
+
+	private byte[] out;
+	private int outPos;
+
+	private BZip2Decoder()
+	{
+	}
+
+	/**
+	 * Decodes {@code len} bytes of {@code bytes} starting at {@code off} into {@code out}, which must be exactly
+	 * the size of the decompressed data
+	 */
+	static void decode(byte[] bytes, int off, int len, byte[] out) throws IOException
+	{
+		BZip2Decoder decoder = DECODERS.get();
+		try
+		{
+			decoder.decodeStream(bytes, off, len, out);
+		}
+		finally
+		{
+			decoder.in = null;
+			decoder.out = null;
+		}
+	}
+
+	private void decodeStream(byte[] bytes, int off, int len, byte[] out) throws IOException
+	{
+		this.in = bytes;
+		this.pos = off;
+		this.end = off + len;
+		this.bitBuffer = 0;
+		this.bitCount = 0;
+		this.out = out;
+		this.outPos = 0;
+
+		int combinedCrc = 0;
+		for (;;)
+		{
+			long magic = (long) bits(24) << 24 | bits(24);
+			if (magic == END_MAGIC)
+			{
+				int storedCrc = bits(16) << 16 | bits(16);
+				if (storedCrc != combinedCrc)
+				{
+					throw new IOException("bzip2 stream crc mismatch");
+				}
+				break;
+			}
+			if (magic != BLOCK_MAGIC)
+			{
+				throw new IOException("Bad bzip2 block magic");
+			}
+
+			int blockCrc = bits(16) << 16 | bits(16);
+			if (decodeBlock() != blockCrc)
+			{
+				throw new IOException("bzip2 block crc mismatch");
+			}
+			combinedCrc = (combinedCrc << 1 | combinedCrc >>> 31) ^ blockCrc;
+		}
+
+		if (outPos != out.length)
+		{
+			throw new IOException("Decompressed size does not match, expected " + out.length + " was " + outPos);
+		}
+	}
+
+	/**
+	 * Reads up to 24 bits. Reads past the end of the input see zeros, which fail the crc checks, so the
+	 * Huffman decoder can look ahead without bounds checks.
+	 */
+	private int bits(int n) throws IOException
+	{
+		while (bitCount < n)
+		{
+			bitBuffer = bitBuffer << 8 | nextByte();
+			bitCount += 8;
+		}
+		bitCount -= n;
+		return (int) (bitBuffer >>> bitCount) & ((1 << n) - 1);
+	}
+
+	private int nextByte() throws IOException
+	{
+		if (pos < end)
+		{
+			return in[pos++] & 0xFF;
+		}
+		if (pos++ > end + 8)
+		{
+			throw new IOException("Unexpected end of bzip2 data");
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the crc of the decoded block
+	 */
+	private int decodeBlock() throws IOException
+	{
+		if (bits(1) != 0)
+		{
+			throw new IOException("Randomised bzip2 blocks are not supported");
+		}
+		int origPtr = bits(24);
+
+		// symbols in use
+		int nInUse = 0;
+		int inUse16 = bits(16);
+		for (int i = 0; i < 16; ++i)
+		{
+			if ((inUse16 & 0x8000 >>> i) != 0)
+			{
+				int inUse = bits(16);
+				for (int j = 0; j < 16; ++j)
+				{
+					if ((inUse & 0x8000 >>> j) != 0)
+					{
+						seqToUnseq[nInUse++] = (byte) (i * 16 + j);
+					}
+				}
+			}
+		}
+		if (nInUse == 0)
+		{
+			throw new IOException("bzip2 block uses no symbols");
+		}
+		int alphaSize = nInUse + 2;
+
+		// selectors, which are move to front coded
+		int nGroups = bits(3);
+		int nSelectors = bits(15);
+		if (nGroups < 2 || nGroups > MAX_GROUPS || nSelectors < 1)
+		{
+			throw new IOException("Bad bzip2 group or selector count");
+		}
+
+		byte[] groupMtf = {0, 1, 2, 3, 4, 5};
+		for (int i = 0; i < nSelectors; ++i)
+		{
+			int j = 0;
+			while (bits(1) != 0)
+			{
+				if (++j >= nGroups)
+				{
+					throw new IOException("Bad bzip2 selector");
+				}
+			}
+
+			byte g = groupMtf[j];
+			System.arraycopy(groupMtf, 0, groupMtf, 1, j);
+			groupMtf[0] = g;
+			// selectors past the maximum are never used by a valid block
+			if (i < MAX_SELECTORS)
+			{
+				selectors[i] = g;
+			}
+		}
+		nSelectors = Math.min(nSelectors, MAX_SELECTORS);
+
+		// code lengths, which are delta coded
+		for (int t = 0; t < nGroups; ++t)
+		{
+			int curr = bits(5);
+			for (int s = 0; s < alphaSize; ++s)
+			{
+				for (;;)
+				{
+					if (curr < 1 || curr > MAX_CODE_LEN)
+					{
+						throw new IOException("Bad bzip2 code length");
+					}
+					if (bits(1) == 0)
+					{
+						break;
+					}
+					curr += bits(1) == 0 ? 1 : -1;
+				}
+				lengths[s] = (byte) curr;
+			}
+			createTables(t, alphaSize);
+		}
+
+		int nblock = decodeSymbols(nInUse + 1, nSelectors);
+		if (origPtr >= nblock && nblock > 0)
+		{
+			throw new IOException("Bad bzip2 origPtr");
+		}
+
+		return nblock > 0 ? inverseTransform(origPtr, nblock) : 0;
+	}
+
+	private void createTables(int t, int alphaSize) throws IOException
+	{
+		int minLen = MAX_CODE_LEN;
+		int maxLen = 0;
+		for (int s = 0; s < alphaSize; ++s)
+		{
+			minLen = Math.min(minLen, lengths[s]);
+			maxLen = Math.max(maxLen, lengths[s]);
+		}
+
+		int[] lookup = this.lookup[t];
+		int[] limit = this.limit[t];
+		int[] firstCode = this.firstCode[t];
+		int[] firstIndex = this.firstIndex[t];
+		int[] perm = this.perm[t];
+		Arrays.fill(lookup, 0);
+		Arrays.fill(limit, -1);
+
+		// canonical codes, assigned in order of length and then symbol
+		int code = 0;
+		int index = 0;
+		for (int len = minLen; len <= maxLen; ++len)
+		{
+			firstCode[len] = code;
+			firstIndex[len] = index;
+			for (int s = 0; s < alphaSize; ++s)
+			{
+				if (lengths[s] == len)
+				{
+					if (code >= 1 << len)
+					{
+						throw new IOException("Bad bzip2 Huffman code lengths");
+					}
+
+					perm[index++] = s;
+					if (len <= LOOKUP_BITS)
+					{
+						int shift = LOOKUP_BITS - len;
+						Arrays.fill(lookup, code << shift, (code + 1) << shift, s << 5 | len);
+					}
+					++code;
+				}
+			}
+			limit[len] = code - 1;
+			code <<= 1;
+		}
+		this.maxLen[t] = maxLen;
+	}
+
+	/**
+	 * Decodes the Huffman, run length and move to front coding of the block into {@link #tt}
+	 *
+	 * @return the length of the block
+	 */
+	private int decodeSymbols(int eob, int nSelectors) throws IOException
+	{
+		final int[] tt = this.tt;
+		final byte[] mtf = this.mtf;
+		final byte[] seqToUnseq = this.seqToUnseq;
+		final int[] unzftab = this.unzftab;
+		Arrays.fill(unzftab, 0);
+		for (int i = 0; i < 256; ++i)
+		{
+			mtf[i] = (byte) i;
+		}
+
+		long bitBuffer = this.bitBuffer;
+		int bitCount = this.bitCount;
+
+		int nblock = 0;
+		int groupNo = -1;
+		int groupPos = 0;
+		int[] lookup = null;
+		int[] limit = null;
+		int[] firstCode = null;
+		int[] firstIndex = null;
+		int[] perm = null;
+		int maxLen = 0;
+
+		int run = 0;
+		int runWeight = 1;
+		for (;;)
+		{
+			if (groupPos == 0)
+			{
+				if (++groupNo >= nSelectors)
+				{
+					throw new IOException("Ran out of bzip2 selectors");
+				}
+				int g = selectors[groupNo];
+				lookup = this.lookup[g];
+				limit = this.limit[g];
+				firstCode = this.firstCode[g];
+				firstIndex = this.firstIndex[g];
+				perm = this.perm[g];
+				maxLen = this.maxLen[g];
+				groupPos = GROUP_SIZE;
+			}
+			--groupPos;
+
+			while (bitCount < MAX_CODE_LEN)
+			{
+				bitBuffer = bitBuffer << 8 | nextByte();
+				bitCount += 8;
+			}
+
+			int sym;
+			int entry = lookup[(int) (bitBuffer >>> bitCount - LOOKUP_BITS) & LOOKUP_MASK];
+			if (entry != 0)
+			{
+				bitCount -= entry & 31;
+				sym = entry >>> 5;
+			}
+			else
+			{
+				int len = LOOKUP_BITS + 1;
+				for (;; ++len)
+				{
+					if (len > maxLen)
+					{
+						throw new IOException("Bad bzip2 Huffman code");
+					}
+					int code = (int) (bitBuffer >>> bitCount - len) & (1 << len) - 1;
+					if (code <= limit[len])
+					{
+						sym = perm[firstIndex[len] + code - firstCode[len]];
+						break;
+					}
+				}
+				bitCount -= len;
+			}
+
+			if (sym <= RUNB)
+			{
+				// runs of the front symbol are coded in bijective base 2
+				if (runWeight > BLOCK_SIZE)
+				{
+					throw new IOException("bzip2 run too long");
+				}
+				run += (sym + 1) * runWeight;
+				runWeight <<= 1;
+				continue;
+			}
+
+			if (run > 0)
+			{
+				if (nblock + run > BLOCK_SIZE)
+				{
+					throw new IOException("bzip2 block too long");
+				}
+				int b = seqToUnseq[mtf[0] & 0xFF] & 0xFF;
+				unzftab[b] += run;
+				Arrays.fill(tt, nblock, nblock + run, b);
+				nblock += run;
+				run = 0;
+				runWeight = 1;
+			}
+
+			if (sym == eob)
+			{
+				break;
+			}
+
+			if (nblock >= BLOCK_SIZE)
+			{
+				throw new IOException("bzip2 block too long");
+			}
+
+			int n = sym - 1;
+			byte m = mtf[n];
+			System.arraycopy(mtf, 0, mtf, 1, n);
+			mtf[0] = m;
+
+			int b = seqToUnseq[m & 0xFF] & 0xFF;
+			++unzftab[b];
+			tt[nblock++] = b;
+		}
+
+		this.bitBuffer = bitBuffer;
+		this.bitCount = bitCount;
+		return nblock;
+	}
+
+	/**
+	 * Undoes the Burrows-Wheeler transform and the initial run length coding of the block, into the output
+	 *
+	 * @return the crc of the block
+	 */
+	private int inverseTransform(int origPtr, int nblock) throws IOException
+	{
+		final int[] tt = this.tt;
+		final int[] cftab = this.cftab;
+		cftab[0] = 0;
+		for (int i = 0; i < 256; ++i)
+		{
+			cftab[i + 1] = cftab[i] + unzftab[i];
+		}
+		for (int i = 0; i < nblock; ++i)
+		{
+			tt[cftab[tt[i] & 0xFF]++] |= i << 8;
+		}
+
+		final byte[] out = this.out;
+		int outPos = this.outPos;
+		int crc = ~0;
+
+		int tPos = tt[origPtr] >>> 8;
+		int last = -1;
+		int runLength = 0;
+		for (int i = 0; i < nblock; ++i)
+		{
+			tPos = tt[tPos];
+			int b = tPos & 0xFF;
+			tPos >>>= 8;
+
+			if (runLength == 4)
+			{
+				// four equal bytes are followed by the count of further repeats
+				if (outPos + b > out.length)
+				{
+					throw new IOException("bzip2 data is longer than expected");
+				}
+				for (int j = 0; j < b; ++j)
+				{
+					out[outPos++] = (byte) last;
+					crc = crc << 8 ^ CRC_TABLE[(crc >>> 24 ^ last) & 0xFF];
+				}
+				runLength = 0;
+				continue;
+			}
+
+			if (b == last)
+			{
+				++runLength;
+			}
+			else
+			{
+				runLength = 1;
+				last = b;
+			}
+
+			if (outPos >= out.length)
+			{
+				throw new IOException("bzip2 data is longer than expected");
+			}
+			out[outPos++] = (byte) b;
+			crc = crc << 8 ^ CRC_TABLE[(crc >>> 24 ^ b) & 0xFF];
+		}
+
+		this.outPos = outPos;
+		return ~crc;
+	}
+}
@@ -30,11 +30,19 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
 
 public class GZip
 {
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+
 	public static byte[] compress(byte[] bytes) throws IOException
 	{
 		ByteArrayOutputStream bout = new ByteArrayOutputStream();
@@ -61,4 +69,73 @@ public class GZip
 
 		return os.toByteArray();
 	}
+
+	/**
+	 * Decompresses {@code len} bytes of {@code bytes} starting at {@code off} directly into {@code out}, which
+	 * must be exactly the size of the decompressed data.
+	 */
+	public static void decompress(byte[] bytes, int off, int len, byte[] out) throws IOException
+	{
+		int end = off + len;
+		if (len < 10 || (bytes[off] & 0xFF) != 0x1F || (bytes[off + 1] & 0xFF) != 0x8B || bytes[off + 2] != Deflater.DEFLATED)
+		{
+			throw new IOException("Not in GZIP format");
+		}
+
+		int flags = bytes[off + 3] & 0xFF;
+		int pos = off + 10;
+		if ((flags & FEXTRA) != 0)
+		{
+			pos += 2 + ((bytes[pos] & 0xFF) | (bytes[pos + 1] & 0xFF) << 8);
+		}
+		if ((flags & FNAME) != 0)
+		{
+			while (pos < end && bytes[pos++] != 0)
+			{
+			}
+		}
+		if ((flags & FCOMMENT) != 0)
+		{
+			while (pos < end && bytes[pos++] != 0)
+			{
+			}
+		}
+		if ((flags & FHCRC) != 0)
+		{
+			pos += 2;
+		}
+		if (pos > end)
+		{
+			throw new IOException("Truncated GZIP header");
+		}
+
+		Inflater inflater = new Inflater(true);
+		try
+		{
+			inflater.setInput(bytes, pos, end - pos);
+			int read = 0;
+			while (read < out.length)
+			{
+				int n = inflater.inflate(out, read, out.length - read);
+				if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+				{
+					break;
+				}
+				read += n;
+			}
+
+			if (read != out.length || !inflater.finished() && inflater.inflate(new byte[1]) > 0)
+			{
+				throw new IOException("Decompressed size does not match, expected " + out.length);
+			}
+		}
+		catch (DataFormatException e)
+		{
+			throw new IOException(e);
+		}
+		finally
+		{
+			inflater.end();
+		}
+	}
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.util.KeyProvider;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CollisionMapDumperTest
+{
+	// the test cache comes without keys, so only the terrain of the regions is loaded
+	private static final KeyProvider NO_KEYS = region -> null;
+
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	@Test
+	public void testUpdateMatchesFullRebuild() throws IOException
+	{
+		File collisionMap = new File(folder.getRoot(), "regions");
+		File manifest = new File(folder.getRoot(), "regions.manifest.json");
+
+		try (Store store = new Store(StoreLocation.LOCATION))
+		{
+			store.load();
+
+			CollisionMapDumper full = new CollisionMapDumper(store, NO_KEYS).load();
+			full.makeCollisionMaps(full.getRegionLoader().getRegions());
+			byte[] expected = full.toBytes();
+
+			assertTrue(new CollisionMapDumper(store, NO_KEYS).update(collisionMap, manifest) > 0);
+			assertArrayEquals(expected, read(collisionMap));
+
+			assertEquals(0, new CollisionMapDumper(store, NO_KEYS).update(collisionMap, manifest));
+			assertArrayEquals(expected, read(collisionMap));
+
+			// regions missing from the manifest are recomputed, and merged with those read back from the map
+			JsonObject json;
+			try (Reader reader = Files.newBufferedReader(manifest.toPath(), StandardCharsets.UTF_8))
+			{
+				json = new Gson().fromJson(reader, JsonObject.class);
+			}
+
+			JsonObject regions = json.getAsJsonObject("regions");
+			List<String> removed = new ArrayList<>();
+			for (String regionId : regions.keySet())
+			{
+				if (removed.size() * 10 < regions.size())
+				{
+					removed.add(regionId);
+				}
+			}
+			removed.forEach(regions::remove);
+
+			try (Writer writer = Files.newBufferedWriter(manifest.toPath(), StandardCharsets.UTF_8))
+			{
+				new Gson().toJson(json, writer);
+			}
+
+			assertEquals(removed.size(), new CollisionMapDumper(store, NO_KEYS).update(collisionMap, manifest));
+			assertArrayEquals(expected, read(collisionMap));
+		}
+	}
+
+	@Test
+	public void testFailedWriteKeepsManifest() throws IOException
+	{
+		File collisionMap = new File(folder.getRoot(), "missing/regions");
+		File manifest = new File(folder.getRoot(), "regions.manifest.json");
+
+		try (Store store = new Store(StoreLocation.LOCATION))
+		{
+			store.load();
+
+			try
+			{
+				new CollisionMapDumper(store, NO_KEYS).update(collisionMap, manifest);
+				fail("Wrote the collision map to a missing directory");
+			}
+			catch (IOException e)
+			{
+				// expected
+			}
+		}
+
+		assertFalse(manifest.exists());
+	}
+
+	private static byte[] read(File collisionMap) throws IOException
+	{
+		try (InputStream in = new GZIPInputStream(new FileInputStream(collisionMap)))
+		{
+			return in.readAllBytes();
+		}
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.cache.definitions.ItemDefinition;
+import net.runelite.cache.definitions.loaders.ItemLoader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DefinitionStoreTest
+{
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	private final ItemLoader loader = new ItemLoader();
+
+	private static byte[] item(String name, String... interfaceOptions)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(2);
+		out.writeBytes(name.getBytes(StandardCharsets.ISO_8859_1));
+		out.write(0);
+		for (int i = 0; i < interfaceOptions.length; ++i)
+		{
+			out.write(35 + i);
+			out.writeBytes(interfaceOptions[i].getBytes(StandardCharsets.ISO_8859_1));
+			out.write(0);
+		}
+		out.write(0);
+		return out.toByteArray();
+	}
+
+	private DefinitionStore<ItemDefinition> build() throws IOException
+	{
+		DefinitionStore.Builder<ItemDefinition> builder = DefinitionStore.builder(loader::load, 42, def -> def.name, def -> def.interfaceOptions);
+		builder.add(builder.parse(0, item("Bronze sword", "Wield")));
+		builder.add(builder.parse(1, item("Bronze sword", "Wield")));
+		builder.add(builder.parse(3, item("Lobster", "Eat")));
+		builder.add(builder.parse(4, item("Rune platebody", "Wear")));
+		return builder.build();
+	}
+
+	private static void assertStore(DefinitionStore<ItemDefinition> store)
+	{
+		Assert.assertEquals(42, store.getCrc());
+		Assert.assertEquals(4, store.size());
+		Assert.assertArrayEquals(new int[]{0, 1, 3, 4}, store.getIds());
+		Assert.assertFalse(store.contains(2));
+		Assert.assertNull(store.get(2));
+		Assert.assertNull(store.get(5));
+
+		Assert.assertEquals("Lobster", store.getName(3));
+		Assert.assertArrayEquals(new String[]{"Eat", null, null, null, "Drop"}, store.getActions(3));
+		Assert.assertArrayEquals(new int[]{0, 1}, store.findByName("Bronze sword"));
+		Assert.assertArrayEquals(new int[]{0, 1, 3, 4}, store.findByAction("Drop"));
+		Assert.assertArrayEquals(new int[]{4}, store.findByAction("Wear"));
+		Assert.assertArrayEquals(new int[0], store.findByAction("Bury"));
+
+		ItemDefinition lobster = store.get(3);
+		Assert.assertEquals(3, lobster.id);
+		Assert.assertEquals("Lobster", lobster.name);
+		Assert.assertSame(lobster, store.get(3));
+		Assert.assertSame(lobster, store.getAll().get(2));
+		Assert.assertEquals(4, store.getAll().size());
+	}
+
+	@Test
+	public void testBuild() throws IOException
+	{
+		assertStore(build());
+	}
+
+	@Test
+	public void testDecodedOnce() throws IOException
+	{
+		AtomicInteger decoded = new AtomicInteger();
+		DefinitionStore.Builder<ItemDefinition> builder = DefinitionStore.builder((id, b) ->
+		{
+			decoded.incrementAndGet();
+			return loader.load(id, b);
+		}, 42, def -> def.name, def -> def.interfaceOptions);
+		builder.add(builder.parse(0, item("Bronze sword", "Wield")));
+		builder.add(builder.parse(1, item("Lobster", "Eat")));
+		DefinitionStore<ItemDefinition> store = builder.build();
+
+		// the columns are built from the definitions decoded when they were parsed, which are handed to the store
+		Assert.assertEquals(2, decoded.get());
+		Assert.assertArrayEquals(new int[]{1}, store.findByName("Lobster"));
+		Assert.assertEquals("Lobster", store.get(1).name);
+		Assert.assertEquals(2, decoded.get());
+	}
+
+	@Test
+	public void testSnapshot() throws IOException
+	{
+		File file = folder.newFile();
+		build().write(file);
+		assertStore(DefinitionStore.read(file, loader::load));
+	}
+
+	@Test
+	public void testWithColumns() throws IOException
+	{
+		DefinitionStore<ItemDefinition> store = build();
+		ItemDefinition sword = store.get(1);
+		sword.name = "Bronze sword (noted)";
+		sword.interfaceOptions = new String[]{null, null, null, null, "Discard"};
+
+		DefinitionStore<ItemDefinition> linked = store.withColumns(def -> def.name, def -> def.interfaceOptions);
+		Assert.assertSame(sword, linked.get(1));
+		Assert.assertEquals("Bronze sword (noted)", linked.getName(1));
+		Assert.assertArrayEquals(new int[]{0}, linked.findByName("Bronze sword"));
+		Assert.assertArrayEquals(new int[]{1}, linked.findByAction("Discard"));
+		Assert.assertArrayEquals(new int[]{0, 3, 4}, linked.findByAction("Drop"));
+		Assert.assertEquals("Lobster", linked.getName(3));
+		Assert.assertArrayEquals(new int[]{0, 1, 3, 4}, linked.getIds());
+
+		// the store it was made from is unchanged
+		Assert.assertEquals("Bronze sword", store.getName(1));
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncatedSnapshot() throws IOException
+	{
+		File file = folder.newFile();
+		build().write(file);
+
+		byte[] data = Files.readAllBytes(file.toPath());
+		Files.write(file.toPath(), Arrays.copyOf(data, data.length - 4));
+		DefinitionStore.read(file, loader::load);
+	}
+}
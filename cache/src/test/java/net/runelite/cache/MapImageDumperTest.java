@@ -27,11 +27,18 @@ package net.runelite.cache;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import javax.imageio.ImageIO;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.region.Region;
 import net.runelite.cache.region.RegionLoader;
+import net.runelite.cache.util.KeyProvider;
 import net.runelite.cache.util.XteaKeyManager;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
@@ -43,6 +50,9 @@ public class MapImageDumperTest
 {
 	private static final Logger logger = LoggerFactory.getLogger(MapImageDumperTest.class);
 
+	// the test cache comes without keys, so only the terrain of the regions is drawn
+	private static final KeyProvider NO_KEYS = region -> null;
+
 	@Rule
 	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
 
@@ -104,4 +114,138 @@ public class MapImageDumperTest
 			}
 		}
 	}
+
+	@Test
+	@Ignore
+	public void dumpTiles() throws IOException
+	{
+		File base = StoreLocation.LOCATION,
+			outDir = folder.newFolder();
+
+		try (Store store = new Store(base))
+		{
+			store.load();
+
+			XteaKeyManager keyManager = new XteaKeyManager();
+			keyManager.loadKeys(null);
+
+			MapImageDumper dumper = new MapImageDumper(store, keyManager);
+			dumper.load();
+
+			int drawn = dumper.drawTiles(outDir, 0, ForkJoinPool.commonPool());
+			logger.info("Drew {} regions to {}", drawn, outDir);
+
+			// nothing has changed, so nothing is drawn again
+			logger.info("Drew {} regions again", dumper.drawTiles(outDir, 0, ForkJoinPool.commonPool()));
+		}
+	}
+
+	@Test
+	public void testDrawTiles() throws IOException
+	{
+		File outDir = folder.newFolder();
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		try (Store store = new Store(StoreLocation.LOCATION))
+		{
+			store.load();
+
+			// 4x4 regions around Lumbridge, which are the children of 2x2 tiles of level 1 and one tile of level 2
+			List<Integer> regionIds = new ArrayList<>();
+			for (int x = 48; x < 52; ++x)
+			{
+				for (int y = 48; y < 52; ++y)
+				{
+					regionIds.add((x << 8) | y);
+				}
+			}
+
+			List<Integer> loaded = new ArrayList<>();
+			MapImageDumper dumper = load(store, regionIds, loaded);
+			assertEquals(regionIds, loaded);
+
+			assertEquals(regionIds.size(), dumper.drawTiles(outDir, 0, pool));
+			for (int regionId : regionIds)
+			{
+				assertTrue(tileFile(outDir, 0, regionId >> 8, regionId & 0xFF).exists());
+			}
+			for (int x = 24; x < 26; ++x)
+			{
+				for (int y = 24; y < 26; ++y)
+				{
+					assertTrue(tileFile(outDir, 1, x, y).exists());
+				}
+			}
+			assertTrue(tileFile(outDir, 2, 12, 12).exists());
+			assertFalse(tileFile(outDir, 3, 6, 6).exists());
+
+			// nothing has changed, so nothing is drawn again
+			assertEquals(0, dumper.drawTiles(outDir, 0, pool));
+
+			// without the four regions under the level 1 tile 25_25, their tiles and that tile are removed, and only
+			// the regions next to them are drawn again
+			List<Integer> removed = new ArrayList<>();
+			List<Integer> remaining = new ArrayList<>();
+			for (int regionId : regionIds)
+			{
+				if ((regionId >> 9) == 25 && ((regionId & 0xFF) >> 1) == 25)
+				{
+					removed.add(regionId);
+				}
+				else
+				{
+					remaining.add(regionId);
+				}
+			}
+
+			int neighbours = 0;
+			for (int regionId : remaining)
+			{
+				if (removed.stream().anyMatch(r -> Math.abs((r >> 8) - (regionId >> 8)) <= 1 && Math.abs((r & 0xFF) - (regionId & 0xFF)) <= 1))
+				{
+					++neighbours;
+				}
+			}
+
+			dumper = load(store, remaining, new ArrayList<>());
+			assertEquals(neighbours, dumper.drawTiles(outDir, 0, pool));
+			for (int regionId : removed)
+			{
+				assertFalse(tileFile(outDir, 0, regionId >> 8, regionId & 0xFF).exists());
+			}
+			for (int regionId : remaining)
+			{
+				assertTrue(tileFile(outDir, 0, regionId >> 8, regionId & 0xFF).exists());
+			}
+			assertFalse(tileFile(outDir, 1, 25, 25).exists());
+			assertTrue(tileFile(outDir, 1, 24, 24).exists());
+			assertTrue(tileFile(outDir, 2, 12, 12).exists());
+
+			assertEquals(0, dumper.drawTiles(outDir, 0, pool));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	private static MapImageDumper load(Store store, List<Integer> regionIds, List<Integer> loaded) throws IOException
+	{
+		// the regions are loaded before the dumper, which then draws only those
+		RegionLoader regionLoader = new RegionLoader(store, NO_KEYS);
+		for (int regionId : regionIds)
+		{
+			if (regionLoader.loadRegionFromArchive(regionId) != null)
+			{
+				loaded.add(regionId);
+			}
+		}
+
+		return new MapImageDumper(store, regionLoader).load();
+	}
+
+	private static File tileFile(File outDir, int level, int x, int y)
+	{
+		return new File(outDir, "0/" + level + "/" + x + "_" + y + ".png");
+	}
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.jagex.DiskStorage;
+import net.runelite.cache.index.FileData;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArchiveCacheTest
+{
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	private static void save(Store store, Archive archive, String contents) throws IOException
+	{
+		archive.setFileData(new FileData[]{new FileData()});
+
+		Container container = new Container(archive.getCompression(), -1);
+		container.compress(contents.getBytes(), null);
+		archive.setCrc(container.crc);
+		store.getStorage().saveArchive(archive, container.data);
+	}
+
+	@Test
+	public void testLoad() throws IOException
+	{
+		try (Store store = new Store(new DiskStorage(folder.newFolder())))
+		{
+			Archive archive = store.addIndex(0).addArchive(0);
+			save(store, archive, "test");
+
+			ArchiveCache cache = new ArchiveCache(1024);
+			Assert.assertNull(cache.get(archive));
+			Assert.assertArrayEquals("test".getBytes(), cache.load(store.getStorage(), archive, null));
+			Assert.assertSame(cache.load(store.getStorage(), archive, null), cache.load(store.getStorage(), archive, null));
+			Assert.assertEquals(2, cache.stats().missCount());
+			Assert.assertEquals(2, cache.stats().hitCount());
+
+			// rewriting the archive changes its crc
+			save(store, archive, "test2");
+			Assert.assertArrayEquals("test2".getBytes(), cache.load(store.getStorage(), archive, null));
+			Assert.assertEquals(3, cache.stats().missCount());
+		}
+	}
+
+	@Test
+	public void testEviction()
+	{
+		Index index = new Index(0);
+		ArchiveCache cache = new ArchiveCache(1024);
+		for (int i = 0; i < 16; ++i)
+		{
+			cache.put(index.addArchive(i), new byte[256]);
+		}
+
+		Assert.assertTrue(cache.size() <= 4);
+		Assert.assertTrue(cache.stats().evictionCount() >= 12);
+		Assert.assertNotNull(cache.get(index.getArchive(15)));
+	}
+
+	@Test
+	public void testStore() throws IOException
+	{
+		try (Store store = new Store(new DiskStorage(folder.newFolder())))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 8; ++i)
+			{
+				save(store, index.addArchive(i), "test" + i);
+			}
+
+			ArchiveCache cache = new ArchiveCache(1024);
+			store.setArchiveCache(cache);
+
+			Archive archive = index.getArchive(3);
+			Assert.assertArrayEquals("test3".getBytes(), store.loadFiles(archive).findFile(0).getContents());
+			Assert.assertArrayEquals("test3".getBytes(), store.loadFiles(archive).findFile(0).getContents());
+			Assert.assertEquals(1, cache.stats().hitCount());
+
+			List<String> loaded = new ArrayList<>();
+			new ArchivePipeline(store.getStorage(), cache, ForkJoinPool.commonPool(), 2)
+				.forEach(index.getArchives(), (a, data) -> new String(data), loaded::add);
+			Assert.assertEquals(8, loaded.size());
+			Assert.assertEquals("test3", loaded.get(3));
+			Assert.assertEquals(2, cache.stats().hitCount());
+			Assert.assertEquals(8, cache.size());
+		}
+	}
+}
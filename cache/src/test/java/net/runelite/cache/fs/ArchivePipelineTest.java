@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.jagex.DiskStorage;
+import net.runelite.cache.index.FileData;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArchivePipelineTest
+{
+	private static final int NUMBER_OF_ARCHIVES = 64;
+	private static final int NUMBER_OF_FILES = 1024;
+
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	private ForkJoinPool pool;
+	private Store store;
+	private ArchivePipeline pipeline;
+
+	@Before
+	public void before() throws IOException
+	{
+		File root = folder.newFolder();
+		try (Store store = new Store(new DiskStorage(root)))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < NUMBER_OF_ARCHIVES; ++i)
+			{
+				FSFile file = new FSFile(0);
+				file.setContents(("test" + i).getBytes());
+				save(store, index.addArchive(i), file);
+			}
+
+			FSFile[] files = new FSFile[NUMBER_OF_FILES];
+			for (int i = 0; i < NUMBER_OF_FILES; ++i)
+			{
+				files[i] = new FSFile(i);
+				files[i].setContents(("file" + i).getBytes());
+			}
+			save(store, store.addIndex(1).addArchive(0), files);
+
+			store.save();
+		}
+
+		pool = new ForkJoinPool(4);
+		store = new Store(new DiskStorage(root, true));
+		store.load();
+		pipeline = new ArchivePipeline(store.getStorage(), pool, 2);
+	}
+
+	@After
+	public void after() throws IOException
+	{
+		store.close();
+		pool.shutdown();
+	}
+
+	private static void save(Store store, Archive archive, FSFile... files) throws IOException
+	{
+		ArchiveFiles archiveFiles = new ArchiveFiles();
+		FileData[] fileData = new FileData[files.length];
+		for (int i = 0; i < files.length; ++i)
+		{
+			archiveFiles.addFile(files[i]);
+			fileData[i] = new FileData();
+			fileData[i].setId(files[i].getFileId());
+		}
+		archive.setFileData(fileData);
+
+		Container container = new Container(archive.getCompression(), -1);
+		container.compress(archiveFiles.saveContents(), null);
+		archive.setCrc(container.crc);
+		store.getStorage().saveArchive(archive, container.data);
+	}
+
+	@Test
+	public void testLoad() throws IOException
+	{
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < NUMBER_OF_ARCHIVES; ++i)
+		{
+			expected.add(i + "=test" + i);
+		}
+
+		List<String> loaded = new ArrayList<>();
+		pipeline.forEach(store.findIndex(0).getArchives(), (archive, data) -> archive.getArchiveId() + "=" + new String(data), loaded::add);
+		Assert.assertEquals(expected, loaded);
+	}
+
+	@Test
+	public void testLoadFiles() throws IOException
+	{
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < NUMBER_OF_ARCHIVES; ++i)
+		{
+			expected.add("0=test" + i);
+		}
+
+		try (Stream<String> stream = pipeline.loadFiles(store.findIndex(0).getArchives(), (fileId, contents) -> fileId + "=" + new String(contents)))
+		{
+			Assert.assertEquals(expected, stream.collect(Collectors.toList()));
+		}
+
+		expected.clear();
+		for (int i = 0; i < NUMBER_OF_FILES; ++i)
+		{
+			expected.add(i + "=file" + i);
+		}
+
+		List<String> loaded = new ArrayList<>();
+		pipeline.forEachFile(store.findIndex(1).getArchives(), (fileId, contents) -> fileId + "=" + new String(contents), loaded::add);
+		Assert.assertEquals(expected, loaded);
+	}
+
+	@Test(expected = IOException.class)
+	public void testCrcMismatch() throws IOException
+	{
+		Archive archive = store.findIndex(0).getArchive(NUMBER_OF_ARCHIVES / 2);
+		archive.setCrc(archive.getCrc() + 1);
+
+		pipeline.forEach(store.findIndex(0).getArchives(), (a, data) -> data, data ->
+		{
+		});
+	}
+
+	@Test
+	public void testClose()
+	{
+		// the reader is blocked on the full window until the stream is closed
+		try (Stream<Integer> stream = pipeline.load(store.findIndex(0).getArchives(), (archive, data) -> archive.getArchiveId()))
+		{
+			Assert.assertEquals(Integer.valueOf(0), stream.findFirst().orElse(null));
+		}
+	}
+}
@@ -25,9 +25,14 @@
 package net.runelite.cache.fs;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Random;
+import static net.runelite.cache.fs.jagex.CompressionType.BZ2;
 import static net.runelite.cache.fs.jagex.CompressionType.GZ;
+import static net.runelite.cache.fs.jagex.CompressionType.NONE;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import org.junit.Test;
 
 public class ContainerTest
@@ -52,4 +57,61 @@ public class ContainerTest
 		assertArrayEquals(data, container.data);
 	}
 
+	@Test
+	public void testDecompress() throws IOException
+	{
+		int[] keys = new int[]
+		{
+			4, 8, 15, 16
+		};
+		Random random = new Random(42L);
+		byte[] data = new byte[1024];
+		random.nextBytes(data);
+
+		for (int compression : new int[]{NONE, BZ2, GZ})
+		{
+			for (int[] k : new int[][]{null, keys})
+			{
+				Container container = new Container(compression, 42);
+				container.compress(data, k);
+				byte[] compressedData = container.data.clone();
+
+				Container decompressed = Container.decompress(container.data, k);
+				assertArrayEquals(data, decompressed.data);
+				assertEquals(container.crc, decompressed.crc);
+				assertEquals(compression, decompressed.compression);
+				assertEquals(42, decompressed.revision);
+				// decrypting must not modify the input
+				assertArrayEquals(compressedData, container.data);
+			}
+		}
+	}
+
+	@Test
+	public void testWrongKeys() throws IOException
+	{
+		byte[] data = new byte[1024];
+		new Random(42L).nextBytes(data);
+
+		Random random = new Random(7L);
+		for (int compression : new int[]{BZ2, GZ})
+		{
+			Container container = new Container(compression, -1);
+			container.compress(data, new int[]{4, 8, 15, 16});
+
+			for (int i = 0; i < 100; ++i)
+			{
+				int[] keys = {random.nextInt(), random.nextInt(), random.nextInt(), random.nextInt()};
+				try
+				{
+					Container.decompress(container.data, keys);
+					fail("Decompressed with the wrong keys " + Arrays.toString(keys));
+				}
+				catch (IOException e)
+				{
+					// expected
+				}
+			}
+		}
+	}
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.util.Random;
+import net.runelite.cache.util.Djb2;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class IndexTest
+{
+	@Test
+	public void testFindArchiveByName()
+	{
+		Index index = new Index(5);
+		for (int x = 0; x < 100; ++x)
+		{
+			for (int y = 0; y < 100; ++y)
+			{
+				Archive archive = index.addArchive(x << 8 | y);
+				archive.setNameHash(Djb2.hash("m" + x + "_" + y));
+			}
+		}
+
+		assertSame(index.getArchive(50 << 8 | 50), index.findArchiveByName("m50_50"));
+		assertSame(index.getArchive(99 << 8), index.findArchiveByName("m99_0"));
+		assertNull(index.findArchiveByName("l50_50"));
+	}
+
+	@Test
+	public void testRemoveArchive()
+	{
+		Index index = new Index(5);
+		Archive archive = index.addArchive(1);
+		archive.setNameHash(Djb2.hash("m50_50"));
+
+		assertTrue(index.removeArchive(archive));
+		assertNull(index.findArchiveByName("m50_50"));
+	}
+
+	@Test
+	public void testRename()
+	{
+		Index index = new Index(5);
+		Archive archive = index.addArchive(1);
+		archive.setNameHash(Djb2.hash("m50_50"));
+		archive.setNameHash(Djb2.hash("m50_51"));
+
+		assertNull(index.findArchiveByName("m50_50"));
+		assertSame(archive, index.findArchiveByName("m50_51"));
+	}
+
+	@Test
+	public void testSharedNameHash()
+	{
+		Index index = new Index(5);
+		Archive first = index.addArchive(3);
+		Archive second = index.addArchive(7);
+		Archive lowest = index.addArchive(1);
+		first.setNameHash(Djb2.hash("title.jpg"));
+		second.setNameHash(Djb2.hash("title.jpg"));
+		lowest.setNameHash(Djb2.hash("title.jpg"));
+
+		assertSame(lowest, index.findArchiveByName("title.jpg"));
+
+		index.removeArchive(lowest);
+		assertSame(first, index.findArchiveByName("title.jpg"));
+
+		first.setNameHash(0);
+		assertSame(second, index.findArchiveByName("title.jpg"));
+	}
+
+	@Test
+	public void testNameUnnamedArchives()
+	{
+		// like the storage loaders do, which used to take quadratic time as every archive shares hash 0 at first
+		Index index = new Index(5);
+		for (int i = 0; i < 1 << 16; ++i)
+		{
+			index.addArchive(i);
+		}
+		for (Archive archive : index.getArchives())
+		{
+			archive.setNameHash(Djb2.hash("n" + archive.getArchiveId()));
+		}
+
+		for (int i = 0; i < 1 << 16; i += 97)
+		{
+			assertSame(index.getArchive(i), index.findArchiveByName("n" + i));
+		}
+	}
+
+	@Test
+	public void testMatchesLinearScan()
+	{
+		Random random = new Random(42L);
+		Index index = new Index(5);
+		for (int i = 0; i < 4096; ++i)
+		{
+			int id = random.nextInt(8192);
+			Archive archive = index.getArchive(id);
+			if (archive == null)
+			{
+				archive = index.addArchive(id);
+			}
+
+			if (random.nextInt(8) == 0)
+			{
+				index.removeArchive(archive);
+			}
+			else
+			{
+				archive.setNameHash(Djb2.hash("n" + random.nextInt(2048)));
+			}
+		}
+
+		for (int i = 0; i < 2048; ++i)
+		{
+			String name = "n" + i;
+			Archive expected = null;
+			for (Archive archive : index.getArchives())
+			{
+				if (archive.getNameHash() == Djb2.hash(name))
+				{
+					expected = archive;
+					break;
+				}
+			}
+
+			assertSame(name, expected, index.findArchiveByName(name));
+		}
+	}
+}
@@ -101,4 +101,49 @@ public class DiskStorageTest
 		}
 	}
 
+	@Test
+	public void testMemoryMapped() throws Exception
+	{
+		File file = folder.newFolder();
+		try (Store store = new Store(new DiskStorage(file)))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 16; ++i)
+			{
+				Archive archive = index.addArchive(i);
+				archive.setFileData(new FileData[]{new FileData()});
+
+				Container container = new Container(archive.getCompression(), -1);
+				container.compress(("test" + i).getBytes(), null);
+				archive.setCrc(container.crc);
+				store.getStorage().saveArchive(archive, container.data);
+			}
+
+			store.save();
+		}
+
+		DiskStorage storage = new DiskStorage(file);
+		DiskStorage mappedStorage = new DiskStorage(file, true);
+		try (Store store = new Store(storage); Store mappedStore = new Store(mappedStorage))
+		{
+			store.load();
+			mappedStore.load();
+			assertEquals(store, mappedStore);
+
+			for (Archive archive : mappedStore.findIndex(0).getArchives())
+			{
+				byte[] compressedData = mappedStorage.loadArchive(archive);
+				assertArrayEquals(storage.loadArchive(archive), compressedData);
+				assertArrayEquals(("test" + archive.getArchiveId()).getBytes(), archive.decompress(compressedData));
+			}
+
+			// written archives are visible to later reads
+			Archive archive = mappedStore.findIndex(0).addArchive(16);
+			Container container = new Container(archive.getCompression(), -1);
+			container.compress("test16".getBytes(), null);
+			archive.setCrc(container.crc);
+			mappedStorage.saveArchive(archive, container.data);
+			assertArrayEquals("test16".getBytes(), archive.decompress(mappedStorage.loadArchive(archive)));
+		}
+	}
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.jagex;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import net.runelite.cache.StoreLocation;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedDataFileTest
+{
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	@Test
+	public void testSameAsDataFile() throws IOException
+	{
+		File file = folder.newFile();
+		Random random = new Random(42L);
+		int[] archives = {3, 0x1FFFF, 7, 0xFFFF, 0x10000};
+		int[] sectors = new int[archives.length];
+		byte[][] contents = new byte[archives.length][];
+
+		try (DataFile df = new DataFile(file))
+		{
+			for (int i = 0; i < archives.length; ++i)
+			{
+				contents[i] = new byte[random.nextInt(4096) + 1];
+				random.nextBytes(contents[i]);
+				sectors[i] = df.write(42, archives[i], contents[i]).sector;
+			}
+
+			try (MappedDataFile mdf = new MappedDataFile(file))
+			{
+				for (int i = 0; i < archives.length; ++i)
+				{
+					byte[] expected = df.read(42, archives[i], sectors[i], contents[i].length);
+					Assert.assertArrayEquals(contents[i], expected);
+					Assert.assertArrayEquals(expected, mdf.read(42, archives[i], sectors[i], contents[i].length));
+				}
+
+				// wrong archive, wrong index, past the end of the file and longer than the archive
+				Assert.assertNull(mdf.read(42, 4, sectors[0], contents[0].length));
+				Assert.assertNull(mdf.read(41, archives[0], sectors[0], contents[0].length));
+				Assert.assertNull(mdf.read(42, archives[0], sectors[archives.length - 1] + 100, 1));
+				for (int i = 0; i < archives.length; ++i)
+				{
+					Assert.assertArrayEquals(df.read(42, archives[i], sectors[i], contents[i].length + 600),
+						mdf.read(42, archives[i], sectors[i], contents[i].length + 600));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRemap() throws IOException
+	{
+		File file = folder.newFile();
+		try (DataFile df = new DataFile(file); MappedDataFile mdf = new MappedDataFile(file))
+		{
+			byte[] data = "test".getBytes();
+			DataFileWriteResult res = df.write(42, 3, data);
+			Assert.assertNull(mdf.read(42, 3, res.sector, res.compressedLength));
+
+			mdf.remap();
+			Assert.assertArrayEquals(data, mdf.read(42, 3, res.sector, res.compressedLength));
+		}
+	}
+
+	@Test
+	public void testIndexFile() throws IOException
+	{
+		File file = folder.newFile();
+		try (IndexFile index = new IndexFile(5, file))
+		{
+			IndexEntry entry = new IndexEntry(index, 7, 8, 9);
+			index.write(entry);
+
+			try (MappedIndexFile mapped = new MappedIndexFile(index))
+			{
+				Assert.assertEquals(index.read(7), mapped.read(7));
+				Assert.assertNull(mapped.read(6));
+				Assert.assertNull(mapped.read(8));
+			}
+		}
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.util;
+
+import com.google.common.primitives.Ints;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.CompressionType;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class BZip2DecoderTest
+{
+	private static void assertSameAsApache(byte[] data) throws IOException
+	{
+		byte[] compressed = BZip2.compressApache(data);
+
+		byte[] expected = new byte[data.length];
+		BZip2.decompressApache(compressed, 0, compressed.length, expected);
+
+		byte[] out = new byte[data.length];
+		BZip2.decompress(compressed, 0, compressed.length, out);
+		assertArrayEquals(expected, out);
+		assertArrayEquals(data, out);
+	}
+
+	@Test
+	public void testRandom() throws IOException
+	{
+		Random random = new Random(42L);
+		for (int size : new int[]{0, 1, 2, 7, 100, 4096, 99_999, 100_000, 100_001, 350_000})
+		{
+			byte[] data = new byte[size];
+			random.nextBytes(data);
+			assertSameAsApache(data);
+		}
+	}
+
+	@Test
+	public void testRuns() throws IOException
+	{
+		Random random = new Random(43L);
+		for (int size : new int[]{4, 5, 255, 260, 4096, 250_000, 1_000_000})
+		{
+			// runs of every length, over a small alphabet, like most of the cache
+			byte[] data = new byte[size];
+			for (int i = 0; i < size; )
+			{
+				int run = Math.min(size - i, random.nextInt(300) + 1);
+				Arrays.fill(data, i, i + run, (byte) random.nextInt(6));
+				i += run;
+			}
+			assertSameAsApache(data);
+		}
+
+		assertSameAsApache(new byte[1_000_000]);
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorrupt() throws IOException
+	{
+		byte[] data = new byte[4096];
+		new Random(44L).nextBytes(data);
+		byte[] compressed = BZip2.compressApache(data);
+		compressed[compressed.length / 2] ^= 0x10;
+
+		BZip2.decompress(compressed, 0, compressed.length, new byte[data.length]);
+	}
+
+	@Test(expected = IOException.class)
+	public void testWrongSize() throws IOException
+	{
+		byte[] compressed = BZip2.compressApache(new byte[4096]);
+		BZip2.decompress(compressed, 0, compressed.length, new byte[4095]);
+	}
+
+	@Test
+	public void testCache() throws IOException
+	{
+		int archives = 0;
+		try (Store store = new Store(StoreLocation.LOCATION))
+		{
+			store.load();
+			Storage storage = store.getStorage();
+
+			for (Index index : store.getIndexes())
+			{
+				for (Archive archive : index.getArchives())
+				{
+					byte[] data = storage.loadArchive(archive);
+					if (data == null || data[0] != CompressionType.BZ2)
+					{
+						continue;
+					}
+
+					int compressedLength = Ints.fromBytes(data[1], data[2], data[3], data[4]);
+					int length = Ints.fromBytes(data[5], data[6], data[7], data[8]);
+
+					byte[] expected = new byte[length];
+					BZip2.decompressApache(data, 9, compressedLength, expected);
+
+					byte[] out = new byte[length];
+					BZip2.decompress(data, 9, compressedLength, out);
+					assertArrayEquals(expected, out);
+					++archives;
+				}
+			}
+		}
+		assertTrue(archives > 0);
+	}
+}
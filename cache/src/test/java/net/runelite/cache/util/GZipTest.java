@@ -53,4 +53,25 @@ public class GZipTest
 		};
 		assertArrayEquals(header, Arrays.copyOfRange(data, 0, header.length));
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testDecompress() throws IOException
+	{
+		byte[] data = "datadatadata".getBytes(StandardCharsets.UTF_8);
+		byte[] compressed = GZip.compress(data);
+
+		byte[] padded = new byte[compressed.length + 2];
+		System.arraycopy(compressed, 0, padded, 1, compressed.length);
+
+		byte[] out = new byte[data.length];
+		GZip.decompress(padded, 1, compressed.length, out);
+		assertArrayEquals(data, out);
+	}
+
+	@Test(expected = IOException.class)
+	public void testDecompressSizeMismatch() throws IOException
+	{
+		byte[] compressed = GZip.compress("datadatadata".getBytes(StandardCharsets.UTF_8));
+		GZip.decompress(compressed, 0, compressed.length, new byte[4]);
+	}
+}
@@ -25,7 +25,9 @@
 package net.runelite.cache.util;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import org.junit.Test;
 
 public class XteaTest
@@ -53,4 +55,24 @@ public class XteaTest
 
 		assertArrayEquals(data, decData);
 	}
+
+	@Test
+	public void testDecryptInPlace()
+	{
+		byte[] data = "testtesttest1".getBytes(StandardCharsets.UTF_8);
+
+		int[] key = new int[]
+		{
+			4, 8, 15, 16
+		};
+		byte[] encrypted = new byte[]
+		{
+			42, 121, -18, 48, 64, 120, -42, -113, 77, 116, 101, 115, 116, 49, 42
+		};
+
+		new Xtea(key).decrypt(encrypted, 1, data.length);
+		assertArrayEquals(data, Arrays.copyOfRange(encrypted, 1, 1 + data.length));
+		assertEquals(42, encrypted[0]);
+		assertEquals(42, encrypted[encrypted.length - 1]);
+	}
 }
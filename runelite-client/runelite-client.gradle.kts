@@ -47,6 +47,19 @@ apply<BootstrapPlugin>()
 
 description = "RuneLite Client"
 
+sourceSets {
+    create("jmh") {
+        // the benchmarks share the headless setup of the tests
+        compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath + sourceSets.test.get().output
+        runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath + sourceSets.test.get().output
+    }
+    create("tools") {
+        // offline builders of bundled resources, which are not shipped with the client
+        compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+        runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath
+    }
+}
+
 dependencies {
     annotationProcessor(group = "org.projectlombok", name = "lombok", version = ProjectVersions.lombokVersion)
     annotationProcessor(group = "org.pf4j", name = "pf4j", version = "3.6.0")
@@ -134,6 +147,12 @@ dependencies {
     testImplementation(group = "com.squareup.okhttp3", name = "mockwebserver", version = "4.9.1")
     testImplementation(group = "org.slf4j", name = "slf4j-api", version = "1.7.32")
 
+    "jmhImplementation"(group = "org.openjdk.jmh", name = "jmh-core", version = ProjectVersions.jmhVersion)
+    "jmhAnnotationProcessor"(group = "org.openjdk.jmh", name = "jmh-generator-annprocess", version = ProjectVersions.jmhVersion)
+
+    "toolsCompileOnly"(group = "org.projectlombok", name = "lombok", version = ProjectVersions.lombokVersion)
+    "toolsAnnotationProcessor"(group = "org.projectlombok", name = "lombok", version = ProjectVersions.lombokVersion)
+
     implementation("com.miglayout:miglayout:3.7.4")
     implementation("org.jetbrains.kotlin:kotlin-stdlib:1.6.21")
     implementation("org.jboss.aerogear:aerogear-otp-java:1.0.0")
@@ -216,6 +235,32 @@ tasks {
         mainClass.set("net.unethicalite.client.Unethicalite")
     }
 
+    register<JavaExec>("jmh") {
+        group = "openosrs"
+        description = "Runs the JMH benchmarks, JMH options can be passed with --args"
+
+        classpath = project.sourceSets["jmh"].runtimeClasspath
+        mainClass.set("org.openjdk.jmh.Main")
+    }
+
+    register<JavaExec>("scriptedWalks") {
+        group = "openosrs"
+        description = "Searches the benchmark routes over again with a GC log, the number of walks can be passed with --args"
+
+        classpath = project.sourceSets["jmh"].runtimeClasspath
+        mainClass.set("net.unethicalite.api.movement.pathfinder.ScriptedWalks")
+        jvmArgs("-Xlog:gc*:file=${buildDir}/scripted-walks-gc.log:uptime,level,tags")
+    }
+
+    register<JavaExec>("regionGraph") {
+        group = "openosrs"
+        description = "Rebuilds the bundled region graph, after the bundled collision map or transports change"
+
+        classpath = project.sourceSets["tools"].runtimeClasspath
+        mainClass.set("net.unethicalite.api.movement.pathfinder.RegionGraphBuilder")
+        workingDir = rootProject.projectDir
+    }
+
     withType<JavaCompile> {
         options.encoding = "UTF-8"
     }
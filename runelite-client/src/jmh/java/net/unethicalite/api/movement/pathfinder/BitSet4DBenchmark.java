@@ -0,0 +1,75 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes of a region sized {@link BitSet4D}, at random coordinates so the branch predictor
+ * cannot learn the pattern.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitSet4DBenchmark
+{
+	private static final int OPERATIONS = 4096;
+
+	private final int[] xs = new int[OPERATIONS];
+	private final int[] ys = new int[OPERATIONS];
+	private final int[] zs = new int[OPERATIONS];
+	private final int[] ws = new int[OPERATIONS];
+	private BitSet4D bits;
+
+	@Setup
+	public void setup()
+	{
+		Random random = new Random(0);
+		bits = new BitSet4D(64, 64, 4, 2);
+		for (int i = 0; i < OPERATIONS; i++)
+		{
+			xs[i] = random.nextInt(64);
+			ys[i] = random.nextInt(64);
+			zs[i] = random.nextInt(4);
+			ws[i] = random.nextInt(2);
+			bits.set(xs[i], ys[i], zs[i], ws[i], random.nextBoolean());
+		}
+	}
+
+	@Benchmark
+	public int get()
+	{
+		int set = 0;
+		for (int i = 0; i < OPERATIONS; i++)
+		{
+			if (bits.get(xs[i], ys[i], zs[i], ws[i]))
+			{
+				set++;
+			}
+		}
+		return set;
+	}
+
+	@Benchmark
+	public BitSet4D set()
+	{
+		for (int i = 0; i < OPERATIONS; i++)
+		{
+			bits.set(xs[i], ys[i], zs[i], ws[i], (i & 1) == 0);
+		}
+		return bits;
+	}
+}
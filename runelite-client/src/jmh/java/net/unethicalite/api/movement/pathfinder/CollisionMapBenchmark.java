@@ -0,0 +1,156 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import net.runelite.api.CollisionDataFlag;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.plugins.unethicalite.regions.TileFlag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Loading the global collision map the ways the client does, and reading through the scene collisions
+ * layered over it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollisionMapBenchmark
+{
+	private static final int SCENE_SIZE = 104;
+	// Lumbridge, the scene's south west corner
+	private static final int SCENE_X = 3168;
+	private static final int SCENE_Y = 3168;
+
+	private byte[] compressed;
+	private byte[] regions;
+	private long checksum;
+	private File cacheFile;
+	private GlobalCollisionMap map;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException
+	{
+		map = BenchmarkEnvironment.collisionMap();
+		compressed = BenchmarkEnvironment.readCompressedRegions();
+		regions = BenchmarkEnvironment.readRegions();
+
+		CRC32 crc = new CRC32();
+		crc.update(compressed);
+		checksum = crc.getValue();
+		cacheFile = File.createTempFile("collision-map", ".dat");
+		map.write(cacheFile, checksum);
+
+		BenchmarkEnvironment.setCollisionOverlay(CollisionOverlay.EMPTY.withTileFlags(sceneTileFlags(), map));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		cacheFile.delete();
+	}
+
+	/**
+	 * First start, or after the bundled regions changed: inflating and parsing the resource.
+	 */
+	@Benchmark
+	public GlobalCollisionMap inflateAndParse() throws IOException
+	{
+		try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(compressed)))
+		{
+			return new GlobalCollisionMap(is.readAllBytes());
+		}
+	}
+
+	@Benchmark
+	public GlobalCollisionMap parse()
+	{
+		return new GlobalCollisionMap(regions);
+	}
+
+	/**
+	 * Every later start: mapping the cache file written on the first one.
+	 */
+	@Benchmark
+	public GlobalCollisionMap mapCacheFile() throws IOException
+	{
+		return GlobalCollisionMap.map(cacheFile, checksum);
+	}
+
+	@Benchmark
+	public CollisionMap withLocalCollisions()
+	{
+		return map.withLocalCollisions();
+	}
+
+	/**
+	 * Reads every edge of the scene through the overlay, like a search around the player does.
+	 */
+	@Benchmark
+	public int sceneLookups()
+	{
+		CollisionMap layered = map.withLocalCollisions();
+		int open = 0;
+		for (int x = SCENE_X; x < SCENE_X + SCENE_SIZE; x++)
+		{
+			for (int y = SCENE_Y; y < SCENE_Y + SCENE_SIZE; y++)
+			{
+				if (layered.n(x, y, 0))
+				{
+					open++;
+				}
+				if (layered.e(x, y, 0))
+				{
+					open++;
+				}
+			}
+		}
+		return open;
+	}
+
+	/**
+	 * Tile flags for the scene as the region manager would read them, taken from the global map.
+	 */
+	private List<TileFlag> sceneTileFlags()
+	{
+		List<TileFlag> tileFlags = new ArrayList<>(SCENE_SIZE * SCENE_SIZE);
+		for (int x = SCENE_X; x < SCENE_X + SCENE_SIZE; x++)
+		{
+			for (int y = SCENE_Y; y < SCENE_Y + SCENE_SIZE; y++)
+			{
+				int flag = 0;
+				if (!map.n(x, y, 0))
+				{
+					flag |= CollisionDataFlag.BLOCK_MOVEMENT_NORTH;
+				}
+				if (!map.e(x, y, 0))
+				{
+					flag |= CollisionDataFlag.BLOCK_MOVEMENT_EAST;
+				}
+				tileFlags.add(new TileFlag(x, y, 0, flag, new WorldPoint(x, y, 0).getRegionID()));
+			}
+		}
+		return tileFlags;
+	}
+}
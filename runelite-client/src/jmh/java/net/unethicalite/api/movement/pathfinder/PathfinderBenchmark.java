@@ -0,0 +1,75 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches a fixed set of routes on the bundled collision map, from short walks inside a town to
+ * paths across the map that go through the region graph and transports.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathfinderBenchmark
+{
+	public enum Route
+	{
+		LUMBRIDGE_CASTLE(new WorldPoint(3222, 3218, 0), new WorldPoint(3208, 3220, 2)),
+		LUMBRIDGE_SWAMP(new WorldPoint(3222, 3218, 0), new WorldPoint(3228, 3176, 0)),
+		DRAYNOR_EDGEVILLE(new WorldPoint(3093, 3244, 0), new WorldPoint(3094, 3491, 0)),
+		LUMBRIDGE_VARROCK(new WorldPoint(3222, 3218, 0), new WorldPoint(3213, 3424, 0)),
+		GRAND_EXCHANGE_AL_KHARID(new WorldPoint(3164, 3486, 0), new WorldPoint(3293, 3174, 0)),
+		ARDOUGNE_YANILLE(new WorldPoint(2662, 3305, 0), new WorldPoint(2606, 3093, 0)),
+		FALADOR_CATHERBY(new WorldPoint(2964, 3378, 0), new WorldPoint(2809, 3436, 0)),
+		LUMBRIDGE_ARDOUGNE(new WorldPoint(3222, 3218, 0), new WorldPoint(2662, 3305, 0));
+
+		private final WorldPoint start;
+		private final WorldPoint target;
+
+		Route(WorldPoint start, WorldPoint target)
+		{
+			this.start = start;
+			this.target = target;
+		}
+	}
+
+	private static final int MAX_SEARCH = 5_000_000;
+
+	@Param
+	public Route route;
+
+	@Param({"false", "true"})
+	public boolean avoidWilderness;
+
+	private CollisionMap map;
+	private TransportIndex transports;
+
+	@Setup
+	public void setup()
+	{
+		map = BenchmarkEnvironment.collisionMap();
+		transports = BenchmarkEnvironment.transports();
+	}
+
+	@Benchmark
+	public List<WorldPoint> find()
+	{
+		return new Pathfinder(map, transports, List.of(route.start), route.target, avoidWilderness).find(MAX_SEARCH);
+	}
+}
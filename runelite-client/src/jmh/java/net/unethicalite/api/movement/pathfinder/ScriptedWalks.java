@@ -0,0 +1,48 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Searches the routes of the {@link PathfinderBenchmark} with a reachable target, in order and over again, so
+ * the pauses of a long session of walks can be read from a GC log. Run it with the {@code scriptedWalks} task,
+ * which writes the log to {@code build/scripted-walks-gc.log}:
+ * <pre>
+ * ScriptedWalks [walks]
+ * </pre>
+ */
+public class ScriptedWalks
+{
+	private static final Logger log = LoggerFactory.getLogger(ScriptedWalks.class);
+
+	private static final int DEFAULT_WALKS = 1000;
+	private static final WorldPoint[][] WALKS = {
+		{new WorldPoint(3222, 3218, 0), new WorldPoint(3208, 3220, 2)},
+		{new WorldPoint(3093, 3244, 0), new WorldPoint(3094, 3491, 0)},
+		{new WorldPoint(3222, 3218, 0), new WorldPoint(3213, 3424, 0)},
+		{new WorldPoint(3164, 3486, 0), new WorldPoint(3293, 3174, 0)},
+		{new WorldPoint(2662, 3305, 0), new WorldPoint(2606, 3093, 0)},
+		{new WorldPoint(2964, 3378, 0), new WorldPoint(2809, 3436, 0)},
+		{new WorldPoint(3222, 3218, 0), new WorldPoint(2662, 3305, 0)},
+	};
+
+	public static void main(String[] args)
+	{
+		int walks = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_WALKS;
+		CollisionMap map = BenchmarkEnvironment.collisionMap();
+		TransportIndex transports = BenchmarkEnvironment.transports();
+
+		long start = System.nanoTime();
+		long tiles = 0;
+		for (int i = 0; i < walks; i++)
+		{
+			WorldPoint[] walk = WALKS[i % WALKS.length];
+			tiles += new Pathfinder(map, transports, List.of(walk[0]), walk[1], false).find().size();
+		}
+
+		log.info("Walked {} routes, {} path tiles in {} ms", walks, tiles, (System.nanoTime() - start) / 1_000_000);
+	}
+}
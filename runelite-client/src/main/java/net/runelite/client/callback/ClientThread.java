@@ -27,28 +27,93 @@ package net.runelite.client.callback;
 import com.google.inject.Inject;
 import io.reactivex.rxjava3.plugins.RxJavaPlugins;
 import io.reactivex.rxjava3.schedulers.Schedulers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.function.BooleanSupplier;
 import javax.inject.Singleton;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
+import net.runelite.client.eventbus.EventBus;
 import org.jetbrains.annotations.NotNull;
 
 @Singleton
 @Slf4j
 public class ClientThread implements Executor
 {
-	private final ConcurrentLinkedQueue<BooleanSupplier> invokes = new ConcurrentLinkedQueue<>();
+	/**
+	 * The lane an invoke is queued in. Each client tick the lanes are run in order.
+	 */
+	public enum Priority
+	{
+		/**
+		 * Always run on the next client tick, regardless of the frame budget
+		 */
+		CRITICAL,
+		/**
+		 * The default. Run within the frame budget, and spilled to later ticks past it
+		 */
+		NORMAL,
+		/**
+		 * Run within the frame budget once there are no normal invokes left for the tick
+		 */
+		BACKGROUND,
+	}
+
+	/**
+	 * Time spent running the invokes of one source, typically the class which queued them
+	 */
+	@Value
+	public static class InvokeTiming
+	{
+		String source;
+		long count;
+		long totalNanos;
+		long maxNanos;
+	}
+
+	private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+	private static final ClassValue<String> SOURCES = new ClassValue<>()
+	{
+		@Override
+		protected String computeValue(Class<?> type)
+		{
+			// lambdas are attributed to the class they are declared in
+			String name = type.getName();
+			int idx = name.indexOf("$$Lambda");
+			return idx == -1 ? name : name.substring(0, idx);
+		}
+	};
+
+	private final Map<Priority, ConcurrentLinkedQueue<BooleanSupplier>> invokes = new EnumMap<>(Priority.class);
 	private final ConcurrentLinkedQueue<BooleanSupplier> invokesAtTickEnd = new ConcurrentLinkedQueue<>();
+	private final Map<Class<?>, ConcurrentLinkedQueue<BooleanSupplier>> waiting = new ConcurrentHashMap<>();
+	private final Map<String, Timing> timings = new ConcurrentHashMap<>();
 
 	private final Client client;
+	private final EventBus eventBus;
+
+	private volatile long frameBudget;
 
 	@Inject
-	private ClientThread(Client client)
+	private ClientThread(Client client, EventBus eventBus)
 	{
 		this.client = client;
+		this.eventBus = eventBus;
+
+		for (Priority priority : Priority.values())
+		{
+			invokes.put(priority, new ConcurrentLinkedQueue<>());
+		}
 
 		RxJavaPlugins.setSingleSchedulerHandler(old -> Schedulers.from(this));
 	}
@@ -61,11 +126,7 @@ public class ClientThread implements Executor
 
 	public void invoke(Runnable r)
 	{
-		invoke(() ->
-		{
-			r.run();
-			return true;
-		});
+		invoke(new RunnableInvoke(r));
 	}
 
 	/**
@@ -73,17 +134,26 @@ public class ClientThread implements Executor
 	 * If r returns false, r will be ran again, at a later point
 	 */
 	public void invoke(BooleanSupplier r)
+	{
+		invoke(Priority.NORMAL, r);
+	}
+
+	/**
+	 * Will run r on the game thread, at an unspecified point in the future.
+	 * If r returns false, r will be ran again, at a later point, in the lane for the priority
+	 */
+	public void invoke(Priority priority, BooleanSupplier r)
 	{
 		if (client.isClientThread())
 		{
-			if (!r.getAsBoolean())
+			if (!run(r))
 			{
-				invokes.add(r);
+				invokes.get(priority).add(r);
 			}
 			return;
 		}
 
-		invokeLater(r);
+		invokeLater(priority, r);
 	}
 
 	/**
@@ -92,65 +162,258 @@ public class ClientThread implements Executor
 	 */
 	public void invokeLater(Runnable r)
 	{
-		invokeLater(() ->
-		{
-			r.run();
-			return true;
-		});
+		invokeLater(new RunnableInvoke(r));
 	}
 
 	public void invokeLater(BooleanSupplier r)
 	{
-		invokes.add(r);
+		invokeLater(Priority.NORMAL, r);
+	}
+
+	public void invokeLater(Priority priority, Runnable r)
+	{
+		invokeLater(priority, new RunnableInvoke(r));
+	}
+
+	public void invokeLater(Priority priority, BooleanSupplier r)
+	{
+		invokes.get(priority).add(r);
 	}
 
 	public void invokeAtTickEnd(Runnable r)
 	{
-		invokesAtTickEnd.add(() ->
-		{
-			r.run();
-			return true;
-		});
+		invokesAtTickEnd.add(new RunnableInvoke(r));
+	}
+
+	/**
+	 * Will run r on the game thread, at an unspecified point in the future.
+	 * If r returns false, it is not polled again every tick as with {@link #invoke(BooleanSupplier)}, but waits
+	 * until an event of the given type is posted, after which r is run again on the next client tick.
+	 */
+	public void invokeOn(Class<?> eventType, BooleanSupplier r)
+	{
+		invoke(new WaitingInvoke(eventType, r));
+	}
+
+	/**
+	 * Sets the time each client tick may spend running normal and background invokes. Invokes which don't fit
+	 * are left for later ticks. Critical invokes are always run.
+	 *
+	 * @param budget the budget, or zero for no limit
+	 */
+	public void setFrameBudget(Duration budget)
+	{
+		frameBudget = budget.toNanos();
+	}
+
+	public Duration getFrameBudget()
+	{
+		return Duration.ofNanos(frameBudget);
+	}
+
+	/**
+	 * @return the time spent running invokes since the timings were last reset, by source, most expensive first
+	 */
+	public List<InvokeTiming> getTimings()
+	{
+		List<InvokeTiming> list = new ArrayList<>(timings.size());
+		timings.forEach((source, timing) -> list.add(timing.snapshot(source)));
+		list.sort(Comparator.comparingLong(InvokeTiming::getTotalNanos).reversed());
+		return list;
+	}
+
+	public void resetTimings()
+	{
+		timings.clear();
 	}
 
 	public void invoke()
 	{
-		invokeList(invokes);
+		invokeList(invokes.get(Priority.CRITICAL), NO_DEADLINE, false);
+
+		// the budget is for what runs after the critical invokes
+		long budget = frameBudget;
+		long deadline = budget > 0 ? System.nanoTime() + budget : NO_DEADLINE;
+		if (invokeList(invokes.get(Priority.NORMAL), deadline, true))
+		{
+			invokeList(invokes.get(Priority.BACKGROUND), deadline, false);
+		}
 	}
 
 	public void invokeTickEnd()
 	{
-		invokeList(invokesAtTickEnd);
+		invokeList(invokesAtTickEnd, NO_DEADLINE, false);
 	}
 
-	private void invokeList(ConcurrentLinkedQueue<BooleanSupplier> invokes)
+	/**
+	 * Runs the invokes in order, removing those which are done. Those which are not done keep their place, so
+	 * they are polled again before the invokes behind them on the next tick.
+	 *
+	 * @param runFirst whether to run the first invoke even if the deadline has passed
+	 * @return false if the deadline passed before every invoke was run
+	 */
+	private boolean invokeList(ConcurrentLinkedQueue<BooleanSupplier> invokes, long deadline, boolean runFirst)
 	{
 		assert client.isClientThread();
 		Iterator<BooleanSupplier> ir = invokes.iterator();
 		while (ir.hasNext())
 		{
-			BooleanSupplier r = ir.next();
-			boolean remove = true;
-			try
+			if (!runFirst && deadline != NO_DEADLINE && System.nanoTime() - deadline >= 0)
 			{
-				remove = r.getAsBoolean();
+				log.trace("Frame budget exceeded, deferring remaining invokes");
+				return false;
 			}
-			catch (ThreadDeath d)
+			runFirst = false;
+
+			BooleanSupplier r = ir.next();
+			if (run(r))
 			{
-				throw d;
+				ir.remove();
 			}
-			catch (Throwable e)
+			else
 			{
-				log.error("Exception in invoke", e);
+				log.trace("Deferring task {}", r);
 			}
-			if (remove)
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if r is done
+	 */
+	private boolean run(BooleanSupplier r)
+	{
+		long start = System.nanoTime();
+		boolean done = true;
+		try
+		{
+			done = r.getAsBoolean();
+		}
+		catch (ThreadDeath d)
+		{
+			throw d;
+		}
+		catch (Throwable e)
+		{
+			log.error("Exception in invoke", e);
+		}
+
+		long elapsed = System.nanoTime() - start;
+		timings.computeIfAbsent(sourceOf(r), k -> new Timing()).record(elapsed);
+		return done;
+	}
+
+	private static String sourceOf(BooleanSupplier r)
+	{
+		Object source = r;
+		if (r instanceof RunnableInvoke)
+		{
+			source = ((RunnableInvoke) r).runnable;
+		}
+		else if (r instanceof WaitingInvoke)
+		{
+			source = ((WaitingInvoke) r).invoke;
+		}
+		return SOURCES.get(source.getClass());
+	}
+
+	private void wake(Class<?> eventType)
+	{
+		ConcurrentLinkedQueue<BooleanSupplier> queue = waiting.get(eventType);
+		BooleanSupplier r;
+		while ((r = queue.poll()) != null)
+		{
+			invokes.get(Priority.NORMAL).add(new WaitingInvoke(eventType, r));
+		}
+	}
+
+	private void park(Class<?> eventType, BooleanSupplier r)
+	{
+		ConcurrentLinkedQueue<BooleanSupplier> queue = waiting.get(eventType);
+		if (queue == null)
+		{
+			synchronized (waiting)
 			{
-				ir.remove();
+				queue = waiting.get(eventType);
+				if (queue == null)
+				{
+					queue = new ConcurrentLinkedQueue<>();
+					waiting.put(eventType, queue);
+					eventBus.register(eventType, e -> wake(eventType), 0);
+				}
 			}
-			else
+		}
+		queue.add(r);
+	}
+
+	private static final class RunnableInvoke implements BooleanSupplier
+	{
+		private final Runnable runnable;
+
+		private RunnableInvoke(Runnable runnable)
+		{
+			this.runnable = runnable;
+		}
+
+		@Override
+		public boolean getAsBoolean()
+		{
+			runnable.run();
+			return true;
+		}
+
+		@Override
+		public String toString()
+		{
+			return runnable.toString();
+		}
+	}
+
+	private final class WaitingInvoke implements BooleanSupplier
+	{
+		private final Class<?> eventType;
+		private final BooleanSupplier invoke;
+
+		private WaitingInvoke(Class<?> eventType, BooleanSupplier invoke)
+		{
+			this.eventType = eventType;
+			this.invoke = invoke;
+		}
+
+		@Override
+		public boolean getAsBoolean()
+		{
+			if (!invoke.getAsBoolean())
 			{
-				log.trace("Deferring task {}", r);
+				// off the invoke queue until the event is posted
+				park(eventType, invoke);
 			}
+			return true;
+		}
+
+		@Override
+		public String toString()
+		{
+			return invoke.toString();
+		}
+	}
+
+	private static final class Timing
+	{
+		private long count;
+		private long totalNanos;
+		private long maxNanos;
+
+		synchronized void record(long nanos)
+		{
+			++count;
+			totalNanos += nanos;
+			maxNanos = Math.max(maxNanos, nanos);
+		}
+
+		synchronized InvokeTiming snapshot(String source)
+		{
+			return new InvokeTiming(source, count, totalNanos, maxNanos);
 		}
 	}
 }
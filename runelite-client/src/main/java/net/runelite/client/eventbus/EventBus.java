@@ -27,8 +27,6 @@
 package net.runelite.client.eventbus;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableMultimap;
-import com.google.common.collect.Iterables;
 import java.lang.invoke.CallSite;
 import java.lang.invoke.LambdaMetafactory;
 import java.lang.invoke.MethodHandle;
@@ -36,8 +34,18 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
 import lombok.EqualsAndHashCode;
@@ -54,6 +62,9 @@ import org.slf4j.MarkerFactory;
 public class EventBus
 {
 	private static final Marker DEDUPLICATE = MarkerFactory.getMarker("DEDUPLICATE");
+	private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+	private static final Comparator<Subscriber> ORDER = Comparator.comparingDouble(Subscriber::getPriority).reversed()
+		.thenComparing(s -> s.object.getClass().getName());
 
 	@Value
 	public static class Subscriber
@@ -83,8 +94,23 @@ public class EventBus
 
 	private final Consumer<Throwable> exceptionHandler;
 
-	@Nonnull
-	private ImmutableMultimap<Class<?>, Subscriber> subscribers = ImmutableMultimap.of();
+	/**
+	 * Subscribers of each event class, sorted in the order they are called. Arrays are never modified
+	 * once published, registering replaces the array of each event class the subscriber declares.
+	 */
+	private final ClassValue<AtomicReference<Subscriber[]>> subscribers = new ClassValue<>()
+	{
+		@Override
+		protected AtomicReference<Subscriber[]> computeValue(Class<?> type)
+		{
+			return new AtomicReference<>(NO_SUBSCRIBERS);
+		}
+	};
+
+	/**
+	 * Event classes each registered object subscribes to, guarded by this
+	 */
+	private final Map<Object, Set<Class<?>>> subscribedTypes = new IdentityHashMap<>();
 
 	/**
 	 * Instantiates EventBus with default exception handler
@@ -103,10 +129,7 @@ public class EventBus
 	 */
 	public synchronized void register(@Nonnull final Object object)
 	{
-		final ImmutableMultimap.Builder<Class<?>, Subscriber> builder = ImmutableMultimap.builder();
-		builder.putAll(subscribers);
-		builder.orderValuesBy(Comparator.comparingDouble(Subscriber::getPriority).reversed()
-			.thenComparing(s -> s.object.getClass().getName()));
+		final Map<Class<?>, List<Subscriber>> added = new LinkedHashMap<>();
 
 		for (Class<?> clazz = object.getClass(); clazz != null; clazz = clazz.getSuperclass())
 		{
@@ -130,7 +153,7 @@ public class EventBus
 
 				for (Class<?> psc = parameterClazz.getSuperclass(); psc != null; psc = psc.getSuperclass())
 				{
-					if (subscribers.containsKey(psc))
+					if (subscribers.get(psc).get().length > 0)
 					{
 						throw new IllegalArgumentException("@Subscribed method \"" + method + "\" cannot subscribe to class which inherits from subscribed class \"" + psc + "\"");
 					}
@@ -161,25 +184,18 @@ public class EventBus
 				}
 
 				final Subscriber subscriber = new Subscriber(object, method, sub.priority(), lambda);
-				builder.put(parameterClazz, subscriber);
+				added.computeIfAbsent(parameterClazz, k -> new ArrayList<>()).add(subscriber);
 				log.debug("Registering {} - {}", parameterClazz, subscriber);
 			}
 		}
 
-		subscribers = builder.build();
+		added.forEach((eventClass, subs) -> add(eventClass, subs.toArray(NO_SUBSCRIBERS)));
 	}
 
 	public synchronized <T> Subscriber register(Class<T> clazz, Consumer<T> subFn, float priority)
 	{
-		final ImmutableMultimap.Builder<Class<?>, Subscriber> builder = ImmutableMultimap.builder();
-		builder.putAll(subscribers);
-		builder.orderValuesBy(Comparator.comparingDouble(Subscriber::getPriority).reversed()
-			.thenComparing(s -> s.object.getClass().getName()));
-
 		Subscriber sub = new Subscriber(subFn, null, priority, (Consumer<Object>) subFn);
-		builder.put(clazz, sub);
-
-		subscribers = builder.build();
+		add(clazz, sub);
 
 		return sub;
 	}
@@ -194,13 +210,7 @@ public class EventBus
 	public synchronized void registerRunnable(@Nonnull final Class<?> eventClass, @Nonnull final Runnable runnable, float priority)
 	{
 		final Subscriber subscriber = new Subscriber(runnable, null, priority, null);
-		final ImmutableMultimap.Builder<Class<?>, Subscriber> builder = ImmutableMultimap.builder();
-		builder.putAll(subscribers);
-		builder.put(eventClass, subscriber);
-		builder.orderValuesBy(Comparator.comparingDouble(Subscriber::getPriority).reversed()
-				.thenComparing(s -> s.object.getClass().getName()));
-
-		subscribers = builder.build();
+		add(eventClass, subscriber);
 
 		log.debug("Registering runnable for {} - {}", eventClass, subscriber);
 	}
@@ -212,10 +222,16 @@ public class EventBus
 	 */
 	public synchronized void unregister(@Nonnull final Object object)
 	{
-		subscribers = ImmutableMultimap.copyOf(Iterables.filter(
-			subscribers.entries(),
-			e -> e.getValue().getObject() != object
-		));
+		final Set<Class<?>> types = subscribedTypes.remove(object);
+		if (types == null)
+		{
+			return;
+		}
+
+		for (Class<?> eventClass : types)
+		{
+			remove(eventClass, s -> s.getObject() == object);
+		}
 	}
 
 	public synchronized void unregister(Subscriber sub)
@@ -225,10 +241,52 @@ public class EventBus
 			return;
 		}
 
-		subscribers = ImmutableMultimap.copyOf(Iterables.filter(
-			subscribers.entries(),
-			e -> sub != e.getValue()
-		));
+		final Object object = sub.getObject();
+		final Set<Class<?>> types = subscribedTypes.get(object);
+		if (types == null)
+		{
+			return;
+		}
+
+		types.removeIf(eventClass ->
+		{
+			remove(eventClass, s -> s == sub);
+			return Arrays.stream(subscribers.get(eventClass).get()).noneMatch(s -> s.getObject() == object);
+		});
+
+		if (types.isEmpty())
+		{
+			subscribedTypes.remove(object);
+		}
+	}
+
+	/**
+	 * Publishes a new subscriber array for the event class with the subscribers added, in call order.
+	 * The sort is stable, so subscribers that compare equal are called in the order they registered.
+	 */
+	private void add(Class<?> eventClass, Subscriber... added)
+	{
+		final AtomicReference<Subscriber[]> ref = subscribers.get(eventClass);
+		final Subscriber[] current = ref.get();
+		final Subscriber[] updated = Arrays.copyOf(current, current.length + added.length);
+		System.arraycopy(added, 0, updated, current.length, added.length);
+		Arrays.sort(updated, ORDER);
+		ref.set(updated);
+
+		for (Subscriber subscriber : added)
+		{
+			subscribedTypes.computeIfAbsent(subscriber.getObject(), k -> new LinkedHashSet<>()).add(eventClass);
+		}
+	}
+
+	private void remove(Class<?> eventClass, Predicate<Subscriber> filter)
+	{
+		final AtomicReference<Subscriber[]> ref = subscribers.get(eventClass);
+		final Subscriber[] current = ref.get();
+		final Subscriber[] updated = Arrays.stream(current)
+			.filter(filter.negate())
+			.toArray(Subscriber[]::new);
+		ref.set(updated.length == 0 ? NO_SUBSCRIBERS : updated);
 	}
 
 	/**
@@ -239,7 +297,7 @@ public class EventBus
 	 */
 	public void post(@Nonnull final Object event)
 	{
-		for (final Subscriber subscriber : subscribers.get(event.getClass()))
+		for (final Subscriber subscriber : subscribers.get(event.getClass()).get())
 		{
 			try
 			{
@@ -2,19 +2,48 @@ package net.unethicalite.api.entities;
 
 import net.unethicalite.api.SceneEntity;
 import net.unethicalite.api.commons.Predicates;
+import net.unethicalite.api.scene.SceneIndex;
 import net.unethicalite.api.scene.Tiles;
+import net.runelite.api.Client;
 import net.runelite.api.Tile;
 import net.runelite.api.coords.WorldArea;
 import net.runelite.api.coords.WorldPoint;
+import net.unethicalite.client.Static;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 public abstract class TileEntities<T extends SceneEntity> extends Entities<T>
 {
 	protected abstract List<T> at(Tile tile, Predicate<? super T> filter);
 
+	protected abstract SceneIndex<T> index();
+
+	@Override
+	protected T nearest(WorldPoint to, Predicate<? super T> filter)
+	{
+		Client client = Static.getClient();
+		int plane = client.getPlane();
+		if (to.getPlane() != plane)
+		{
+			return super.nearest(to, filter);
+		}
+
+		return index().getNearest(plane, to.getX() - client.getBaseX(), to.getY() - client.getBaseY(), to,
+				x -> x.getId() != -1 && filter.test(x));
+	}
+
+	protected List<T> within(WorldPoint to, int distance, Predicate<? super T> filter)
+	{
+		Client client = Static.getClient();
+		return index().getWithin(client.getPlane(), to.getX() - client.getBaseX(), to.getY() - client.getBaseY(), distance)
+				.stream()
+				.filter(x -> x.getId() != -1 && to.distanceTo(x.getWorldLocation()) <= distance && filter.test(x))
+				.collect(Collectors.toList());
+	}
+
 	protected List<T> at(Tile tile, int... ids)
 	{
 		return at(tile, Predicates.ids(ids));
@@ -27,16 +56,11 @@ public abstract class TileEntities<T extends SceneEntity> extends Entities<T>
 
 	protected List<T> surrounding(int worldX, int worldY, int plane, int radius, Predicate<? super T> filter)
 	{
-		List<T> out = new ArrayList<>();
-		for (int x = -radius; x <= radius; x++)
-		{
-			for (int y = -radius; y <= radius; y++)
-			{
-				out.addAll(at(Tiles.getAt(worldX + x, worldY + y, plane), filter));
-			}
-		}
-
-		return out;
+		Client client = Static.getClient();
+		return index().getSurrounding(plane, worldX - client.getBaseX(), worldY - client.getBaseY(), radius)
+				.stream()
+				.filter(x -> x.getId() != -1 && filter.test(x))
+				.collect(Collectors.toList());
 	}
 
 	protected List<T> surrounding(int worldX, int worldY, int plane, int radius, int... ids)
@@ -1,7 +1,9 @@
 package net.unethicalite.api.entities;
 
 import net.unethicalite.api.query.entities.TileItemQuery;
+import net.unethicalite.api.scene.SceneIndex;
 import net.unethicalite.api.scene.Tiles;
+import net.unethicalite.client.Static;
 import net.runelite.api.Tile;
 import net.runelite.api.TileItem;
 import net.runelite.api.coords.WorldArea;
@@ -24,7 +26,7 @@ public class TileItems extends TileEntities<TileItem>
 
 	public static TileItemQuery query()
 	{
-		return query(TileItems::getAll);
+		return new TileItemQuery(TileItems::getAll, TileItems::getWithin);
 	}
 
 	public static TileItemQuery query(Supplier<List<TileItem>> supplier)
@@ -52,6 +54,16 @@ public class TileItems extends TileEntities<TileItem>
 		return TILE_ITEMS.all(names);
 	}
 
+	public static List<TileItem> getWithin(WorldPoint to, int distance)
+	{
+		return getWithin(to, distance, x -> true);
+	}
+
+	public static List<TileItem> getWithin(WorldPoint to, int distance, Predicate<TileItem> filter)
+	{
+		return TILE_ITEMS.within(to, distance, filter);
+	}
+
 	public static TileItem getNearest(Predicate<TileItem> filter)
 	{
 		return getNearest(Players.getLocal().getWorldLocation(), filter);
@@ -290,6 +302,12 @@ public class TileItems extends TileEntities<TileItem>
 				.collect(Collectors.toList());
 	}
 
+	@Override
+	protected SceneIndex<TileItem> index()
+	{
+		return Static.getSceneIndexManager().getTileItems();
+	}
+
 	@Override
 	protected List<TileItem> at(Tile tile, Predicate<? super TileItem> filter)
 	{
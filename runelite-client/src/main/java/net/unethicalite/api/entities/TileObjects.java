@@ -1,6 +1,7 @@
 package net.unethicalite.api.entities;
 
 import net.unethicalite.api.query.entities.TileObjectQuery;
+import net.unethicalite.api.scene.SceneIndex;
 import net.unethicalite.api.scene.Tiles;
 import net.runelite.api.DecorativeObject;
 import net.runelite.api.GameObject;
@@ -29,7 +30,7 @@ public class TileObjects extends TileEntities<TileObject>
 
 	public static TileObjectQuery query()
 	{
-		return query(TileObjects::getAll);
+		return new TileObjectQuery(TileObjects::getAll, TileObjects::getWithin);
 	}
 
 	public static TileObjectQuery query(Supplier<List<TileObject>> supplier)
@@ -57,6 +58,16 @@ public class TileObjects extends TileEntities<TileObject>
 		return TILE_OBJECTS.all(names);
 	}
 
+	public static List<TileObject> getWithin(WorldPoint to, int distance)
+	{
+		return getWithin(to, distance, x -> true);
+	}
+
+	public static List<TileObject> getWithin(WorldPoint to, int distance, Predicate<TileObject> filter)
+	{
+		return TILE_OBJECTS.within(to, distance, filter);
+	}
+
 	public static TileObject getNearest(Predicate<TileObject> filter)
 	{
 		return TILE_OBJECTS.nearest(Players.getLocal().getWorldLocation(), filter);
@@ -346,6 +357,12 @@ public class TileObjects extends TileEntities<TileObject>
 				.collect(Collectors.toList());
 	}
 
+	@Override
+	protected SceneIndex<TileObject> index()
+	{
+		return Static.getSceneIndexManager().getTileObjects();
+	}
+
 	@Override
 	protected List<TileObject> at(Tile tile, Predicate<? super TileObject> pred)
 	{
@@ -1,11 +1,16 @@
 package net.unethicalite.api.game;
 
 import lombok.extern.slf4j.Slf4j;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.runelite.client.callback.ClientThread;
 import net.unethicalite.client.Static;
 
 @Slf4j
@@ -13,6 +18,10 @@ public class GameThread
 {
 	private static final long TIMEOUT = 1000;
 
+	// calls waiting for the client thread, which are all run in the same invoke
+	private static final ConcurrentLinkedQueue<FutureTask<?>> pending = new ConcurrentLinkedQueue<>();
+	private static final AtomicBoolean scheduled = new AtomicBoolean();
+
 	public static void invoke(Runnable runnable)
 	{
 		if (Static.getClient().isClientThread())
@@ -39,17 +48,128 @@ public class GameThread
 			}
 		}
 
+		FutureTask<T> futureTask = new FutureTask<>(callable);
 		try
 		{
-			FutureTask<T> futureTask = new FutureTask<>(callable);
-			Static.getClientThread().invokeLater(futureTask);
+			submit(futureTask);
 			return futureTask.get(TIMEOUT, TimeUnit.MILLISECONDS);
 		}
 		catch (ExecutionException | InterruptedException | TimeoutException e)
 		{
+			futureTask.cancel(false);
 			log.error("Client thread invocation timed out", e);
 			throw new RuntimeException("Client thread invoke timed out after " + TIMEOUT + " ms", e);
 		}
 	}
-}
 
+	/**
+	 * Queues the task to be run on the next client tick, along with any other calls made from other threads
+	 * before then. The calls are run in a critical invoke so they are not held back by the frame budget.
+	 */
+	private static void submit(FutureTask<?> task)
+	{
+		pending.add(task);
+		if (scheduled.compareAndSet(false, true))
+		{
+			Static.getClientThread().invokeLater(ClientThread.Priority.CRITICAL, GameThread::runPending);
+		}
+	}
+
+	private static void runPending()
+	{
+		scheduled.set(false);
+
+		FutureTask<?> task;
+		while ((task = pending.poll()) != null)
+		{
+			task.run();
+		}
+	}
+
+	/**
+	 * Calls to be made on the client thread in a single invoke, so reading several pieces of game state costs
+	 * one round trip to the client thread instead of one each, and all of them are read on the same tick.
+	 * <pre>
+	 * GameThread.Batch batch = new GameThread.Batch();
+	 * GameThread.Result&lt;Integer&gt; hitpoints = batch.add(() -&gt; client.getBoostedSkillLevel(Skill.HITPOINTS));
+	 * GameThread.Result&lt;Boolean&gt; bankOpen = batch.add(Bank::isOpen);
+	 * batch.execute();
+	 * </pre>
+	 */
+	public static class Batch
+	{
+		private final List<Result<?>> results = new ArrayList<>();
+
+		public <T> Result<T> add(Callable<T> callable)
+		{
+			Result<T> result = new Result<>(callable);
+			results.add(result);
+			return result;
+		}
+
+		/**
+		 * Makes the calls on the client thread, in the order they were added, and waits for them to complete.
+		 * A call which throws does not stop the others being made.
+		 */
+		public void execute()
+		{
+			invokeLater(() ->
+			{
+				for (Result<?> result : results)
+				{
+					result.call();
+				}
+				return null;
+			});
+		}
+	}
+
+	/**
+	 * The result of a call added to a {@link Batch}
+	 */
+	public static class Result<T>
+	{
+		private final Callable<T> callable;
+		private boolean done;
+		private T value;
+		private Exception exception;
+
+		private Result(Callable<T> callable)
+		{
+			this.callable = callable;
+		}
+
+		private void call()
+		{
+			try
+			{
+				value = callable.call();
+			}
+			catch (Exception e)
+			{
+				exception = e;
+			}
+			done = true;
+		}
+
+		/**
+		 * @return the value returned by the call
+		 * @throws IllegalStateException if the batch has not been executed
+		 * @throws RuntimeException if the call threw
+		 */
+		public T get()
+		{
+			if (!done)
+			{
+				throw new IllegalStateException("Batch has not been executed");
+			}
+
+			if (exception != null)
+			{
+				throw new RuntimeException("Client thread invocation failed", exception);
+			}
+
+			return value;
+		}
+	}
+}
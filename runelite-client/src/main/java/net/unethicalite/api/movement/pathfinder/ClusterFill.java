@@ -0,0 +1,130 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Breadth-first flood fill confined to one region on one plane, the clusters of the {@link RegionGraph}.
+ * Movement rules are symmetric, so the distances also hold when walking towards the sources.
+ */
+public class ClusterFill
+{
+	private static final int SIZE = 64 * 64;
+
+	// Distance + 1 per local tile, 0 if not reached
+	private final int[] distances = new int[SIZE];
+	private final int[] queue = new int[SIZE];
+	@Getter
+	private int clusterKey = WorldPointUtil.UNDEFINED;
+
+	/**
+	 * Fills from the given packed sources, which must all lie in the same cluster.
+	 */
+	public void fill(CollisionMap map, int[] sources, int count)
+	{
+		Arrays.fill(distances, 0);
+		clusterKey = count == 0 ? WorldPointUtil.UNDEFINED : RegionGraph.clusterKey(sources[0]);
+		if (count == 0)
+		{
+			return;
+		}
+
+		int plane = WorldPointUtil.unpackPlane(sources[0]);
+		int baseX = WorldPointUtil.unpackX(sources[0]) & ~63;
+		int baseY = WorldPointUtil.unpackY(sources[0]) & ~63;
+
+		int head = 0;
+		int tail = 0;
+		for (int i = 0; i < count; i++)
+		{
+			int local = localIndex(sources[i]);
+			if (distances[local] == 0)
+			{
+				distances[local] = 1;
+				queue[tail++] = local;
+			}
+		}
+
+		while (head < tail)
+		{
+			int local = queue[head++];
+			int next = distances[local] + 1;
+			int lx = local >>> 6;
+			int ly = local & 63;
+			int x = baseX + lx;
+			int y = baseY + ly;
+
+			if (lx > 0 && map.w(x, y, plane))
+			{
+				tail = visit(local - 64, next, tail);
+			}
+
+			if (lx < 63 && map.e(x, y, plane))
+			{
+				tail = visit(local + 64, next, tail);
+			}
+
+			if (ly > 0 && map.s(x, y, plane))
+			{
+				tail = visit(local - 1, next, tail);
+			}
+
+			if (ly < 63 && map.n(x, y, plane))
+			{
+				tail = visit(local + 1, next, tail);
+			}
+
+			if (lx > 0 && ly > 0 && map.sw(x, y, plane))
+			{
+				tail = visit(local - 65, next, tail);
+			}
+
+			if (lx < 63 && ly > 0 && map.se(x, y, plane))
+			{
+				tail = visit(local + 63, next, tail);
+			}
+
+			if (lx > 0 && ly < 63 && map.nw(x, y, plane))
+			{
+				tail = visit(local - 63, next, tail);
+			}
+
+			if (lx < 63 && ly < 63 && map.ne(x, y, plane))
+			{
+				tail = visit(local + 65, next, tail);
+			}
+		}
+	}
+
+	/**
+	 * @return the walking distance from the nearest source, or {@link WorldPointUtil#UNDEFINED} if the tile
+	 * is outside the filled cluster or could not be reached without leaving it
+	 */
+	public int distance(int packed)
+	{
+		if (clusterKey == WorldPointUtil.UNDEFINED || RegionGraph.clusterKey(packed) != clusterKey)
+		{
+			return WorldPointUtil.UNDEFINED;
+		}
+
+		return distances[localIndex(packed)] - 1;
+	}
+
+	private int visit(int local, int distance, int tail)
+	{
+		if (distances[local] != 0)
+		{
+			return tail;
+		}
+
+		distances[local] = distance;
+		queue[tail] = local;
+		return tail + 1;
+	}
+
+	private static int localIndex(int packed)
+	{
+		return (WorldPointUtil.unpackX(packed) & 63) << 6 | WorldPointUtil.unpackY(packed) & 63;
+	}
+}
@@ -0,0 +1,286 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import net.runelite.api.coords.Direction;
+import net.runelite.client.plugins.unethicalite.regions.TileFlag;
+import net.unethicalite.api.movement.Reachable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable, sparse set of per-tile collision overrides layered on top of a base map by
+ * {@link LayeredCollisionMap}. Updates return a new overlay that shares every region page
+ * it did not touch, so readers on the walker thread never see a half-applied update.
+ * <p>
+ * Every overlay also remembers the tiles of its most recent updates, so a search made against an
+ * older overlay can repair itself instead of starting over (see {@link #changesSince(CollisionOverlay)}).
+ */
+public class CollisionOverlay
+{
+	public static final int UNKNOWN = -1;
+	public static final CollisionOverlay EMPTY = new CollisionOverlay(new int[1], new long[1][], 0, 0, new Change[0]);
+
+	private static final AtomicLong VERSIONS = new AtomicLong();
+	private static final int MAX_HISTORY = 64;
+
+	// Page layout, one long per row y: [0, 64) tiles present, [64, 128) north flag, [128, 192) east flag
+	private static final int PAGE_SIZE = 3 * 64;
+
+	private final int[] keys;
+	private final long[][] pages;
+	private final int size;
+	private final long version;
+	// Updates that led to this overlay, oldest first
+	private final Change[] history;
+
+	private CollisionOverlay(int[] keys, long[][] pages, int size, long version, Change[] history)
+	{
+		this.keys = keys;
+		this.pages = pages;
+		this.size = size;
+		this.version = version;
+		this.history = history;
+	}
+
+	/**
+	 * @return 1 if movement is possible, 0 if blocked or {@link #UNKNOWN} if the tile is not overridden
+	 */
+	public int get(int x, int y, int z, int w)
+	{
+		long[] page = page(pageKey(x, y, z));
+		if (page == null)
+		{
+			return UNKNOWN;
+		}
+
+		int row = y & 63;
+		long bit = 1L << (x & 63);
+		if ((page[row] & bit) == 0)
+		{
+			return UNKNOWN;
+		}
+
+		return (page[(w + 1) * 64 + row] & bit) != 0 ? 1 : 0;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * @return the packed tiles updated between the given overlay and this one, or null if this overlay
+	 * was not derived from it within the retained history
+	 */
+	public int[] changesSince(CollisionOverlay older)
+	{
+		if (older == this)
+		{
+			return new int[0];
+		}
+
+		for (int i = history.length - 1; i >= 0; i--)
+		{
+			if (history[i].previousVersion == older.version)
+			{
+				int count = 0;
+				for (int j = i; j < history.length; j++)
+				{
+					count += history[j].tiles.length;
+				}
+
+				int[] tiles = new int[count];
+				count = 0;
+				for (int j = i; j < history.length; j++)
+				{
+					System.arraycopy(history[j].tiles, 0, tiles, count, history[j].tiles.length);
+					count += history[j].tiles.length;
+				}
+				return tiles;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns a copy of this overlay with the given tile flags applied. Regions the base map does not
+	 * know about are treated as fully walkable apart from the overridden tiles, like the scene's
+	 * collision data would have them.
+	 */
+	public CollisionOverlay withTileFlags(Collection<TileFlag> tileFlags, GlobalCollisionMap base)
+	{
+		if (tileFlags.isEmpty())
+		{
+			return this;
+		}
+
+		Pages copy = new Pages(Math.max(16, keys.length));
+		for (int i = 0; i < keys.length; i++)
+		{
+			if (pages[i] != null)
+			{
+				copy.put(keys[i], pages[i]);
+			}
+		}
+
+		int[] changed = new int[tileFlags.size()];
+		int changedCount = 0;
+		for (TileFlag tileFlag : tileFlags)
+		{
+			int x = tileFlag.getX();
+			int y = tileFlag.getY();
+			int key = pageKey(x, y, tileFlag.getZ());
+			if (key < 0)
+			{
+				continue;
+			}
+			changed[changedCount++] = WorldPointUtil.pack(x, y, tileFlag.getZ());
+
+			long[] page = copy.get(key);
+			if (page == null)
+			{
+				page = new long[PAGE_SIZE];
+				if (!base.hasRegion(tileFlag.getRegion()))
+				{
+					Arrays.fill(page, -1L);
+				}
+				copy.put(key, page);
+			}
+			else if (page == page(key))
+			{
+				// Still shared with this overlay, copy before writing
+				page = page.clone();
+				copy.put(key, page);
+			}
+
+			int flag = tileFlag.getFlag();
+			boolean obstacle = Reachable.isObstacle(flag);
+			boolean north = !obstacle && !Reachable.isWalled(Direction.NORTH, flag);
+			boolean east = !obstacle && !Reachable.isWalled(Direction.EAST, flag);
+
+			int row = y & 63;
+			long bit = 1L << (x & 63);
+			page[row] |= bit;
+			page[64 + row] = north ? page[64 + row] | bit : page[64 + row] & ~bit;
+			page[128 + row] = east ? page[128 + row] | bit : page[128 + row] & ~bit;
+		}
+
+		int retained = Math.min(history.length, MAX_HISTORY - 1);
+		Change[] newHistory = Arrays.copyOfRange(history, history.length - retained, history.length + 1);
+		newHistory[retained] = new Change(version, Arrays.copyOf(changed, changedCount));
+		return new CollisionOverlay(copy.keys, copy.pages, copy.size, VERSIONS.incrementAndGet(), newHistory);
+	}
+
+	private long[] page(int key)
+	{
+		if (key < 0 || size == 0)
+		{
+			return null;
+		}
+
+		int mask = keys.length - 1;
+		for (int i = hash(key) & mask; pages[i] != null; i = i + 1 & mask)
+		{
+			if (keys[i] == key)
+			{
+				return pages[i];
+			}
+		}
+
+		return null;
+	}
+
+	private static int hash(int key)
+	{
+		return key * 0x9E3779B9 >>> 16;
+	}
+
+	private static class Change
+	{
+		private final long previousVersion;
+		private final int[] tiles;
+
+		Change(long previousVersion, int[] tiles)
+		{
+			this.previousVersion = previousVersion;
+			this.tiles = tiles;
+		}
+	}
+
+	/**
+	 * Mutable open-addressing map used while building a new overlay.
+	 */
+	private static class Pages
+	{
+		private int[] keys;
+		private long[][] pages;
+		private int size;
+
+		Pages(int capacity)
+		{
+			keys = new int[capacity];
+			pages = new long[capacity][];
+		}
+
+		long[] get(int key)
+		{
+			return pages[slot(key)];
+		}
+
+		void put(int key, long[] page)
+		{
+			int slot = slot(key);
+			if (pages[slot] == null)
+			{
+				if (++size * 2 > keys.length)
+				{
+					grow();
+					slot = slot(key);
+				}
+			}
+
+			keys[slot] = key;
+			pages[slot] = page;
+		}
+
+		private int slot(int key)
+		{
+			int mask = keys.length - 1;
+			int i = hash(key) & mask;
+			while (pages[i] != null && keys[i] != key)
+			{
+				i = i + 1 & mask;
+			}
+			return i;
+		}
+
+		private void grow()
+		{
+			int[] oldKeys = keys;
+			long[][] oldPages = pages;
+			keys = new int[oldKeys.length * 2];
+			pages = new long[oldKeys.length * 2][];
+			for (int i = 0; i < oldKeys.length; i++)
+			{
+				if (oldPages[i] != null)
+				{
+					int slot = slot(oldKeys[i]);
+					keys[slot] = oldKeys[i];
+					pages[slot] = oldPages[i];
+				}
+			}
+		}
+	}
+
+	private static int pageKey(int x, int y, int z)
+	{
+		if (x < 0 || y < 0 || x >= 256 * 64 || y >= 256 * 64)
+		{
+			return -1;
+		}
+
+		return z << 16 | (x >>> 6) << 8 | y >>> 6;
+	}
+}
@@ -1,7 +1,7 @@
 package net.unethicalite.api.movement.pathfinder;
 
-import net.runelite.api.coords.Direction;
-import net.unethicalite.api.movement.Reachable;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
 import net.unethicalite.client.Static;
 
 import java.io.ByteArrayInputStream;
@@ -11,28 +11,87 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
-import java.util.Objects;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
+/**
+ * World collision map stored as one flat block of long words. Every loaded region owns
+ * {@link #REGION_WORDS} longs: one 64-bit row per y, for each plane and flag (0 = north, 1 = east),
+ * with bit x set if movement in that direction is possible. A region directory maps region ids to
+ * blocks, so a lookup is one directory read plus a shift and mask.
+ * <p>
+ * The directory and words are published together through one volatile field, so a lookup never mixes the
+ * directory of one map with the words of another while a map is swapped or grown. Bits are set in place.
+ * <p>
+ * The same layout is used on disk, which lets the walker memory-map a prebuilt copy at startup
+ * instead of inflating and parsing the bundled {@code /regions} resource.
+ */
+@Slf4j
 public class GlobalCollisionMap implements CollisionMap
 {
-	public final BitSet4D[] regions = new BitSet4D[256 * 256];
+	private static final int MAGIC = 0x434d4150; // CMAP
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+	private static final int REGION_COUNT = 256 * 256;
+	private static final int REGION_WORDS = 4 * 2 * 64;
+	// Size of a region in the legacy format: a 2-byte region id and a BitSet4D of 64x64x4x2 bits
+	private static final int LEGACY_REGION_SIZE = 2 + 64 * 64 * 4 * 2 / 8;
+	private static final File CACHE_FILE = new File(RuneLite.CACHE_DIR, "collision-map.dat");
+
+	private volatile Regions regions;
 
 	public GlobalCollisionMap()
 	{
+		this.regions = new Regions(emptyDirectory(), LongBuffer.allocate(0), 0);
 	}
 
+	/**
+	 * Parses the legacy format, a sequence of region ids each followed by a {@link BitSet4D}.
+	 */
 	public GlobalCollisionMap(byte[] data)
 	{
-		var buffer = ByteBuffer.wrap(data);
+		Regions regions = new Regions(emptyDirectory(), LongBuffer.allocate(data.length / LEGACY_REGION_SIZE * REGION_WORDS), 0);
 
+		var buffer = ByteBuffer.wrap(data);
 		while (buffer.hasRemaining())
 		{
 			var region = buffer.getShort() & 0xffff;
-			regions[region] = new BitSet4D(buffer, 64, 64, 4, 2);
+			int base = regions.count * REGION_WORDS;
+			regions = regions.withBlock(region, 0L);
+			for (int i = 0; i < LEGACY_REGION_SIZE - 2; i++)
+			{
+				int b = buffer.get() & 0xff;
+				while (b != 0)
+				{
+					int bit = i << 3 | Integer.numberOfTrailingZeros(b);
+					b &= b - 1;
+
+					// BitSet4D index: ((z * 64 + y) * 64 + x) * 2 + w
+					int w = bit & 1;
+					int x = bit >>> 1 & 63;
+					int y = bit >>> 7 & 63;
+					int z = bit >>> 13;
+					int index = base + wordIndex(y, z, w);
+					regions.words.put(index, regions.words.get(index) | 1L << x);
+				}
+			}
 		}
+
+		this.regions = regions;
+	}
+
+	private GlobalCollisionMap(Regions regions)
+	{
+		this.regions = regions;
 	}
 
 	public File writeToFile()
@@ -69,137 +128,327 @@ public class GlobalCollisionMap implements CollisionMap
 		return fileLoc;
 	}
 
+	/**
+	 * Serializes to the legacy format read by {@link #GlobalCollisionMap(byte[])}.
+	 */
 	public byte[] toBytes()
 	{
-		var regionCount = (int) Arrays.stream(regions).filter(Objects::nonNull).count();
-		var buffer = ByteBuffer.allocate(regionCount * (2 + 64 * 64 * 4 * 2 / 8));
-
-		for (var i = 0; i < regions.length; i++)
+		Regions regions = this.regions;
+		var buffer = ByteBuffer.allocate(regions.count * LEGACY_REGION_SIZE);
+		for (var region = 0; region < REGION_COUNT; region++)
 		{
-			if (regions[i] != null)
+			int block = regions.directory.get(region);
+			if (block < 0)
 			{
-				buffer.putShort((short) i);
-				regions[i].write(buffer);
+				continue;
 			}
+
+			buffer.putShort((short) region);
+			var bits = new BitSet4D(64, 64, 4, 2);
+			for (int z = 0; z < 4; z++)
+			{
+				for (int w = 0; w < 2; w++)
+				{
+					for (int y = 0; y < 64; y++)
+					{
+						long row = regions.words.get(block * REGION_WORDS + wordIndex(y, z, w));
+						for (int x = 0; x < 64; x++)
+						{
+							if ((row >>> x & 1) != 0)
+							{
+								bits.set(x, y, z, w, true);
+							}
+						}
+					}
+				}
+			}
+			bits.write(buffer);
 		}
 
 		return buffer.array();
 	}
 
-	public void set(int x, int y, int z, int w, boolean value)
+	public synchronized void set(int x, int y, int z, int w, boolean value)
 	{
-		var region = regions[x / 64 * 256 + y / 64];
-
-		if (region == null)
+		Regions regions = writable();
+		int block = regions.block(x, y);
+		if (block < 0)
 		{
 			return;
 		}
 
-		region.set(x % 64, y % 64, z, w, value);
+		int index = block * REGION_WORDS + wordIndex(y & 63, z, w);
+		long bit = 1L << (x & 63);
+		regions.words.put(index, value ? regions.words.get(index) | bit : regions.words.get(index) & ~bit);
 	}
 
-	public BitSet4D getRegion(int x, int y)
+	public boolean hasRegion(int region)
 	{
-		int regionId = x / 64 * 256 + y / 64;
-		return regions[regionId];
+		return regions.directory.get(region) >= 0;
 	}
 
-	public void createRegion(int region)
+	public synchronized void createRegion(int region)
 	{
-		regions[region] = new BitSet4D(64, 64, 4, 2);
-		regions[region].setAll(true);
+		if (hasRegion(region))
+		{
+			return;
+		}
+
+		regions = writable().withBlock(region, -1L);
 	}
 
 	public boolean get(int x, int y, int z, int w)
 	{
-		var region = getRegion(x, y);
-
-		if (region == null)
+		Regions regions = this.regions;
+		int block = regions.block(x, y);
+		if (block < 0)
 		{
 			return false;
 		}
 
-		int regionX = x % 64;
-		int regionY = y % 64;
-
-		return region.get(regionX, regionY, z, w);
+		return (regions.words.get(block * REGION_WORDS + wordIndex(y & 63, z, w)) >>> (x & 63) & 1) != 0;
 	}
 
 	public GlobalCollisionMap copy()
 	{
-		return new GlobalCollisionMap(this.toBytes());
+		return new GlobalCollisionMap(regions.copy(regions.count * REGION_WORDS));
 	}
 
-	public GlobalCollisionMap withLocalCollisions()
+	/**
+	 * Layers the collisions of the loaded scene, as tracked by the region manager, over this map.
+	 */
+	public LayeredCollisionMap withLocalCollisions()
 	{
-		GlobalCollisionMap newMap = this.copy();
-		Static.getRegionManager().getTileFlags().forEach(tileFlag ->
+		return new LayeredCollisionMap(this, Static.getRegionManager().getCollisionOverlay());
+	}
+
+	public synchronized void overwrite(GlobalCollisionMap globalCollisionMap)
+	{
+		this.regions = globalCollisionMap.regions;
+	}
+
+	@Override
+	public boolean n(int x, int y, int z)
+	{
+		return get(x, y, z, 0);
+	}
+
+	@Override
+	public boolean e(int x, int y, int z)
+	{
+		return get(x, y, z, 1);
+	}
+
+	/**
+	 * Writes the flat layout, tagged with the checksum of the data it was built from.
+	 */
+	public void write(File file, long sourceChecksum) throws IOException
+	{
+		Regions regions = this.regions;
+		int wordCount = regions.count * REGION_WORDS;
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + REGION_COUNT * Integer.BYTES + wordCount * Long.BYTES)
+			.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putLong(sourceChecksum);
+		buffer.putInt(regions.count);
+		buffer.position(HEADER_SIZE);
+		buffer.asIntBuffer().put(regions.directory.duplicate().rewind());
+		buffer.position(HEADER_SIZE + REGION_COUNT * Integer.BYTES);
+		buffer.asLongBuffer().put(regions.words.duplicate().rewind().limit(wordCount));
+		buffer.rewind();
+
+		File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			while (buffer.hasRemaining())
+			{
+				channel.write(buffer);
+			}
+		}
+
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Memory-maps a file written by {@link #write(File, long)}. The header is read and checked first, so a stale
+	 * file is never mapped, which would keep it from being replaced on Windows until the mapping is collected.
+	 *
+	 * @return the mapped collision map, or null if the file is missing, invalid or was built from other data
+	 */
+	public static GlobalCollisionMap map(File file, long sourceChecksum) throws IOException
+	{
+		if (!file.isFile())
 		{
-			int region = tileFlag.getRegion();
-			int x = tileFlag.getX();
-			int y = tileFlag.getY();
-			int z = tileFlag.getZ();
-			int flag = tileFlag.getFlag();
+			return null;
+		}
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining())
+			{
+				if (channel.read(header) < 0)
+				{
+					return null;
+				}
+			}
 
-			if (newMap.regions[region] == null)
+			if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getLong(8) != sourceChecksum)
 			{
-				newMap.createRegion(region);
+				return null;
 			}
 
-			if (Reachable.isObstacle(flag))
+			int regionCount = header.getInt(16);
+			long expectedSize = HEADER_SIZE + REGION_COUNT * Integer.BYTES + (long) regionCount * REGION_WORDS * Long.BYTES;
+			if (regionCount < 0 || regionCount > REGION_COUNT || channel.size() != expectedSize)
 			{
-				newMap.set(x, y, z, 0, false);
-				newMap.set(x, y, z, 1, false);
+				return null;
 			}
-			else
+
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, expectedSize);
+			IntBuffer directory = mapped.position(HEADER_SIZE).slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().limit(REGION_COUNT);
+			LongBuffer words = mapped.position(HEADER_SIZE + REGION_COUNT * Integer.BYTES).slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+			return new GlobalCollisionMap(new Regions(directory, words, regionCount));
+		}
+	}
+
+	public static GlobalCollisionMap fetchFromUrl(String url) throws IOException
+	{
+		try (InputStream is = Walker.class.getResourceAsStream("/regions"))
+		{
+			if (is == null)
 			{
-				newMap.set(x, y, z, 0, true);
-				newMap.set(x, y, z, 1, true);
+				return new GlobalCollisionMap();
+			}
+
+			byte[] compressed = is.readAllBytes();
+			CRC32 crc = new CRC32();
+			crc.update(compressed);
+			long checksum = crc.getValue();
 
-				if (Reachable.isWalled(Direction.NORTH, flag))
+			try
+			{
+				GlobalCollisionMap mapped = map(CACHE_FILE, checksum);
+				if (mapped != null)
 				{
-					newMap.set(x, y, z, 0, false);
+					return mapped;
 				}
+			}
+			catch (IOException e)
+			{
+				log.warn("Unable to map collision map cache {}", CACHE_FILE, e);
+			}
 
-				if (Reachable.isWalled(Direction.EAST, flag))
+			GlobalCollisionMap parsed = new GlobalCollisionMap(
+					new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes()
+			);
+
+			try
+			{
+				CACHE_FILE.getParentFile().mkdirs();
+				parsed.write(CACHE_FILE, checksum);
+				GlobalCollisionMap mapped = map(CACHE_FILE, checksum);
+				if (mapped != null)
 				{
-					newMap.set(x, y, z, 1, false);
+					return mapped;
 				}
 			}
-		});
-		return newMap;
+			catch (IOException e)
+			{
+				log.warn("Unable to write collision map cache {}", CACHE_FILE, e);
+			}
+
+			return parsed;
+		}
 	}
 
-	public void overwrite(GlobalCollisionMap globalCollisionMap)
+	private static int wordIndex(int y, int z, int w)
 	{
-		System.arraycopy(globalCollisionMap.regions, 0, regions, 0, regions.length);
+		return (z << 1 | w) << 6 | y;
 	}
 
-	@Override
-	public boolean n(int x, int y, int z)
+	/**
+	 * Mapped maps are read-only; the first write moves the data to the heap.
+	 */
+	private Regions writable()
 	{
-		return get(x, y, z, 0);
+		Regions regions = this.regions;
+		if (regions.words.isReadOnly() || regions.directory.isReadOnly())
+		{
+			regions = regions.copy(regions.count * REGION_WORDS);
+			this.regions = regions;
+		}
+
+		return regions;
 	}
 
-	@Override
-	public boolean e(int x, int y, int z)
+	private static IntBuffer emptyDirectory()
 	{
-		return get(x, y, z, 1);
+		IntBuffer directory = IntBuffer.allocate(REGION_COUNT);
+		for (int i = 0; i < REGION_COUNT; i++)
+		{
+			directory.put(i, -1);
+		}
+		return directory;
 	}
 
-	public static GlobalCollisionMap fetchFromUrl(String url) throws IOException
+	/**
+	 * The region directory and the words of its blocks. Only the words of existing blocks and the directory
+	 * entries of missing regions are written in place, anything that moves a block makes a new instance.
+	 */
+	private static final class Regions
 	{
-		try (InputStream is = Walker.class.getResourceAsStream("/regions"))
+		private final IntBuffer directory;
+		private final LongBuffer words;
+		private final int count;
+
+		private Regions(IntBuffer directory, LongBuffer words, int count)
 		{
-			if (is == null)
+			this.directory = directory;
+			this.words = words;
+			this.count = count;
+		}
+
+		private int block(int x, int y)
+		{
+			if (x < 0 || y < 0 || x >= 256 * 64 || y >= 256 * 64)
 			{
-				return new GlobalCollisionMap();
+				return -1;
 			}
 
-			return new GlobalCollisionMap(
-					new GZIPInputStream(new ByteArrayInputStream(is.readAllBytes())).readAllBytes()
-			);
+			return directory.get((x >>> 6) << 8 | y >>> 6);
+		}
+
+		/**
+		 * @return a heap copy with room for the given number of words
+		 */
+		private Regions copy(int capacity)
+		{
+			IntBuffer directoryCopy = IntBuffer.allocate(REGION_COUNT);
+			directoryCopy.put(directory.duplicate().rewind());
+			LongBuffer wordsCopy = LongBuffer.allocate(capacity);
+			wordsCopy.put(words.duplicate().rewind().limit(count * REGION_WORDS));
+			return new Regions(directoryCopy, wordsCopy, count);
+		}
+
+		/**
+		 * Appends a block for the region with every word set to the fill. The block is filled before the region
+		 * is added to the directory, and a full buffer is grown into a new copy of both, so readers of this
+		 * instance never see the new region without its words.
+		 */
+		private Regions withBlock(int region, long fill)
+		{
+			int required = (count + 1) * REGION_WORDS;
+			Regions target = words.capacity() < required ? copy(Math.max(required, words.capacity() * 2)) : this;
+			int base = count * REGION_WORDS;
+			for (int i = 0; i < REGION_WORDS; i++)
+			{
+				target.words.put(base + i, fill);
+			}
+
+			target.directory.put(region, count);
+			return new Regions(target.directory, target.words, count + 1);
 		}
 	}
 }
-
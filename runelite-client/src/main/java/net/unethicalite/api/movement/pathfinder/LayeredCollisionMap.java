@@ -0,0 +1,43 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import lombok.Getter;
+
+/**
+ * Collision map made of an immutable base and a small overlay of tiles from the loaded scene.
+ * Creating one only wraps the two, the cost of local collisions is paid when the overlay is updated.
+ */
+public class LayeredCollisionMap implements CollisionMap
+{
+	private final GlobalCollisionMap base;
+	@Getter
+	private final CollisionOverlay overlay;
+
+	public LayeredCollisionMap(GlobalCollisionMap base, CollisionOverlay overlay)
+	{
+		this.base = base;
+		this.overlay = overlay;
+	}
+
+	public boolean get(int x, int y, int z, int w)
+	{
+		int local = overlay.get(x, y, z, w);
+		if (local != CollisionOverlay.UNKNOWN)
+		{
+			return local == 1;
+		}
+
+		return base.get(x, y, z, w);
+	}
+
+	@Override
+	public boolean n(int x, int y, int z)
+	{
+		return get(x, y, z, 0);
+	}
+
+	@Override
+	public boolean e(int x, int y, int z)
+	{
+		return get(x, y, z, 1);
+	}
+}
@@ -0,0 +1,108 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of pathfinder node indices, ordered by f-score with ties broken towards the lower heuristic.
+ * Nodes may be queued more than once; stale entries are skipped by the caller.
+ */
+public class NodeQueue
+{
+	private int[] nodes;
+	private long[] priorities;
+	private int size;
+
+	public NodeQueue()
+	{
+		this(1024);
+	}
+
+	public NodeQueue(int capacity)
+	{
+		nodes = new int[capacity];
+		priorities = new long[capacity];
+	}
+
+	public void add(int node, int f, int h)
+	{
+		if (size == nodes.length)
+		{
+			nodes = Arrays.copyOf(nodes, size * 2);
+			priorities = Arrays.copyOf(priorities, size * 2);
+		}
+
+		long priority = (long) f << 32 | h;
+		int i = size++;
+		while (i > 0)
+		{
+			int parent = (i - 1) >>> 1;
+			if (priorities[parent] <= priority)
+			{
+				break;
+			}
+
+			nodes[i] = nodes[parent];
+			priorities[i] = priorities[parent];
+			i = parent;
+		}
+
+		nodes[i] = node;
+		priorities[i] = priority;
+	}
+
+	public int peekF()
+	{
+		return (int) (priorities[0] >>> 32);
+	}
+
+	public int poll()
+	{
+		int result = nodes[0];
+		int lastNode = nodes[--size];
+		long lastPriority = priorities[size];
+
+		int i = 0;
+		int half = size >>> 1;
+		while (i < half)
+		{
+			int child = 2 * i + 1;
+			if (child + 1 < size && priorities[child + 1] < priorities[child])
+			{
+				child++;
+			}
+
+			if (lastPriority <= priorities[child])
+			{
+				break;
+			}
+
+			nodes[i] = nodes[child];
+			priorities[i] = priorities[child];
+			i = child;
+		}
+
+		nodes[i] = lastNode;
+		priorities[i] = lastPriority;
+		return result;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public int capacity()
+	{
+		return nodes.length;
+	}
+
+	public void clear()
+	{
+		size = 0;
+	}
+}
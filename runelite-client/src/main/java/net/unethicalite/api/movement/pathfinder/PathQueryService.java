@@ -0,0 +1,398 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs path searches on a small pool of workers, shared by every caller of the {@link Walker}.
+ * Queries for the same {@link Key} share one search while it runs, and finished paths are kept in an
+ * LRU cache. Searches nobody has asked for or waited on lately are cancelled to free their worker.
+ * <p>
+ * A {@link PathReplanner} is kept for each of the last few routes, so the next query to the same destination
+ * continues that route's search on whichever worker runs it. They are disposed once the workers stop after
+ * being idle.
+ */
+@Slf4j
+public class PathQueryService
+{
+	// Walker loops ask for their path about every tick, a search not asked for in this long is abandoned
+	private static final long ABANDONED_MILLIS = 3000;
+	// Same distance the walker allows before it considers itself off the path
+	private static final int MAX_START_DRIFT = 5;
+	// Each replanner holds on to a whole search, only the routes of the walkers running lately are kept
+	private static final int MAX_REPLANNERS = 4;
+
+	private final ThreadPoolExecutor executor;
+	private final Map<Route, PathReplanner> replanners = new LinkedHashMap<>(MAX_REPLANNERS, 0.75f, true);
+	private final Map<Key, Query> inFlight = new ConcurrentHashMap<>();
+	private final Map<Key, List<WorldPoint>> cache;
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+	private final AtomicInteger coalesced = new AtomicInteger();
+
+	public PathQueryService(int threads, int cacheSize)
+	{
+		executor = new ThreadPoolExecutor(threads, threads,
+			60L, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<>(),
+			new ThreadFactoryBuilder()
+				.setNameFormat("path-query-%d")
+				.setDaemon(true)
+				.setThreadFactory(runnable -> Executors.defaultThreadFactory().newThread(() ->
+				{
+					try
+					{
+						runnable.run();
+					}
+					finally
+					{
+						disposeReplanners();
+					}
+				}))
+				.build());
+		executor.allowCoreThreadTimeOut(true);
+		cache = new LinkedHashMap<Key, List<WorldPoint>>(cacheSize, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, List<WorldPoint>> eldest)
+			{
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the replanner of the key's route, for searches run by {@link #query(Key, Callable, boolean)}.
+	 * Its searches are synchronized, so queries for the same route from different workers take turns.
+	 */
+	public PathReplanner replanner(Key key)
+	{
+		Route route = Route.of(key);
+		PathReplanner evicted = null;
+		PathReplanner replanner;
+		synchronized (replanners)
+		{
+			replanner = replanners.get(route);
+			if (replanner == null)
+			{
+				replanner = new PathReplanner();
+				replanners.put(route, replanner);
+				if (replanners.size() > MAX_REPLANNERS)
+				{
+					Iterator<PathReplanner> eldest = replanners.values().iterator();
+					evicted = eldest.next();
+					eldest.remove();
+				}
+			}
+		}
+
+		if (evicted != null)
+		{
+			// Waits for a search still running on it, so it is disposed by another worker
+			executor.execute(evicted::dispose);
+		}
+
+		return replanner;
+	}
+
+	/**
+	 * Looks up a cached path the player can follow: one for the key, or else one to the same destination
+	 * from another start region that passes by the player, like the path they are walking along.
+	 *
+	 * @return the path, or null
+	 */
+	public List<WorldPoint> cached(Key key, WorldPoint player)
+	{
+		synchronized (cache)
+		{
+			List<WorldPoint> path = cache.get(key);
+			if (path == null || !isUsable(path, player, key))
+			{
+				path = null;
+				for (Map.Entry<Key, List<WorldPoint>> entry : cache.entrySet())
+				{
+					if (entry.getKey().sameRoute(key) && isUsable(entry.getValue(), player, key))
+					{
+						path = entry.getValue();
+						break;
+					}
+				}
+
+				if (path == null)
+				{
+					return null;
+				}
+				cache.put(key, path);
+			}
+
+			hits.incrementAndGet();
+			return path;
+		}
+	}
+
+	/**
+	 * Returns the running search for the key, or starts one. The search is run on a worker thread and
+	 * its path is cached once found.
+	 *
+	 * @param forced whether to start a new search even if one is running, its path then replaces the cached one
+	 */
+	public Future<List<WorldPoint>> query(Key key, Callable<List<WorldPoint>> search, boolean forced)
+	{
+		long now = System.currentTimeMillis();
+		Query running = inFlight.get(key);
+		if (running != null && !forced)
+		{
+			running.lastRequested = now;
+			coalesced.incrementAndGet();
+			return running;
+		}
+
+		cancelAbandoned(now);
+		misses.incrementAndGet();
+		Query query = new Query(key, search, now);
+		if (forced)
+		{
+			synchronized (cache)
+			{
+				cache.remove(key);
+			}
+
+			Query replaced = inFlight.put(key, query);
+			if (replaced != null && replaced.waiters.get() == 0)
+			{
+				replaced.cancel(true);
+			}
+		}
+		else
+		{
+			running = inFlight.putIfAbsent(key, query);
+			if (running != null)
+			{
+				coalesced.incrementAndGet();
+				return running;
+			}
+		}
+
+		executor.execute(query);
+		log.debug("Path query started, {} running, {} hits, {} misses, {} coalesced",
+			inFlight.size(), hits.get(), misses.get(), coalesced.get());
+		return query;
+	}
+
+	/**
+	 * Waits for the result of a query. Waiting callers keep the search from being cancelled as abandoned.
+	 */
+	public List<WorldPoint> await(Future<List<WorldPoint>> future) throws Exception
+	{
+		if (!(future instanceof Query))
+		{
+			return future.get();
+		}
+
+		Query query = (Query) future;
+		query.waiters.incrementAndGet();
+		try
+		{
+			return query.get();
+		}
+		finally
+		{
+			query.waiters.decrementAndGet();
+			query.lastRequested = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Drops every cached path, e.g. once the collision map or the transports were reloaded.
+	 */
+	public void invalidate()
+	{
+		synchronized (cache)
+		{
+			cache.clear();
+		}
+
+		disposeReplanners();
+	}
+
+	private void disposeReplanners()
+	{
+		List<PathReplanner> disposed;
+		synchronized (replanners)
+		{
+			disposed = new ArrayList<>(replanners.values());
+			replanners.clear();
+		}
+
+		for (PathReplanner replanner : disposed)
+		{
+			replanner.dispose();
+		}
+	}
+
+	/**
+	 * @return whether the path starts at a teleport or passes by the player
+	 */
+	private static boolean isUsable(List<WorldPoint> path, WorldPoint player, Key key)
+	{
+		if (key.getTeleports().contains(path.get(0)))
+		{
+			return true;
+		}
+
+		for (WorldPoint tile : path)
+		{
+			if (tile.distanceTo(player) <= MAX_START_DRIFT)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private void cancelAbandoned(long now)
+	{
+		for (Query query : inFlight.values())
+		{
+			if (query.waiters.get() == 0 && now - query.lastRequested > ABANDONED_MILLIS)
+			{
+				log.debug("Cancelling abandoned path query to {}", query.key.getDestination());
+				query.cancel(true);
+			}
+		}
+	}
+
+	private class Query extends FutureTask<List<WorldPoint>>
+	{
+		private final Key key;
+		private final AtomicInteger waiters = new AtomicInteger();
+		private volatile long lastRequested;
+
+		Query(Key key, Callable<List<WorldPoint>> search, long requested)
+		{
+			super(search);
+			this.key = key;
+			this.lastRequested = requested;
+		}
+
+		@Override
+		protected void done()
+		{
+			// A forced query for the same key replaces this one, only the newest path is cached
+			if (!inFlight.remove(key, this) || isCancelled())
+			{
+				return;
+			}
+
+			try
+			{
+				List<WorldPoint> path = get();
+				if (!path.isEmpty())
+				{
+					synchronized (cache)
+					{
+						cache.put(key, path);
+					}
+				}
+			}
+			catch (Exception e)
+			{
+				log.warn("Path query to {} failed", key.getDestination(), e);
+			}
+		}
+	}
+
+	/**
+	 * What a path depends on besides the exact start tile: paths from anywhere in the start region are
+	 * shared, callers check that a cached path still passes by the player.
+	 */
+	@Value
+	public static class Key
+	{
+		int startRegion;
+		int startPlane;
+		int destinationX;
+		int destinationY;
+		int destinationWidth;
+		int destinationHeight;
+		int destinationPlane;
+		// Start points other than the player, where available teleports land
+		List<WorldPoint> teleports;
+		long transportVersion;
+		boolean avoidWilderness;
+		// Scene collisions inside instances, compared by identity
+		CollisionOverlay overlay;
+
+		public static Key of(WorldPoint start, List<WorldPoint> teleports, WorldArea destination, TransportIndex transports, boolean avoidWilderness, CollisionMap map)
+		{
+			return new Key(start.getRegionID(), start.getPlane(),
+				destination.getX(), destination.getY(), destination.getWidth(), destination.getHeight(), destination.getPlane(),
+				List.copyOf(teleports), transports.getVersion(), avoidWilderness,
+				map instanceof LayeredCollisionMap ? ((LayeredCollisionMap) map).getOverlay() : null);
+		}
+
+		/**
+		 * @return whether both keys only differ in their start region
+		 */
+		public boolean sameRoute(Key other)
+		{
+			return destinationX == other.destinationX
+				&& destinationY == other.destinationY
+				&& destinationWidth == other.destinationWidth
+				&& destinationHeight == other.destinationHeight
+				&& destinationPlane == other.destinationPlane
+				&& teleports.equals(other.teleports)
+				&& transportVersion == other.transportVersion
+				&& avoidWilderness == other.avoidWilderness
+				&& overlay == other.overlay;
+		}
+
+		public WorldArea getDestination()
+		{
+			return new WorldArea(destinationX, destinationY, destinationWidth, destinationHeight, destinationPlane);
+		}
+	}
+
+	/**
+	 * What a replanner's search depends on: queries from anywhere to the same destination, with the same
+	 * transports and wilderness setting, continue one search.
+	 */
+	@Value
+	private static class Route
+	{
+		int destinationX;
+		int destinationY;
+		int destinationWidth;
+		int destinationHeight;
+		int destinationPlane;
+		List<WorldPoint> teleports;
+		long transportVersion;
+		boolean avoidWilderness;
+
+		static Route of(Key key)
+		{
+			return new Route(key.getDestinationX(), key.getDestinationY(), key.getDestinationWidth(),
+				key.getDestinationHeight(), key.getDestinationPlane(), key.getTeleports(), key.getTransportVersion(),
+				key.isAvoidWilderness());
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+import net.unethicalite.client.Static;
+
+import java.util.List;
+
+/**
+ * Keeps the walker's last search and continues it on the next request instead of searching from scratch.
+ * A new destination re-targets the search, collision changes inside instances repair it, and a player that
+ * moved along the previous path keeps using it. Anything else the search depends on, like the transports,
+ * the wilderness setting or the teleport start points, starts a new search.
+ * <p>
+ * The last start point is taken to be the player, every other start point must stay the same. The
+ * {@link PathQueryService} keeps one replanner per route.
+ */
+@Slf4j
+public class PathReplanner
+{
+	private static final int MAX_SEARCH = 5_000_000;
+	// How far the player may stray from the last path before it is searched again from their position
+	private static final int MAX_START_DRIFT = 2;
+
+	private Pathfinder search;
+	private WorldArea destination;
+	private boolean instanced;
+	private List<WorldPoint> path = List.of();
+	private CollisionOverlay overlay;
+
+	/**
+	 * @param forced whether to drop the previous search and start over
+	 */
+	public synchronized List<WorldPoint> plan(
+		CollisionMap map,
+		TransportIndex transports,
+		List<WorldPoint> startPoints,
+		WorldArea destination,
+		boolean avoidWilderness,
+		boolean forced
+	)
+	{
+		boolean instanced = Static.getClient().isInInstancedRegion();
+		CollisionOverlay previousOverlay = overlay;
+		overlay = overlayOf(map);
+
+		if (!forced && search != null
+			&& instanced == this.instanced
+			&& avoidWilderness == search.isAvoidWilderness()
+			&& transports.getVersion() == search.getTransportIndex().getVersion()
+			&& sameTeleports(startPoints, search.getStart()))
+		{
+			List<WorldPoint> result = continueSearch(map, previousOverlay, destination);
+			if (search.isCancelled())
+			{
+				// The request was cancelled, the search can still be continued by the next one
+				this.destination = destination;
+				return path = List.of();
+			}
+
+			if (result != null && !result.isEmpty() && startsNear(result, startPoints))
+			{
+				this.destination = destination;
+				return path = result;
+			}
+		}
+
+		if (search != null)
+		{
+			search.dispose();
+		}
+
+		search = new Pathfinder(map, transports, startPoints, destination, avoidWilderness);
+		this.destination = destination;
+		this.instanced = instanced;
+		path = search.findRetained(MAX_SEARCH);
+		log.debug("Searched path from scratch, {} tiles after visiting {} nodes", path.size(), search.getVisited());
+		return path;
+	}
+
+	/**
+	 * Drops the last search and gives its memory back, the next request searches from scratch.
+	 */
+	public synchronized void dispose()
+	{
+		if (search != null)
+		{
+			search.dispose();
+			search = null;
+		}
+
+		destination = null;
+		path = List.of();
+		overlay = null;
+	}
+
+	private static CollisionOverlay overlayOf(CollisionMap map)
+	{
+		return map instanceof LayeredCollisionMap ? ((LayeredCollisionMap) map).getOverlay() : null;
+	}
+
+	/**
+	 * @return the continued path, or null if the previous search cannot be continued
+	 */
+	private List<WorldPoint> continueSearch(CollisionMap map, CollisionOverlay previousOverlay, WorldArea destination)
+	{
+		int[] changes = new int[0];
+		if (overlay != previousOverlay)
+		{
+			changes = overlay == null || previousOverlay == null ? null : overlay.changesSince(previousOverlay);
+			if (changes == null)
+			{
+				return null;
+			}
+		}
+
+		boolean sameDestination = sameArea(destination, this.destination);
+		if (sameDestination && changes.length == 0 && !path.isEmpty())
+		{
+			return path;
+		}
+
+		if (!sameDestination && changes.length > 0)
+		{
+			return null;
+		}
+
+		long startTime = System.currentTimeMillis();
+		// Repairing without changes resumes a search that was cancelled
+		List<WorldPoint> result = sameDestination
+			? search.repair(map, changes, MAX_SEARCH)
+			: search.retarget(destination, MAX_SEARCH);
+		log.debug("Continued path search in {} ms, expanded {} more nodes", System.currentTimeMillis() - startTime, search.getExpanded());
+		return result;
+	}
+
+	private static boolean sameArea(WorldArea a, WorldArea b)
+	{
+		return b != null
+			&& a.getX() == b.getX()
+			&& a.getY() == b.getY()
+			&& a.getPlane() == b.getPlane()
+			&& a.getWidth() == b.getWidth()
+			&& a.getHeight() == b.getHeight();
+	}
+
+	private static boolean sameTeleports(List<WorldPoint> startPoints, List<WorldPoint> previous)
+	{
+		return !startPoints.isEmpty() && startPoints.size() == previous.size()
+			&& startPoints.subList(0, startPoints.size() - 1).equals(previous.subList(0, previous.size() - 1));
+	}
+
+	/**
+	 * @return whether the path either starts at a teleport or passes by the player, in which case the
+	 * walker picks it up from where they are
+	 */
+	private boolean startsNear(List<WorldPoint> path, List<WorldPoint> startPoints)
+	{
+		List<WorldPoint> previous = search.getStart();
+		if (!path.get(0).equals(previous.get(previous.size() - 1)))
+		{
+			return true;
+		}
+
+		WorldPoint player = startPoints.get(startPoints.size() - 1);
+		for (WorldPoint tile : path)
+		{
+			if (tile.distanceTo(player) <= MAX_START_DRIFT)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -1,7 +1,7 @@
 package net.unethicalite.api.movement.pathfinder;
 
-import lombok.Data;
-import lombok.Value;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.EquipmentInventorySlot;
 import net.runelite.api.Item;
@@ -16,46 +16,78 @@ import net.unethicalite.api.movement.pathfinder.model.Transport;
 import net.unethicalite.client.Static;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.stream.Collectors;
 
 import static net.unethicalite.api.movement.pathfinder.model.MovementConstants.*;
 
-@Data
+/**
+ * A* search over the collision map. Every step, diagonal or straight, and every transport costs 1,
+ * so returned paths have the same length as a breadth-first search would produce.
+ * Nodes are packed world points (see {@link WorldPointUtil}) stored in the primitive arrays of a per-thread {@link SearchArena}.
+ */
 @Slf4j
 public class Pathfinder implements Callable<List<WorldPoint>>
 {
-	final CollisionMap map;
-	final Map<WorldPoint, List<Transport>> transports;
-	private List<Node> start;
+	private static final int INFINITY = Integer.MAX_VALUE / 4;
+	// Searches where every start is further from the target than this are routed over the region graph first
+	private static final int ROUTING_DISTANCE = 128;
+
+	@Getter
+	CollisionMap map;
+	final TransportIndex transports;
+	@Getter
+	private final List<WorldPoint> start;
+	@Getter
 	private WorldArea target;
+	@Getter
 	private List<WorldPoint> targetTiles;
-	private final List<Node> boundary = new LinkedList<>();
-	private final Set<WorldPoint> visited = new HashSet<>();
-	private Node nearest;
+	@Getter
+	@Setter
 	boolean avoidWilderness;
+	@Getter
+	@Setter
 	boolean useCharterShips;
+	@Getter
+	@Setter
 	private int goldAvailable = 0;
+	@Getter
+	@Setter
 	private boolean ringOfCharosEquipped;
+	@Getter
 	private boolean targetsInWilderness;
-
-	private static boolean isInWilderness(WorldPoint location)
+	@Getter
+	private int expanded;
+	@Getter
+	private int visited;
+
+	private SearchArena arena;
+	private boolean inInstancedRegion;
+	private int transportCount;
+	private int[] transportBounds;
+	private boolean reachedTarget;
+	@Getter
+	private boolean cancelled;
+	private int nearest = WorldPointUtil.UNDEFINED;
+	private int bestDistance;
+
+	static boolean isInWilderness(int packed)
 	{
-
-		return contains(location, WILDERNESS_ABOVE_GROUND, WILDERNESS_UNDERGROUND) &&
-			!contains(location, FEROX_ENCLAVE);
+		return contains(packed, WILDERNESS_ABOVE_GROUND, WILDERNESS_UNDERGROUND) &&
+			!contains(packed, FEROX_ENCLAVE);
 	}
-	private static boolean contains(WorldPoint point, WorldArea... areas)
+
+	private static boolean contains(int packed, WorldArea... areas)
 	{
+		int x = WorldPointUtil.unpackX(packed);
+		int y = WorldPointUtil.unpackY(packed);
 		for (WorldArea area : areas)
 		{
-			if (point.getX() >= area.getX() && point.getX() <= area.getX() + area.getWidth() &&
-				point.getY() >= area.getY() && point.getY() <= area.getY() + area.getHeight())
+			if (x >= area.getX() && x <= area.getX() + area.getWidth() &&
+				y >= area.getY() && y <= area.getY() + area.getHeight())
 			{
 				return true;
 			}
@@ -65,17 +97,24 @@ public class Pathfinder implements Callable<List<WorldPoint>>
 
 	public Pathfinder(CollisionMap collisionMap, Map<WorldPoint, List<Transport>> transports, List<WorldPoint> start, WorldPoint target, boolean avoidWilderness)
 	{
-		this(collisionMap, transports, start, target.toWorldArea(), avoidWilderness);
+		this(collisionMap, TransportIndex.of(transports), start, target.toWorldArea(), avoidWilderness);
 	}
 
 	public Pathfinder(CollisionMap collisionMap, Map<WorldPoint, List<Transport>> transports, List<WorldPoint> start, WorldArea target, boolean avoidWilderness)
+	{
+		this(collisionMap, TransportIndex.of(transports), start, target, avoidWilderness);
+	}
+
+	public Pathfinder(CollisionMap collisionMap, TransportIndex transports, List<WorldPoint> start, WorldPoint target, boolean avoidWilderness)
+	{
+		this(collisionMap, transports, start, target.toWorldArea(), avoidWilderness);
+	}
+
+	public Pathfinder(CollisionMap collisionMap, TransportIndex transports, List<WorldPoint> start, WorldArea target, boolean avoidWilderness)
 	{
 		this.map = collisionMap;
 		this.transports = transports;
-		this.target = target;
-		this.targetTiles = target.toWorldPointList();
-		this.start = new ArrayList<>();
-		this.nearest = null;
+		this.start = new ArrayList<>(start);
 		this.avoidWilderness = avoidWilderness;
 		this.useCharterShips = Static.getUnethicaliteConfig().useCharterShips();
 		if (useCharterShips)
@@ -84,9 +123,32 @@ public class Pathfinder implements Callable<List<WorldPoint>>
 			Item ring = Equipment.fromSlot(EquipmentInventorySlot.RING);
 			this.ringOfCharosEquipped = ring != null && ring.getId() == ItemID.RING_OF_CHAROSA;
 		}
-		this.start.addAll(start.stream().map(point -> new Node(point, null, goldAvailable)).collect(Collectors.toList()));
-		this.targetsInWilderness = targetTiles.stream().anyMatch(Pathfinder::isInWilderness);
-		if (targetTiles.stream().allMatch(collisionMap::fullBlock))
+		setTarget(target);
+	}
+
+	public TransportIndex getTransportIndex()
+	{
+		return transports;
+	}
+
+	/**
+	 * @return the transports by source point
+	 */
+	public Map<WorldPoint, List<Transport>> getTransports()
+	{
+		return transports.asMap();
+	}
+
+	/**
+	 * Changes the target of a search that has not been run yet, a retained search is continued towards
+	 * another target with {@link #retarget(WorldArea, int)} instead.
+	 */
+	public void setTarget(WorldArea target)
+	{
+		this.target = target;
+		this.targetTiles = target.toWorldPointList();
+		this.targetsInWilderness = targetTiles.stream().map(WorldPointUtil::pack).anyMatch(Pathfinder::isInWilderness);
+		if (targetTiles.stream().allMatch(map::fullBlock))
 		{
 			WorldPoint nearestWalkableTile = Walker.nearestWalkableTile(targetTiles.get(0));
 			if (nearestWalkableTile != null)
@@ -103,63 +165,85 @@ public class Pathfinder implements Callable<List<WorldPoint>>
 		}
 	}
 
-	private void addNeighbors(Node node)
+	private void addNeighbors(int node)
 	{
-		int x = node.position.getX();
-		int y = node.position.getY();
-		int plane = node.position.getPlane();
+		int position = arena.position(node);
+		int x = WorldPointUtil.unpackX(position);
+		int y = WorldPointUtil.unpackY(position);
+		int plane = WorldPointUtil.unpackPlane(position);
 
 		if (map.w(x, y, plane))
 		{
-			addNeighbor(node, new WorldPoint(x - 1, y, plane));
+			addNeighbor(node, WorldPointUtil.pack(x - 1, y, plane), 0);
 		}
 
 		if (map.e(x, y, plane))
 		{
-			addNeighbor(node, new WorldPoint(x + 1, y, plane));
+			addNeighbor(node, WorldPointUtil.pack(x + 1, y, plane), 0);
 		}
 
 		if (map.s(x, y, plane))
 		{
-			addNeighbor(node, new WorldPoint(x, y - 1, plane));
+			addNeighbor(node, WorldPointUtil.pack(x, y - 1, plane), 0);
 		}
 
 		if (map.n(x, y, plane))
 		{
-			addNeighbor(node, new WorldPoint(x, y + 1, plane));
+			addNeighbor(node, WorldPointUtil.pack(x, y + 1, plane), 0);
 		}
 
 		if (map.sw(x, y, plane))
 		{
-			addNeighbor(node, new WorldPoint(x - 1, y - 1, plane));
+			addNeighbor(node, WorldPointUtil.pack(x - 1, y - 1, plane), 0);
 		}
 
 		if (map.se(x, y, plane))
 		{
-			addNeighbor(node, new WorldPoint(x + 1, y - 1, plane));
+			addNeighbor(node, WorldPointUtil.pack(x + 1, y - 1, plane), 0);
 		}
 
 		if (map.nw(x, y, plane))
 		{
-			addNeighbor(node, new WorldPoint(x - 1, y + 1, plane));
+			addNeighbor(node, WorldPointUtil.pack(x - 1, y + 1, plane), 0);
 		}
 
 		if (map.ne(x, y, plane))
 		{
-			addNeighbor(node, new WorldPoint(x + 1, y + 1, plane));
+			addNeighbor(node, WorldPointUtil.pack(x + 1, y + 1, plane), 0);
 		}
-		WorldPoint trueSource = node.position;
-		boolean inInstancedRegion = Static.getClient().isInInstancedRegion();
-		if (inInstancedRegion)
+
+		int source = transportSource(position);
+		for (int i = transports.first(source); i < transports.size() && transports.source(i) == source; i++)
 		{
-			trueSource = getTrueWorldPoint(trueSource);
+			int destination = transportDestination(i);
+			int cost = useCharterShips
+				? CharterShipLocation.getCharterShipCost(new WorldPoint(x, y, plane), WorldPointUtil.unpack(destination), ringOfCharosEquipped)
+				: 0;
+			addNeighbor(node, destination, cost);
 		}
-		for (Transport transport : transports.getOrDefault(trueSource, new ArrayList<>()))
+	}
+
+	/**
+	 * @return the point transports leaving from the given tile are indexed by, which differs inside instances
+	 */
+	private int transportSource(int position)
+	{
+		return inInstancedRegion ? WorldPointUtil.pack(getTrueWorldPoint(WorldPointUtil.unpack(position))) : position;
+	}
+
+	private int transportDestination(int index)
+	{
+		if (!inInstancedRegion)
 		{
-			WorldPoint destination =
-				WorldPoint.toLocalInstance(Static.getClient(), transport.getDestination()).stream().findFirst().orElse(transport.getDestination());
-			addNeighbor(node, destination);
+			return transports.destination(index);
 		}
+
+		return WorldPointUtil.pack(toLocalInstance(transports.get(index).getDestination()));
+	}
+
+	private static WorldPoint toLocalInstance(WorldPoint point)
+	{
+		return WorldPoint.toLocalInstance(Static.getClient(), point).stream().findFirst().orElse(point);
 	}
 
 	private WorldPoint getTrueWorldPoint(WorldPoint point)
@@ -183,23 +267,218 @@ public class Pathfinder implements Callable<List<WorldPoint>>
 		return point;
 	}
 
-	private void addNeighbor(Node node, WorldPoint neighbor)
+	private void addNeighbor(int node, int neighbor, int goldCost)
 	{
-		if (avoidWilderness && isInWilderness(neighbor) && !isInWilderness(node.position) && !targetsInWilderness)
+		if (!arena.inCorridor(neighbor))
+		{
+			return;
+		}
+
+		if (avoidWilderness && !targetsInWilderness && isInWilderness(neighbor) && !isInWilderness(arena.position(node)))
+		{
+			return;
+		}
+
+		int gold = arena.gold(node) - goldCost;
+		if (useCharterShips && gold < 0)
 		{
 			return;
 		}
-		int cost = CharterShipLocation.getCharterShipCost(node.position, neighbor, ringOfCharosEquipped);
-		if (useCharterShips && cost > node.goldAvailable)
+
+		int cost = arena.cost(node) + 1;
+		int existing = arena.findNode(neighbor);
+		if (existing != WorldPointUtil.UNDEFINED)
 		{
+			// The per-region bound is admissible but not consistent, so a cheaper route to a known node can still turn up
+			if (cost >= arena.cost(existing))
+			{
+				return;
+			}
+
+			arena.updateNode(existing, node, cost, gold);
+			arena.open().add(existing, cost + arena.heuristic(existing), arena.heuristic(existing));
 			return;
 		}
-		if (!visited.add(neighbor))
+
+		int heuristic = heuristic(neighbor);
+		int created = arena.createNode(neighbor, node, cost, heuristic, gold);
+		arena.open().add(created, cost + heuristic, heuristic);
+	}
+
+	/**
+	 * Lower bound on the remaining cost: either walk straight to the target, or walk to a transport source and
+	 * continue from there. Only the transports which can beat the others somewhere in the tile's region are
+	 * checked; they are collected once per region, so the bound stays exact per tile while costing a few
+	 * comparisons.
+	 */
+	private int heuristic(int position)
+	{
+		int direct = WorldPointUtil.distance(target, position);
+		if (direct == 0 || transportCount == 0)
+		{
+			return direct == Integer.MAX_VALUE ? 0 : direct;
+		}
+
+		int regionKey = WorldPointUtil.unpackPlane(position) << 16 | WorldPointUtil.regionId(position);
+		int offset = arena.regionCandidates(regionKey);
+		if (offset == WorldPointUtil.UNDEFINED)
+		{
+			offset = collectRegionCandidates(regionKey, position);
+		}
+
+		int[] candidates = arena.candidatePool();
+		int[] sources = transports.sources();
+		int best = Math.min(direct, INFINITY);
+		for (int i = offset + 1, end = offset + 1 + candidates[offset]; i < end; i++)
+		{
+			int transport = candidates[i];
+			best = Math.min(best, WorldPointUtil.distance2D(position, sources[transport]) + transportBounds[transport]);
+		}
+
+		return best;
+	}
+
+	/**
+	 * Collects the transports on the region's plane that are the best way to the target from at least one of its
+	 * tiles. A transport is left out when even its nearest source tile costs at least as much as the worst case of
+	 * walking straight or of another transport, as it then never lowers the bound.
+	 *
+	 * @return the offset of the candidates in the arena's pool
+	 */
+	private int collectRegionCandidates(int regionKey, int position)
+	{
+		int[] sources = transports.sources();
+		int plane = WorldPointUtil.unpackPlane(position);
+		int minX = WorldPointUtil.unpackX(position) & ~63;
+		int minY = WorldPointUtil.unpackY(position) & ~63;
+		int maxX = minX + 63;
+		int maxY = minY + 63;
+
+		int worst = INFINITY;
+		if (plane == target.getPlane())
+		{
+			worst = Math.max(
+				Math.max(WorldPointUtil.distance2D(target, WorldPointUtil.pack(minX, minY, plane)), WorldPointUtil.distance2D(target, WorldPointUtil.pack(maxX, minY, plane))),
+				Math.max(WorldPointUtil.distance2D(target, WorldPointUtil.pack(minX, maxY, plane)), WorldPointUtil.distance2D(target, WorldPointUtil.pack(maxX, maxY, plane))));
+		}
+
+		for (int i = 0; i < transportCount; i++)
 		{
+			int source = sources[i];
+			if (transportBounds[i] < INFINITY && WorldPointUtil.unpackPlane(source) == plane)
+			{
+				int sx = WorldPointUtil.unpackX(source);
+				int sy = WorldPointUtil.unpackY(source);
+				int farthest = Math.max(Math.max(sx - minX, maxX - sx), Math.max(sy - minY, maxY - sy));
+				worst = Math.min(worst, farthest + transportBounds[i]);
+			}
+		}
+
+		int offset = arena.startRegionCandidates(regionKey);
+		for (int i = 0; i < transportCount; i++)
+		{
+			int source = sources[i];
+			if (transportBounds[i] >= INFINITY || WorldPointUtil.unpackPlane(source) != plane)
+			{
+				continue;
+			}
+
+			int sx = WorldPointUtil.unpackX(source);
+			int sy = WorldPointUtil.unpackY(source);
+			int dx = Math.max(0, Math.max(minX - sx, sx - maxX));
+			int dy = Math.max(0, Math.max(minY - sy, sy - maxY));
+			if (Math.max(dx, dy) + transportBounds[i] < worst)
+			{
+				arena.addRegionCandidate(offset, i);
+			}
+		}
+
+		return offset;
+	}
+
+	/**
+	 * Looks up the per transport bounds for the target, see {@link #transportBounds(TransportIndex, WorldArea)}.
+	 * The index keeps them for its last few targets, so only the first search to a target computes them.
+	 */
+	private void prepareHeuristic()
+	{
+		transportCount = 0;
+		transportBounds = null;
+		if (inInstancedRegion)
+		{
+			// Transport coordinates are translated on the fly inside instances, so only the direct bound is used
 			return;
 		}
 
-		boundary.add(new Node(neighbor, node, node.goldAvailable - cost));
+		transportBounds = transports.heuristicBounds(target);
+		transportCount = transports.size();
+	}
+
+	/**
+	 * Computes, for every transport, a lower bound on the cost of taking it and then reaching the target.
+	 * This is a shortest path over the transport graph where edges are plane-aware chebyshev distances,
+	 * so chained transports (e.g. ladder into a dungeon into another ladder) are bounded correctly.
+	 */
+	static int[] transportBounds(TransportIndex transports, WorldArea target)
+	{
+		int count = transports.size();
+		int[] sources = transports.sources();
+		int[] destinations = transports.destinations();
+		int[] remaining = new int[count];
+		boolean[] done = new boolean[count];
+
+		// Dijkstra over transports, dense variant since the graph is complete
+		for (int i = 0; i < count; i++)
+		{
+			int direct = WorldPointUtil.distance(target, destinations[i]);
+			remaining[i] = direct == Integer.MAX_VALUE ? INFINITY : direct;
+		}
+
+		for (int iteration = 0; iteration < count; iteration++)
+		{
+			int current = -1;
+			for (int i = 0; i < count; i++)
+			{
+				if (!done[i] && (current == -1 || remaining[i] < remaining[current]))
+				{
+					current = i;
+				}
+			}
+
+			if (current == -1 || remaining[current] >= INFINITY)
+			{
+				break;
+			}
+
+			done[current] = true;
+			int via = remaining[current] + 1;
+			int source = sources[current];
+			for (int i = 0; i < count; i++)
+			{
+				if (done[i] || WorldPointUtil.unpackPlane(destinations[i]) != WorldPointUtil.unpackPlane(source))
+				{
+					continue;
+				}
+
+				int candidate = WorldPointUtil.distance2D(destinations[i], source) + via;
+				if (candidate < remaining[i])
+				{
+					remaining[i] = candidate;
+				}
+			}
+		}
+
+		// Turn "from the destination" into "from the source", i.e. include the transport itself. A transport that is
+		// no shorter than walking from its source never lowers the bound of any tile, leaving it out keeps it from
+		// flattening the region bounds around its source.
+		for (int i = 0; i < count; i++)
+		{
+			int bound = remaining[i] >= INFINITY ? INFINITY : remaining[i] + 1;
+			int walk = WorldPointUtil.distance(target, sources[i]);
+			remaining[i] = walk != Integer.MAX_VALUE && bound >= walk ? INFINITY : bound;
+		}
+
+		return remaining;
 	}
 
 	public List<WorldPoint> find()
@@ -209,79 +488,438 @@ public class Pathfinder implements Callable<List<WorldPoint>>
 		String targetStr = targetTiles.size() == 1 ? target.toWorldPoint().toString() :
 			String.format("WorldArea(x=%s, y=%s, width=%s, height=%s, plane=%s)",
 				target.getX(), target.getY(), target.getWidth(), target.getHeight(), target.getPlane());
-		log.debug("Path calculation took {} ms to {}", System.currentTimeMillis() - startTime, targetStr);
-		System.gc();
+		log.debug("Path calculation took {} ms to {}, expanded {} of {} visited nodes",
+			System.currentTimeMillis() - startTime, targetStr, expanded, visited);
 		return path;
 	}
 
 	public List<WorldPoint> find(int maxSearch)
 	{
-		boundary.addAll(start);
+		arena = SearchArena.acquire();
+		try
+		{
+			return run(maxSearch);
+		}
+		finally
+		{
+			visited = arena.visitedCount();
+			arena.release();
+			arena = null;
+		}
+	}
+
+	/**
+	 * Same as {@link #find(int)}, but keeps the search afterwards so {@link #retarget(WorldArea, int)} and
+	 * {@link #repair(CollisionMap, int[], int)} can continue it. The search holds on to its own arena until
+	 * {@link #dispose()} is called.
+	 */
+	List<WorldPoint> findRetained(int maxSearch)
+	{
+		arena = SearchArena.create();
+		List<WorldPoint> path = run(maxSearch);
+		visited = arena.visitedCount();
+		return path;
+	}
+
+	/**
+	 * Continues a retained search towards another target. Every node keeps the cost it was reached with,
+	 * only the heuristic and the open set are rebuilt, so the nodes already expanded between the start
+	 * and the new target do not have to be expanded again.
+	 *
+	 * @return the path, or null if the search cannot be continued and has to be started over
+	 */
+	List<WorldPoint> retarget(WorldArea target, int maxSearch)
+	{
+		boolean wasInWilderness = targetsInWilderness;
+		setTarget(target);
+		if (arena.hasCorridor() || avoidWilderness && targetsInWilderness != wasInWilderness)
+		{
+			// The corridor and the wilderness rule depend on the target and pruned edges the new one may need
+			return null;
+		}
+
+		prepareHeuristic();
+		arena.clearRegionBounds();
+		NodeQueue open = arena.open();
+		open.clear();
+		for (int node = 0; node < arena.nodeCount(); node++)
+		{
+			int heuristic = heuristic(arena.position(node));
+			arena.setHeuristic(node, heuristic);
+			if (!arena.isClosed(node) && arena.cost(node) < INFINITY)
+			{
+				open.add(node, arena.cost(node) + heuristic, heuristic);
+			}
+		}
 
-		int bestDistance = Integer.MAX_VALUE;
+		return resume(maxSearch);
+	}
 
-		while (!boundary.isEmpty())
+	/**
+	 * Continues a retained search on an updated collision map. Nodes reached through a step the map no longer
+	 * allows lose their cost, together with everything reached through them, and are searched again from
+	 * their neighbours. Nodes around the changed tiles are opened again so newly possible steps get used.
+	 *
+	 * @param changed packed tiles whose collision changed since the map the search was made with
+	 * @return the path
+	 */
+	List<WorldPoint> repair(CollisionMap map, int[] changed, int maxSearch)
+	{
+		this.map = map;
+		int nodeCount = arena.nodeCount();
+		int[] firstChild = new int[nodeCount];
+		int[] nextSibling = new int[nodeCount];
+		Arrays.fill(firstChild, WorldPointUtil.UNDEFINED);
+		for (int node = 0; node < nodeCount; node++)
 		{
-			if (Thread.interrupted())
+			int parent = arena.parent(node);
+			if (parent != WorldPointUtil.UNDEFINED && arena.cost(node) < INFINITY)
 			{
-				return List.of();
+				nextSibling[node] = firstChild[parent];
+				firstChild[parent] = node;
 			}
+		}
 
-			if (visited.size() >= maxSearch)
+		boolean[] invalid = new boolean[nodeCount];
+		int[] stack = new int[nodeCount];
+		int top = 0;
+		for (int tile : changed)
+		{
+			for (int dx = -1; dx <= 1; dx++)
 			{
-				log.debug("Reached max search limit of {}", maxSearch);
-				return nearest.path();
+				for (int dy = -1; dy <= 1; dy++)
+				{
+					int node = arena.findNode(WorldPointUtil.dy(WorldPointUtil.dx(tile, dx), dy));
+					if (node != WorldPointUtil.UNDEFINED && !invalid[node] && arena.cost(node) < INFINITY
+						&& arena.parent(node) != WorldPointUtil.UNDEFINED
+						&& !hasEdge(arena.position(arena.parent(node)), arena.position(node)))
+					{
+						invalid[node] = true;
+						stack[top++] = node;
+					}
+				}
 			}
+		}
 
-			Node node = boundary.remove(0);
+		int invalidCount = 0;
+		while (top > 0)
+		{
+			int node = stack[--top];
+			invalidCount++;
+			arena.updateNode(node, WorldPointUtil.UNDEFINED, INFINITY, 0);
+			for (int child = firstChild[node]; child != WorldPointUtil.UNDEFINED; child = nextSibling[child])
+			{
+				if (!invalid[child])
+				{
+					invalid[child] = true;
+					stack[top++] = child;
+				}
+			}
+		}
 
-			if (target.contains(node.position))
+		if (invalidCount > 0)
+		{
+			for (int node = 0; node < nodeCount; node++)
 			{
-				return node.path();
+				if (invalid[node])
+				{
+					reopenAround(arena.position(node));
+				}
 			}
 
-			int distance = target.distanceTo(node.position);
-			if (nearest == null || distance < bestDistance)
+			// Transports into the invalidated part are the other way back into it
+			for (int i = 0; i < transports.size(); i++)
 			{
-				nearest = node;
-				bestDistance = distance;
+				int destination = arena.findNode(transportDestination(i));
+				if (destination != WorldPointUtil.UNDEFINED && invalid[destination])
+				{
+					int source = transports.source(i);
+					reopen(arena.findNode(inInstancedRegion ? WorldPointUtil.pack(toLocalInstance(WorldPointUtil.unpack(source))) : source));
+				}
 			}
+		}
 
-			addNeighbors(node);
+		for (int tile : changed)
+		{
+			reopenAround(tile);
 		}
 
-		if (nearest != null)
+		log.debug("Repaired search after {} collision changes, {} of {} nodes invalidated", changed.length, invalidCount, nodeCount);
+		return resume(maxSearch);
+	}
+
+	/**
+	 * Releases the arena of a retained search, after which it can no longer be continued.
+	 */
+	void dispose()
+	{
+		if (arena != null)
 		{
-			return nearest.path();
+			arena.release();
+			arena = null;
 		}
-		return List.of();
 	}
 
-	@Override
-	public List<WorldPoint> call() throws Exception
+	private boolean hasEdge(int from, int to)
 	{
-		return find();
+		int x = WorldPointUtil.unpackX(from);
+		int y = WorldPointUtil.unpackY(from);
+		int plane = WorldPointUtil.unpackPlane(from);
+		int dx = WorldPointUtil.unpackX(to) - x;
+		int dy = WorldPointUtil.unpackY(to) - y;
+		if (plane == WorldPointUtil.unpackPlane(to) && Math.abs(dx) <= 1 && Math.abs(dy) <= 1 && canStep(x, y, plane, dx, dy))
+		{
+			return true;
+		}
+
+		int source = transportSource(from);
+		for (int i = transports.first(source); i < transports.size() && transports.source(i) == source; i++)
+		{
+			if (transportDestination(i) == to)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private boolean canStep(int x, int y, int plane, int dx, int dy)
+	{
+		switch (dx * 3 + dy)
+		{
+			case -3:
+				return map.w(x, y, plane);
+			case 3:
+				return map.e(x, y, plane);
+			case -1:
+				return map.s(x, y, plane);
+			case 1:
+				return map.n(x, y, plane);
+			case -4:
+				return map.sw(x, y, plane);
+			case 2:
+				return map.se(x, y, plane);
+			case -2:
+				return map.nw(x, y, plane);
+			case 4:
+				return map.ne(x, y, plane);
+			default:
+				return false;
+		}
+	}
+
+	private void reopenAround(int position)
+	{
+		for (int dx = -1; dx <= 1; dx++)
+		{
+			for (int dy = -1; dy <= 1; dy++)
+			{
+				reopen(arena.findNode(WorldPointUtil.dy(WorldPointUtil.dx(position, dx), dy)));
+			}
+		}
+	}
+
+	/**
+	 * Queues an expanded node again, so its neighbours are reconsidered.
+	 */
+	private void reopen(int node)
+	{
+		if (node != WorldPointUtil.UNDEFINED && arena.isClosed(node) && arena.cost(node) < INFINITY)
+		{
+			arena.reopen(node);
+			arena.open().add(node, arena.cost(node) + arena.heuristic(node), arena.heuristic(node));
+		}
+	}
+
+	private List<WorldPoint> run(int maxSearch)
+	{
+		inInstancedRegion = Static.getClient().isInInstancedRegion();
+		prepareHeuristic();
+
+		int[] corridor = route();
+		if (corridor != null)
+		{
+			arena.setCorridor(corridor);
+			List<WorldPoint> path = search(maxSearch);
+			if (reachedTarget || cancelled)
+			{
+				return path;
+			}
+
+			log.debug("No path within the {} routed regions, searching the whole map", corridor.length);
+			arena.clear();
+		}
+
+		return search(maxSearch);
+	}
+
+	/**
+	 * Finds the regions a long distance path goes through on the {@link RegionGraph}, so the tile search
+	 * only has to cover those.
+	 *
+	 * @return the cluster keys to confine the search to, or null to search the whole map
+	 */
+	private int[] route()
+	{
+		if (inInstancedRegion)
+		{
+			return null;
+		}
+
+		int[] starts = new int[start.size()];
+		boolean startsInWilderness = false;
+		for (int i = 0; i < starts.length; i++)
+		{
+			starts[i] = WorldPointUtil.pack(start.get(i));
+			if (WorldPointUtil.distance(target, starts[i]) <= ROUTING_DISTANCE)
+			{
+				return null;
+			}
+			startsInWilderness |= isInWilderness(starts[i]);
+		}
+
+		RegionGraph graph = RegionGraph.get();
+		if (graph == null)
+		{
+			return null;
+		}
+
+		long startTime = System.nanoTime();
+		RegionRouter router = new RegionRouter(graph, map, target, avoidWilderness && !targetsInWilderness && !startsInWilderness);
+		int[] corridor = router.route(starts, starts.length, transports.sources(), transports.destinations(), transportCount);
+		log.debug("Region route took {} us, {} regions with an estimated length of {}",
+			(System.nanoTime() - startTime) / 1000, corridor == null ? 0 : corridor.length, router.getCost());
+		return corridor;
 	}
 
-	@Value
-	private static class Node
+	private List<WorldPoint> search(int maxSearch)
 	{
-		WorldPoint position;
-		Node previous;
-		int goldAvailable;
+		NodeQueue open = arena.open();
+		for (WorldPoint point : start)
+		{
+			int packed = WorldPointUtil.pack(point);
+			if (arena.findNode(packed) == WorldPointUtil.UNDEFINED)
+			{
+				int heuristic = heuristic(packed);
+				int node = arena.createNode(packed, WorldPointUtil.UNDEFINED, 0, heuristic, goldAvailable);
+				open.add(node, heuristic, heuristic);
+			}
+		}
 
-		public List<WorldPoint> path()
+		nearest = WorldPointUtil.UNDEFINED;
+		return expand(maxSearch);
+	}
+
+	/**
+	 * Continues a retained search after its open set was rebuilt. Expanded target tiles are queued again,
+	 * they are not reached a second time otherwise.
+	 */
+	private List<WorldPoint> resume(int maxSearch)
+	{
+		nearest = WorldPointUtil.UNDEFINED;
+		for (int node = 0; node < arena.nodeCount(); node++)
 		{
-			List<WorldPoint> path = new LinkedList<>();
-			Node node = this;
+			if (!arena.isClosed(node) || arena.cost(node) >= INFINITY)
+			{
+				continue;
+			}
 
-			while (node != null)
+			int distance = WorldPointUtil.distance(target, arena.position(node));
+			if (distance == 0)
 			{
-				path.add(0, node.position);
-				node = node.previous;
+				arena.reopen(node);
+				arena.open().add(node, arena.cost(node) + arena.heuristic(node), arena.heuristic(node));
+			}
+			else if (nearest == WorldPointUtil.UNDEFINED || distance < bestDistance)
+			{
+				nearest = node;
+				bestDistance = distance;
 			}
+		}
 
-			return new ArrayList<>(path);
+		List<WorldPoint> path = expand(maxSearch);
+		if (!reachedTarget && !cancelled && arena.hasCorridor())
+		{
+			arena.clear();
+			path = search(maxSearch);
 		}
+
+		visited = arena.visitedCount();
+		return path;
+	}
+
+	private List<WorldPoint> expand(int maxSearch)
+	{
+		expanded = 0;
+		reachedTarget = false;
+		cancelled = false;
+
+		NodeQueue open = arena.open();
+		while (!open.isEmpty())
+		{
+			if (Thread.interrupted())
+			{
+				cancelled = true;
+				return List.of();
+			}
+
+			if (arena.visitedCount() >= maxSearch)
+			{
+				log.debug("Reached max search limit of {}", maxSearch);
+				return path(nearest);
+			}
+
+			int f = open.peekF();
+			int node = open.poll();
+			if (f != arena.cost(node) + arena.heuristic(node) || arena.isClosed(node))
+			{
+				// Stale entry, the node was requeued with a lower cost or lost its cost in a repair
+				continue;
+			}
+
+			arena.close(node);
+			int distance = WorldPointUtil.distance(target, arena.position(node));
+			if (distance == 0)
+			{
+				reachedTarget = true;
+				return path(node);
+			}
+
+			if (nearest == WorldPointUtil.UNDEFINED || distance < bestDistance)
+			{
+				nearest = node;
+				bestDistance = distance;
+			}
+
+			expanded++;
+			addNeighbors(node);
+		}
+
+		return path(nearest);
+	}
+
+	private List<WorldPoint> path(int node)
+	{
+		if (node == WorldPointUtil.UNDEFINED)
+		{
+			return List.of();
+		}
+
+		List<WorldPoint> path = new ArrayList<>();
+		while (node != WorldPointUtil.UNDEFINED)
+		{
+			path.add(WorldPointUtil.unpack(arena.position(node)));
+			node = arena.parent(node);
+		}
+
+		Collections.reverse(path);
+		return path;
+	}
+
+	@Override
+	public List<WorldPoint> call() throws Exception
+	{
+		return find();
 	}
 }
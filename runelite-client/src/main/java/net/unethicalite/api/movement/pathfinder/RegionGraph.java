@@ -0,0 +1,247 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Abstract graph of the world used to route long distance paths. The map is split into clusters of one
+ * region on one plane. Nodes are the portal tiles on both sides of walkable region borders and the endpoints
+ * of the bundled transports; edges are walking distances between nodes of the same cluster and single steps
+ * across region borders.
+ * <p>
+ * The graph is built offline by {@code RegionGraphBuilder}, run with the {@code regionGraph} task, and bundled as
+ * the {@code /region-graph} resource, tagged with the checksum of the {@code /regions} data it was built from.
+ */
+@Slf4j
+public class RegionGraph
+{
+	static final int MAGIC = 0x52475048; // RGPH
+	static final int VERSION = 1;
+
+	private static final Object LOCK = new Object();
+	private static volatile RegionGraph instance;
+	private static volatile boolean loaded;
+
+	@Getter
+	private final long sourceChecksum;
+	// Sorted cluster keys, with the range of their nodes in clusterStart
+	private final int[] clusterKeys;
+	private final int[] clusterStart;
+	// Packed node positions, ordered by cluster and then position
+	private final int[] positions;
+	// Outgoing edges of node i are edgeStart[i] until edgeStart[i + 1]
+	private final int[] edgeStart;
+	private final int[] edgeTargets;
+	private final short[] edgeCosts;
+
+	RegionGraph(long sourceChecksum, int[] clusterKeys, int[] clusterStart, int[] positions, int[] edgeStart, int[] edgeTargets, short[] edgeCosts)
+	{
+		this.sourceChecksum = sourceChecksum;
+		this.clusterKeys = clusterKeys;
+		this.clusterStart = clusterStart;
+		this.positions = positions;
+		this.edgeStart = edgeStart;
+		this.edgeTargets = edgeTargets;
+		this.edgeCosts = edgeCosts;
+	}
+
+	/**
+	 * Returns the bundled graph, loading it on first use.
+	 *
+	 * @return the graph, or null if it is missing or was built from different collision data
+	 */
+	public static RegionGraph get()
+	{
+		if (!loaded)
+		{
+			synchronized (LOCK)
+			{
+				if (!loaded)
+				{
+					instance = load();
+					loaded = true;
+				}
+			}
+		}
+
+		return instance;
+	}
+
+	private static RegionGraph load()
+	{
+		try (InputStream regions = Walker.class.getResourceAsStream("/regions");
+			 InputStream graph = Walker.class.getResourceAsStream("/region-graph"))
+		{
+			if (regions == null || graph == null)
+			{
+				log.info("No region graph bundled, long distance paths will not be routed hierarchically");
+				return null;
+			}
+
+			RegionGraph regionGraph = read(graph);
+			if (regionGraph == null || regionGraph.sourceChecksum != checksum(regions.readAllBytes()))
+			{
+				log.warn("Region graph is outdated, long distance paths will not be routed hierarchically");
+				return null;
+			}
+
+			log.debug("Loaded region graph with {} nodes and {} edges", regionGraph.nodeCount(), regionGraph.edgeTargets.length);
+			return regionGraph;
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to load region graph", e);
+			return null;
+		}
+	}
+
+	static long checksum(byte[] compressedRegions)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(compressedRegions);
+		return crc.getValue();
+	}
+
+	/**
+	 * @return the graph, or null if the stream holds another format version
+	 */
+	public static RegionGraph read(InputStream in) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.wrap(new GZIPInputStream(in).readAllBytes());
+		if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+		{
+			return null;
+		}
+
+		long sourceChecksum = buffer.getLong();
+		int clusterCount = buffer.getInt();
+		int nodeCount = buffer.getInt();
+		int edgeCount = buffer.getInt();
+
+		int[] clusterKeys = readInts(buffer, clusterCount);
+		int[] clusterStart = readInts(buffer, clusterCount + 1);
+		int[] positions = readInts(buffer, nodeCount);
+		int[] edgeStart = readInts(buffer, nodeCount + 1);
+		int[] edgeTargets = readInts(buffer, edgeCount);
+		short[] edgeCosts = new short[edgeCount];
+		buffer.asShortBuffer().get(edgeCosts);
+		return new RegionGraph(sourceChecksum, clusterKeys, clusterStart, positions, edgeStart, edgeTargets, edgeCosts);
+	}
+
+	public void write(OutputStream out) throws IOException
+	{
+		GZIPOutputStream gzip = new GZIPOutputStream(out);
+		DataOutputStream data = new DataOutputStream(gzip);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeLong(sourceChecksum);
+		data.writeInt(clusterKeys.length);
+		data.writeInt(positions.length);
+		data.writeInt(edgeTargets.length);
+		writeInts(data, clusterKeys);
+		writeInts(data, clusterStart);
+		writeInts(data, positions);
+		writeInts(data, edgeStart);
+		writeInts(data, edgeTargets);
+		for (short cost : edgeCosts)
+		{
+			data.writeShort(cost);
+		}
+		data.flush();
+		gzip.finish();
+	}
+
+	public static int clusterKey(int packed)
+	{
+		return WorldPointUtil.unpackPlane(packed) << 16 | WorldPointUtil.regionId(packed);
+	}
+
+	public int nodeCount()
+	{
+		return positions.length;
+	}
+
+	public int position(int node)
+	{
+		return positions[node];
+	}
+
+	/**
+	 * @return the node on the given packed tile, or {@link WorldPointUtil#UNDEFINED}
+	 */
+	public int findNode(int packed)
+	{
+		int cluster = Arrays.binarySearch(clusterKeys, clusterKey(packed));
+		if (cluster < 0)
+		{
+			return WorldPointUtil.UNDEFINED;
+		}
+
+		int node = Arrays.binarySearch(positions, clusterStart[cluster], clusterStart[cluster + 1], packed);
+		return node < 0 ? WorldPointUtil.UNDEFINED : node;
+	}
+
+	/**
+	 * @return the first node of the cluster, the nodes of a cluster are numbered consecutively
+	 */
+	public int firstNode(int clusterKey)
+	{
+		int cluster = Arrays.binarySearch(clusterKeys, clusterKey);
+		return cluster < 0 ? 0 : clusterStart[cluster];
+	}
+
+	/**
+	 * @return the node after the last node of the cluster
+	 */
+	public int endNode(int clusterKey)
+	{
+		int cluster = Arrays.binarySearch(clusterKeys, clusterKey);
+		return cluster < 0 ? 0 : clusterStart[cluster + 1];
+	}
+
+	public int firstEdge(int node)
+	{
+		return edgeStart[node];
+	}
+
+	public int endEdge(int node)
+	{
+		return edgeStart[node + 1];
+	}
+
+	public int edgeTarget(int edge)
+	{
+		return edgeTargets[edge];
+	}
+
+	public int edgeCost(int edge)
+	{
+		return edgeCosts[edge];
+	}
+
+	private static int[] readInts(ByteBuffer buffer, int count)
+	{
+		int[] values = new int[count];
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + count * Integer.BYTES);
+		return values;
+	}
+
+	private static void writeInts(DataOutputStream data, int[] values) throws IOException
+	{
+		for (int value : values)
+		{
+			data.writeInt(value);
+		}
+	}
+}
@@ -0,0 +1,318 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import net.runelite.api.coords.WorldArea;
+
+import java.util.Arrays;
+
+/**
+ * Searches the {@link RegionGraph} for the clusters a long distance path has to pass through, so the tile
+ * search can be confined to them. Start points, the target and the transports available to the player are
+ * connected to the graph per query, through flood fills of the clusters they are in.
+ * <p>
+ * Portals only sample the region borders, so the route found is close to, but not always exactly, the
+ * shortest one. Costs ignore charter ship fares.
+ */
+public class RegionRouter
+{
+	private static final int INFINITY = Integer.MAX_VALUE / 4;
+
+	private final RegionGraph graph;
+	private final CollisionMap map;
+	private final WorldArea target;
+	private final boolean avoidWilderness;
+
+	private final int graphNodes;
+	private int[] insertedPositions = new int[16];
+	private int insertedCount;
+
+	// Transports leaving from a graph node, as (from << 32 | to) sorted by from
+	private long[] transportEdges = new long[16];
+	private int transportEdgeCount;
+
+	// Places that have to be reached by filling their cluster: the target and sources of transports not on graph nodes
+	private long[] sinksByCluster = new long[16];
+	private int[][] sinkSources = new int[16][];
+	private int[] sinkSuccessors = new int[16];
+	private int[] sinkCosts = new int[16];
+	private ClusterFill[] sinkFills = new ClusterFill[16];
+	private int sinkCount;
+
+	private final ClusterFill fill = new ClusterFill();
+	private final int[] fillSource = new int[1];
+	private int[] distances;
+	private int[] parents;
+	private int targetNode;
+
+	/**
+	 * @param avoidWilderness whether the route may not pass through any node in the wilderness
+	 */
+	public RegionRouter(RegionGraph graph, CollisionMap map, WorldArea target, boolean avoidWilderness)
+	{
+		this.graph = graph;
+		this.map = map;
+		this.target = target;
+		this.avoidWilderness = avoidWilderness;
+		this.graphNodes = graph.nodeCount();
+	}
+
+	/**
+	 * @param starts       packed start points
+	 * @param sources      packed transport sources
+	 * @param destinations packed transport destinations
+	 * @return the keys of the clusters on the route, or null if the graph does not connect the start to the target
+	 */
+	public int[] route(int[] starts, int startCount, int[] sources, int[] destinations, int transportCount)
+	{
+		for (int i = 0; i < startCount; i++)
+		{
+			insert(starts[i]);
+		}
+
+		for (int i = 0; i < transportCount; i++)
+		{
+			int destination = graph.findNode(destinations[i]);
+			if (destination == WorldPointUtil.UNDEFINED)
+			{
+				destination = insert(destinations[i]);
+			}
+
+			int source = graph.findNode(sources[i]);
+			if (source != WorldPointUtil.UNDEFINED)
+			{
+				addTransportEdge(source, destination);
+			}
+			else
+			{
+				addSink(new int[]{sources[i]}, 1, destination, 1);
+			}
+		}
+
+		targetNode = graphNodes + insertedCount;
+		addTargetSinks();
+		Arrays.sort(transportEdges, 0, transportEdgeCount);
+		Arrays.sort(sinksByCluster, 0, sinkCount);
+
+		if (!search(startCount))
+		{
+			return null;
+		}
+
+		int[] clusters = new int[16];
+		int clusterCount = 0;
+		for (int node = parents[targetNode]; node != WorldPointUtil.UNDEFINED; node = parents[node])
+		{
+			int clusterKey = RegionGraph.clusterKey(position(node));
+			if (clusterCount == 0 || clusters[clusterCount - 1] != clusterKey)
+			{
+				if (clusterCount == clusters.length)
+				{
+					clusters = Arrays.copyOf(clusters, clusterCount * 2);
+				}
+				clusters[clusterCount++] = clusterKey;
+			}
+		}
+
+		return Arrays.copyOf(clusters, clusterCount);
+	}
+
+	public int getCost()
+	{
+		return distances == null ? INFINITY : distances[targetNode];
+	}
+
+	private boolean search(int startCount)
+	{
+		int nodeCount = targetNode + 1;
+		distances = new int[nodeCount];
+		parents = new int[nodeCount];
+		Arrays.fill(distances, INFINITY);
+		Arrays.fill(parents, WorldPointUtil.UNDEFINED);
+
+		NodeQueue open = new NodeQueue();
+		for (int i = 0; i < startCount; i++)
+		{
+			int node = graphNodes + i;
+			if (!blocked(node))
+			{
+				distances[node] = 0;
+				open.add(node, 0, 0);
+			}
+		}
+
+		while (!open.isEmpty())
+		{
+			int cost = open.peekF();
+			int node = open.poll();
+			if (cost > distances[node])
+			{
+				continue;
+			}
+
+			if (node == targetNode)
+			{
+				return true;
+			}
+
+			int position = position(node);
+			if (node < graphNodes)
+			{
+				for (int edge = graph.firstEdge(node); edge < graph.endEdge(node); edge++)
+				{
+					relax(open, node, graph.edgeTarget(edge), cost + graph.edgeCost(edge));
+				}
+			}
+			else
+			{
+				int clusterKey = RegionGraph.clusterKey(position);
+				fillSource[0] = position;
+				fill.fill(map, fillSource, 1);
+				for (int other = graph.firstNode(clusterKey); other < graph.endNode(clusterKey); other++)
+				{
+					int distance = fill.distance(graph.position(other));
+					if (distance != WorldPointUtil.UNDEFINED)
+					{
+						relax(open, node, other, cost + distance);
+					}
+				}
+			}
+
+			for (int i = lowerBound(transportEdges, transportEdgeCount, (long) node << 32);
+				 i < transportEdgeCount && (int) (transportEdges[i] >>> 32) == node; i++)
+			{
+				relax(open, node, (int) transportEdges[i], cost + 1);
+			}
+
+			int clusterKey = RegionGraph.clusterKey(position);
+			for (int i = lowerBound(sinksByCluster, sinkCount, (long) clusterKey << 32);
+				 i < sinkCount && (int) (sinksByCluster[i] >>> 32) == clusterKey; i++)
+			{
+				int sink = (int) sinksByCluster[i];
+				if (sinkFills[sink] == null)
+				{
+					sinkFills[sink] = new ClusterFill();
+					sinkFills[sink].fill(map, sinkSources[sink], sinkSources[sink].length);
+				}
+
+				int distance = sinkFills[sink].distance(position);
+				if (distance != WorldPointUtil.UNDEFINED)
+				{
+					relax(open, node, sinkSuccessors[sink], cost + distance + sinkCosts[sink]);
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private void relax(NodeQueue open, int from, int to, int cost)
+	{
+		if (cost >= distances[to] || blocked(to))
+		{
+			return;
+		}
+
+		distances[to] = cost;
+		parents[to] = from;
+		open.add(to, cost, 0);
+	}
+
+	private boolean blocked(int node)
+	{
+		return avoidWilderness && node != targetNode && Pathfinder.isInWilderness(position(node));
+	}
+
+	private int position(int node)
+	{
+		return node < graphNodes ? graph.position(node) : insertedPositions[node - graphNodes];
+	}
+
+	private int insert(int position)
+	{
+		if (insertedCount == insertedPositions.length)
+		{
+			insertedPositions = Arrays.copyOf(insertedPositions, insertedCount * 2);
+		}
+
+		insertedPositions[insertedCount] = position;
+		return graphNodes + insertedCount++;
+	}
+
+	private void addTransportEdge(int from, int to)
+	{
+		if (transportEdgeCount == transportEdges.length)
+		{
+			transportEdges = Arrays.copyOf(transportEdges, transportEdgeCount * 2);
+		}
+
+		transportEdges[transportEdgeCount++] = (long) from << 32 | to;
+	}
+
+	private void addSink(int[] sources, int sourceCount, int successor, int cost)
+	{
+		if (sinkCount == sinkSuccessors.length)
+		{
+			int capacity = sinkCount * 2;
+			sinksByCluster = Arrays.copyOf(sinksByCluster, capacity);
+			sinkSources = Arrays.copyOf(sinkSources, capacity);
+			sinkSuccessors = Arrays.copyOf(sinkSuccessors, capacity);
+			sinkCosts = Arrays.copyOf(sinkCosts, capacity);
+			sinkFills = Arrays.copyOf(sinkFills, capacity);
+		}
+
+		sinksByCluster[sinkCount] = (long) RegionGraph.clusterKey(sources[0]) << 32 | sinkCount;
+		sinkSources[sinkCount] = Arrays.copyOf(sources, sourceCount);
+		sinkSuccessors[sinkCount] = successor;
+		sinkCosts[sinkCount] = cost;
+		sinkCount++;
+	}
+
+	/**
+	 * Adds one sink per cluster the target area overlaps, filled from all target tiles in that cluster.
+	 */
+	private void addTargetSinks()
+	{
+		int minX = target.getX();
+		int minY = target.getY();
+		int maxX = minX + target.getWidth() - 1;
+		int maxY = minY + target.getHeight() - 1;
+		for (int clusterX = minX >> 6; clusterX <= maxX >> 6; clusterX++)
+		{
+			for (int clusterY = minY >> 6; clusterY <= maxY >> 6; clusterY++)
+			{
+				int fromX = Math.max(minX, clusterX << 6);
+				int toX = Math.min(maxX, (clusterX << 6) + 63);
+				int fromY = Math.max(minY, clusterY << 6);
+				int toY = Math.min(maxY, (clusterY << 6) + 63);
+				int[] tiles = new int[(toX - fromX + 1) * (toY - fromY + 1)];
+				int count = 0;
+				for (int x = fromX; x <= toX; x++)
+				{
+					for (int y = fromY; y <= toY; y++)
+					{
+						tiles[count++] = WorldPointUtil.pack(x, y, target.getPlane());
+					}
+				}
+				addSink(tiles, count, targetNode, 0);
+			}
+		}
+	}
+
+	private static int lowerBound(long[] values, int size, long key)
+	{
+		int low = 0;
+		int high = size;
+		while (low < high)
+		{
+			int mid = (low + high) >>> 1;
+			if (values[mid] < key)
+			{
+				low = mid + 1;
+			}
+			else
+			{
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,328 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Reusable working memory for a {@link Pathfinder} search: node arrays, open set, visited index and
+ * heuristic caches. One arena is kept per thread, so repeated path requests on the same executor
+ * do not allocate beyond the returned path. Searches that are kept to be resumed later use an arena of their own
+ * from {@link #create()}, which goes back to a small shared pool once the search is disposed.
+ */
+public class SearchArena
+{
+	private static final int INITIAL_NODES = 1 << 12;
+	// Buffers grown past this by a very long search are dropped again once it finishes
+	private static final int RETAINED_NODES = 1 << 20;
+
+	// One retained search is kept per recent route of the path query service, so this many arenas cover all of them
+	private static final int POOLED_ARENAS = 4;
+
+	private static final ThreadLocal<SearchArena> ARENAS = ThreadLocal.withInitial(SearchArena::new);
+	private static final ArrayDeque<SearchArena> POOL = new ArrayDeque<>(POOLED_ARENAS);
+
+	private final VisitedTiles visited = new VisitedTiles();
+	private NodeQueue open = new NodeQueue(INITIAL_NODES);
+	private int[] position = new int[INITIAL_NODES];
+	private int[] parent = new int[INITIAL_NODES];
+	private int[] cost = new int[INITIAL_NODES];
+	private int[] heuristic = new int[INITIAL_NODES];
+	private int[] gold = new int[INITIAL_NODES];
+	private boolean[] closed = new boolean[INITIAL_NODES];
+	private int nodeCount;
+
+	// Offset of every region's heuristic candidates in the pool, which holds a count followed by the transports
+	private final int[] regionCandidates = new int[4 * 256 * 256];
+	private int[] candidatePool = new int[1024];
+	private int candidatePoolSize;
+	private int[] touchedRegions = new int[256];
+	private int touchedRegionCount;
+
+	private final boolean[] corridor = new boolean[4 * 256 * 256];
+	private int[] corridorClusters;
+
+	private boolean inUse;
+	private boolean pooled;
+
+	private SearchArena()
+	{
+		Arrays.fill(regionCandidates, WorldPointUtil.UNDEFINED);
+	}
+
+	/**
+	 * Returns the calling thread's arena and marks it in use until {@link #release()}. A nested search
+	 * on the same thread gets a throwaway arena instead of clobbering the outer one.
+	 */
+	public static SearchArena acquire()
+	{
+		SearchArena arena = ARENAS.get();
+		if (arena.inUse)
+		{
+			arena = new SearchArena();
+		}
+
+		arena.inUse = true;
+		return arena;
+	}
+
+	/**
+	 * Returns an arena that is not tied to the calling thread, for a search that outlives the call that started it.
+	 * The arena is taken from the pool of released ones if there is any.
+	 */
+	public static SearchArena create()
+	{
+		SearchArena arena;
+		synchronized (POOL)
+		{
+			arena = POOL.poll();
+		}
+
+		if (arena == null)
+		{
+			arena = new SearchArena();
+			arena.pooled = true;
+		}
+
+		arena.inUse = true;
+		return arena;
+	}
+
+	/**
+	 * Resets the arena for the next search, and puts it back in the pool if it came from {@link #create()}.
+	 * Paths must be copied out of it before this is called.
+	 */
+	public void release()
+	{
+		clear();
+		inUse = false;
+		if (pooled)
+		{
+			synchronized (POOL)
+			{
+				if (POOL.size() < POOLED_ARENAS)
+				{
+					POOL.push(this);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Resets the arena for another search by the current owner.
+	 */
+	public void clear()
+	{
+		visited.clear();
+		open.clear();
+		if (open.capacity() > RETAINED_NODES)
+		{
+			open = new NodeQueue(INITIAL_NODES);
+		}
+
+		if (position.length > RETAINED_NODES)
+		{
+			position = new int[INITIAL_NODES];
+			parent = new int[INITIAL_NODES];
+			cost = new int[INITIAL_NODES];
+			heuristic = new int[INITIAL_NODES];
+			gold = new int[INITIAL_NODES];
+			closed = new boolean[INITIAL_NODES];
+		}
+		nodeCount = 0;
+
+		clearRegionBounds();
+
+		if (corridorClusters != null)
+		{
+			for (int clusterKey : corridorClusters)
+			{
+				corridor[clusterKey] = false;
+			}
+			corridorClusters = null;
+		}
+	}
+
+	public int createNode(int position, int parent, int cost, int heuristic, int gold)
+	{
+		if (nodeCount == this.position.length)
+		{
+			int capacity = nodeCount * 2;
+			this.position = Arrays.copyOf(this.position, capacity);
+			this.parent = Arrays.copyOf(this.parent, capacity);
+			this.cost = Arrays.copyOf(this.cost, capacity);
+			this.heuristic = Arrays.copyOf(this.heuristic, capacity);
+			this.gold = Arrays.copyOf(this.gold, capacity);
+			this.closed = Arrays.copyOf(this.closed, capacity);
+		}
+
+		int node = nodeCount++;
+		this.position[node] = position;
+		this.parent[node] = parent;
+		this.cost[node] = cost;
+		this.heuristic[node] = heuristic;
+		this.gold[node] = gold;
+		this.closed[node] = false;
+		visited.put(position, node);
+		return node;
+	}
+
+	/**
+	 * Changes how the node is reached, which opens it again if it was already expanded.
+	 */
+	public void updateNode(int node, int parent, int cost, int gold)
+	{
+		this.parent[node] = parent;
+		this.cost[node] = cost;
+		this.gold[node] = gold;
+		this.closed[node] = false;
+	}
+
+	public void setHeuristic(int node, int heuristic)
+	{
+		this.heuristic[node] = heuristic;
+	}
+
+	public void close(int node)
+	{
+		closed[node] = true;
+	}
+
+	public void reopen(int node)
+	{
+		closed[node] = false;
+	}
+
+	public boolean isClosed(int node)
+	{
+		return closed[node];
+	}
+
+	public int nodeCount()
+	{
+		return nodeCount;
+	}
+
+	public int findNode(int position)
+	{
+		return visited.get(position);
+	}
+
+	public int visitedCount()
+	{
+		return visited.size();
+	}
+
+	public NodeQueue open()
+	{
+		return open;
+	}
+
+	public int position(int node)
+	{
+		return position[node];
+	}
+
+	public int parent(int node)
+	{
+		return parent[node];
+	}
+
+	public int cost(int node)
+	{
+		return cost[node];
+	}
+
+	public int heuristic(int node)
+	{
+		return heuristic[node];
+	}
+
+	public int gold(int node)
+	{
+		return gold[node];
+	}
+
+	/**
+	 * @return the offset of the region's heuristic candidates in the {@link #candidatePool()}, or
+	 * {@link WorldPointUtil#UNDEFINED} if they were not collected yet
+	 */
+	public int regionCandidates(int regionKey)
+	{
+		return regionCandidates[regionKey];
+	}
+
+	public int[] candidatePool()
+	{
+		return candidatePool;
+	}
+
+	/**
+	 * Starts an empty list of candidates for the region, to be filled by {@link #addRegionCandidate(int, int)}
+	 * before the candidates of another region are started.
+	 *
+	 * @return the offset of the list
+	 */
+	public int startRegionCandidates(int regionKey)
+	{
+		if (touchedRegionCount == touchedRegions.length)
+		{
+			touchedRegions = Arrays.copyOf(touchedRegions, touchedRegionCount * 2);
+		}
+		touchedRegions[touchedRegionCount++] = regionKey;
+
+		int offset = candidatePoolSize;
+		addCandidate(0);
+		regionCandidates[regionKey] = offset;
+		return offset;
+	}
+
+	public void addRegionCandidate(int offset, int transport)
+	{
+		addCandidate(transport);
+		candidatePool[offset]++;
+	}
+
+	private void addCandidate(int value)
+	{
+		if (candidatePoolSize == candidatePool.length)
+		{
+			candidatePool = Arrays.copyOf(candidatePool, candidatePoolSize * 2);
+		}
+		candidatePool[candidatePoolSize++] = value;
+	}
+
+	/**
+	 * Forgets the per-region heuristic candidates, which depend on the target.
+	 */
+	public void clearRegionBounds()
+	{
+		for (int i = 0; i < touchedRegionCount; i++)
+		{
+			regionCandidates[touchedRegions[i]] = WorldPointUtil.UNDEFINED;
+		}
+		touchedRegionCount = 0;
+		candidatePoolSize = 0;
+	}
+
+	/**
+	 * Confines the search to the given clusters, as found by a {@link RegionRouter}.
+	 */
+	public void setCorridor(int[] clusterKeys)
+	{
+		corridorClusters = clusterKeys;
+		for (int clusterKey : clusterKeys)
+		{
+			corridor[clusterKey] = true;
+		}
+	}
+
+	public boolean hasCorridor()
+	{
+		return corridorClusters != null;
+	}
+
+	public boolean inCorridor(int position)
+	{
+		return corridorClusters == null || corridor[RegionGraph.clusterKey(position)];
+	}
+}
@@ -0,0 +1,247 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import lombok.Getter;
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+import net.unethicalite.api.movement.pathfinder.model.Transport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index of transports, sorted by packed source point so the transports leaving a tile are one
+ * binary search away. {@link TransportLoader} publishes a new index when the transport set changes and every
+ * path search shares it.
+ * <p>
+ * The version only changes when the sources or destinations change. A refresh that merely recreates the
+ * transports, and with them their handlers, keeps the arrays and the version of the previous index.
+ * The heuristic bounds computed for recent search targets are kept along with the arrays.
+ */
+public class TransportIndex
+{
+	// Walkers mostly search towards the same few targets, each entry holds one int per transport
+	private static final int CACHED_TARGETS = 16;
+
+	public static final TransportIndex EMPTY = new TransportIndex(0, new int[0], new int[0], new int[0], new Transport[0], newBoundsCache());
+
+	@Getter
+	private final long version;
+	private final int[] sources;
+	private final int[] destinations;
+	// Position in the list the index was built from, for every sorted transport
+	private final int[] order;
+	private final Transport[] transports;
+	private volatile Map<WorldPoint, List<Transport>> links;
+	// Heuristic bounds by packed target area, shared with the indexes updated from this one
+	private final Map<Long, int[]> bounds;
+
+	private TransportIndex(long version, int[] sources, int[] destinations, int[] order, Transport[] transports, Map<Long, int[]> bounds)
+	{
+		this.version = version;
+		this.sources = sources;
+		this.destinations = destinations;
+		this.order = order;
+		this.transports = transports;
+		this.bounds = bounds;
+	}
+
+	public static TransportIndex of(Collection<Transport> transports)
+	{
+		return build(new ArrayList<>(transports), 0);
+	}
+
+	public static TransportIndex of(Map<WorldPoint, List<Transport>> links)
+	{
+		List<Transport> transports = new ArrayList<>();
+		links.values().forEach(transports::addAll);
+		return build(transports, 0);
+	}
+
+	private static TransportIndex build(List<Transport> transports, long version)
+	{
+		int size = transports.size();
+		long[] keys = new long[size];
+		for (int i = 0; i < size; i++)
+		{
+			keys[i] = (long) WorldPointUtil.pack(transports.get(i).getSource()) << 32 | i;
+		}
+		Arrays.sort(keys);
+
+		int[] sources = new int[size];
+		int[] destinations = new int[size];
+		int[] order = new int[size];
+		Transport[] sorted = new Transport[size];
+		for (int i = 0; i < size; i++)
+		{
+			int index = (int) keys[i];
+			sources[i] = (int) (keys[i] >>> 32);
+			destinations[i] = WorldPointUtil.pack(transports.get(index).getDestination());
+			order[i] = index;
+			sorted[i] = transports.get(index);
+		}
+
+		return new TransportIndex(version, sources, destinations, order, sorted, newBoundsCache());
+	}
+
+	/**
+	 * Returns an index of the given transports. If they connect the same points in the same order as the
+	 * transports of this index, the sorted arrays and the version are kept and only the transports are replaced.
+	 */
+	public TransportIndex update(List<Transport> transports)
+	{
+		if (transports.size() == this.transports.length)
+		{
+			Transport[] replaced = new Transport[order.length];
+			boolean same = true;
+			for (int i = 0; i < order.length && same; i++)
+			{
+				Transport transport = transports.get(order[i]);
+				same = WorldPointUtil.pack(transport.getSource()) == sources[i]
+					&& WorldPointUtil.pack(transport.getDestination()) == destinations[i];
+				replaced[i] = transport;
+			}
+
+			if (same)
+			{
+				return new TransportIndex(version, sources, destinations, order, replaced, bounds);
+			}
+		}
+
+		return build(transports, version + 1);
+	}
+
+	public int size()
+	{
+		return transports.length;
+	}
+
+	/**
+	 * @return the index of the first transport leaving from the packed point, or the index where it would be.
+	 * Transports from the same point are consecutive, iterate while {@link #source(int)} matches.
+	 */
+	public int first(int source)
+	{
+		int low = 0;
+		int high = sources.length;
+		while (low < high)
+		{
+			int mid = (low + high) >>> 1;
+			if (sources[mid] < source)
+			{
+				low = mid + 1;
+			}
+			else
+			{
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	public int source(int index)
+	{
+		return sources[index];
+	}
+
+	public int destination(int index)
+	{
+		return destinations[index];
+	}
+
+	public Transport get(int index)
+	{
+		return transports[index];
+	}
+
+	/**
+	 * Same as {@link #get(int)} for every transport leaving from the packed point.
+	 */
+	public List<Transport> from(int source)
+	{
+		int first = first(source);
+		int end = first;
+		while (end < sources.length && sources[end] == source)
+		{
+			end++;
+		}
+
+		return first == end ? List.of() : Collections.unmodifiableList(Arrays.asList(transports).subList(first, end));
+	}
+
+	/**
+	 * @return the transports grouped by source, built once per index
+	 */
+	public Map<WorldPoint, List<Transport>> asMap()
+	{
+		Map<WorldPoint, List<Transport>> result = links;
+		if (result == null)
+		{
+			result = new HashMap<>();
+			for (int i = 0; i < transports.length; i++)
+			{
+				if (i == 0 || sources[i] != sources[i - 1])
+				{
+					result.put(transports[i].getSource(), from(sources[i]));
+				}
+			}
+			links = result = Collections.unmodifiableMap(result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return the lower bounds of the {@link Pathfinder} heuristic for every transport towards the target,
+	 * computed by the first search to the target and kept for the last few targets. The array is shared and
+	 * must not be changed.
+	 */
+	int[] heuristicBounds(WorldArea target)
+	{
+		long key = (long) WorldPointUtil.pack(target.getX(), target.getY(), target.getPlane()) << 32
+			| (target.getWidth() & 0xffffL) << 16 | target.getHeight() & 0xffffL;
+		synchronized (bounds)
+		{
+			int[] cached = bounds.get(key);
+			if (cached != null)
+			{
+				return cached;
+			}
+		}
+
+		// Computed outside the lock, two searches to a new target at the same time both compute the same bounds
+		int[] computed = Pathfinder.transportBounds(this, target);
+		synchronized (bounds)
+		{
+			bounds.put(key, computed);
+		}
+		return computed;
+	}
+
+	int[] sources()
+	{
+		return sources;
+	}
+
+	int[] destinations()
+	{
+		return destinations;
+	}
+
+	private static Map<Long, int[]> newBoundsCache()
+	{
+		return new LinkedHashMap<Long, int[]>(CACHED_TARGETS, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest)
+			{
+				return size() > CACHED_TARGETS;
+			}
+		};
+	}
+}
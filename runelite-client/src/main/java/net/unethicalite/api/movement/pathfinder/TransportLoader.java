@@ -59,6 +59,7 @@ public class TransportLoader
     private static final List<Transport> ALL_STATIC_TRANSPORTS = new ArrayList<>();
     private static final List<Transport> LAST_TRANSPORT_LIST = new ArrayList<>();
     private static List<Transport> TEMP_TRANSPORTS;
+    private static volatile TransportIndex TRANSPORT_INDEX = TransportIndex.EMPTY;
 
     public static void init()
     {
@@ -91,6 +92,14 @@ public class TransportLoader
         return LAST_TRANSPORT_LIST;
     }
 
+    /**
+     * @return the transports of the last refresh, indexed for the pathfinder
+     */
+    public static TransportIndex getTransportIndex()
+    {
+        return TRANSPORT_INDEX;
+    }
+
     public static void refreshTransports()
     {
         GameThread.invoke(() ->
@@ -477,6 +486,8 @@ public class TransportLoader
             {
                 LAST_TRANSPORT_LIST.addAll(TEMP_TRANSPORTS);
             }
+
+            TRANSPORT_INDEX = TRANSPORT_INDEX.update(LAST_TRANSPORT_LIST);
         });
     }
 
@@ -0,0 +1,90 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import java.util.Arrays;
+
+/**
+ * Maps packed world points to pathfinder node indices. Storage is paged per plane and region,
+ * so only the regions touched by a search are allocated and {@link #clear()} only resets those.
+ * Cleared pages are kept in a small pool for the next search.
+ */
+public class VisitedTiles
+{
+	private static final int REGION_SIZE = 64 * 64;
+	private static final int MAX_POOLED_PAGES = 256;
+
+	private final int[][] pages = new int[4 * 256 * 256][];
+	private int[] touched = new int[64];
+	private int touchedCount;
+	private final int[][] pool = new int[MAX_POOLED_PAGES][];
+	private int poolSize;
+	private int size;
+
+	public int get(int packed)
+	{
+		int[] page = pages[pageIndex(packed)];
+		if (page == null)
+		{
+			return WorldPointUtil.UNDEFINED;
+		}
+
+		return page[tileIndex(packed)] - 1;
+	}
+
+	public boolean contains(int packed)
+	{
+		return get(packed) != WorldPointUtil.UNDEFINED;
+	}
+
+	public void put(int packed, int node)
+	{
+		int pageIndex = pageIndex(packed);
+		int[] page = pages[pageIndex];
+		if (page == null)
+		{
+			page = pages[pageIndex] = poolSize > 0 ? pool[--poolSize] : new int[REGION_SIZE];
+			if (touchedCount == touched.length)
+			{
+				touched = Arrays.copyOf(touched, touchedCount * 2);
+			}
+			touched[touchedCount++] = pageIndex;
+		}
+
+		int tileIndex = tileIndex(packed);
+		if (page[tileIndex] == 0)
+		{
+			size++;
+		}
+		page[tileIndex] = node + 1;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public void clear()
+	{
+		for (int i = 0; i < touchedCount; i++)
+		{
+			int[] page = pages[touched[i]];
+			pages[touched[i]] = null;
+			if (poolSize < MAX_POOLED_PAGES)
+			{
+				Arrays.fill(page, 0);
+				pool[poolSize++] = page;
+			}
+		}
+		touchedCount = 0;
+		size = 0;
+	}
+
+	private static int pageIndex(int packed)
+	{
+		return WorldPointUtil.unpackPlane(packed) << 16 | WorldPointUtil.regionId(packed);
+	}
+
+	private static int tileIndex(int packed)
+	{
+		return (WorldPointUtil.unpackX(packed) & 63) << 6 | WorldPointUtil.unpackY(packed) & 63;
+	}
+}
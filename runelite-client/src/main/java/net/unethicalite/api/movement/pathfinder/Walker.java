@@ -38,8 +38,6 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
@@ -55,8 +53,8 @@ public class Walker
     private static final int MIN_ENERGY = 5;
     private static final int MAX_NEAREST_SEARCH_ITERATIONS = 10;
 
-    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
-    private static Future<List<WorldPoint>> pathFuture = null;
+    private static final PathQueryService pathQueries = new PathQueryService(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)), 64);
     private static WorldArea currentDestination = null;
     private static boolean disableTeleports;
     private static boolean disableTransports;
@@ -463,7 +461,7 @@ public class Walker
         {
             throw new RuntimeException("Calculate path cannot be called on client thread");
         }
-        return new Pathfinder(Static.getGlobalCollisionMap(), buildTransportLinks(), startPoints, destination, RegionManager.avoidWilderness()).find();
+        return new Pathfinder(Static.getGlobalCollisionMap(), buildTransportIndex(), startPoints, destination, RegionManager.avoidWilderness()).find();
     }
 
     public static List<WorldPoint> calculatePath(WorldPoint destination)
@@ -483,41 +481,45 @@ public class Walker
             boolean forced
     )
     {
-        if (pathFuture == null)
+        if (startPoints.isEmpty())
         {
-            pathFuture = executor.submit(new Pathfinder(Static.getGlobalCollisionMap(), buildTransportLinks(), startPoints, destination, avoidWilderness));
-            currentDestination = destination;
+            return List.of();
         }
 
-        boolean sameDestination = currentDestination != null
-                && destination.getX() == currentDestination.getX()
-                && destination.getY() == currentDestination.getY()
-                && destination.getPlane() == currentDestination.getPlane()
-                && destination.getWidth() == currentDestination.getWidth()
-                && destination.getHeight() == currentDestination.getHeight();
+        CollisionMap map = Static.getGlobalCollisionMap();
+        TransportIndex transports = buildTransportIndex();
+        WorldPoint player = startPoints.get(startPoints.size() - 1);
+        PathQueryService.Key key = PathQueryService.Key.of(player, startPoints.subList(0, startPoints.size() - 1),
+                destination, transports, avoidWilderness, map);
         boolean shouldRefresh = RegionManager.shouldRefreshPath();
+        currentDestination = destination;
 
-		if (shouldRefresh)
-		{
-			log.debug("Path should refresh!");
-		}
+        if (shouldRefresh)
+        {
+            log.debug("Path should refresh!");
+            pathQueries.invalidate();
+        }
 
-        if (!sameDestination || shouldRefresh || forced)
+        boolean refresh = shouldRefresh || forced;
+        if (!refresh)
         {
-            log.debug("Cancelling current path");
-            pathFuture.cancel(true);
-            pathFuture = executor.submit(new Pathfinder(Static.getGlobalCollisionMap(), buildTransportLinks(), startPoints, destination, avoidWilderness));
-            currentDestination = destination;
+            List<WorldPoint> cached = pathQueries.cached(key, player);
+            if (cached != null)
+            {
+                return cached;
+            }
         }
 
+        Future<List<WorldPoint>> future = pathQueries.query(key,
+                () -> pathQueries.replanner(key).plan(map, transports, startPoints, destination, avoidWilderness, refresh), refresh);
         try
         {
             if (Static.getClient().isClientThread())
             {
                 // 16-17ms for 60fps, 6-7ms for 144fps
-                return pathFuture.get(10, TimeUnit.MILLISECONDS);
+                return future.get(10, TimeUnit.MILLISECONDS);
             }
-            return pathFuture.get();
+            return pathQueries.await(future);
         }
         catch (Exception e)
         {
@@ -577,18 +579,17 @@ public class Walker
 
     public static Map<WorldPoint, List<Transport>> buildTransportLinks()
     {
-        Map<WorldPoint, List<Transport>> out = new HashMap<>();
-        if (!Static.getUnethicaliteConfig().useTransports() || disableTransports)
-        {
-            return out;
-        }
+        return buildTransportIndex().asMap();
+    }
 
-        for (Transport transport : TransportLoader.buildTransports())
+    public static TransportIndex buildTransportIndex()
+    {
+        if (!Static.getUnethicaliteConfig().useTransports() || disableTransports)
         {
-            out.computeIfAbsent(transport.getSource(), x -> new ArrayList<>()).add(transport);
+            return TransportIndex.EMPTY;
         }
 
-        return out;
+        return TransportLoader.getTransportIndex();
     }
 
     public static LinkedHashMap<WorldPoint, Teleport> buildTeleportLinks(WorldArea destination)
@@ -0,0 +1,96 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Packs world coordinates into a single non-negative int: 2 bits plane, 14 bits x, 14 bits y.
+ */
+public class WorldPointUtil
+{
+	public static final int UNDEFINED = -1;
+
+	private static final int COORD_BITS = 14;
+	private static final int COORD_MASK = (1 << COORD_BITS) - 1;
+
+	public static int pack(int x, int y, int plane)
+	{
+		return (plane & 0x3) << (COORD_BITS * 2) | (x & COORD_MASK) << COORD_BITS | (y & COORD_MASK);
+	}
+
+	public static int pack(WorldPoint point)
+	{
+		return pack(point.getX(), point.getY(), point.getPlane());
+	}
+
+	public static WorldPoint unpack(int packed)
+	{
+		return new WorldPoint(unpackX(packed), unpackY(packed), unpackPlane(packed));
+	}
+
+	public static int unpackX(int packed)
+	{
+		return packed >>> COORD_BITS & COORD_MASK;
+	}
+
+	public static int unpackY(int packed)
+	{
+		return packed & COORD_MASK;
+	}
+
+	public static int unpackPlane(int packed)
+	{
+		return packed >>> (COORD_BITS * 2) & 0x3;
+	}
+
+	public static int dx(int packed, int dx)
+	{
+		return pack(unpackX(packed) + dx, unpackY(packed), unpackPlane(packed));
+	}
+
+	public static int dy(int packed, int dy)
+	{
+		return pack(unpackX(packed), unpackY(packed) + dy, unpackPlane(packed));
+	}
+
+	/**
+	 * Region id (x / 64, y / 64) of a packed point, matching {@link WorldPoint#getRegionID()}.
+	 */
+	public static int regionId(int packed)
+	{
+		return (unpackX(packed) >> 6) << 8 | unpackY(packed) >> 6;
+	}
+
+	/**
+	 * Chebyshev distance between two packed points, ignoring the plane.
+	 */
+	public static int distance2D(int a, int b)
+	{
+		return Math.max(Math.abs(unpackX(a) - unpackX(b)), Math.abs(unpackY(a) - unpackY(b)));
+	}
+
+	/**
+	 * Chebyshev distance from a packed point to an area, ignoring the plane. Same as {@link WorldArea#distanceTo2D(WorldPoint)}.
+	 */
+	public static int distance2D(WorldArea area, int packed)
+	{
+		int x = unpackX(packed);
+		int y = unpackY(packed);
+		int dx = Math.max(0, Math.max(area.getX() - x, x - (area.getX() + area.getWidth() - 1)));
+		int dy = Math.max(0, Math.max(area.getY() - y, y - (area.getY() + area.getHeight() - 1)));
+		return Math.max(dx, dy);
+	}
+
+	/**
+	 * Same as {@link WorldArea#distanceTo(WorldPoint)}: {@link Integer#MAX_VALUE} if the planes differ.
+	 */
+	public static int distance(WorldArea area, int packed)
+	{
+		if (area.getPlane() != unpackPlane(packed))
+		{
+			return Integer.MAX_VALUE;
+		}
+
+		return distance2D(area, packed);
+	}
+}
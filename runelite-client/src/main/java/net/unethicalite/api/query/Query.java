@@ -1,15 +1,19 @@
 package net.unethicalite.api.query;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 public abstract class Query<T, Q, R> implements Predicate<T>
 {
 	protected final Supplier<List<T>> supplier;
 
-	private Predicate<T> customFilter = null;
+	private final List<Predicate<T>> customFilters = new ArrayList<>();
+
+	// compiled the first time the query is run, and kept until the query is changed, so a query which is kept
+	// and run every loop is only compiled once
+	private QueryPlan<T> plan = null;
 
 	protected Query(Supplier<List<T>> supplier)
 	{
@@ -18,28 +22,95 @@ public abstract class Query<T, Q, R> implements Predicate<T>
 
 	public R results()
 	{
-		return results(supplier.get().stream().filter(this).collect(Collectors.toList()));
+		QueryPlan<T> plan = plan();
+		List<T> out = new ArrayList<>();
+		for (T t : candidates())
+		{
+			if (plan.test(t))
+			{
+				out.add(t);
+			}
+		}
+
+		return results(out);
 	}
 
-	public Q filter(Predicate<T> filter)
+	/**
+	 * @return the first match, or null if there is none. This stops at the first match instead of testing
+	 * everything to build the results.
+	 */
+	public T first()
 	{
-		if (customFilter != null)
+		QueryPlan<T> plan = plan();
+		for (T t : candidates())
 		{
-			Predicate<? super T> old = customFilter;
-			customFilter = t -> old.test(t) && filter.test(t);
+			if (plan.test(t))
+			{
+				return t;
+			}
 		}
-		else
+
+		return null;
+	}
+
+	public Q filter(Predicate<T> filter)
+	{
+		customFilters.add(filter);
+		return changed();
+	}
+
+	/**
+	 * Tests the entity against the compiled conditions of the query. This is final because the queries run the
+	 * plan directly rather than through this, so an override would not change which entities they match; add
+	 * conditions in {@link #compile} instead.
+	 */
+	@Override
+	public final boolean test(T t)
+	{
+		return plan().test(t);
+	}
+
+	/**
+	 * @return the entities to test, which by default are all of those from the supplier
+	 */
+	protected List<T> candidates()
+	{
+		return supplier.get();
+	}
+
+	protected QueryPlan<T> plan()
+	{
+		if (plan == null)
 		{
-			customFilter = filter;
+			QueryPlan.Builder<T> builder = new QueryPlan.Builder<>();
+			compile(builder);
+			plan = builder.build();
 		}
 
-		return (Q) this;
+		return plan;
 	}
 
-	@Override
-	public boolean test(T t)
+	/**
+	 * Adds the conditions of the query to the plan. Subclasses add their own conditions and call this.
+	 */
+	protected void compile(QueryPlan.Builder<T> plan)
 	{
-		return customFilter == null || customFilter.test(t);
+		for (Predicate<T> filter : customFilters)
+		{
+			plan.add(QueryPlan.Cost.CUSTOM, filter);
+		}
+	}
+
+	/**
+	 * Drops the compiled plan, so it is compiled again with the changed conditions the next time the query is run
+	 *
+	 * @return this query
+	 */
+	@SuppressWarnings("unchecked")
+	protected Q changed()
+	{
+		plan = null;
+		return (Q) this;
 	}
 
 	protected abstract R results(List<T> list);
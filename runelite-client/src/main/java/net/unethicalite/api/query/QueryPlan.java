@@ -0,0 +1,183 @@
+package net.unethicalite.api.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * The conditions of a query, compiled into the order they are cheapest to test in. An entity is rejected by the
+ * first condition it fails, so the conditions which are cheap and likely to reject most entities go first, and
+ * those which may have to decode definitions or go to the client thread go last.
+ */
+public final class QueryPlan<T> implements Predicate<T>
+{
+	// past this many values, lookups are faster in a set than by comparing each
+	private static final int LINEAR_MAX = 4;
+	// largest value a bit set is used for, which covers every item, npc and object id
+	private static final int BITSET_MAX = 1 << 17;
+
+	/**
+	 * The estimated cost of a condition, from cheapest to most expensive
+	 */
+	public enum Cost
+	{
+		/**
+		 * Id, index or type of the entity, which are usually the most selective conditions too
+		 */
+		ID,
+		LOCATION,
+		/**
+		 * Other state held on the entity itself
+		 */
+		STATE,
+		NAME,
+		ACTIONS,
+		/**
+		 * Conditions which may have to look up definitions
+		 */
+		DEFINITION,
+		/**
+		 * Filters given to the query, which could do anything, so they are tested last in the order they were added
+		 */
+		CUSTOM
+	}
+
+	private final Predicate<? super T>[] conditions;
+
+	private QueryPlan(Predicate<? super T>[] conditions)
+	{
+		this.conditions = conditions;
+	}
+
+	@Override
+	public boolean test(T t)
+	{
+		for (Predicate<? super T> condition : conditions)
+		{
+			if (!condition.test(t))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return a test of whether a value is one of the values
+	 */
+	public static IntPredicate in(int[] values)
+	{
+		if (values.length <= LINEAR_MAX)
+		{
+			int[] copy = values.clone();
+			return value ->
+			{
+				for (int v : copy)
+				{
+					if (v == value)
+					{
+						return true;
+					}
+				}
+
+				return false;
+			};
+		}
+
+		int[] sorted = values.clone();
+		Arrays.sort(sorted);
+		if (sorted[0] >= 0 && sorted[sorted.length - 1] < BITSET_MAX)
+		{
+			BitSet bits = new BitSet(sorted[sorted.length - 1] + 1);
+			for (int v : sorted)
+			{
+				bits.set(v);
+			}
+			return value -> value >= 0 && bits.get(value);
+		}
+
+		return value -> Arrays.binarySearch(sorted, value) >= 0;
+	}
+
+	/**
+	 * @return a test of whether an object is equal to one of the values, which may include null
+	 */
+	public static Predicate<Object> in(Object[] values)
+	{
+		if (values.length == 1)
+		{
+			Object only = values[0];
+			return value -> Objects.equals(only, value);
+		}
+
+		Set<Object> set = new HashSet<>(Arrays.asList(values));
+		return set::contains;
+	}
+
+	/**
+	 * @return a test of whether an array, such as the actions of an entity, contains any of the values. Nulls in
+	 * the array never match.
+	 */
+	public static Predicate<String[]> containsAny(String[] values)
+	{
+		Predicate<Object> in = in((Object[]) values);
+		return array ->
+		{
+			if (array == null)
+			{
+				return false;
+			}
+
+			for (String s : array)
+			{
+				if (s != null && in.test(s))
+				{
+					return true;
+				}
+			}
+
+			return false;
+		};
+	}
+
+	public static class Builder<T>
+	{
+		private final List<Condition<T>> conditions = new ArrayList<>();
+
+		public Builder<T> add(Cost cost, Predicate<? super T> condition)
+		{
+			conditions.add(new Condition<>(cost, condition));
+			return this;
+		}
+
+		@SuppressWarnings("unchecked")
+		public QueryPlan<T> build()
+		{
+			// the sort is stable, so conditions of the same cost are kept in the order they were added
+			return new QueryPlan<>(conditions.stream()
+					.sorted(Comparator.comparing((Condition<T> c) -> c.cost))
+					.map(c -> c.predicate)
+					.toArray(Predicate[]::new));
+		}
+	}
+
+	private static class Condition<T>
+	{
+		private final Cost cost;
+		private final Predicate<? super T> predicate;
+
+		private Condition(Cost cost, Predicate<? super T> predicate)
+		{
+			this.cost = cost;
+			this.predicate = predicate;
+		}
+	}
+}
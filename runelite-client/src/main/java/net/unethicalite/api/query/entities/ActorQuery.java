@@ -1,10 +1,12 @@
 package net.unethicalite.api.query.entities;
 
 import net.unethicalite.api.Interactable;
+import net.unethicalite.api.query.QueryPlan;
 import net.runelite.api.Actor;
-import org.apache.commons.lang3.ArrayUtils;
 
 import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 public abstract class ActorQuery<T extends Actor, Q extends ActorQuery<T, Q>>
@@ -23,50 +25,54 @@ public abstract class ActorQuery<T extends Actor, Q extends ActorQuery<T, Q>>
 	public Q levels(int... levels)
 	{
 		this.levels = levels;
-		return (Q) this;
+		return changed();
 	}
 
 	public Q animations(int... animations)
 	{
 		this.animations = animations;
-		return (Q) this;
+		return changed();
 	}
 
 	public Q targeting(Interactable... targets)
 	{
 		this.targeting = targets;
-		return (Q) this;
+		return changed();
 	}
 
 	public Q moving(Boolean moving)
 	{
 		this.moving = moving;
-		return (Q) this;
+		return changed();
 	}
 
 	@Override
-	public boolean test(T t)
+	protected void compile(QueryPlan.Builder<T> plan)
 	{
-		if (levels != null && ArrayUtils.contains(levels, t.getCombatLevel()))
+		if (levels != null)
 		{
-			return false;
+			IntPredicate in = QueryPlan.in(levels);
+			plan.add(QueryPlan.Cost.STATE, t -> in.test(t.getCombatLevel()));
 		}
 
-		if (animations != null && ArrayUtils.contains(animations, t.getAnimation()))
+		if (animations != null)
 		{
-			return false;
+			IntPredicate in = QueryPlan.in(animations);
+			plan.add(QueryPlan.Cost.STATE, t -> in.test(t.getAnimation()));
 		}
 
-		if (moving != null && moving != t.isMoving())
+		if (moving != null)
 		{
-			return false;
+			boolean m = moving;
+			plan.add(QueryPlan.Cost.STATE, t -> t.isMoving() == m);
 		}
 
-		if (targeting != null && !ArrayUtils.contains(targeting, t.getInteracting()))
+		if (targeting != null)
 		{
-			return false;
+			Predicate<Object> in = QueryPlan.in((Object[]) targeting);
+			plan.add(QueryPlan.Cost.STATE, t -> in.test(t.getInteracting()));
 		}
 
-		return super.test(t);
+		super.compile(plan);
 	}
 }
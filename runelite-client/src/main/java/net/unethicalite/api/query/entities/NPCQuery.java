@@ -1,10 +1,11 @@
 package net.unethicalite.api.query.entities;
 
+import net.unethicalite.api.query.QueryPlan;
 import net.unethicalite.api.query.results.SceneEntityQueryResults;
 import net.runelite.api.NPC;
-import org.apache.commons.lang3.ArrayUtils;
 
 import java.util.List;
+import java.util.function.IntPredicate;
 import java.util.function.Supplier;
 
 public class NPCQuery extends ActorQuery<NPC, NPCQuery>
@@ -19,7 +20,7 @@ public class NPCQuery extends ActorQuery<NPC, NPCQuery>
 	public NPCQuery indices(int... indices)
 	{
 		this.indices = indices;
-		return this;
+		return changed();
 	}
 
 	@Override
@@ -29,13 +30,14 @@ public class NPCQuery extends ActorQuery<NPC, NPCQuery>
 	}
 
 	@Override
-	public boolean test(NPC npc)
+	protected void compile(QueryPlan.Builder<NPC> plan)
 	{
-		if (indices != null && !ArrayUtils.contains(indices, npc.getIndex()))
+		if (indices != null)
 		{
-			return false;
+			IntPredicate in = QueryPlan.in(indices);
+			plan.add(QueryPlan.Cost.ID, t -> in.test(t.getIndex()));
 		}
 
-		return super.test(npc);
+		super.compile(plan);
 	}
 }
@@ -1,10 +1,11 @@
 package net.unethicalite.api.query.entities;
 
+import net.unethicalite.api.query.QueryPlan;
 import net.unethicalite.api.query.results.SceneEntityQueryResults;
 import net.runelite.api.Player;
-import org.apache.commons.lang3.ArrayUtils;
 
 import java.util.List;
+import java.util.function.IntPredicate;
 import java.util.function.Supplier;
 
 public class PlayerQuery extends ActorQuery<Player, PlayerQuery>
@@ -19,7 +20,7 @@ public class PlayerQuery extends ActorQuery<Player, PlayerQuery>
 	public PlayerQuery playerIds(int... pids)
 	{
 		this.pids = pids;
-		return this;
+		return changed();
 	}
 
 	@Override
@@ -29,13 +30,14 @@ public class PlayerQuery extends ActorQuery<Player, PlayerQuery>
 	}
 
 	@Override
-	public boolean test(Player player)
+	protected void compile(QueryPlan.Builder<Player> plan)
 	{
-		if (pids != null && !ArrayUtils.contains(pids, player.getIndex()))
+		if (pids != null)
 		{
-			return false;
+			IntPredicate in = QueryPlan.in(pids);
+			plan.add(QueryPlan.Cost.ID, t -> in.test(t.getIndex()));
 		}
 
-		return super.test(player);
+		super.compile(plan);
 	}
 }
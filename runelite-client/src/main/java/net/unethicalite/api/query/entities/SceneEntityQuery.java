@@ -1,17 +1,18 @@
 package net.unethicalite.api.query.entities;
 
 import net.unethicalite.api.SceneEntity;
-import net.unethicalite.api.commons.Predicates;
 import net.unethicalite.api.entities.Players;
 import net.unethicalite.api.query.Query;
+import net.unethicalite.api.query.QueryPlan;
 import net.unethicalite.api.query.results.SceneEntityQueryResults;
 import net.runelite.api.Locatable;
 import net.runelite.api.coords.LocalPoint;
 import net.runelite.api.coords.WorldPoint;
-import org.apache.commons.lang3.ArrayUtils;
 
-import java.util.Arrays;
 import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 public abstract class SceneEntityQuery<T extends SceneEntity, Q extends SceneEntityQuery<T, Q>>
@@ -24,40 +25,51 @@ public abstract class SceneEntityQuery<T extends SceneEntity, Q extends SceneEnt
 	private String[] actions = null;
 	private WorldPoint[] locations = null;
 	private LocalPoint[] localLocations = null;
+	// where distances are measured from in the current run of the query
+	private WorldPoint origin = null;
+
+	// looks up the entities within a distance of a point, so distance queries need not test every entity
+	private final BiFunction<WorldPoint, Integer, List<T>> within;
 
 	protected SceneEntityQuery(Supplier<List<T>> supplier)
+	{
+		this(supplier, null);
+	}
+
+	protected SceneEntityQuery(Supplier<List<T>> supplier, BiFunction<WorldPoint, Integer, List<T>> within)
 	{
 		super(supplier);
+		this.within = within;
 	}
 
 	public Q ids(int... ids)
 	{
 		this.ids = ids;
-		return (Q) this;
+		return changed();
 	}
 
 	public Q names(String... names)
 	{
 		this.names = names;
-		return (Q) this;
+		return changed();
 	}
 
 	public Q actions(String... actions)
 	{
 		this.actions = actions;
-		return (Q) this;
+		return changed();
 	}
 
 	public Q locations(WorldPoint... locations)
 	{
 		this.locations = locations;
-		return (Q) this;
+		return changed();
 	}
 
 	public Q localLocations(LocalPoint... localLocations)
 	{
 		this.localLocations = localLocations;
-		return (Q) this;
+		return changed();
 	}
 
 	public Q distance(Locatable source, int maxDistance)
@@ -69,56 +81,115 @@ public abstract class SceneEntityQuery<T extends SceneEntity, Q extends SceneEnt
 	{
 		this.distanceSrc = source;
 		this.maxDistance = maxDistance;
-		return (Q) this;
+		return changed();
 	}
 
 	public Q distance(int maxDistance)
 	{
 		this.maxDistance = maxDistance;
-		return (Q) this;
+		return changed();
+	}
+
+	/**
+	 * @return the match closest to the local player, or null if there is none. This finds it while testing the
+	 * entities, rather than building and sorting the results.
+	 */
+	public T nearest()
+	{
+		return nearest(Players.getLocal());
+	}
+
+	public T nearest(Locatable to)
+	{
+		return nearest(to.getWorldLocation());
+	}
+
+	public T nearest(WorldPoint to)
+	{
+		QueryPlan<T> plan = plan();
+		T nearest = null;
+		int nearestDistance = Integer.MAX_VALUE;
+		for (T t : candidates())
+		{
+			if (!plan.test(t))
+			{
+				continue;
+			}
+
+			int distance = t.distanceTo(to);
+			if (nearest == null || distance < nearestDistance)
+			{
+				nearest = t;
+				nearestDistance = distance;
+			}
+		}
+
+		return nearest;
 	}
 
 	@Override
-	public boolean test(T t)
+	protected List<T> candidates()
 	{
-		if (ids != null && !ArrayUtils.contains(ids, t.getId()))
+		// the local player may have moved since the query was last run
+		origin = null;
+
+		if (maxDistance == null || within == null)
 		{
-			return false;
+			return super.candidates();
 		}
 
-		if (names != null && !ArrayUtils.contains(names, t.getName()))
+		return within.apply(origin(), maxDistance);
+	}
+
+	private WorldPoint origin()
+	{
+		if (origin == null)
 		{
-			return false;
+			origin = distanceSrc != null ? distanceSrc : Players.getLocal().getWorldLocation();
 		}
 
-		if (locations != null && !ArrayUtils.contains(locations, t.getWorldLocation()))
+		return origin;
+	}
+
+	@Override
+	protected void compile(QueryPlan.Builder<T> plan)
+	{
+		if (ids != null)
 		{
-			return false;
+			IntPredicate in = QueryPlan.in(ids);
+			plan.add(QueryPlan.Cost.ID, t -> in.test(t.getId()));
 		}
 
-		if (localLocations != null && !ArrayUtils.contains(localLocations, t.getLocalLocation()))
+		if (locations != null)
 		{
-			return false;
+			Predicate<Object> in = QueryPlan.in((Object[]) locations);
+			plan.add(QueryPlan.Cost.LOCATION, t -> in.test(t.getWorldLocation()));
 		}
 
-		if (actions != null && Arrays.stream(actions).noneMatch(Predicates.texts(t.getActions())))
+		if (localLocations != null)
 		{
-			return false;
+			Predicate<Object> in = QueryPlan.in((Object[]) localLocations);
+			plan.add(QueryPlan.Cost.LOCATION, t -> in.test(t.getLocalLocation()));
 		}
 
 		if (maxDistance != null)
 		{
-			if (distanceSrc == null)
-			{
-				distanceSrc = Players.getLocal().getWorldLocation();
-			}
+			int max = maxDistance;
+			plan.add(QueryPlan.Cost.LOCATION, t -> origin().distanceTo(t.getWorldLocation()) <= max);
+		}
 
-			if (distanceSrc.distanceTo(t.getWorldLocation()) > maxDistance)
-			{
-				return false;
-			}
+		if (names != null)
+		{
+			Predicate<Object> in = QueryPlan.in((Object[]) names);
+			plan.add(QueryPlan.Cost.NAME, t -> in.test(t.getName()));
+		}
+
+		if (actions != null)
+		{
+			Predicate<String[]> any = QueryPlan.containsAny(actions);
+			plan.add(QueryPlan.Cost.ACTIONS, t -> any.test(t.getActions()));
 		}
 
-		return super.test(t);
+		super.compile(plan);
 	}
 }
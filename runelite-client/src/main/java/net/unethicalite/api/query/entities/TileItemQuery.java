@@ -1,13 +1,15 @@
 package net.unethicalite.api.query.entities;
 
-import net.unethicalite.api.commons.Predicates;
+import net.unethicalite.api.query.QueryPlan;
 import net.unethicalite.api.query.results.SceneEntityQueryResults;
 import net.runelite.api.Tile;
 import net.runelite.api.TileItem;
-import org.apache.commons.lang3.ArrayUtils;
+import net.runelite.api.coords.WorldPoint;
 
-import java.util.Arrays;
 import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 public class TileItemQuery extends SceneEntityQuery<TileItem, TileItemQuery>
@@ -26,52 +28,57 @@ public class TileItemQuery extends SceneEntityQuery<TileItem, TileItemQuery>
 		super(supplier);
 	}
 
+	public TileItemQuery(Supplier<List<TileItem>> supplier, BiFunction<WorldPoint, Integer, List<TileItem>> within)
+	{
+		super(supplier, within);
+	}
+
 	public TileItemQuery quantities(int... quantities)
 	{
 		this.quantities = quantities;
-		return this;
+		return changed();
 	}
 
 	public TileItemQuery tiles(Tile... tiles)
 	{
 		this.tiles = tiles;
-		return this;
+		return changed();
 	}
 
 	public TileItemQuery tradable(boolean tradable)
 	{
 		this.tradable = tradable;
-		return this;
+		return changed();
 	}
 
 	public TileItemQuery stackable(boolean stackable)
 	{
 		this.stackable = stackable;
-		return this;
+		return changed();
 	}
 
 	public TileItemQuery noted(boolean noted)
 	{
 		this.noted = noted;
-		return this;
+		return changed();
 	}
 
 	public TileItemQuery members(boolean members)
 	{
 		this.members = members;
-		return this;
+		return changed();
 	}
 
 	public TileItemQuery storePrice(int storePrice)
 	{
 		this.storePrice = storePrice;
-		return this;
+		return changed();
 	}
 
 	public TileItemQuery inventoryActions(String... inventoryActions)
 	{
 		this.inventoryActions = inventoryActions;
-		return this;
+		return changed();
 	}
 
 	@Override
@@ -81,49 +88,56 @@ public class TileItemQuery extends SceneEntityQuery<TileItem, TileItemQuery>
 	}
 
 	@Override
-	public boolean test(TileItem tileItem)
+	protected void compile(QueryPlan.Builder<TileItem> plan)
 	{
-		if (quantities != null && !ArrayUtils.contains(quantities, tileItem.getQuantity()))
+		if (quantities != null)
 		{
-			return false;
+			IntPredicate in = QueryPlan.in(quantities);
+			plan.add(QueryPlan.Cost.STATE, t -> in.test(t.getQuantity()));
 		}
 
-		if (tiles != null && !ArrayUtils.contains(tiles, tileItem.getTile()))
+		if (tiles != null)
 		{
-			return false;
+			Predicate<Object> in = QueryPlan.in((Object[]) tiles);
+			plan.add(QueryPlan.Cost.LOCATION, t -> in.test(t.getTile()));
 		}
 
-		if (tradable != null && !tradable.equals(tileItem.isTradable()))
+		if (tradable != null)
 		{
-			return false;
+			boolean b = tradable;
+			plan.add(QueryPlan.Cost.DEFINITION, t -> t.isTradable() == b);
 		}
 
-		if (stackable != null && !stackable.equals(tileItem.isStackable()))
+		if (stackable != null)
 		{
-			return false;
+			boolean b = stackable;
+			plan.add(QueryPlan.Cost.DEFINITION, t -> t.isStackable() == b);
 		}
 
-		if (noted != null && !noted.equals(tileItem.isNoted()))
+		if (noted != null)
 		{
-			return false;
+			boolean b = noted;
+			plan.add(QueryPlan.Cost.DEFINITION, t -> t.isNoted() == b);
 		}
 
-		if (members != null && !members.equals(tileItem.isMembers()))
+		if (members != null)
 		{
-			return false;
+			boolean b = members;
+			plan.add(QueryPlan.Cost.DEFINITION, t -> t.isMembers() == b);
 		}
 
-		if (storePrice != null && !storePrice.equals(tileItem.getStorePrice()))
+		if (storePrice != null)
 		{
-			return false;
+			int price = storePrice;
+			plan.add(QueryPlan.Cost.DEFINITION, t -> t.getStorePrice() == price);
 		}
 
-		if (inventoryActions != null
-				&& Arrays.stream(inventoryActions).noneMatch(Predicates.texts(tileItem.getInventoryActions())))
+		if (inventoryActions != null)
 		{
-			return false;
+			Predicate<String[]> any = QueryPlan.containsAny(inventoryActions);
+			plan.add(QueryPlan.Cost.DEFINITION, t -> any.test(t.getInventoryActions()));
 		}
 
-		return super.test(tileItem);
+		super.compile(plan);
 	}
 }
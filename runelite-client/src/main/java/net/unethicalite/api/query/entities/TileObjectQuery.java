@@ -1,13 +1,15 @@
 package net.unethicalite.api.query.entities;
 
+import net.unethicalite.api.query.QueryPlan;
 import net.unethicalite.api.query.results.SceneEntityQueryResults;
 import net.unethicalite.api.scene.Tiles;
 import net.runelite.api.Tile;
 import net.runelite.api.TileObject;
-import org.apache.commons.lang3.ArrayUtils;
+import net.runelite.api.coords.WorldPoint;
 
-import java.util.Arrays;
 import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 public class TileObjectQuery extends SceneEntityQuery<TileObject, TileObjectQuery>
@@ -20,17 +22,22 @@ public class TileObjectQuery extends SceneEntityQuery<TileObject, TileObjectQuer
 		super(supplier);
 	}
 
+	public TileObjectQuery(Supplier<List<TileObject>> supplier, BiFunction<WorldPoint, Integer, List<TileObject>> within)
+	{
+		super(supplier, within);
+	}
+
 	public TileObjectQuery tiles(Tile... tiles)
 	{
 		this.tiles = tiles;
-		return this;
+		return changed();
 	}
 
 	@SafeVarargs
 	public final TileObjectQuery is(Class<? extends TileObject>... classes)
 	{
 		this.is = classes;
-		return this;
+		return changed();
 	}
 
 	@Override
@@ -40,18 +47,31 @@ public class TileObjectQuery extends SceneEntityQuery<TileObject, TileObjectQuer
 	}
 
 	@Override
-	public boolean test(TileObject tileObject)
+	protected void compile(QueryPlan.Builder<TileObject> plan)
 	{
-		if (tiles != null && !ArrayUtils.contains(tiles, Tiles.getAt(tileObject.getWorldLocation())))
+		if (is != null)
 		{
-			return false;
+			Class<? extends TileObject>[] classes = is;
+			plan.add(QueryPlan.Cost.ID, t ->
+			{
+				for (Class<? extends TileObject> clazz : classes)
+				{
+					if (clazz.isInstance(t))
+					{
+						return true;
+					}
+				}
+
+				return false;
+			});
 		}
 
-		if (is != null && Arrays.stream(is).noneMatch(clazz -> clazz.isInstance(tileObject)))
+		if (tiles != null)
 		{
-			return false;
+			Predicate<Object> in = QueryPlan.in((Object[]) tiles);
+			plan.add(QueryPlan.Cost.LOCATION, t -> in.test(Tiles.getAt(t.getWorldLocation())));
 		}
 
-		return super.test(tileObject);
+		super.compile(plan);
 	}
 }
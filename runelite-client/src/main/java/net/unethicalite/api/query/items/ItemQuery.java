@@ -1,13 +1,13 @@
 package net.unethicalite.api.query.items;
 
-import net.unethicalite.api.commons.Predicates;
 import net.unethicalite.api.query.Query;
+import net.unethicalite.api.query.QueryPlan;
 import net.unethicalite.api.query.results.ItemQueryResults;
 import net.runelite.api.Item;
-import org.apache.commons.lang3.ArrayUtils;
 
-import java.util.Arrays;
 import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 public class ItemQuery extends Query<Item, ItemQuery, ItemQueryResults>
@@ -31,61 +31,61 @@ public class ItemQuery extends Query<Item, ItemQuery, ItemQueryResults>
 	public ItemQuery ids(int... ids)
 	{
 		this.ids = ids;
-		return this;
+		return changed();
 	}
 
 	public ItemQuery notedIds(int... notedIds)
 	{
 		this.notedIds = notedIds;
-		return this;
+		return changed();
 	}
 
 	public ItemQuery slots(int... slots)
 	{
 		this.slots = slots;
-		return this;
+		return changed();
 	}
 
 	public ItemQuery names(String... names)
 	{
 		this.names = names;
-		return this;
+		return changed();
 	}
 
 	public ItemQuery actions(String... actions)
 	{
 		this.actions = actions;
-		return this;
+		return changed();
 	}
 
 	public ItemQuery tradable(boolean tradable)
 	{
 		this.tradable = tradable;
-		return this;
+		return changed();
 	}
 
 	public ItemQuery stackable(boolean stackable)
 	{
 		this.stackable = stackable;
-		return this;
+		return changed();
 	}
 
 	public ItemQuery members(boolean members)
 	{
 		this.members = members;
-		return this;
+		return changed();
 	}
 
 	public ItemQuery noted(boolean noted)
 	{
 		this.noted = noted;
-		return this;
+		return changed();
 	}
 
 	public ItemQuery storePrice(int storePrice)
 	{
 		this.storePrice = storePrice;
-		return this;
+		return changed();
 	}
 
 	@Override
@@ -95,58 +95,68 @@ public class ItemQuery extends Query<Item, ItemQuery, ItemQueryResults>
 	}
 
 	@Override
-	public boolean test(Item item)
+	protected void compile(QueryPlan.Builder<Item> plan)
 	{
-		if (ids != null && !ArrayUtils.contains(ids, item.getId()))
+		if (ids != null)
 		{
-			return false;
+			IntPredicate in = QueryPlan.in(ids);
+			plan.add(QueryPlan.Cost.ID, t -> in.test(t.getId()));
 		}
 
-		if (notedIds != null && !ArrayUtils.contains(notedIds, item.getId()))
+		if (notedIds != null)
 		{
-			return false;
+			IntPredicate in = QueryPlan.in(notedIds);
+			plan.add(QueryPlan.Cost.ID, t -> in.test(t.getId()));
 		}
 
-		if (slots != null && !ArrayUtils.contains(slots, item.getSlot()))
+		if (slots != null)
 		{
-			return false;
+			IntPredicate in = QueryPlan.in(slots);
+			plan.add(QueryPlan.Cost.LOCATION, t -> in.test(t.getSlot()));
 		}
 
-		if (names != null && !ArrayUtils.contains(names, item.getName()))
+		if (names != null)
 		{
-			return false;
+			Predicate<Object> in = QueryPlan.in((Object[]) names);
+			plan.add(QueryPlan.Cost.NAME, t -> in.test(t.getName()));
 		}
 
-		if (actions != null && Arrays.stream(actions).noneMatch(Predicates.texts(item.getActions())))
+		if (actions != null)
 		{
-			return false;
+			Predicate<String[]> any = QueryPlan.containsAny(actions);
+			plan.add(QueryPlan.Cost.ACTIONS, t -> any.test(t.getActions()));
 		}
 
-		if (tradable != null && tradable != item.isTradable())
+		if (tradable != null)
 		{
-			return false;
+			boolean b = tradable;
+			plan.add(QueryPlan.Cost.DEFINITION, t -> t.isTradable() == b);
 		}
 
-		if (stackable != null && stackable != item.isStackable())
+		if (stackable != null)
 		{
-			return false;
+			boolean b = stackable;
+			plan.add(QueryPlan.Cost.DEFINITION, t -> t.isStackable() == b);
 		}
 
-		if (members != null && members != item.isMembers())
+		if (members != null)
 		{
-			return false;
+			boolean b = members;
+			plan.add(QueryPlan.Cost.DEFINITION, t -> t.isMembers() == b);
 		}
 
-		if (noted != null && noted != item.isNoted())
+		if (noted != null)
 		{
-			return false;
+			boolean b = noted;
+			plan.add(QueryPlan.Cost.DEFINITION, t -> t.isNoted() == b);
 		}
 
-		if (storePrice != null && storePrice != item.getStorePrice())
+		if (storePrice != null)
 		{
-			return false;
+			int price = storePrice;
+			plan.add(QueryPlan.Cost.DEFINITION, t -> t.getStorePrice() == price);
 		}
 
-		return super.test(item);
+		super.compile(plan);
 	}
 }
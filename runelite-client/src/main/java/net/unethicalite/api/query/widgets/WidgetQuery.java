@@ -1,13 +1,13 @@
 package net.unethicalite.api.query.widgets;
 
-import net.unethicalite.api.commons.Predicates;
 import net.unethicalite.api.query.Query;
+import net.unethicalite.api.query.QueryPlan;
 import net.unethicalite.api.query.results.WidgetQueryResults;
 import net.runelite.api.widgets.Widget;
-import org.apache.commons.lang3.ArrayUtils;
 
-import java.util.Arrays;
 import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 public class WidgetQuery extends Query<Widget, WidgetQuery, WidgetQueryResults>
@@ -32,61 +32,66 @@ public class WidgetQuery extends Query<Widget, WidgetQuery, WidgetQueryResults>
 	public WidgetQuery ids(int... ids)
 	{
 		this.widgetIds = ids;
-		return this;
+		return changed();
 	}
 
 	public WidgetQuery types(int... types)
 	{
 		this.types = types;
-		return this;
+		return changed();
 	}
 
 	public WidgetQuery texts(String... texts)
 	{
 		this.texts = texts;
-		return this;
+		return changed();
 	}
 
 	public WidgetQuery actions(String... actions)
 	{
 		this.actions = actions;
-		return this;
+		return changed();
 	}
 
 	public WidgetQuery visible(Boolean visible)
 	{
 		this.visible = visible;
-		return this;
+		return changed();
 	}
 
 	@Override
-	public boolean test(Widget widget)
+	protected void compile(QueryPlan.Builder<Widget> plan)
 	{
-		if (widgetIds != null && !ArrayUtils.contains(widgetIds, widget.getId()))
+		if (widgetIds != null)
 		{
-			return false;
+			IntPredicate in = QueryPlan.in(widgetIds);
+			plan.add(QueryPlan.Cost.ID, t -> in.test(t.getId()));
 		}
 
-		if (types != null && !ArrayUtils.contains(types, widget.getType()))
+		if (types != null)
 		{
-			return false;
+			IntPredicate in = QueryPlan.in(types);
+			plan.add(QueryPlan.Cost.ID, t -> in.test(t.getType()));
 		}
 
-		if (texts != null && !ArrayUtils.contains(texts, widget.getText()))
+		if (texts != null)
 		{
-			return false;
+			Predicate<Object> in = QueryPlan.in((Object[]) texts);
+			plan.add(QueryPlan.Cost.NAME, t -> in.test(t.getText()));
 		}
 
-		if (actions != null && Arrays.stream(actions).noneMatch(Predicates.texts(widget.getActions())))
+		if (actions != null)
 		{
-			return false;
+			Predicate<String[]> any = QueryPlan.containsAny(actions);
+			plan.add(QueryPlan.Cost.ACTIONS, t -> any.test(t.getActions()));
 		}
 
-		if (visible != null && visible != widget.isVisible())
+		if (visible != null)
 		{
-			return false;
+			boolean b = visible;
+			plan.add(QueryPlan.Cost.STATE, t -> t.isVisible() == b);
 		}
 
-		return super.test(widget);
+		super.compile(plan);
 	}
 }
@@ -0,0 +1,180 @@
+package net.unethicalite.api.scene;
+
+import net.runelite.api.Constants;
+import net.runelite.api.Point;
+import net.runelite.api.Tile;
+import net.runelite.api.coords.WorldPoint;
+import net.unethicalite.api.SceneEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Grid of the entities of the scene, by the tile they were spawned on, which is kept up to date from the spawn
+ * and despawn events rather than by walking the scene.
+ * <p>
+ * Searches around a point go out in rings of tiles and stop as soon as nothing further out can be closer, so
+ * they cost about as much as the entities near the point, not all of the entities in the scene.
+ * <p>
+ * The index may be read from any thread. Entities are copied out of the grid before filters are applied, so a
+ * filter may go to the client thread.
+ */
+public class SceneIndex<T extends SceneEntity>
+{
+	private static final int SIZE = Constants.SCENE_SIZE;
+
+	@SuppressWarnings("unchecked")
+	private final List<T>[][] cells = new List[Constants.MAX_Z][SIZE * SIZE];
+
+	// furthest an entity's location has been from the tile it was spawned on, which is more than 0 for
+	// game objects larger than a tile
+	private int slack;
+
+	public synchronized void add(Tile tile, T entity)
+	{
+		Point scene = tile.getSceneLocation();
+		List<T>[] plane = cells[tile.getPlane()];
+		int cell = scene.getX() * SIZE + scene.getY();
+		if (plane[cell] == null)
+		{
+			plane[cell] = new ArrayList<>(2);
+		}
+		plane[cell].add(entity);
+
+		WorldPoint tileLocation = tile.getWorldLocation();
+		WorldPoint location = entity.getWorldLocation();
+		slack = Math.max(slack, Math.max(Math.abs(location.getX() - tileLocation.getX()), Math.abs(location.getY() - tileLocation.getY())));
+	}
+
+	public synchronized void remove(Tile tile, T entity)
+	{
+		Point scene = tile.getSceneLocation();
+		List<T> cell = cells[tile.getPlane()][scene.getX() * SIZE + scene.getY()];
+		if (cell != null)
+		{
+			cell.remove(entity);
+		}
+	}
+
+	/**
+	 * Empties the index, for when the scene is about to be loaded again
+	 */
+	public synchronized void clear()
+	{
+		for (List<T>[] plane : cells)
+		{
+			for (List<T> cell : plane)
+			{
+				if (cell != null)
+				{
+					cell.clear();
+				}
+			}
+		}
+		slack = 0;
+	}
+
+	/**
+	 * @return the entities spawned on the tiles of the plane, in scene order
+	 */
+	public List<T> getAll(int plane)
+	{
+		return getBox(plane, 0, 0, SIZE - 1, SIZE - 1, new ArrayList<>());
+	}
+
+	/**
+	 * @return the entities spawned on the tiles at most radius tiles from the scene point
+	 */
+	public List<T> getSurrounding(int plane, int sceneX, int sceneY, int radius)
+	{
+		return getBox(plane, sceneX - radius, sceneY - radius, sceneX + radius, sceneY + radius, new ArrayList<>());
+	}
+
+	/**
+	 * @return the entities which could be at most distance tiles from the point, which is a superset of those
+	 * which are, since the locations of large objects are not the tile they were spawned on
+	 */
+	public List<T> getWithin(int plane, int sceneX, int sceneY, int distance)
+	{
+		int radius = distance + getSlack();
+		return getSurrounding(plane, sceneX, sceneY, radius);
+	}
+
+	/**
+	 * @return the entity matching the filter closest to the point, in a straight line, or null if there is none
+	 */
+	public T getNearest(int plane, int sceneX, int sceneY, WorldPoint to, Predicate<? super T> filter)
+	{
+		int slack = getSlack();
+		int maxRadius = Math.max(Math.max(sceneX, SIZE - 1 - sceneX), Math.max(sceneY, SIZE - 1 - sceneY));
+
+		T nearest = null;
+		double nearestDistance = Double.MAX_VALUE;
+		List<T> ring = new ArrayList<>();
+		for (int radius = 0; radius <= maxRadius; ++radius)
+		{
+			// the entities of this ring and all further out are at least radius - slack away
+			if (nearest != null && radius - slack > nearestDistance)
+			{
+				break;
+			}
+
+			ring.clear();
+			getRing(plane, sceneX, sceneY, radius, ring);
+			for (T entity : ring)
+			{
+				if (!filter.test(entity))
+				{
+					continue;
+				}
+
+				double distance = entity.getWorldLocation().distanceToHypotenuse(to);
+				if (distance < nearestDistance)
+				{
+					nearest = entity;
+					nearestDistance = distance;
+				}
+			}
+		}
+
+		return nearest;
+	}
+
+	private synchronized int getSlack()
+	{
+		return slack;
+	}
+
+	private synchronized void getRing(int plane, int sceneX, int sceneY, int radius, List<T> out)
+	{
+		if (radius == 0)
+		{
+			getBox(plane, sceneX, sceneY, sceneX, sceneY, out);
+			return;
+		}
+
+		// top and bottom rows, then the columns between them
+		getBox(plane, sceneX - radius, sceneY + radius, sceneX + radius, sceneY + radius, out);
+		getBox(plane, sceneX - radius, sceneY - radius, sceneX + radius, sceneY - radius, out);
+		getBox(plane, sceneX - radius, sceneY - radius + 1, sceneX - radius, sceneY + radius - 1, out);
+		getBox(plane, sceneX + radius, sceneY - radius + 1, sceneX + radius, sceneY + radius - 1, out);
+	}
+
+	private synchronized List<T> getBox(int plane, int minX, int minY, int maxX, int maxY, List<T> out)
+	{
+		List<T>[] tiles = cells[plane];
+		for (int x = Math.max(minX, 0); x <= Math.min(maxX, SIZE - 1); ++x)
+		{
+			for (int y = Math.max(minY, 0); y <= Math.min(maxY, SIZE - 1); ++y)
+			{
+				List<T> cell = tiles[x * SIZE + y];
+				if (cell != null)
+				{
+					out.addAll(cell);
+				}
+			}
+		}
+		return out;
+	}
+}
@@ -0,0 +1,532 @@
+package net.unethicalite.api.scene;
+
+import lombok.Getter;
+import net.runelite.api.Client;
+import net.runelite.api.Constants;
+import net.runelite.api.DecorativeObject;
+import net.runelite.api.GameObject;
+import net.runelite.api.GroundObject;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.NPC;
+import net.runelite.api.Player;
+import net.runelite.api.Tile;
+import net.runelite.api.TileItem;
+import net.runelite.api.TileObject;
+import net.runelite.api.VarbitComposition;
+import net.runelite.api.WallObject;
+import net.runelite.api.WidgetNode;
+import net.runelite.api.coords.WorldPoint;
+import net.unethicalite.api.SceneEntity;
+import net.unethicalite.api.entities.NPCs;
+import net.unethicalite.api.entities.Players;
+import net.unethicalite.api.entities.TileItems;
+import net.unethicalite.api.entities.TileObjects;
+import net.unethicalite.api.game.GameThread;
+import net.unethicalite.api.query.entities.NPCQuery;
+import net.unethicalite.api.query.entities.PlayerQuery;
+import net.unethicalite.api.query.entities.TileItemQuery;
+import net.unethicalite.api.query.entities.TileObjectQuery;
+import net.unethicalite.client.Static;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Immutable view of the game world as it was at the end of a game tick, which can be read from any thread
+ * without going through the client thread.
+ * <p>
+ * The snapshot holds the npcs, players, tile objects and tile items of the scene on the current plane, the
+ * inventory, the varps and the interfaces which were open. Entities are the client's own objects, so their state
+ * beyond their id and location may have moved on since the tick, but which entities there were does not change.
+ * <p>
+ * Snapshots are captured into a small pool of reused arrays rather than allocated every tick, so a snapshot can
+ * only be read for a couple of ticks after it has been replaced. Reading it after that throws
+ * {@link IllegalStateException}; take the latest snapshot at the start of each loop instead of keeping one.
+ * Reads are optimistic reads of the {@link StampedLock} the arrays are captured under, so they are never blocked
+ * by a capture, and a read which overlaps one fails rather than returning a mix of the two ticks.
+ * <pre>
+ * WorldSnapshot snapshot = WorldSnapshot.latest();
+ * NPC banker = snapshot.npcs().actions("Bank").results().nearest();
+ * </pre>
+ */
+public final class WorldSnapshot
+{
+	private static final Map<Integer, VarbitComposition> VARBITS = new ConcurrentHashMap<>();
+
+	private final Frame frame;
+	private final long stamp;
+
+	/**
+	 * The tick the snapshot was captured on
+	 */
+	@Getter
+	private final int tick;
+
+	@Getter
+	private final int plane;
+
+	private WorldSnapshot(Frame frame, long stamp, int tick, int plane)
+	{
+		this.frame = frame;
+		this.stamp = stamp;
+		this.tick = tick;
+		this.plane = plane;
+	}
+
+	/**
+	 * @return the snapshot of the last game tick, or null if there is none because the client is not logged in
+	 */
+	public static WorldSnapshot latest()
+	{
+		return Static.getWorldSnapshotManager().getLatest();
+	}
+
+	/**
+	 * @return false if the arrays of the snapshot have been reused for a newer one, and it can no longer be read
+	 */
+	public boolean isValid()
+	{
+		return frame.lock.validate(stamp);
+	}
+
+	private void check()
+	{
+		if (!isValid())
+		{
+			throw new IllegalStateException("The world snapshot of tick " + tick + " has been replaced");
+		}
+	}
+
+	/**
+	 * Reads from the arrays of the snapshot, then checks they were not being captured into while they were read.
+	 * A read which overlaps a capture may see the arrays half written and fail, in which case the snapshot has
+	 * been replaced and that is thrown instead.
+	 */
+	private <R> R read(Supplier<R> reader)
+	{
+		R value;
+		try
+		{
+			value = reader.get();
+		}
+		catch (RuntimeException e)
+		{
+			check();
+			throw e;
+		}
+		check();
+		return value;
+	}
+
+	public List<NPC> getNpcs()
+	{
+		return frame.npcs.view(this);
+	}
+
+	public List<NPC> getNpcs(int... ids)
+	{
+		return frame.npcs.byId(this, ids);
+	}
+
+	public List<Player> getPlayers()
+	{
+		return frame.players.view(this);
+	}
+
+	public List<TileObject> getTileObjects()
+	{
+		return frame.objects.view(this);
+	}
+
+	public List<TileObject> getTileObjects(int... ids)
+	{
+		return frame.objects.byId(this, ids);
+	}
+
+	public List<TileObject> getTileObjectsAt(WorldPoint worldPoint)
+	{
+		return frame.objects.at(this, worldPoint);
+	}
+
+	public List<TileItem> getTileItems()
+	{
+		return frame.items.view(this);
+	}
+
+	public List<TileItem> getTileItems(int... ids)
+	{
+		return frame.items.byId(this, ids);
+	}
+
+	public List<TileItem> getTileItemsAt(WorldPoint worldPoint)
+	{
+		return frame.items.at(this, worldPoint);
+	}
+
+	public NPCQuery npcs()
+	{
+		return NPCs.query(this::getNpcs);
+	}
+
+	public PlayerQuery players()
+	{
+		return Players.query(this::getPlayers);
+	}
+
+	public TileObjectQuery tileObjects()
+	{
+		return TileObjects.query(this::getTileObjects);
+	}
+
+	public TileItemQuery tileItems()
+	{
+		return TileItems.query(this::getTileItems);
+	}
+
+	/**
+	 * @return the items in the inventory, where empty slots have an id of -1
+	 */
+	public List<Item> getInventory()
+	{
+		Frame f = frame;
+		int size = read(() -> f.inventorySize);
+		return new AbstractList<>()
+		{
+			@Override
+			public Item get(int index)
+			{
+				if (index < 0 || index >= size)
+				{
+					throw new IndexOutOfBoundsException(index);
+				}
+
+				return read(() -> f.inventory[index]);
+			}
+
+			@Override
+			public int size()
+			{
+				return size;
+			}
+		};
+	}
+
+	public int getVarp(int id)
+	{
+		return read(() -> frame.varps[id]);
+	}
+
+	/**
+	 * The varbit is worked out from the varps of the snapshot. Only the first read of each varbit goes to the
+	 * client thread, to look up which bits of which varp it is.
+	 */
+	public int getVarbit(int id)
+	{
+		VarbitComposition varbit = VARBITS.get(id);
+		if (varbit == null)
+		{
+			varbit = GameThread.invokeLater(() -> Static.getClient().getVarbit(id));
+			if (varbit == null)
+			{
+				throw new IllegalArgumentException("Unknown varbit " + id);
+			}
+			VARBITS.put(id, varbit);
+		}
+
+		int lsb = varbit.getLeastSignificantBit();
+		int msb = varbit.getMostSignificantBit();
+		return (getVarp(varbit.getIndex()) >>> lsb) & (-1 >>> (31 - (msb - lsb)));
+	}
+
+	/**
+	 * @return true if the interface with the group id was open
+	 */
+	public boolean isInterfaceOpen(int groupId)
+	{
+		return read(() -> Arrays.binarySearch(frame.interfaces, 0, frame.interfaceCount, groupId) >= 0);
+	}
+
+	private static int pack(WorldPoint worldPoint)
+	{
+		return worldPoint.getX() | worldPoint.getY() << 14 | worldPoint.getPlane() << 28;
+	}
+
+	/**
+	 * The entities of one type, with their ids and locations alongside so they can be searched without
+	 * calling into the entities
+	 */
+	private static class Column<T extends SceneEntity>
+	{
+		private Object[] entities = new Object[64];
+		private int[] ids = new int[64];
+		private int[] positions = new int[64];
+		private int size;
+
+		private void clear()
+		{
+			Arrays.fill(entities, 0, size, null);
+			size = 0;
+		}
+
+		private void add(T entity, int position)
+		{
+			if (size == entities.length)
+			{
+				entities = Arrays.copyOf(entities, size * 2);
+				ids = Arrays.copyOf(ids, size * 2);
+				positions = Arrays.copyOf(positions, size * 2);
+			}
+
+			entities[size] = entity;
+			ids[size] = entity.getId();
+			positions[size] = position;
+			++size;
+		}
+
+		private List<T> view(WorldSnapshot snapshot)
+		{
+			int count = snapshot.read(() -> size);
+			return new AbstractList<>()
+			{
+				@Override
+				@SuppressWarnings("unchecked")
+				public T get(int index)
+				{
+					if (index < 0 || index >= count)
+					{
+						throw new IndexOutOfBoundsException(index);
+					}
+
+					return snapshot.read(() -> (T) entities[index]);
+				}
+
+				@Override
+				public int size()
+				{
+					return count;
+				}
+			};
+		}
+
+		@SuppressWarnings("unchecked")
+		private List<T> byId(WorldSnapshot snapshot, int... ids)
+		{
+			return snapshot.read(() ->
+			{
+				List<T> out = new ArrayList<>();
+				for (int i = 0; i < size; ++i)
+				{
+					for (int id : ids)
+					{
+						if (this.ids[i] == id)
+						{
+							out.add((T) entities[i]);
+							break;
+						}
+					}
+				}
+				return out;
+			});
+		}
+
+		@SuppressWarnings("unchecked")
+		private List<T> at(WorldSnapshot snapshot, WorldPoint worldPoint)
+		{
+			int position = pack(worldPoint);
+			return snapshot.read(() ->
+			{
+				List<T> out = new ArrayList<>();
+				for (int i = 0; i < size; ++i)
+				{
+					if (positions[i] == position)
+					{
+						out.add((T) entities[i]);
+					}
+				}
+				return out;
+			});
+		}
+	}
+
+	private static class Frame
+	{
+		// held for writing while a snapshot is captured into the frame, which invalidates the stamps of the
+		// snapshots captured into it before
+		private final StampedLock lock = new StampedLock();
+
+		private final Column<NPC> npcs = new Column<>();
+		private final Column<Player> players = new Column<>();
+		private final Column<TileObject> objects = new Column<>();
+		private final Column<TileItem> items = new Column<>();
+
+		private int plane;
+		private int[] varps = new int[0];
+		private Item[] inventory = new Item[28];
+		private int inventorySize;
+		private int[] interfaces = new int[16];
+		private int interfaceCount;
+	}
+
+	/**
+	 * The arrays snapshots are captured into. A snapshot stays readable until its arrays are reused, which is
+	 * after as many more snapshots as there are frames in the pool have been captured.
+	 */
+	public static class Pool
+	{
+		private final Frame[] frames;
+		private int next;
+
+		public Pool(int frames)
+		{
+			this.frames = new Frame[frames];
+			for (int i = 0; i < frames; ++i)
+			{
+				this.frames[i] = new Frame();
+			}
+		}
+
+		/**
+		 * Captures the state of the world. This must be called on the client thread.
+		 */
+		public WorldSnapshot capture(Client client)
+		{
+			Frame frame = frames[next];
+			next = (next + 1) % frames.length;
+
+			long write = frame.lock.writeLock();
+			try
+			{
+				captureFrame(client, frame);
+			}
+			finally
+			{
+				frame.lock.unlockWrite(write);
+			}
+
+			return new WorldSnapshot(frame, frame.lock.tryOptimisticRead(), client.getTickCount(), frame.plane);
+		}
+
+		private static void captureFrame(Client client, Frame frame)
+		{
+			frame.npcs.clear();
+			for (NPC npc : client.getNpcs())
+			{
+				frame.npcs.add(npc, pack(npc.getWorldLocation()));
+			}
+
+			frame.players.clear();
+			for (Player player : client.getPlayers())
+			{
+				frame.players.add(player, pack(player.getWorldLocation()));
+			}
+
+			frame.objects.clear();
+			frame.items.clear();
+			frame.plane = client.getPlane();
+			Tile[][] tiles = client.getScene().getTiles()[frame.plane];
+			for (int x = 0; x < Constants.SCENE_SIZE; x++)
+			{
+				for (int y = 0; y < Constants.SCENE_SIZE; y++)
+				{
+					Tile tile = tiles[x][y];
+					if (tile != null)
+					{
+						captureTile(client, frame, tile);
+					}
+				}
+			}
+
+			int[] varps = client.getVarps();
+			if (frame.varps.length != varps.length)
+			{
+				frame.varps = new int[varps.length];
+			}
+			System.arraycopy(varps, 0, frame.varps, 0, varps.length);
+
+			Arrays.fill(frame.inventory, 0, frame.inventorySize, null);
+			frame.inventorySize = 0;
+			ItemContainer inventory = client.getItemContainer(InventoryID.INVENTORY);
+			if (inventory != null)
+			{
+				Item[] items = inventory.getItems();
+				if (frame.inventory.length < items.length)
+				{
+					frame.inventory = new Item[items.length];
+				}
+				System.arraycopy(items, 0, frame.inventory, 0, items.length);
+				frame.inventorySize = items.length;
+			}
+
+			frame.interfaceCount = 0;
+			for (WidgetNode node : client.getComponentTable())
+			{
+				if (frame.interfaceCount == frame.interfaces.length)
+				{
+					frame.interfaces = Arrays.copyOf(frame.interfaces, frame.interfaceCount * 2);
+				}
+				frame.interfaces[frame.interfaceCount++] = node.getId();
+			}
+			Arrays.sort(frame.interfaces, 0, frame.interfaceCount);
+		}
+
+		private static void captureTile(Client client, Frame frame, Tile tile)
+		{
+			DecorativeObject dec = tile.getDecorativeObject();
+			WallObject wall = tile.getWallObject();
+			GroundObject ground = tile.getGroundObject();
+			GameObject[] gameObjects = tile.getGameObjects();
+			List<TileItem> groundItems = tile.getGroundItems();
+			if (dec == null && wall == null && ground == null && gameObjects == null && groundItems == null)
+			{
+				return;
+			}
+
+			int position = pack(tile.getWorldLocation());
+
+			if (dec != null && dec.getId() != -1)
+			{
+				frame.objects.add(dec, position);
+			}
+
+			if (wall != null && wall.getId() != -1)
+			{
+				frame.objects.add(wall, position);
+			}
+
+			if (ground != null && ground.getId() != -1)
+			{
+				frame.objects.add(ground, position);
+			}
+
+			if (gameObjects != null)
+			{
+				for (GameObject gameObject : gameObjects)
+				{
+					if (gameObject != null && gameObject.getId() != -1 && client.isTileObjectValid(tile, gameObject))
+					{
+						frame.objects.add(gameObject, position);
+					}
+				}
+			}
+
+			if (groundItems != null)
+			{
+				for (TileItem item : groundItems)
+				{
+					if (item != null && item.getId() != -1)
+					{
+						frame.items.add(item, position);
+					}
+				}
+			}
+		}
+	}
+}
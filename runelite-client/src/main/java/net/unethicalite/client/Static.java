@@ -28,7 +28,9 @@ import net.unethicalite.client.managers.NativeInputManager;
 import net.unethicalite.client.managers.NeverLogManager;
 import net.unethicalite.client.managers.QuestManager;
 import net.unethicalite.client.managers.RegionManager;
+import net.unethicalite.client.managers.SceneIndexManager;
 import net.unethicalite.client.managers.SettingsManager;
+import net.unethicalite.client.managers.WorldSnapshotManager;
 import net.unethicalite.client.managers.interaction.InteractionManager;
 
 @Singleton
@@ -136,6 +138,14 @@ public class Static
 	@Getter
 	private static SpriteManager spriteManager;
 
+	@Inject
+	@Getter
+	private static WorldSnapshotManager worldSnapshotManager;
+
+	@Inject
+	@Getter
+	private static SceneIndexManager sceneIndexManager;
+
 	@Inject
 	private static SettingsManager settingsManager;
 
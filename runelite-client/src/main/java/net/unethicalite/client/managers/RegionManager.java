@@ -3,21 +3,33 @@ package net.unethicalite.client.managers;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.CollisionData;
 import net.runelite.api.CollisionDataFlag;
+import net.runelite.api.GameObject;
 import net.runelite.api.InventoryID;
 import net.runelite.api.Tile;
+import net.runelite.api.TileObject;
 import net.runelite.api.Varbits;
 import net.runelite.api.coords.Direction;
 import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ClientTick;
+import net.runelite.api.events.GameObjectDespawned;
+import net.runelite.api.events.GameObjectSpawned;
 import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GroundObjectDespawned;
+import net.runelite.api.events.GroundObjectSpawned;
 import net.runelite.api.events.ItemContainerChanged;
 import net.runelite.api.events.VarbitChanged;
+import net.runelite.api.events.WallObjectDespawned;
+import net.runelite.api.events.WallObjectSpawned;
 import net.runelite.api.events.WidgetLoaded;
 import net.runelite.api.widgets.WidgetInfo;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.plugins.unethicalite.regions.TileFlag;
+import net.unethicalite.api.events.PlaneChanged;
 import net.unethicalite.api.game.Game;
 import net.unethicalite.api.movement.Reachable;
+import net.unethicalite.api.movement.pathfinder.CollisionOverlay;
+import net.unethicalite.api.movement.pathfinder.GlobalCollisionMap;
 import net.unethicalite.api.movement.pathfinder.TeleportLoader;
 import net.unethicalite.api.movement.pathfinder.TransportLoader;
 import net.unethicalite.api.movement.pathfinder.Walker;
@@ -33,6 +45,8 @@ import net.unethicalite.client.config.UnethicaliteConfig;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -81,6 +95,13 @@ public class RegionManager
     @Inject
     private ScheduledExecutorService executorService;
 
+    @Inject
+    private GlobalCollisionMap globalCollisionMap;
+
+    // Collisions of the loaded scene, only maintained inside instances where the global map is not enough
+    private volatile CollisionOverlay collisionOverlay = CollisionOverlay.EMPTY;
+    private final Set<WorldPoint> dirtyTiles = new HashSet<>();
+
     public static boolean avoidWilderness()
     {
         return Static.getUnethicaliteConfig().avoidWilderness();
@@ -163,6 +184,7 @@ public class RegionManager
                 INITIAL_LOGIN = true;
                 break;
             case LOGGED_IN:
+                rebuildCollisionOverlay();
                 if (INITIAL_LOGIN)
                 {
                     INITIAL_LOGIN = false;
@@ -175,6 +197,104 @@ public class RegionManager
         }
     }
 
+    @Subscribe
+    public void onPlaneChanged(PlaneChanged event)
+    {
+        rebuildCollisionOverlay();
+    }
+
+    @Subscribe
+    public void onGameObjectSpawned(GameObjectSpawned event)
+    {
+        markDirty(event.getGameObject());
+    }
+
+    @Subscribe
+    public void onGameObjectDespawned(GameObjectDespawned event)
+    {
+        markDirty(event.getGameObject());
+    }
+
+    @Subscribe
+    public void onWallObjectSpawned(WallObjectSpawned event)
+    {
+        markDirty(event.getWallObject());
+    }
+
+    @Subscribe
+    public void onWallObjectDespawned(WallObjectDespawned event)
+    {
+        markDirty(event.getWallObject());
+    }
+
+    @Subscribe
+    public void onGroundObjectSpawned(GroundObjectSpawned event)
+    {
+        markDirty(event.getGroundObject());
+    }
+
+    @Subscribe
+    public void onGroundObjectDespawned(GroundObjectDespawned event)
+    {
+        markDirty(event.getGroundObject());
+    }
+
+    @Subscribe
+    public void onClientTick(ClientTick event)
+    {
+        // Collision flags are settled by the time the next frame runs, so spawns are applied in batches here
+        if (dirtyTiles.isEmpty())
+        {
+            return;
+        }
+
+        if (Static.getClient().isInInstancedRegion())
+        {
+            collisionOverlay = collisionOverlay.withTileFlags(getTileFlags(dirtyTiles), globalCollisionMap);
+        }
+
+        dirtyTiles.clear();
+    }
+
+    public CollisionOverlay getCollisionOverlay()
+    {
+        return collisionOverlay;
+    }
+
+    private void rebuildCollisionOverlay()
+    {
+        dirtyTiles.clear();
+        collisionOverlay = Static.getClient().isInInstancedRegion()
+                ? CollisionOverlay.EMPTY.withTileFlags(getTileFlags(), globalCollisionMap)
+                : CollisionOverlay.EMPTY;
+    }
+
+    private void markDirty(TileObject object)
+    {
+        if (!Static.getClient().isInInstancedRegion())
+        {
+            return;
+        }
+
+        // The tiles next to the object are included since their north/east flags depend on it
+        WorldPoint min = object.getWorldLocation();
+        WorldPoint max = min;
+        if (object instanceof GameObject)
+        {
+            GameObject gameObject = (GameObject) object;
+            min = WorldPoint.fromScene(Static.getClient(), gameObject.getSceneMinLocation().getX(), gameObject.getSceneMinLocation().getY(), gameObject.getPlane());
+            max = WorldPoint.fromScene(Static.getClient(), gameObject.getSceneMaxLocation().getX(), gameObject.getSceneMaxLocation().getY(), gameObject.getPlane());
+        }
+
+        for (int x = min.getX() - 1; x <= max.getX() + 1; x++)
+        {
+            for (int y = min.getY() - 1; y <= max.getY() + 1; y++)
+            {
+                dirtyTiles.add(new WorldPoint(x, y, min.getPlane()));
+            }
+        }
+    }
+
     public boolean isTransport(List<Transport> transports, WorldPoint from, WorldPoint to)
     {
         if (transports == null)
@@ -318,8 +438,6 @@ public class RegionManager
             return new ArrayList<>();
         }
 
-        List<TileFlag> tileFlags = new ArrayList<>();
-        Map<WorldPoint, List<Transport>> transportLinks = Walker.buildTransportLinks();
         int plane = Static.getClient().getPlane();
         CollisionData data = col[plane];
         if (data == null)
@@ -327,87 +445,136 @@ public class RegionManager
             return new ArrayList<>();
         }
 
+        List<TileFlag> tileFlags = new ArrayList<>();
+        Map<WorldPoint, List<Transport>> transportLinks = Walker.buildTransportLinks();
         int[][] flags = data.getFlags();
         for (int x = 0; x < flags.length; x++)
         {
             for (int y = 0; y < flags.length; y++)
             {
-                int tileX = x + Static.getClient().getBaseX();
-                int tileY = y + Static.getClient().getBaseY();
-                int flag = flags[x][y];
-
-                // Stop if we reach any tiles which dont have collision data loaded
-                // Usually occurs for tiles which are loaded in the 104x104 scene, but are outside the region
-                if (flag == 0xFFFFFF)
+                TileFlag tileFlag = getTileFlag(flags, x, y, plane, transportLinks);
+                if (tileFlag != null)
                 {
-                    continue;
+                    tileFlags.add(tileFlag);
                 }
+            }
+        }
+        return tileFlags;
+    }
 
-                int regionId = ((tileX >> 6) << 8) | (tileY >> 6);
+    /**
+     * Same as {@link #getTileFlags()}, restricted to the given tiles of the current plane.
+     */
+    public List<TileFlag> getTileFlags(Collection<WorldPoint> tiles)
+    {
+        CollisionData[] col = Static.getClient().getCollisionMaps();
+        if (col == null)
+        {
+            return new ArrayList<>();
+        }
 
-                // Set the full block flag in case tiles are null (ex. on upper levels)
-                TileFlag tileFlag = new TileFlag(tileX, tileY, plane, CollisionDataFlag.BLOCK_MOVEMENT_FULL, regionId);
-                Tile tile = Tiles.getAt(tileX, tileY, plane);
-                if (tile == null)
-                {
-                    tileFlags.add(tileFlag);
-                    continue;
-                }
+        int plane = Static.getClient().getPlane();
+        CollisionData data = col[plane];
+        if (data == null)
+        {
+            return new ArrayList<>();
+        }
 
-                tileFlag.setFlag(flag);
-                WorldPoint tileCoords = tile.getWorldLocation();
+        List<TileFlag> tileFlags = new ArrayList<>();
+        Map<WorldPoint, List<Transport>> transportLinks = Walker.buildTransportLinks();
+        int[][] flags = data.getFlags();
+        for (WorldPoint tile : tiles)
+        {
+            int x = tile.getX() - Static.getClient().getBaseX();
+            int y = tile.getY() - Static.getClient().getBaseY();
+            if (tile.getPlane() != plane || x < 0 || y < 0 || x >= flags.length || y >= flags.length)
+            {
+                continue;
+            }
 
-                // Check if we are blocked by objects
-                // We don't need to parse west/south because they're checked by parsing adjacent tiles for north/east
-                // We also skip the current tile if an adjacent tile does not have their flags loaded
-                WorldPoint northernTile = tileCoords.dy(1);
-                if (Reachable.getCollisionFlag(northernTile) == 0xFFFFFF)
-                {
-                    continue;
-                }
+            TileFlag tileFlag = getTileFlag(flags, x, y, plane, transportLinks);
+            if (tileFlag != null)
+            {
+                tileFlags.add(tileFlag);
+            }
+        }
+        return tileFlags;
+    }
 
-                if (Reachable.isObstacle(northernTile) && !Reachable.isWalled(Direction.NORTH, tileFlag.getFlag()))
-                {
-                    tileFlag.setFlag(tileFlag.getFlag() + CollisionDataFlag.BLOCK_MOVEMENT_NORTH);
-                }
+    private TileFlag getTileFlag(int[][] flags, int x, int y, int plane, Map<WorldPoint, List<Transport>> transportLinks)
+    {
+        int tileX = x + Static.getClient().getBaseX();
+        int tileY = y + Static.getClient().getBaseY();
+        int flag = flags[x][y];
 
-                WorldPoint easternTile = tileCoords.dx(1);
-                if (Reachable.getCollisionFlag(easternTile) == 0xFFFFFF)
-                {
-                    continue;
-                }
+        // Stop if we reach any tiles which dont have collision data loaded
+        // Usually occurs for tiles which are loaded in the 104x104 scene, but are outside the region
+        if (flag == 0xFFFFFF)
+        {
+            return null;
+        }
 
-                if (Reachable.isObstacle(easternTile) && !Reachable.isWalled(Direction.EAST, tileFlag.getFlag()))
-                {
-                    tileFlag.setFlag(tileFlag.getFlag() + CollisionDataFlag.BLOCK_MOVEMENT_EAST);
-                }
+        int regionId = ((tileX >> 6) << 8) | (tileY >> 6);
 
-                List<Transport> transports = transportLinks.get(tileCoords);
-                if (plane == Static.getClient().getPlane())
+        // Set the full block flag in case tiles are null (ex. on upper levels)
+        TileFlag tileFlag = new TileFlag(tileX, tileY, plane, CollisionDataFlag.BLOCK_MOVEMENT_FULL, regionId);
+        Tile tile = Tiles.getAt(tileX, tileY, plane);
+        if (tile == null)
+        {
+            return tileFlag;
+        }
+
+        tileFlag.setFlag(flag);
+        WorldPoint tileCoords = tile.getWorldLocation();
+
+        // Check if we are blocked by objects
+        // We don't need to parse west/south because they're checked by parsing adjacent tiles for north/east
+        // We also skip the current tile if an adjacent tile does not have their flags loaded
+        WorldPoint northernTile = tileCoords.dy(1);
+        if (Reachable.getCollisionFlag(northernTile) == 0xFFFFFF)
+        {
+            return null;
+        }
+
+        if (Reachable.isObstacle(northernTile) && !Reachable.isWalled(Direction.NORTH, tileFlag.getFlag()))
+        {
+            tileFlag.setFlag(tileFlag.getFlag() + CollisionDataFlag.BLOCK_MOVEMENT_NORTH);
+        }
+
+        WorldPoint easternTile = tileCoords.dx(1);
+        if (Reachable.getCollisionFlag(easternTile) == 0xFFFFFF)
+        {
+            return null;
+        }
+
+        if (Reachable.isObstacle(easternTile) && !Reachable.isWalled(Direction.EAST, tileFlag.getFlag()))
+        {
+            tileFlag.setFlag(tileFlag.getFlag() + CollisionDataFlag.BLOCK_MOVEMENT_EAST);
+        }
+
+        List<Transport> transports = transportLinks.get(tileCoords);
+        if (plane == Static.getClient().getPlane())
+        {
+            for (Direction direction : Direction.values())
+            {
+                switch (direction)
                 {
-                    for (Direction direction : Direction.values())
-                    {
-                        switch (direction)
+                    case NORTH:
+                        if ((Reachable.hasDoor(tile, direction) || Reachable.hasDoor(northernTile, Direction.SOUTH)) && !isTransport(transports, tileCoords, northernTile))
+                        {
+                            tileFlag.setFlag(tileFlag.getFlag() - CollisionDataFlag.BLOCK_MOVEMENT_NORTH);
+                        }
+                        break;
+                    case EAST:
+                        if ((Reachable.hasDoor(tile, direction) || Reachable.hasDoor(easternTile, Direction.WEST)) && !isTransport(transports, tileCoords, easternTile))
                         {
-                            case NORTH:
-                                if ((Reachable.hasDoor(tile, direction) || Reachable.hasDoor(northernTile, Direction.SOUTH)) && !isTransport(transports, tileCoords, northernTile))
-                                {
-                                    tileFlag.setFlag(tileFlag.getFlag() - CollisionDataFlag.BLOCK_MOVEMENT_NORTH);
-                                }
-                                break;
-                            case EAST:
-                                if ((Reachable.hasDoor(tile, direction) || Reachable.hasDoor(easternTile, Direction.WEST)) && !isTransport(transports, tileCoords, easternTile))
-                                {
-                                    tileFlag.setFlag(tileFlag.getFlag() - CollisionDataFlag.BLOCK_MOVEMENT_EAST);
-                                }
-                                break;
+                            tileFlag.setFlag(tileFlag.getFlag() - CollisionDataFlag.BLOCK_MOVEMENT_EAST);
                         }
-                    }
+                        break;
                 }
-
-                tileFlags.add(tileFlag);
             }
         }
-        return tileFlags;
+
+        return tileFlag;
     }
 }
@@ -0,0 +1,111 @@
+package net.unethicalite.client.managers;
+
+import lombok.Getter;
+import net.runelite.api.GameState;
+import net.runelite.api.TileItem;
+import net.runelite.api.TileObject;
+import net.runelite.api.events.DecorativeObjectDespawned;
+import net.runelite.api.events.DecorativeObjectSpawned;
+import net.runelite.api.events.GameObjectDespawned;
+import net.runelite.api.events.GameObjectSpawned;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GroundObjectDespawned;
+import net.runelite.api.events.GroundObjectSpawned;
+import net.runelite.api.events.ItemDespawned;
+import net.runelite.api.events.ItemSpawned;
+import net.runelite.api.events.WallObjectDespawned;
+import net.runelite.api.events.WallObjectSpawned;
+import net.runelite.client.eventbus.EventBus;
+import net.runelite.client.eventbus.Subscribe;
+import net.unethicalite.api.scene.SceneIndex;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+@Singleton
+public class SceneIndexManager
+{
+	@Getter
+	private final SceneIndex<TileObject> tileObjects = new SceneIndex<>();
+
+	@Getter
+	private final SceneIndex<TileItem> tileItems = new SceneIndex<>();
+
+	@Inject
+	SceneIndexManager(EventBus eventBus)
+	{
+		eventBus.register(this);
+	}
+
+	@Subscribe(priority = Integer.MAX_VALUE)
+	private void onGameStateChanged(GameStateChanged e)
+	{
+		// the scene is cleared without despawning what was in it
+		GameState gameState = e.getGameState();
+		if (gameState == GameState.LOADING || gameState == GameState.LOGIN_SCREEN || gameState == GameState.HOPPING)
+		{
+			tileObjects.clear();
+			tileItems.clear();
+		}
+	}
+
+	@Subscribe(priority = Integer.MAX_VALUE)
+	private void onGameObjectSpawned(GameObjectSpawned e)
+	{
+		tileObjects.add(e.getTile(), e.getGameObject());
+	}
+
+	@Subscribe(priority = Integer.MAX_VALUE)
+	private void onGameObjectDespawned(GameObjectDespawned e)
+	{
+		tileObjects.remove(e.getTile(), e.getGameObject());
+	}
+
+	@Subscribe(priority = Integer.MAX_VALUE)
+	private void onWallObjectSpawned(WallObjectSpawned e)
+	{
+		tileObjects.add(e.getTile(), e.getWallObject());
+	}
+
+	@Subscribe(priority = Integer.MAX_VALUE)
+	private void onWallObjectDespawned(WallObjectDespawned e)
+	{
+		tileObjects.remove(e.getTile(), e.getWallObject());
+	}
+
+	@Subscribe(priority = Integer.MAX_VALUE)
+	private void onDecorativeObjectSpawned(DecorativeObjectSpawned e)
+	{
+		tileObjects.add(e.getTile(), e.getDecorativeObject());
+	}
+
+	@Subscribe(priority = Integer.MAX_VALUE)
+	private void onDecorativeObjectDespawned(DecorativeObjectDespawned e)
+	{
+		tileObjects.remove(e.getTile(), e.getDecorativeObject());
+	}
+
+	@Subscribe(priority = Integer.MAX_VALUE)
+	private void onGroundObjectSpawned(GroundObjectSpawned e)
+	{
+		tileObjects.add(e.getTile(), e.getGroundObject());
+	}
+
+	@Subscribe(priority = Integer.MAX_VALUE)
+	private void onGroundObjectDespawned(GroundObjectDespawned e)
+	{
+		tileObjects.remove(e.getTile(), e.getGroundObject());
+	}
+
+	@Subscribe(priority = Integer.MAX_VALUE)
+	private void onItemSpawned(ItemSpawned e)
+	{
+		tileItems.add(e.getTile(), e.getItem());
+	}
+
+	@Subscribe(priority = Integer.MAX_VALUE)
+	private void onItemDespawned(ItemDespawned e)
+	{
+		tileItems.remove(e.getTile(), e.getItem());
+	}
+}
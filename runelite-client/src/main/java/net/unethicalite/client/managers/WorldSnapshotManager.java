@@ -0,0 +1,56 @@
+package net.unethicalite.client.managers;
+
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
+import net.runelite.client.eventbus.EventBus;
+import net.runelite.client.eventbus.Subscribe;
+import net.unethicalite.api.scene.WorldSnapshot;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+@Singleton
+public class WorldSnapshotManager
+{
+	// a snapshot can be read for two ticks after it has been replaced
+	private static final int FRAMES = 3;
+
+	private final WorldSnapshot.Pool pool = new WorldSnapshot.Pool(FRAMES);
+
+	private volatile WorldSnapshot latest;
+
+	@Inject
+	private Client client;
+
+	@Inject
+	WorldSnapshotManager(EventBus eventBus)
+	{
+		eventBus.register(this);
+	}
+
+	/**
+	 * @return the snapshot of the last game tick, or null if the client is not logged in
+	 */
+	public WorldSnapshot getLatest()
+	{
+		return latest;
+	}
+
+	// after every other subscriber, so the snapshot has the state they leave at the end of the tick
+	@Subscribe(priority = Integer.MIN_VALUE)
+	private void onGameTick(GameTick e)
+	{
+		latest = pool.capture(client);
+	}
+
+	@Subscribe(priority = Integer.MAX_VALUE)
+	private void onGameStateChanged(GameStateChanged e)
+	{
+		if (e.getGameState() != GameState.LOGGED_IN)
+		{
+			latest = null;
+		}
+	}
+}
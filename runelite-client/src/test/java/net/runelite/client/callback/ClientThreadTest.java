@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.callback;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.testing.fieldbinder.Bind;
+import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.api.Client;
+import net.runelite.api.events.GameTick;
+import net.runelite.client.eventbus.EventBus;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ClientThreadTest
+{
+	@Inject
+	private ClientThread clientThread;
+
+	@Mock
+	@Bind
+	private Client client;
+
+	@Bind
+	private EventBus eventBus = new EventBus();
+
+	@Before
+	public void before()
+	{
+		Guice.createInjector(BoundFieldModule.of(this)).injectMembers(this);
+	}
+
+	@Test
+	public void testPriorities()
+	{
+		List<String> ran = new ArrayList<>();
+		clientThread.invokeLater(ClientThread.Priority.BACKGROUND, () -> ran.add("background"));
+		clientThread.invokeLater(() -> ran.add("normal"));
+		clientThread.invokeLater(ClientThread.Priority.CRITICAL, () -> ran.add("critical"));
+
+		when(client.isClientThread()).thenReturn(true);
+		clientThread.invoke();
+
+		assertEquals(Arrays.asList("critical", "normal", "background"), ran);
+	}
+
+	@Test
+	public void testFrameBudget()
+	{
+		List<String> ran = new ArrayList<>();
+		for (int i = 0; i < 3; ++i)
+		{
+			clientThread.invokeLater(() ->
+			{
+				ran.add("normal");
+				sleep(10);
+			});
+		}
+		clientThread.invokeLater(ClientThread.Priority.BACKGROUND, () -> ran.add("background"));
+		clientThread.invokeLater(ClientThread.Priority.CRITICAL, () -> ran.add("critical"));
+
+		clientThread.setFrameBudget(Duration.ofMillis(5));
+		when(client.isClientThread()).thenReturn(true);
+		clientThread.invoke();
+
+		// the first normal invoke is run even though it does not fit the budget
+		assertEquals(Arrays.asList("critical", "normal"), ran);
+
+		for (int i = 0; i < 10 && ran.size() < 5; ++i)
+		{
+			clientThread.invoke();
+		}
+		assertEquals(Arrays.asList("critical", "normal", "normal", "normal", "background"), ran);
+	}
+
+	@Test
+	public void testBudgetStartsAfterCriticalInvokes()
+	{
+		List<String> ran = new ArrayList<>();
+		clientThread.invokeLater(ClientThread.Priority.CRITICAL, () ->
+		{
+			ran.add("critical");
+			sleep(20);
+		});
+		clientThread.invokeLater(() -> ran.add("normal"));
+		clientThread.invokeLater(ClientThread.Priority.BACKGROUND, () -> ran.add("background"));
+
+		clientThread.setFrameBudget(Duration.ofMillis(10));
+		when(client.isClientThread()).thenReturn(true);
+		clientThread.invoke();
+
+		assertEquals(Arrays.asList("critical", "normal", "background"), ran);
+	}
+
+	@Test
+	public void testDeferredInvokesKeepTheirPlace()
+	{
+		List<String> ran = new ArrayList<>();
+		AtomicInteger polls = new AtomicInteger();
+		clientThread.invokeLater(() -> ran.add("first"));
+		clientThread.invokeLater(() ->
+		{
+			ran.add("polled");
+			return polls.incrementAndGet() >= 2;
+		});
+		clientThread.invokeLater(() -> ran.add("last"));
+
+		when(client.isClientThread()).thenReturn(true);
+		clientThread.invoke();
+		assertEquals(Arrays.asList("first", "polled", "last"), ran);
+
+		// polled again, and still ahead of anything invoked since
+		clientThread.invokeLater(() -> ran.add("later"));
+		clientThread.invoke();
+		assertEquals(Arrays.asList("first", "polled", "last", "polled", "later"), ran);
+		assertEquals(2, polls.get());
+	}
+
+	@Test
+	public void testInvokeOn()
+	{
+		when(client.isClientThread()).thenReturn(true);
+
+		AtomicInteger polls = new AtomicInteger();
+		clientThread.invokeOn(GameTick.class, () -> polls.incrementAndGet() >= 2);
+		assertEquals(1, polls.get());
+
+		// not polled again until the event
+		clientThread.invoke();
+		clientThread.invoke();
+		assertEquals(1, polls.get());
+
+		eventBus.post(new GameTick());
+		clientThread.invoke();
+		assertEquals(2, polls.get());
+
+		eventBus.post(new GameTick());
+		clientThread.invoke();
+		assertEquals(2, polls.get());
+	}
+
+	@Test
+	public void testTimings()
+	{
+		when(client.isClientThread()).thenReturn(true);
+
+		clientThread.invoke(() -> sleep(1));
+		clientThread.invoke(() -> sleep(1));
+
+		ClientThread.InvokeTiming timing = clientThread.getTimings().get(0);
+		assertEquals(ClientThreadTest.class.getName(), timing.getSource());
+		assertEquals(2, timing.getCount());
+		assertTrue(timing.getTotalNanos() >= timing.getMaxNanos());
+		assertTrue(timing.getMaxNanos() >= Duration.ofMillis(1).toNanos());
+	}
+
+	private static void sleep(long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
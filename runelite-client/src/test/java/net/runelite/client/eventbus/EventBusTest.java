@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.eventbus;
+
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventBusTest
+{
+	private final List<String> calls = new ArrayList<>();
+	private final List<Throwable> exceptions = new ArrayList<>();
+	private EventBus eventBus;
+
+	@Before
+	public void before()
+	{
+		eventBus = new EventBus(exceptions::add);
+	}
+
+	@Test
+	public void testPriorityOrder()
+	{
+		eventBus.register(new Low());
+		eventBus.register(new High());
+		eventBus.register(Tick.class, e -> calls.add("lambda"), 5);
+
+		eventBus.post(new Tick());
+
+		assertEquals(List.of("high", "lambda", "low"), calls);
+	}
+
+	@Test
+	public void testEqualPriorityOrderedByClassName()
+	{
+		eventBus.register(new Zeta());
+		eventBus.register(new Alpha());
+
+		eventBus.post(new Tick());
+
+		assertEquals(List.of("alpha", "zeta"), calls);
+	}
+
+	@Test
+	public void testUnregisterObject()
+	{
+		High high = new High();
+		eventBus.register(high);
+		eventBus.register(new Low());
+
+		eventBus.unregister(high);
+		eventBus.post(new Tick());
+		eventBus.post(new Render());
+
+		assertEquals(List.of("low", "render"), calls);
+	}
+
+	@Test
+	public void testUnregisterSubscriber()
+	{
+		EventBus.Subscriber first = eventBus.register(Tick.class, e -> calls.add("first"), 0);
+		eventBus.register(Tick.class, e -> calls.add("second"), 0);
+
+		eventBus.unregister(first);
+		eventBus.unregister(first);
+		eventBus.post(new Tick());
+
+		assertEquals(List.of("second"), calls);
+	}
+
+	@Test
+	public void testRunnable()
+	{
+		Runnable runnable = () -> calls.add("runnable");
+		eventBus.registerRunnable(Tick.class, runnable, 0);
+		eventBus.post(new Tick());
+
+		eventBus.unregister(runnable);
+		eventBus.post(new Tick());
+
+		assertEquals(List.of("runnable"), calls);
+	}
+
+	@Test
+	public void testExceptionDoesNotStopDispatch()
+	{
+		eventBus.register(Tick.class, e ->
+		{
+			throw new IllegalStateException();
+		}, 1);
+		eventBus.register(new Low());
+
+		eventBus.post(new Tick());
+
+		assertEquals(List.of("low"), calls);
+		assertEquals(1, exceptions.size());
+		assertTrue(exceptions.get(0) instanceof IllegalStateException);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSubclassOfSubscribedEvent()
+	{
+		eventBus.register(new Low());
+		eventBus.register(new Object()
+		{
+			@Subscribe
+			public void onSpecialTick(SpecialTick event)
+			{
+			}
+		});
+	}
+
+	@Test
+	public void testFailedRegistrationLeavesNoSubscribers()
+	{
+		try
+		{
+			eventBus.register(new Invalid());
+		}
+		catch (IllegalArgumentException e)
+		{
+			// expected
+		}
+
+		eventBus.post(new Render());
+
+		assertEquals(List.of(), calls);
+	}
+
+	public static class Tick
+	{
+	}
+
+	public static class SpecialTick extends Tick
+	{
+	}
+
+	public static class Render
+	{
+	}
+
+	public class High
+	{
+		@Subscribe(priority = 10)
+		public void onTick(Tick event)
+		{
+			calls.add("high");
+		}
+	}
+
+	public class Low
+	{
+		@Subscribe
+		public void onTick(Tick event)
+		{
+			calls.add("low");
+		}
+
+		@Subscribe
+		public void onRender(Render event)
+		{
+			calls.add("render");
+		}
+	}
+
+	public class Alpha
+	{
+		@Subscribe
+		public void onTick(Tick event)
+		{
+			calls.add("alpha");
+		}
+	}
+
+	public class Zeta
+	{
+		@Subscribe
+		public void onTick(Tick event)
+		{
+			calls.add("zeta");
+		}
+	}
+
+	public class Invalid
+	{
+		@Subscribe
+		public void onRender(Render event)
+		{
+			calls.add("render");
+		}
+
+		@Subscribe
+		public int onTick(Tick event)
+		{
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,249 @@
+package net.unethicalite.api.game;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.api.Client;
+import net.runelite.client.callback.ClientThread;
+import net.unethicalite.client.Static;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/**
+ * Runs {@link GameThread} calls from a worker thread, with the test thread standing in for the client thread and
+ * running the invokes queued on the mocked {@link ClientThread}.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class GameThreadTest
+{
+	@Mock
+	private Client client;
+
+	@Mock
+	private ClientThread clientThread;
+
+	private final BlockingQueue<Runnable> invokes = new LinkedBlockingQueue<>();
+	private ExecutorService worker;
+	private Object previousClient;
+	private Object previousClientThread;
+
+	@Before
+	public void before()
+	{
+		previousClient = inject("client", client);
+		previousClientThread = inject("clientThread", clientThread);
+		worker = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void after() throws InterruptedException
+	{
+		// run whatever is left so the next test starts with nothing scheduled
+		Runnable invoke;
+		while ((invoke = invokes.poll()) != null)
+		{
+			invoke.run();
+		}
+
+		worker.shutdownNow();
+		worker.awaitTermination(1, TimeUnit.SECONDS);
+		inject("client", previousClient);
+		inject("clientThread", previousClientThread);
+	}
+
+	@Test
+	public void testClientThreadCallsDirectly()
+	{
+		when(client.isClientThread()).thenReturn(true);
+
+		assertEquals(Integer.valueOf(1), GameThread.invokeLater(() -> 1));
+		verify(clientThread, never()).invokeLater(any(ClientThread.Priority.class), any(Runnable.class));
+	}
+
+	@Test
+	public void testInvokeLater() throws Exception
+	{
+		captureInvokes();
+
+		Future<Integer> result = worker.submit(() -> GameThread.invokeLater(() -> 42));
+		runNextInvoke();
+
+		assertEquals(Integer.valueOf(42), result.get(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testBatch() throws Exception
+	{
+		captureInvokes();
+
+		AtomicInteger calls = new AtomicInteger();
+		GameThread.Batch batch = new GameThread.Batch();
+		List<GameThread.Result<Integer>> results = new ArrayList<>();
+		for (int i = 0; i < 5; ++i)
+		{
+			results.add(batch.add(calls::incrementAndGet));
+		}
+
+		Future<?> execute = worker.submit(batch::execute);
+		runNextInvoke();
+		execute.get(1, TimeUnit.SECONDS);
+
+		// every call is made in the one invoke, in the order they were added
+		verify(clientThread, times(1)).invokeLater(eq(ClientThread.Priority.CRITICAL), any(Runnable.class));
+		assertTrue(invokes.isEmpty());
+		for (int i = 0; i < results.size(); ++i)
+		{
+			assertEquals(Integer.valueOf(i + 1), results.get(i).get());
+		}
+	}
+
+	@Test
+	public void testBatchException() throws Exception
+	{
+		captureInvokes();
+
+		IllegalStateException thrown = new IllegalStateException();
+		GameThread.Batch batch = new GameThread.Batch();
+		GameThread.Result<Object> failed = batch.add(() ->
+		{
+			throw thrown;
+		});
+		GameThread.Result<String> after = batch.add(() -> "after");
+		GameThread.Result<Object> nothing = batch.add(() -> null);
+
+		Future<?> execute = worker.submit(batch::execute);
+		runNextInvoke();
+		execute.get(1, TimeUnit.SECONDS);
+
+		// a call which throws does not stop the others being made
+		assertEquals("after", after.get());
+		assertNull(nothing.get());
+		try
+		{
+			failed.get();
+			fail();
+		}
+		catch (RuntimeException e)
+		{
+			assertSame(thrown, e.getCause());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testResultBeforeExecute()
+	{
+		GameThread.Batch batch = new GameThread.Batch();
+		batch.add(() -> 1).get();
+	}
+
+	@Test
+	public void testInvokeLaterException() throws Exception
+	{
+		captureInvokes();
+
+		IllegalStateException thrown = new IllegalStateException();
+		Future<Object> result = worker.submit(() -> GameThread.invokeLater(() ->
+		{
+			throw thrown;
+		}));
+		runNextInvoke();
+
+		try
+		{
+			result.get(1, TimeUnit.SECONDS);
+			fail();
+		}
+		catch (ExecutionException e)
+		{
+			assertTrue(e.getCause() instanceof RuntimeException);
+			assertSame(thrown, e.getCause().getCause().getCause());
+		}
+	}
+
+	@Test
+	public void testTimeout() throws Exception
+	{
+		captureInvokes();
+
+		AtomicBoolean called = new AtomicBoolean();
+		Future<Object> result = worker.submit(() -> GameThread.invokeLater(() -> called.getAndSet(true)));
+		try
+		{
+			result.get(5, TimeUnit.SECONDS);
+			fail();
+		}
+		catch (ExecutionException e)
+		{
+			assertTrue(e.getCause().getCause() instanceof TimeoutException);
+		}
+
+		// the call was cancelled when it timed out, so it is not made when the client thread gets to it
+		runNextInvoke();
+		assertFalse(called.get());
+
+		// and calls after it are scheduled again
+		Future<Integer> next = worker.submit(() -> GameThread.invokeLater(() -> 1));
+		runNextInvoke();
+		assertEquals(Integer.valueOf(1), next.get(1, TimeUnit.SECONDS));
+	}
+
+	private void captureInvokes()
+	{
+		doAnswer(invocation ->
+		{
+			invokes.add(invocation.getArgument(1));
+			return null;
+		}).when(clientThread).invokeLater(eq(ClientThread.Priority.CRITICAL), any(Runnable.class));
+	}
+
+	private void runNextInvoke() throws InterruptedException
+	{
+		Runnable invoke = invokes.poll(5, TimeUnit.SECONDS);
+		assertNotNull("Nothing was invoked on the client thread", invoke);
+		invoke.run();
+	}
+
+	private static Object inject(String name, Object value)
+	{
+		try
+		{
+			Field field = Static.class.getDeclaredField(name);
+			field.setAccessible(true);
+			Object previous = field.get(null);
+			field.set(null, value);
+			return previous;
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Unable to inject " + name, e);
+		}
+	}
+}
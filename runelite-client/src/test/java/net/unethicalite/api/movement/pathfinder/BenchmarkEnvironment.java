@@ -0,0 +1,222 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import com.google.gson.Gson;
+import net.runelite.api.Client;
+import net.unethicalite.api.movement.pathfinder.model.Transport;
+import net.unethicalite.api.movement.pathfinder.model.dto.TransportDto;
+import net.unethicalite.client.Static;
+import net.unethicalite.client.config.UnethicaliteConfig;
+import net.unethicalite.client.managers.RegionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Sets up what the pathfinder needs from {@link Static} without a running game: a client that is never
+ * in an instance, a config with every option at its default and the bundled collision data and transports.
+ * Shared by the pathfinder tests and the jmh benchmarks.
+ */
+final class BenchmarkEnvironment
+{
+	private static GlobalCollisionMap collisionMap;
+	private static TransportIndex transports;
+
+	private BenchmarkEnvironment()
+	{
+	}
+
+	static synchronized void install()
+	{
+		if (collisionMap != null)
+		{
+			return;
+		}
+
+		collisionMap = new GlobalCollisionMap(readRegions());
+		transports = TransportIndex.of(readTransports());
+		inject("client", stub(Client.class));
+		inject("unethicaliteConfig", stub(UnethicaliteConfig.class));
+		inject("globalCollisionMap", collisionMap);
+		inject("regionManager", new RegionManager());
+	}
+
+	static GlobalCollisionMap collisionMap()
+	{
+		install();
+		return collisionMap;
+	}
+
+	static TransportIndex transports()
+	{
+		install();
+		return transports;
+	}
+
+	/**
+	 * Puts the overlay in place of the scene collisions the region manager would have tracked.
+	 */
+	static void setCollisionOverlay(CollisionOverlay overlay)
+	{
+		install();
+		try
+		{
+			Field field = RegionManager.class.getDeclaredField("collisionOverlay");
+			field.setAccessible(true);
+			field.set(Static.getRegionManager(), overlay);
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Unable to set the collision overlay", e);
+		}
+	}
+
+	static byte[] readCompressedRegions()
+	{
+		try (InputStream is = Walker.class.getResourceAsStream("/regions"))
+		{
+			if (is == null)
+			{
+				throw new IllegalStateException("Missing /regions resource");
+			}
+
+			return is.readAllBytes();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	static byte[] readRegions()
+	{
+		try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(readCompressedRegions())))
+		{
+			return is.readAllBytes();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static List<Transport> readTransports()
+	{
+		try (InputStream is = Walker.class.getResourceAsStream("/transports.json"))
+		{
+			if (is == null)
+			{
+				throw new IllegalStateException("Missing /transports.json resource");
+			}
+
+			try (Reader reader = new InputStreamReader(is, StandardCharsets.UTF_8))
+			{
+				List<Transport> list = new ArrayList<>();
+				for (TransportDto dto : new Gson().fromJson(reader, TransportDto[].class))
+				{
+					list.add(dto.toTransport());
+				}
+				return list;
+			}
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void inject(String name, Object value)
+	{
+		try
+		{
+			Field field = Static.class.getDeclaredField(name);
+			field.setAccessible(true);
+			field.set(null, value);
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Unable to inject " + name, e);
+		}
+	}
+
+	/**
+	 * @return an implementation answering default methods, such as config items, with their defaults and every
+	 * other call with false, zero or null
+	 */
+	private static <T> T stub(Class<T> type)
+	{
+		Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "equals":
+					return self == args[0];
+				case "hashCode":
+					return System.identityHashCode(self);
+				case "toString":
+					return "Stub" + type.getSimpleName();
+				default:
+					break;
+			}
+
+			if (method.isDefault())
+			{
+				return MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+					.unreflectSpecial(method, type)
+					.bindTo(self)
+					.invokeWithArguments(args == null ? new Object[0] : args);
+			}
+
+			Class<?> returnType = method.getReturnType();
+			if (returnType == boolean.class)
+			{
+				return false;
+			}
+			if (returnType == char.class)
+			{
+				return '\0';
+			}
+			if (returnType.isPrimitive() && returnType != void.class)
+			{
+				return defaultNumber(returnType);
+			}
+			return null;
+		});
+		return type.cast(proxy);
+	}
+
+	private static Object defaultNumber(Class<?> type)
+	{
+		if (type == long.class)
+		{
+			return 0L;
+		}
+		if (type == float.class)
+		{
+			return 0f;
+		}
+		if (type == double.class)
+		{
+			return 0d;
+		}
+		if (type == byte.class)
+		{
+			return (byte) 0;
+		}
+		if (type == short.class)
+		{
+			return (short) 0;
+		}
+		return 0;
+	}
+}
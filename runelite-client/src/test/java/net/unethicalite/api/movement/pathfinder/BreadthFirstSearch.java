@@ -0,0 +1,194 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+import net.unethicalite.api.movement.pathfinder.model.CharterShipLocation;
+import net.unethicalite.api.movement.pathfinder.model.Transport;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.fail;
+
+/**
+ * The breadth-first search the pathfinder used to run, which the paths it finds now are checked against
+ */
+final class BreadthFirstSearch
+{
+	private BreadthFirstSearch()
+	{
+	}
+
+	/**
+	 * @return the path the pathfinder used to find, with charter ships enabled
+	 */
+	static List<WorldPoint> find(CollisionMap map, Map<WorldPoint, List<Transport>> transports, WorldPoint start, WorldArea target, boolean avoidWilderness, int gold)
+	{
+		return search(map, transports, start, target, avoidWilderness, gold).path;
+	}
+
+	/**
+	 * @return the path, along with how many nodes were expanded to find it
+	 */
+	static Result search(CollisionMap map, Map<WorldPoint, List<Transport>> transports, WorldPoint start, WorldArea target, boolean avoidWilderness, int gold)
+	{
+		boolean targetsInWilderness = target.toWorldPointList().stream().anyMatch(BreadthFirstSearch::isInWilderness);
+		Deque<Node> boundary = new ArrayDeque<>();
+		Set<WorldPoint> visited = new HashSet<>();
+		boundary.add(new Node(start, null, gold));
+		visited.add(start);
+
+		Node nearest = null;
+		int bestDistance = Integer.MAX_VALUE;
+		int expanded = 0;
+		while (!boundary.isEmpty())
+		{
+			Node node = boundary.poll();
+			int distance = target.distanceTo(node.position);
+			if (distance == 0)
+			{
+				return new Result(node.path(), expanded);
+			}
+
+			expanded++;
+			if (nearest == null || distance < bestDistance)
+			{
+				nearest = node;
+				bestDistance = distance;
+			}
+
+			List<WorldPoint> neighbors = new ArrayList<>();
+			for (int dx = -1; dx <= 1; ++dx)
+			{
+				for (int dy = -1; dy <= 1; ++dy)
+				{
+					WorldPoint neighbor = node.position.dx(dx).dy(dy);
+					if (canStep(map, node.position, neighbor))
+					{
+						neighbors.add(neighbor);
+					}
+				}
+			}
+
+			for (Transport transport : transports.getOrDefault(node.position, List.of()))
+			{
+				neighbors.add(transport.getDestination());
+			}
+
+			for (WorldPoint neighbor : neighbors)
+			{
+				if (avoidWilderness && isInWilderness(neighbor) && !isInWilderness(node.position) && !targetsInWilderness)
+				{
+					continue;
+				}
+
+				int cost = CharterShipLocation.getCharterShipCost(node.position, neighbor, false);
+				if (cost > node.gold || !visited.add(neighbor))
+				{
+					continue;
+				}
+
+				boundary.add(new Node(neighbor, node, node.gold - cost));
+			}
+		}
+
+		return new Result(nearest == null ? List.of() : nearest.path(), expanded);
+	}
+
+	/**
+	 * Fails unless every step of the path is allowed by the map or is a transport
+	 */
+	static void assertValid(CollisionMap map, Map<WorldPoint, List<Transport>> transports, List<WorldPoint> path)
+	{
+		for (int i = 1; i < path.size(); ++i)
+		{
+			WorldPoint from = path.get(i - 1);
+			WorldPoint to = path.get(i);
+			if (!canStep(map, from, to) && transports.getOrDefault(from, List.of()).stream().noneMatch(t -> t.getDestination().equals(to)))
+			{
+				fail("Invalid step from " + from + " to " + to);
+			}
+		}
+	}
+
+	static boolean canStep(CollisionMap map, WorldPoint from, WorldPoint to)
+	{
+		int x = from.getX();
+		int y = from.getY();
+		int plane = from.getPlane();
+		int dx = to.getX() - x;
+		int dy = to.getY() - y;
+		if (to.getPlane() != plane || Math.abs(dx) > 1 || Math.abs(dy) > 1)
+		{
+			return false;
+		}
+
+		switch (dx * 3 + dy)
+		{
+			case -3:
+				return map.w(x, y, plane);
+			case 3:
+				return map.e(x, y, plane);
+			case -1:
+				return map.s(x, y, plane);
+			case 1:
+				return map.n(x, y, plane);
+			case -4:
+				return map.sw(x, y, plane);
+			case 2:
+				return map.se(x, y, plane);
+			case -2:
+				return map.nw(x, y, plane);
+			case 4:
+				return map.ne(x, y, plane);
+			default:
+				return false;
+		}
+	}
+
+	static boolean isInWilderness(WorldPoint point)
+	{
+		return Pathfinder.isInWilderness(WorldPointUtil.pack(point));
+	}
+
+	private static class Node
+	{
+		private final WorldPoint position;
+		private final Node previous;
+		private final int gold;
+
+		private Node(WorldPoint position, Node previous, int gold)
+		{
+			this.position = position;
+			this.previous = previous;
+			this.gold = gold;
+		}
+
+		private List<WorldPoint> path()
+		{
+			Deque<WorldPoint> path = new ArrayDeque<>();
+			for (Node node = this; node != null; node = node.previous)
+			{
+				path.addFirst(node.position);
+			}
+			return new ArrayList<>(path);
+		}
+	}
+
+	static class Result
+	{
+		final List<WorldPoint> path;
+		final int expanded;
+
+		private Result(List<WorldPoint> path, int expanded)
+		{
+			this.path = path;
+			this.expanded = expanded;
+		}
+	}
+}
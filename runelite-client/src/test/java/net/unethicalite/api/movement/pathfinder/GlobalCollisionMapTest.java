@@ -0,0 +1,206 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Round trips the bundled collision data through the legacy format and the memory-mapped cache file.
+ */
+public class GlobalCollisionMapTest
+{
+	private static final long CHECKSUM = 0x1234_5678_9abcL;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static byte[] regions;
+	private static GlobalCollisionMap map;
+
+	@BeforeClass
+	public static void beforeClass()
+	{
+		regions = BenchmarkEnvironment.readRegions();
+		map = new GlobalCollisionMap(regions);
+	}
+
+	@Test
+	public void testLegacyRoundTrip()
+	{
+		byte[] bytes = map.toBytes();
+		assertEquals(regions.length, bytes.length);
+		assertSameMap(map, new GlobalCollisionMap(bytes));
+		assertArrayEquals(bytes, new GlobalCollisionMap(bytes).toBytes());
+	}
+
+	@Test
+	public void testLegacyFormat()
+	{
+		ByteBuffer buffer = ByteBuffer.wrap(regions);
+		while (buffer.hasRemaining())
+		{
+			int region = buffer.getShort() & 0xffff;
+			BitSet4D bits = new BitSet4D(buffer, 64, 64, 4, 2);
+			assertTrue(map.hasRegion(region));
+
+			int baseX = (region >>> 8) << 6;
+			int baseY = (region & 0xff) << 6;
+			for (int z = 0; z < 4; z++)
+			{
+				for (int y = 0; y < 64; y++)
+				{
+					for (int x = 0; x < 64; x++)
+					{
+						assertEquals(bits.get(x, y, z, 0), map.n(baseX + x, baseY + y, z));
+						assertEquals(bits.get(x, y, z, 1), map.e(baseX + x, baseY + y, z));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testWriteAndMap() throws IOException
+	{
+		File file = new File(folder.getRoot(), "collision-map.dat");
+		map.write(file, CHECKSUM);
+
+		GlobalCollisionMap mapped = GlobalCollisionMap.map(file, CHECKSUM);
+		assertNotNull(mapped);
+		assertSameMap(map, mapped);
+		assertArrayEquals(map.toBytes(), mapped.toBytes());
+
+		// the first write moves a mapped map to the heap, and leaves the file alone
+		boolean north = mapped.n(3200, 3200, 0);
+		mapped.set(3200, 3200, 0, 0, !north);
+		assertEquals(!north, mapped.n(3200, 3200, 0));
+		assertSameMap(map, GlobalCollisionMap.map(file, CHECKSUM));
+	}
+
+	@Test
+	public void testMapInvalidFiles() throws IOException
+	{
+		File file = new File(folder.getRoot(), "collision-map.dat");
+		assertNull(GlobalCollisionMap.map(file, CHECKSUM));
+
+		map.write(file, CHECKSUM);
+		assertNull(GlobalCollisionMap.map(file, CHECKSUM + 1));
+
+		// a stale file can be replaced, as it was not mapped
+		map.write(file, CHECKSUM + 1);
+		assertNotNull(GlobalCollisionMap.map(file, CHECKSUM + 1));
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			raf.setLength(raf.length() - 1);
+		}
+		assertNull(GlobalCollisionMap.map(file, CHECKSUM + 1));
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			raf.setLength(16);
+		}
+		assertNull(GlobalCollisionMap.map(file, CHECKSUM + 1));
+
+		map.write(file, CHECKSUM);
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			raf.write(0);
+		}
+		assertNull(GlobalCollisionMap.map(file, CHECKSUM));
+		assertFalse(new File(folder.getRoot(), "collision-map.dat.tmp").exists());
+	}
+
+	@Test
+	public void testConcurrentReads() throws InterruptedException
+	{
+		AtomicReference<GlobalCollisionMap> growing = new AtomicReference<>(new GlobalCollisionMap());
+		AtomicInteger creating = new AtomicInteger();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread reader = new Thread(() ->
+		{
+			try
+			{
+				while (!Thread.currentThread().isInterrupted())
+				{
+					// a region is never seen without its words, which are all set when it is created
+					GlobalCollisionMap map = growing.get();
+					int region = creating.get();
+					for (int y = 0; y < 64 && map.hasRegion(region); y++)
+					{
+						assertTrue(map.n((region >>> 8) << 6, (region & 0xff) << 6 | y, 3));
+					}
+				}
+			}
+			catch (Throwable t)
+			{
+				failure.set(t);
+			}
+		});
+		reader.start();
+
+		for (int round = 0; round < 20 && failure.get() == null; round++)
+		{
+			GlobalCollisionMap replacement = new GlobalCollisionMap();
+			for (int region = 0; region < 2000; region++)
+			{
+				replacement.createRegion(region);
+			}
+
+			// grown a region at a time, then swapped for a complete map
+			GlobalCollisionMap map = new GlobalCollisionMap();
+			growing.set(map);
+			for (int region = 0; region < 2000; region++)
+			{
+				creating.set(region);
+				map.createRegion(region);
+			}
+			map.overwrite(replacement);
+		}
+
+		reader.interrupt();
+		reader.join();
+		assertNull(failure.get());
+	}
+
+	private static void assertSameMap(GlobalCollisionMap expected, GlobalCollisionMap actual)
+	{
+		for (int region = 0; region < 256 * 256; region++)
+		{
+			assertEquals(expected.hasRegion(region), actual.hasRegion(region));
+			if (!expected.hasRegion(region))
+			{
+				continue;
+			}
+
+			int baseX = (region >>> 8) << 6;
+			int baseY = (region & 0xff) << 6;
+			for (int z = 0; z < 4; z++)
+			{
+				for (int y = 0; y < 64; y++)
+				{
+					for (int x = 0; x < 64; x++)
+					{
+						assertEquals(expected.n(baseX + x, baseY + y, z), actual.n(baseX + x, baseY + y, z));
+						assertEquals(expected.e(baseX + x, baseY + y, z), actual.e(baseX + x, baseY + y, z));
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,255 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs queries the way the {@link Walker} does, and checks that coalesced, cached and forced queries give the
+ * paths of a fresh search.
+ */
+public class PathQueryServiceTest
+{
+	private static final int MAX_SEARCH = 5_000_000;
+
+	private static GlobalCollisionMap map;
+	private static TransportIndex transports;
+
+	private final PathQueryService service = new PathQueryService(2, 16);
+
+	@BeforeClass
+	public static void beforeClass()
+	{
+		map = BenchmarkEnvironment.collisionMap();
+		transports = BenchmarkEnvironment.transports();
+	}
+
+	@Test
+	public void testCoalescedQueries() throws Exception
+	{
+		Random random = new Random(11);
+		for (int i = 0; i < 10; ++i)
+		{
+			WorldPoint start = randomTile(random, 2400, 2900, 1000, 900);
+			WorldArea destination = randomTile(random, start.getX() - 80, start.getY() - 80, 160, 160).toWorldArea();
+			PathQueryService.Key key = key(start, destination);
+
+			CountDownLatch started = new CountDownLatch(1);
+			CountDownLatch release = new CountDownLatch(1);
+			AtomicInteger searches = new AtomicInteger();
+			Callable<List<WorldPoint>> search = () ->
+			{
+				searches.incrementAndGet();
+				started.countDown();
+				release.await();
+				return plan(start, destination, false);
+			};
+
+			Future<List<WorldPoint>> first = service.query(key, search, false);
+			started.await();
+			for (int j = 0; j < 5; ++j)
+			{
+				assertSame(first, service.query(key, search, false));
+			}
+			release.countDown();
+
+			assertFollowable(start, destination, service.await(first));
+			assertEquals(1, searches.get());
+		}
+	}
+
+	@Test
+	public void testCachedPaths() throws Exception
+	{
+		Random random = new Random(12);
+		int cached = 0;
+		while (cached < 10)
+		{
+			WorldPoint start = randomTile(random, 2400, 2900, 1000, 900);
+			WorldArea destination = randomTile(random, start.getX() - 80, start.getY() - 80, 160, 160).toWorldArea();
+			PathQueryService.Key key = key(start, destination);
+
+			List<WorldPoint> path = service.await(service.query(key, () -> plan(start, destination, false), false));
+			assertFollowable(start, destination, path);
+			if (path.size() < 10 || destination.distanceTo(path.get(path.size() - 1)) > 0)
+			{
+				continue;
+			}
+			assertSame(path, awaitCached(key, start));
+
+			// further along the path, the player keeps using it even once they are in another region
+			WorldPoint moved = path.get(path.size() / 2);
+			List<WorldPoint> remaining = service.cached(key(moved, destination), moved);
+			assertSame(path, remaining);
+			assertFollowable(moved, destination, remaining);
+			++cached;
+		}
+	}
+
+	@Test
+	public void testForcedQueries() throws Exception
+	{
+		WorldPoint start = new WorldPoint(3222, 3218, 0);
+		WorldArea destination = new WorldArea(3165, 3485, 2, 2, 0);
+		PathQueryService.Key key = key(start, destination);
+
+		CountDownLatch release = new CountDownLatch(1);
+		Future<List<WorldPoint>> abandoned = service.query(key, () ->
+		{
+			release.await();
+			return List.of(start);
+		}, false);
+
+		// nobody waits on the running query, so the forced one replaces and cancels it
+		Future<List<WorldPoint>> forced = service.query(key, () -> plan(start, destination, true), true);
+		assertTrue(abandoned.isCancelled());
+		List<WorldPoint> path = service.await(forced);
+		assertSameAsFreshSearch(start, destination, path);
+		assertSame(path, awaitCached(key, start));
+
+		// a forced query drops the cached path, and its path is cached instead
+		Future<List<WorldPoint>> replaced = service.query(key, () -> plan(start, destination, true), true);
+		List<WorldPoint> replacement = service.await(replaced);
+		assertSameAsFreshSearch(start, destination, replacement);
+		assertSame(replacement, awaitCached(key, start));
+		release.countDown();
+	}
+
+	@Test
+	public void testAlternatingCallers() throws Exception
+	{
+		Random random = new Random(13);
+		for (int i = 0; i < 5; ++i)
+		{
+			// more callers than workers
+			WorldPoint[] players = new WorldPoint[3];
+			WorldArea[] destinations = new WorldArea[3];
+			List<List<WorldPoint>> paths = new ArrayList<>(List.of(List.of(), List.of(), List.of()));
+			for (int caller = 0; caller < 3; ++caller)
+			{
+				players[caller] = randomTile(random, 2400, 2900, 1000, 900);
+				destinations[caller] = randomTile(random, players[caller].getX() - 80, players[caller].getY() - 80, 160, 160).toWorldArea();
+			}
+
+			// the callers' queries land on either worker, each one still continues its own route's search
+			for (int step = 0; step < 9; ++step)
+			{
+				int caller = step % 3;
+				WorldPoint player = players[caller];
+				WorldArea destination = destinations[caller];
+				List<WorldPoint> path = service.await(service.query(key(player, destination), () -> plan(player, destination, false), false));
+				assertFollowable(player, destination, path);
+				if (step >= 3 && !path.isEmpty())
+				{
+					assertSame(paths.get(caller), path);
+				}
+
+				paths.set(caller, path);
+				// walk a few tiles along the path
+				int walked = path.indexOf(player) + 3;
+				if (walked < path.size())
+				{
+					players[caller] = path.get(walked);
+				}
+			}
+		}
+	}
+
+	private static PathQueryService.Key key(WorldPoint player, WorldArea destination)
+	{
+		return PathQueryService.Key.of(player, List.of(), destination, transports, false, map);
+	}
+
+	private List<WorldPoint> plan(WorldPoint start, WorldArea destination, boolean forced)
+	{
+		return service.replanner(key(start, destination)).plan(map, transports, List.of(start), destination, false, forced);
+	}
+
+	/**
+	 * @return the cached path for the key, which is put in the cache just after the query completes
+	 */
+	private List<WorldPoint> awaitCached(PathQueryService.Key key, WorldPoint player) throws InterruptedException
+	{
+		for (int i = 0; i < 100; ++i)
+		{
+			List<WorldPoint> path = service.cached(key, player);
+			if (path != null)
+			{
+				return path;
+			}
+			Thread.sleep(10);
+		}
+
+		List<WorldPoint> path = service.cached(key, player);
+		assertNotNull(path);
+		return path;
+	}
+
+	private static WorldPoint randomTile(Random random, int x, int y, int width, int height)
+	{
+		while (true)
+		{
+			WorldPoint point = new WorldPoint(x + random.nextInt(width), y + random.nextInt(height), 0);
+			if (!map.fullBlock(point.getX(), point.getY(), 0))
+			{
+				return point;
+			}
+		}
+	}
+
+	/**
+	 * Asserts that the path passes by the player, and is as long as a fresh search from there. Queries to the
+	 * same destination continue one search, so a path may start where another player was.
+	 */
+	private static void assertFollowable(WorldPoint player, WorldArea destination, List<WorldPoint> path)
+	{
+		int index = path.indexOf(player);
+		for (int i = 0; i < path.size() && index < 0; ++i)
+		{
+			if (path.get(i).distanceTo(player) <= 2)
+			{
+				index = i;
+			}
+		}
+
+		if (path.isEmpty())
+		{
+			assertSameAsFreshSearch(player, destination, path);
+			return;
+		}
+
+		assertTrue(player + " to " + destination + " does not pass by the player", index >= 0);
+		assertSameAsFreshSearch(path.get(index), destination, path.subList(index, path.size()));
+	}
+
+	private static void assertSameAsFreshSearch(WorldPoint start, WorldArea destination, List<WorldPoint> path)
+	{
+		List<WorldPoint> expected = new Pathfinder(map, transports, List.of(start), destination, false).find(MAX_SEARCH);
+
+		String route = start + " to " + destination;
+		assertEquals(route, expected.isEmpty(), path.isEmpty());
+		if (path.isEmpty())
+		{
+			return;
+		}
+
+		assertEquals(route, start, path.get(0));
+		assertEquals(route, destination.distanceTo(expected.get(expected.size() - 1)), destination.distanceTo(path.get(path.size() - 1)));
+		assertEquals(route, expected.size(), path.size());
+		BreadthFirstSearch.assertValid(map, transports.asMap(), path);
+	}
+}
@@ -0,0 +1,182 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import net.runelite.api.CollisionDataFlag;
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.plugins.unethicalite.regions.TileFlag;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that paths continued by the replanner, after a new destination or a change of the scene collisions,
+ * are as short as those of a fresh search.
+ */
+public class PathReplannerTest
+{
+	private static final int MAX_SEARCH = 5_000_000;
+
+	private static GlobalCollisionMap map;
+	private static TransportIndex transports;
+
+	private final PathReplanner replanner = new PathReplanner();
+
+	@BeforeClass
+	public static void beforeClass()
+	{
+		map = BenchmarkEnvironment.collisionMap();
+		transports = BenchmarkEnvironment.transports();
+	}
+
+	@After
+	public void after()
+	{
+		replanner.dispose();
+	}
+
+	@Test
+	public void testRetarget()
+	{
+		Random random = new Random(7);
+		for (int i = 0; i < 30; ++i)
+		{
+			List<WorldPoint> start = List.of(randomTile(random, 2400, 2900, 1000, 900));
+			WorldPoint first = randomTile(random, start.get(0).getX() - 60, start.get(0).getY() - 60, 120, 120);
+			WorldPoint second = randomTile(random, start.get(0).getX() - 60, start.get(0).getY() - 60, 120, 120);
+			WorldArea destination = new WorldArea(second.getX(), second.getY(), 2, 2, 0);
+
+			assertSameAsFreshSearch(map, start, first.toWorldArea());
+			assertSameAsFreshSearch(map, start, destination);
+		}
+	}
+
+	@Test
+	public void testRepair()
+	{
+		Random random = new Random(8);
+		int repaired = 0;
+		while (repaired < 20)
+		{
+			List<WorldPoint> start = List.of(randomTile(random, 2400, 2900, 1000, 900));
+			WorldPoint target = randomTile(random, start.get(0).getX() - 60, start.get(0).getY() - 60, 120, 120);
+
+			CollisionOverlay overlay = CollisionOverlay.EMPTY;
+			List<WorldPoint> path = assertSameAsFreshSearch(new LayeredCollisionMap(map, overlay), start, target.toWorldArea());
+			if (path.size() < 10)
+			{
+				continue;
+			}
+
+			// put objects on a few tiles of the path, then take them away again
+			List<WorldPoint> blocked = new ArrayList<>();
+			for (int i = 1; i <= 3; ++i)
+			{
+				WorldPoint tile = path.get(i * path.size() / 4);
+				if (tile.getPlane() == 0 && !tile.equals(target))
+				{
+					blocked.add(tile);
+				}
+			}
+
+			CollisionOverlay blocking = overlay.withTileFlags(blockingFlags(blocked), map);
+			assertSameAsFreshSearch(new LayeredCollisionMap(map, blocking), start, target.toWorldArea());
+
+			CollisionOverlay restored = blocking.withTileFlags(restoringFlags(blocked), map);
+			List<WorldPoint> repairedPath = assertSameAsFreshSearch(new LayeredCollisionMap(map, restored), start, target.toWorldArea());
+			assertEquals(path.size(), repairedPath.size());
+			++repaired;
+		}
+	}
+
+	private static WorldPoint randomTile(Random random, int x, int y, int width, int height)
+	{
+		while (true)
+		{
+			WorldPoint point = new WorldPoint(x + random.nextInt(width), y + random.nextInt(height), 0);
+			if (!map.fullBlock(point.getX(), point.getY(), 0))
+			{
+				return point;
+			}
+		}
+	}
+
+	private List<WorldPoint> assertSameAsFreshSearch(CollisionMap collisionMap, List<WorldPoint> start, WorldArea destination)
+	{
+		List<WorldPoint> path = replanner.plan(collisionMap, transports, start, destination, false, false);
+		List<WorldPoint> expected = new Pathfinder(collisionMap, transports, start, destination, false).find(MAX_SEARCH);
+
+		String route = start + " to " + destination;
+		assertEquals(route, expected.isEmpty(), path.isEmpty());
+		if (path.isEmpty())
+		{
+			return path;
+		}
+
+		assertEquals(route, destination.distanceTo(expected.get(expected.size() - 1)), destination.distanceTo(path.get(path.size() - 1)));
+		assertEquals(route, expected.size(), path.size());
+		BreadthFirstSearch.assertValid(collisionMap, transports.asMap(), path);
+		return path;
+	}
+
+	/**
+	 * @return the flags of an object on each of the tiles, which also closes the walls of the tiles west and south of it
+	 */
+	private static List<TileFlag> blockingFlags(List<WorldPoint> tiles)
+	{
+		List<TileFlag> flags = new ArrayList<>();
+		for (WorldPoint tile : tiles)
+		{
+			int x = tile.getX();
+			int y = tile.getY();
+			flags.add(tileFlag(x, y, CollisionDataFlag.BLOCK_MOVEMENT_OBJECT));
+			flags.add(tileFlag(x - 1, y, wallFlags(x - 1, y, false, true)));
+			flags.add(tileFlag(x, y - 1, wallFlags(x, y - 1, true, false)));
+		}
+		return flags;
+	}
+
+	/**
+	 * @return the flags of the tiles and their west and south neighbours as the map has them
+	 */
+	private static List<TileFlag> restoringFlags(List<WorldPoint> tiles)
+	{
+		List<TileFlag> flags = new ArrayList<>();
+		for (WorldPoint tile : tiles)
+		{
+			int x = tile.getX();
+			int y = tile.getY();
+			flags.add(tileFlag(x, y, wallFlags(x, y, false, false)));
+			flags.add(tileFlag(x - 1, y, wallFlags(x - 1, y, false, false)));
+			flags.add(tileFlag(x, y - 1, wallFlags(x, y - 1, false, false)));
+		}
+		return flags;
+	}
+
+	/**
+	 * @return the walls of the tile on the map, and those on the sides to close
+	 */
+	private static int wallFlags(int x, int y, boolean closeNorth, boolean closeEast)
+	{
+		int flags = 0;
+		if (closeNorth || !map.n(x, y, 0))
+		{
+			flags |= CollisionDataFlag.BLOCK_MOVEMENT_NORTH;
+		}
+		if (closeEast || !map.e(x, y, 0))
+		{
+			flags |= CollisionDataFlag.BLOCK_MOVEMENT_EAST;
+		}
+		return flags;
+	}
+
+	private static TileFlag tileFlag(int x, int y, int flag)
+	{
+		return new TileFlag(x, y, 0, flag, (x >> 6) << 8 | y >> 6);
+	}
+}
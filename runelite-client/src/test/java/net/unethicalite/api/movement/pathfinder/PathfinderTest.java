@@ -0,0 +1,213 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+import net.unethicalite.api.movement.pathfinder.model.CharterShipLocation;
+import net.unethicalite.api.movement.pathfinder.model.Transport;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the A* search with the breadth-first search it replaced, on the bundled collision map and transports.
+ * Both have to agree on whether the target is reachable and on the length of the path.
+ */
+public class PathfinderTest
+{
+	private static final int MAX_SEARCH = 5_000_000;
+	private static final int ROUTING_DISTANCE = 128;
+	// The routes of the PathfinderBenchmark with a reachable target, from a castle staircase to across the map
+	private static final WorldPoint[][] WALKS = {
+		{new WorldPoint(3222, 3218, 0), new WorldPoint(3208, 3220, 2)},
+		{new WorldPoint(3093, 3244, 0), new WorldPoint(3094, 3491, 0)},
+		{new WorldPoint(3222, 3218, 0), new WorldPoint(3213, 3424, 0)},
+		{new WorldPoint(3164, 3486, 0), new WorldPoint(3293, 3174, 0)},
+		{new WorldPoint(2662, 3305, 0), new WorldPoint(2606, 3093, 0)},
+		{new WorldPoint(2964, 3378, 0), new WorldPoint(2809, 3436, 0)},
+		{new WorldPoint(3222, 3218, 0), new WorldPoint(2662, 3305, 0)},
+	};
+
+	private static CollisionMap map;
+	private static TransportIndex transports;
+
+	@BeforeClass
+	public static void beforeClass()
+	{
+		map = BenchmarkEnvironment.collisionMap();
+		transports = BenchmarkEnvironment.transports();
+	}
+
+	@Test
+	public void testRoutes()
+	{
+		// around Lumbridge, Draynor, Varrock and Falador, close enough that the region graph is not used
+		Random random = new Random(1);
+		for (int i = 0; i < 40; ++i)
+		{
+			WorldPoint start = randomTile(random, 2940, 3150, 340, 360);
+			WorldPoint target = randomTile(random, start.getX() - 100, start.getY() - 100, 200, 200);
+			assertSameAsBreadthFirstSearch(transports, start, target.toWorldArea(), false, 0);
+		}
+	}
+
+	@Test
+	public void testExpandedNodes()
+	{
+		// the heuristic and, for the long walks, the region graph save an order of magnitude of the nodes
+		long expanded = 0;
+		long breadthFirstExpanded = 0;
+		for (boolean avoidWilderness : new boolean[]{false, true})
+		{
+			for (WorldPoint[] walk : WALKS)
+			{
+				WorldArea target = walk[1].toWorldArea();
+				Pathfinder pathfinder = new Pathfinder(map, transports, List.of(walk[0]), target, avoidWilderness);
+				List<WorldPoint> path = pathfinder.find(MAX_SEARCH);
+				BreadthFirstSearch.Result expected = BreadthFirstSearch.search(map, transports.asMap(), walk[0], target, avoidWilderness, 0);
+				if (walk[0].distanceTo(walk[1]) > ROUTING_DISTANCE)
+				{
+					// routes over the region graph may be a few tiles longer, see RegionRouterTest
+					String route = walk[0] + " to " + target + ": " + path.size() + " tiles, the shortest path is " + expected.path.size();
+					assertTrue(route, path.size() >= expected.path.size() && path.size() <= expected.path.size() + expected.path.size() / 100 + 2);
+				}
+				else
+				{
+					assertSamePath(walk[0], target, expected.path, path);
+				}
+				BreadthFirstSearch.assertValid(map, transports.asMap(), path);
+
+				expanded += pathfinder.getExpanded();
+				breadthFirstExpanded += expected.expanded;
+			}
+		}
+
+		assertTrue(expanded + " of " + breadthFirstExpanded + " nodes expanded", expanded * 10 <= breadthFirstExpanded);
+	}
+
+	@Test
+	public void testAreaTargets()
+	{
+		Random random = new Random(2);
+		for (int i = 0; i < 20; ++i)
+		{
+			WorldPoint start = randomTile(random, 3150, 3150, 150, 150);
+			WorldArea target = new WorldArea(start.getX() - 60 + random.nextInt(120), start.getY() - 60 + random.nextInt(120), 1 + random.nextInt(4), 1 + random.nextInt(4), 0);
+			if (target.toWorldPointList().stream().allMatch(map::fullBlock))
+			{
+				continue;
+			}
+
+			assertSameAsBreadthFirstSearch(transports, start, target, false, 0);
+		}
+	}
+
+	@Test
+	public void testAvoidWilderness()
+	{
+		// from Ice Mountain to Edgeville, the shortest path goes north of the wilderness ditch
+		WorldPoint start = new WorldPoint(2993, 3491, 0);
+		WorldPoint target = new WorldPoint(3087, 3505, 0);
+		List<WorldPoint> direct = assertSameAsBreadthFirstSearch(transports, start, target.toWorldArea(), false, 0);
+		List<WorldPoint> avoiding = assertSameAsBreadthFirstSearch(transports, start, target.toWorldArea(), true, 0);
+		assertTrue(direct.stream().anyMatch(BreadthFirstSearch::isInWilderness));
+		assertTrue(avoiding.stream().noneMatch(BreadthFirstSearch::isInWilderness));
+		assertTrue(avoiding.size() > direct.size());
+
+		// either side of the ditch, between Burthorpe and Edgeville
+		Random random = new Random(3);
+		for (int i = 0; i < 30; ++i)
+		{
+			start = randomTile(random, 2850, 3440, 250, 160);
+			target = randomTile(random, 2850, 3440, 250, 160);
+			List<WorldPoint> path = assertSameAsBreadthFirstSearch(transports, start, target.toWorldArea(), true, 0);
+
+			if (!BreadthFirstSearch.isInWilderness(start) && !BreadthFirstSearch.isInWilderness(target))
+			{
+				for (WorldPoint tile : path)
+				{
+					assertFalse(start + " to " + target + " passes through the wilderness at " + tile, BreadthFirstSearch.isInWilderness(tile));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCharterShipGold()
+	{
+		WorldPoint dock = CharterShipLocation.PORT_SARIM_DOCK.getWorldPoint();
+		WorldPoint ship = CharterShipLocation.BRIMHAVEN_SHIP.getWorldPoint();
+		int fare = CharterShipLocation.getCharterShipCost(dock, ship, false);
+		assertTrue(fare > 0);
+
+		List<Transport> list = new ArrayList<>();
+		transports.asMap().values().forEach(list::addAll);
+		list.add(new Transport(dock, ship, 0, 0, () ->
+		{
+		}));
+		TransportIndex withCharter = TransportIndex.of(list);
+
+		// Port Sarim, a few tiles from the dock
+		WorldPoint start = new WorldPoint(3031, 3200, 0);
+		List<WorldPoint> paid = assertSameAsBreadthFirstSearch(withCharter, start, ship.toWorldArea(), false, fare);
+		assertTrue(takesTransport(paid, dock, ship));
+
+		List<WorldPoint> unpaid = assertSameAsBreadthFirstSearch(withCharter, start, ship.toWorldArea(), false, fare - 1);
+		assertFalse(takesTransport(unpaid, dock, ship));
+	}
+
+	private static WorldPoint randomTile(Random random, int x, int y, int width, int height)
+	{
+		while (true)
+		{
+			WorldPoint point = new WorldPoint(x + random.nextInt(width), y + random.nextInt(height), 0);
+			if (!map.fullBlock(point.getX(), point.getY(), 0))
+			{
+				return point;
+			}
+		}
+	}
+
+	private static List<WorldPoint> assertSameAsBreadthFirstSearch(TransportIndex transports, WorldPoint start, WorldArea target, boolean avoidWilderness, int gold)
+	{
+		Pathfinder pathfinder = new Pathfinder(map, transports, List.of(start), target, avoidWilderness);
+		pathfinder.setGoldAvailable(gold);
+		List<WorldPoint> path = pathfinder.find(MAX_SEARCH);
+		List<WorldPoint> expected = BreadthFirstSearch.find(map, transports.asMap(), start, target, avoidWilderness, gold);
+		assertSamePath(start, target, expected, path);
+		BreadthFirstSearch.assertValid(map, transports.asMap(), path);
+		return path;
+	}
+
+	private static void assertSamePath(WorldPoint start, WorldArea target, List<WorldPoint> expected, List<WorldPoint> path)
+	{
+		String route = start + " to " + target;
+		assertEquals(route, expected.isEmpty(), path.isEmpty());
+		if (path.isEmpty())
+		{
+			return;
+		}
+
+		assertEquals(route, start, path.get(0));
+		assertEquals(route, target.distanceTo(expected.get(expected.size() - 1)), target.distanceTo(path.get(path.size() - 1)));
+		assertEquals(route, expected.size(), path.size());
+	}
+
+	private static boolean takesTransport(List<WorldPoint> path, WorldPoint source, WorldPoint destination)
+	{
+		for (int i = 1; i < path.size(); ++i)
+		{
+			if (path.get(i - 1).equals(source) && path.get(i).equals(destination))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,97 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares searches routed over the region graph with a breadth-first search of the whole map. Routes only
+ * sample the region borders, so a routed path may be a few tiles longer than the shortest one, but it has to
+ * reach the target whenever the target can be reached at all.
+ */
+public class RegionRouterTest
+{
+	private static final int MAX_SEARCH = 5_000_000;
+
+	private static CollisionMap map;
+	private static TransportIndex transports;
+
+	@BeforeClass
+	public static void beforeClass()
+	{
+		map = BenchmarkEnvironment.collisionMap();
+		transports = BenchmarkEnvironment.transports();
+	}
+
+	@Test
+	public void testRoutedPaths()
+	{
+		// from Al Kharid to the Fremennik Province, far enough apart that the region graph is used
+		Random random = new Random(1);
+		int routes = 0;
+		while (routes < 12)
+		{
+			WorldPoint start = randomTile(random);
+			WorldPoint target = randomTile(random);
+			int distance = start.distanceTo(target);
+			if (distance < 200 || distance > 700)
+			{
+				continue;
+			}
+
+			assertCloseToBreadthFirstSearch(start, target, false);
+			++routes;
+		}
+	}
+
+	@Test
+	public void testRoutedPathsAvoidingWilderness()
+	{
+		// between Varrock and Seers' Village, around the wilderness
+		assertCloseToBreadthFirstSearch(new WorldPoint(3212, 3428, 0), new WorldPoint(2725, 3485, 0), true);
+		assertCloseToBreadthFirstSearch(new WorldPoint(3087, 3505, 0), new WorldPoint(2804, 3434, 0), true);
+	}
+
+	private static WorldPoint randomTile(Random random)
+	{
+		while (true)
+		{
+			WorldPoint point = new WorldPoint(2600 + random.nextInt(800), 2900 + random.nextInt(900), 0);
+			if (!map.fullBlock(point.getX(), point.getY(), 0))
+			{
+				return point;
+			}
+		}
+	}
+
+	private static void assertCloseToBreadthFirstSearch(WorldPoint start, WorldPoint target, boolean avoidWilderness)
+	{
+		Pathfinder pathfinder = new Pathfinder(map, transports, List.of(start), target.toWorldArea(), avoidWilderness);
+		List<WorldPoint> path = pathfinder.find(MAX_SEARCH);
+		List<WorldPoint> expected = BreadthFirstSearch.find(map, transports.asMap(), start, target.toWorldArea(), avoidWilderness, 0);
+
+		String route = start + " to " + target;
+		assertEquals(route, expected.isEmpty(), path.isEmpty());
+		if (path.isEmpty())
+		{
+			return;
+		}
+
+		assertEquals(route, start, path.get(0));
+		assertEquals(route, target.distanceTo(expected.get(expected.size() - 1)), target.distanceTo(path.get(path.size() - 1)));
+		assertTrue(route + ": " + path.size() + " tiles, the shortest path is " + expected.size(),
+			path.size() >= expected.size() && path.size() <= expected.size() + expected.size() / 100 + 2);
+		BreadthFirstSearch.assertValid(map, transports.asMap(), path);
+
+		if (avoidWilderness)
+		{
+			assertTrue(route, path.stream().noneMatch(BreadthFirstSearch::isInWilderness));
+		}
+	}
+}
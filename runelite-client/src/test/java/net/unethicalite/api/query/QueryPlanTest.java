@@ -0,0 +1,153 @@
+package net.unethicalite.api.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class QueryPlanTest
+{
+	@Test
+	public void testOrder()
+	{
+		List<String> tested = new ArrayList<>();
+		QueryPlan<Object> plan = new QueryPlan.Builder<>()
+				.add(QueryPlan.Cost.CUSTOM, condition(tested, "custom 1", true))
+				.add(QueryPlan.Cost.NAME, condition(tested, "name", true))
+				.add(QueryPlan.Cost.DEFINITION, condition(tested, "definition", true))
+				.add(QueryPlan.Cost.ID, condition(tested, "id", true))
+				.add(QueryPlan.Cost.CUSTOM, condition(tested, "custom 2", true))
+				.add(QueryPlan.Cost.STATE, condition(tested, "state 1", true))
+				.add(QueryPlan.Cost.LOCATION, condition(tested, "location", true))
+				.add(QueryPlan.Cost.STATE, condition(tested, "state 2", true))
+				.add(QueryPlan.Cost.ACTIONS, condition(tested, "actions", true))
+				.build();
+
+		assertTrue(plan.test(new Object()));
+		// by cost, and in the order they were added when the cost is the same
+		assertEquals(Arrays.asList("id", "location", "state 1", "state 2", "name", "actions", "definition", "custom 1", "custom 2"), tested);
+	}
+
+	@Test
+	public void testFirstFailureStops()
+	{
+		List<String> tested = new ArrayList<>();
+		QueryPlan<Object> plan = new QueryPlan.Builder<>()
+				.add(QueryPlan.Cost.CUSTOM, condition(tested, "custom", true))
+				.add(QueryPlan.Cost.STATE, condition(tested, "state", false))
+				.add(QueryPlan.Cost.ID, condition(tested, "id", true))
+				.build();
+
+		assertFalse(plan.test(new Object()));
+		assertEquals(Arrays.asList("id", "state"), tested);
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		assertTrue(new QueryPlan.Builder<>().build().test(new Object()));
+	}
+
+	@Test
+	public void testInInts()
+	{
+		// few enough to compare each, ids which fit a bit set, and values which do not
+		assertIn(new int[]{5});
+		assertIn(new int[]{-1, 3, 3, 7});
+		assertIn(new int[]{995, 1, 4151, 0, 12_000, 562, 100_000});
+		assertIn(new int[]{-5, 10, 20, 30, 40});
+		assertIn(new int[]{1 << 20, 7, 8, 9, 10});
+		assertIn(new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE, 0, 1, 2});
+
+		Random random = new Random(1);
+		for (int i = 0; i < 50; ++i)
+		{
+			int[] values = new int[1 + random.nextInt(40)];
+			int bound = random.nextBoolean() ? 1 << 17 : Integer.MAX_VALUE;
+			for (int j = 0; j < values.length; ++j)
+			{
+				values[j] = random.nextInt(bound) - (random.nextInt(10) == 0 ? bound / 2 : 0);
+			}
+			assertIn(values);
+		}
+	}
+
+	@Test
+	public void testInIntsCopies()
+	{
+		int[] values = {1, 2, 3, 4, 5, 6};
+		IntPredicate in = QueryPlan.in(values);
+		values[0] = 100;
+		assertTrue(in.test(1));
+		assertFalse(in.test(100));
+	}
+
+	@Test
+	public void testInObjects()
+	{
+		Predicate<Object> one = QueryPlan.in(new Object[]{"Banker"});
+		assertTrue(one.test("Banker"));
+		assertFalse(one.test("banker"));
+		assertFalse(one.test(null));
+
+		Predicate<Object> many = QueryPlan.in(new Object[]{"Banker", null, "Guard"});
+		assertTrue(many.test("Guard"));
+		assertTrue(many.test(null));
+		assertFalse(many.test("Man"));
+
+		Predicate<Object> nothing = QueryPlan.in(new Object[0]);
+		assertFalse(nothing.test("Banker"));
+		assertFalse(nothing.test(null));
+	}
+
+	@Test
+	public void testContainsAny()
+	{
+		Predicate<String[]> bank = QueryPlan.containsAny(new String[]{"Bank", "Collect"});
+		assertTrue(bank.test(new String[]{"Talk-to", null, "Bank", null, null}));
+		assertTrue(bank.test(new String[]{"Collect"}));
+		assertFalse(bank.test(new String[]{"Talk-to", null, "bank"}));
+		assertFalse(bank.test(new String[0]));
+		assertFalse(bank.test(null));
+
+		// nulls in the actions never match, even when null is one of the values
+		Predicate<String[]> withNull = QueryPlan.containsAny(new String[]{null});
+		assertFalse(withNull.test(new String[]{null, null}));
+		Predicate<String[]> withNulls = QueryPlan.containsAny(new String[]{null, "Bank"});
+		assertFalse(withNulls.test(new String[]{null, "Talk-to"}));
+		assertTrue(withNulls.test(new String[]{null, "Bank"}));
+	}
+
+	private static Predicate<Object> condition(List<String> tested, String name, boolean result)
+	{
+		return t ->
+		{
+			tested.add(name);
+			return result;
+		};
+	}
+
+	private static void assertIn(int[] values)
+	{
+		IntPredicate in = QueryPlan.in(values);
+		for (int v : values)
+		{
+			assertTrue(Arrays.toString(values) + " " + v, in.test(v));
+			for (int near : new int[]{v - 1, v + 1, -v, v >>> 1})
+			{
+				assertEquals(Arrays.toString(values) + " " + near, Arrays.stream(values).anyMatch(x -> x == near), in.test(near));
+			}
+		}
+
+		for (int v : new int[]{Integer.MIN_VALUE, -1, 0, 1 << 17, (1 << 17) - 1, Integer.MAX_VALUE})
+		{
+			assertEquals(Arrays.toString(values) + " " + v, Arrays.stream(values).anyMatch(x -> x == v), in.test(v));
+		}
+	}
+}
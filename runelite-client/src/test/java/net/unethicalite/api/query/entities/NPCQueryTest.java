@@ -0,0 +1,69 @@
+package net.unethicalite.api.query.entities;
+
+import java.util.List;
+import net.runelite.api.NPC;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NPCQueryTest
+{
+	private final NPC guard = npc(21, 808);
+	private final NPC goblin = npc(2, -1);
+	private final NPC man = npc(2, 422);
+	private final List<NPC> npcs = List.of(guard, goblin, man);
+
+	@Test
+	public void testLevels()
+	{
+		assertEquals(List.of(goblin, man), query().levels(2).results().list());
+		assertEquals(List.of(guard, goblin, man), query().levels(2, 21).results().list());
+		assertTrue(query().levels(3).results().isEmpty());
+	}
+
+	@Test
+	public void testAnimations()
+	{
+		assertEquals(List.of(guard), query().animations(808).results().list());
+		assertEquals(List.of(guard, man), query().animations(808, 422, 1, 2, 3).results().list());
+		assertEquals(List.of(man), query().levels(2).animations(422).results().list());
+	}
+
+	@Test
+	public void testFirst()
+	{
+		assertSame(goblin, query().levels(2).first());
+		assertNull(query().levels(2).animations(808).first());
+	}
+
+	@Test
+	public void testChanged()
+	{
+		// the plan is compiled the first time the query is run, then again after the query is changed
+		NPCQuery query = query().levels(21);
+		assertTrue(query.test(guard));
+		assertFalse(query.test(man));
+
+		query.levels(2);
+		assertFalse(query.test(guard));
+		assertTrue(query.test(man));
+	}
+
+	private NPCQuery query()
+	{
+		return new NPCQuery(() -> npcs);
+	}
+
+	private static NPC npc(int level, int animation)
+	{
+		NPC npc = mock(NPC.class);
+		when(npc.getCombatLevel()).thenReturn(level);
+		when(npc.getAnimation()).thenReturn(animation);
+		return npc;
+	}
+}
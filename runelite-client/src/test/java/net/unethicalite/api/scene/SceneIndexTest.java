@@ -0,0 +1,192 @@
+package net.unethicalite.api.scene;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import net.runelite.api.Constants;
+import net.runelite.api.Point;
+import net.runelite.api.Tile;
+import net.runelite.api.coords.WorldPoint;
+import net.unethicalite.api.SceneEntity;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the searches of the index with a scan of every entity which was added and not removed.
+ */
+public class SceneIndexTest
+{
+	private static final int BASE_X = 3136;
+	private static final int BASE_Y = 3136;
+	private static final int SIZE = Constants.SCENE_SIZE;
+
+	private final Random random = new Random(1);
+	private final SceneIndex<SceneEntity> index = new SceneIndex<>();
+	private final List<SceneEntity> entities = new ArrayList<>();
+	private final Map<SceneEntity, Tile> spawnedOn = new HashMap<>();
+	private final Map<Integer, Tile> tiles = new HashMap<>();
+
+	@Before
+	public void before()
+	{
+		for (int i = 0; i < 1500; ++i)
+		{
+			int x = random.nextInt(SIZE);
+			int y = random.nextInt(SIZE);
+			int plane = random.nextInt(2);
+			// some are larger than a tile, and their location is not the tile they were spawned on
+			int offset = random.nextInt(10) == 0 ? random.nextInt(3) : 0;
+			add(tile(x, y, plane), random.nextInt(20), new WorldPoint(BASE_X + Math.min(SIZE - 1, x + offset), BASE_Y + y, plane));
+		}
+	}
+
+	@Test
+	public void testGetNearest()
+	{
+		for (int i = 0; i < 500; ++i)
+		{
+			// including points outside of the scene
+			int sceneX = random.nextInt(SIZE + 40) - 20;
+			int sceneY = random.nextInt(SIZE + 40) - 20;
+			int plane = random.nextInt(2);
+			WorldPoint to = new WorldPoint(BASE_X + sceneX, BASE_Y + sceneY, plane);
+			int id = random.nextInt(20);
+
+			SceneEntity nearest = index.getNearest(plane, sceneX, sceneY, to, e -> e.getId() == id);
+
+			double expected = Double.MAX_VALUE;
+			for (SceneEntity entity : entities)
+			{
+				if (spawnedOn.get(entity).getPlane() == plane && entity.getId() == id)
+				{
+					expected = Math.min(expected, entity.getWorldLocation().distanceToHypotenuse(to));
+				}
+			}
+
+			if (expected == Double.MAX_VALUE)
+			{
+				assertNull(nearest);
+			}
+			else
+			{
+				assertEquals(to.toString(), expected, nearest.getWorldLocation().distanceToHypotenuse(to), 0);
+			}
+		}
+	}
+
+	@Test
+	public void testGetNearestNoMatch()
+	{
+		assertNull(index.getNearest(0, 50, 50, new WorldPoint(BASE_X + 50, BASE_Y + 50, 0), e -> false));
+		assertNull(index.getNearest(2, 50, 50, new WorldPoint(BASE_X + 50, BASE_Y + 50, 2), e -> true));
+	}
+
+	@Test
+	public void testGetWithin()
+	{
+		for (int i = 0; i < 500; ++i)
+		{
+			int sceneX = random.nextInt(SIZE + 40) - 20;
+			int sceneY = random.nextInt(SIZE + 40) - 20;
+			int plane = random.nextInt(2);
+			int distance = random.nextInt(16);
+			WorldPoint to = new WorldPoint(BASE_X + sceneX, BASE_Y + sceneY, plane);
+
+			Set<SceneEntity> within = new HashSet<>(index.getWithin(plane, sceneX, sceneY, distance));
+			for (SceneEntity entity : entities)
+			{
+				if (spawnedOn.get(entity).getPlane() == plane && to.distanceTo(entity.getWorldLocation()) <= distance)
+				{
+					assertTrue(to + " " + distance, within.contains(entity));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testGetSurrounding()
+	{
+		int sceneX = 20;
+		int sceneY = 30;
+		int radius = 5;
+		Set<SceneEntity> surrounding = new HashSet<>(index.getSurrounding(0, sceneX, sceneY, radius));
+
+		Set<SceneEntity> expected = new HashSet<>();
+		for (SceneEntity entity : entities)
+		{
+			Tile tile = spawnedOn.get(entity);
+			Point scene = tile.getSceneLocation();
+			if (tile.getPlane() == 0 && Math.abs(scene.getX() - sceneX) <= radius && Math.abs(scene.getY() - sceneY) <= radius)
+			{
+				expected.add(entity);
+			}
+		}
+		assertEquals(expected, surrounding);
+	}
+
+	@Test
+	public void testRemove()
+	{
+		List<SceneEntity> removed = new ArrayList<>();
+		for (int i = 0; i < 700; ++i)
+		{
+			SceneEntity entity = entities.remove(random.nextInt(entities.size()));
+			index.remove(spawnedOn.get(entity), entity);
+			removed.add(entity);
+		}
+
+		Set<SceneEntity> all = new HashSet<>(index.getAll(0));
+		all.addAll(index.getAll(1));
+		assertEquals(new HashSet<>(entities), all);
+
+		// the nearest of what is left, never one which was removed
+		for (SceneEntity entity : removed)
+		{
+			Tile tile = spawnedOn.get(entity);
+			Point scene = tile.getSceneLocation();
+			SceneEntity nearest = index.getNearest(tile.getPlane(), scene.getX(), scene.getY(), entity.getWorldLocation(), e -> true);
+			assertFalse(removed.contains(nearest));
+		}
+
+		// removing an entity which is not there does nothing
+		index.remove(spawnedOn.get(removed.get(0)), removed.get(0));
+		assertEquals(entities.size(), index.getAll(0).size() + index.getAll(1).size());
+
+		index.clear();
+		assertTrue(index.getAll(0).isEmpty());
+		assertTrue(index.getAll(1).isEmpty());
+		assertNull(index.getNearest(0, 50, 50, new WorldPoint(BASE_X + 50, BASE_Y + 50, 0), e -> true));
+	}
+
+	private void add(Tile tile, int id, WorldPoint location)
+	{
+		SceneEntity entity = mock(SceneEntity.class);
+		when(entity.getId()).thenReturn(id);
+		when(entity.getWorldLocation()).thenReturn(location);
+		index.add(tile, entity);
+		entities.add(entity);
+		spawnedOn.put(entity, tile);
+	}
+
+	private Tile tile(int x, int y, int plane)
+	{
+		return tiles.computeIfAbsent((plane * SIZE + x) * SIZE + y, k ->
+		{
+			Tile tile = mock(Tile.class);
+			when(tile.getSceneLocation()).thenReturn(new Point(x, y));
+			when(tile.getPlane()).thenReturn(plane);
+			when(tile.getWorldLocation()).thenReturn(new WorldPoint(BASE_X + x, BASE_Y + y, plane));
+			return tile;
+		});
+	}
+}
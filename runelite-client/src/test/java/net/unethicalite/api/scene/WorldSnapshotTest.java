@@ -0,0 +1,271 @@
+package net.unethicalite.api.scene;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import net.runelite.api.Client;
+import net.runelite.api.Constants;
+import net.runelite.api.GameObject;
+import net.runelite.api.HashTable;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.NPC;
+import net.runelite.api.Player;
+import net.runelite.api.Scene;
+import net.runelite.api.Tile;
+import net.runelite.api.TileItem;
+import net.runelite.api.WidgetNode;
+import net.runelite.api.coords.WorldPoint;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WorldSnapshotTest
+{
+	private static final WorldPoint LOCATION = new WorldPoint(3200, 3200, 0);
+
+	@Mock
+	private Client client;
+
+	@Mock
+	private Scene scene;
+
+	@Mock
+	private HashTable<WidgetNode> componentTable;
+
+	private final Tile[][][] tiles = new Tile[Constants.MAX_Z][Constants.SCENE_SIZE][Constants.SCENE_SIZE];
+	private volatile List<NPC> npcs = Collections.emptyList();
+	private List<WidgetNode> interfaces = Collections.emptyList();
+	private int[] varps = new int[8];
+	private int tick;
+
+	@Before
+	public void before()
+	{
+		lenient().when(client.getNpcs()).thenAnswer(i -> npcs);
+		lenient().when(client.getPlayers()).thenReturn(Collections.emptyList());
+		lenient().when(client.getScene()).thenReturn(scene);
+		lenient().when(scene.getTiles()).thenReturn(tiles);
+		lenient().when(client.getVarps()).thenAnswer(i -> varps);
+		lenient().when(client.getComponentTable()).thenReturn(componentTable);
+		lenient().when(componentTable.iterator()).thenAnswer(i -> interfaces.iterator());
+		lenient().when(client.getTickCount()).thenAnswer(i -> tick);
+		lenient().when(client.isTileObjectValid(any(Tile.class), any(GameObject.class))).thenReturn(true);
+	}
+
+	@Test
+	public void testCapture()
+	{
+		NPC banker = npc(1, LOCATION);
+		NPC guard = npc(2, LOCATION.dx(1));
+		npcs = List.of(banker, guard);
+
+		Player player = mock(Player.class);
+		when(player.getWorldLocation()).thenReturn(LOCATION);
+		when(client.getPlayers()).thenReturn(List.of(player));
+
+		GameObject booth = mock(GameObject.class);
+		when(booth.getId()).thenReturn(10);
+		TileItem coins = mock(TileItem.class);
+		when(coins.getId()).thenReturn(995);
+		Tile tile = mock(Tile.class);
+		when(tile.getWorldLocation()).thenReturn(LOCATION.dy(1));
+		when(tile.getGameObjects()).thenReturn(new GameObject[]{booth, null});
+		when(tile.getGroundItems()).thenReturn(List.of(coins));
+		tiles[0][50][51] = tile;
+
+		Item[] items = {new Item(995, 100), new Item(-1, 0)};
+		ItemContainer inventory = mock(ItemContainer.class);
+		when(inventory.getItems()).thenReturn(items);
+		when(client.getItemContainer(InventoryID.INVENTORY)).thenReturn(inventory);
+
+		interfaces = List.of(widgetNode(149), widgetNode(12));
+		varps[3] = 0b1011_0000;
+		tick = 7;
+
+		WorldSnapshot snapshot = new WorldSnapshot.Pool(2).capture(client);
+
+		assertEquals(7, snapshot.getTick());
+		assertEquals(0, snapshot.getPlane());
+		assertEquals(List.of(banker, guard), snapshot.getNpcs());
+		assertEquals(List.of(guard), snapshot.getNpcs(2, 3));
+		assertEquals(List.of(player), snapshot.getPlayers());
+		assertEquals(List.of(booth), snapshot.getTileObjects());
+		assertEquals(List.of(booth), snapshot.getTileObjectsAt(LOCATION.dy(1)));
+		assertTrue(snapshot.getTileObjectsAt(LOCATION).isEmpty());
+		assertEquals(List.of(coins), snapshot.getTileItems(995));
+		assertEquals(List.of(coins), snapshot.getTileItemsAt(LOCATION.dy(1)));
+		assertEquals(List.of(items), snapshot.getInventory());
+		assertEquals(0b1011_0000, snapshot.getVarp(3));
+		assertTrue(snapshot.isInterfaceOpen(12));
+		assertTrue(snapshot.isInterfaceOpen(149));
+		assertFalse(snapshot.isInterfaceOpen(13));
+
+		// the snapshot is a copy, so it does not change with the client
+		npcs = List.of(guard);
+		varps[3] = 0;
+		assertEquals(List.of(banker, guard), snapshot.getNpcs());
+		assertEquals(0b1011_0000, snapshot.getVarp(3));
+	}
+
+	@Test
+	public void testValidity()
+	{
+		WorldSnapshot.Pool pool = new WorldSnapshot.Pool(2);
+		npcs = List.of(npc(1, LOCATION));
+		WorldSnapshot first = pool.capture(client);
+		List<NPC> firstNpcs = first.getNpcs();
+		WorldSnapshot second = pool.capture(client);
+
+		// the first snapshot can still be read after it has been replaced, until its frame is reused
+		assertTrue(first.isValid());
+		assertTrue(second.isValid());
+		assertEquals(1, firstNpcs.size());
+		assertEquals(npcs, firstNpcs);
+
+		WorldSnapshot third = pool.capture(client);
+		assertFalse(first.isValid());
+		assertTrue(second.isValid());
+		assertTrue(third.isValid());
+
+		assertInvalid(first::getNpcs);
+		assertInvalid(() -> first.getNpcs(1));
+		assertInvalid(() -> first.getTileObjectsAt(LOCATION));
+		assertInvalid(() -> firstNpcs.get(0));
+		assertInvalid(() -> first.getVarp(0));
+		assertInvalid(first::getInventory);
+		assertInvalid(() -> first.isInterfaceOpen(0));
+	}
+
+	@Test
+	public void testReuse()
+	{
+		WorldSnapshot.Pool pool = new WorldSnapshot.Pool(1);
+		NPC old = npc(1, LOCATION);
+		npcs = List.of(old);
+		WorldSnapshot first = pool.capture(client);
+
+		// more npcs than the arrays were first sized for, so they are grown
+		List<NPC> more = new ArrayList<>();
+		for (int i = 0; i < 100; ++i)
+		{
+			more.add(npc(2, LOCATION.dx(i)));
+		}
+		npcs = more;
+		++tick;
+		WorldSnapshot second = pool.capture(client);
+
+		assertFalse(first.isValid());
+		assertEquals(more, second.getNpcs());
+		assertEquals(more, second.getNpcs(2));
+		assertTrue(second.getNpcs(1).isEmpty());
+
+		// and then fewer, so nothing of the previous snapshot is left in the arrays
+		npcs = List.of(old);
+		++tick;
+		WorldSnapshot third = pool.capture(client);
+		assertEquals(List.of(old), third.getNpcs());
+		assertTrue(third.getNpcs(2).isEmpty());
+	}
+
+	@Test
+	public void testConcurrentReads() throws InterruptedException
+	{
+		// a different number of npcs each tick, all with the tick as their id
+		List<List<NPC>> ticks = new ArrayList<>();
+		for (int i = 0; i < 16; ++i)
+		{
+			NPC npc = npc(i, LOCATION);
+			ticks.add(Collections.nCopies(1 + i * 7 % 16 * 8, npc));
+		}
+
+		WorldSnapshot.Pool pool = new WorldSnapshot.Pool(2);
+		AtomicReference<WorldSnapshot> latest = new AtomicReference<>();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread reader = new Thread(() ->
+		{
+			try
+			{
+				while (!Thread.currentThread().isInterrupted())
+				{
+					WorldSnapshot snapshot = latest.get();
+					if (snapshot == null)
+					{
+						continue;
+					}
+
+					try
+					{
+						// a read which overlaps a capture either fails or sees one tick, never a mix of two
+						int all = snapshot.getNpcs().size();
+						int ofTick = snapshot.getNpcs(snapshot.getTick() % ticks.size()).size();
+						assertEquals(ticks.get(snapshot.getTick() % ticks.size()).size(), all);
+						assertEquals(all, ofTick);
+					}
+					catch (IllegalStateException e)
+					{
+						assertFalse(snapshot.isValid());
+					}
+				}
+			}
+			catch (Throwable t)
+			{
+				failure.set(t);
+			}
+		});
+		reader.start();
+
+		for (tick = 0; tick < 20_000 && failure.get() == null; ++tick)
+		{
+			npcs = ticks.get(tick % ticks.size());
+			latest.set(pool.capture(client));
+		}
+
+		reader.interrupt();
+		reader.join();
+		assertNull(failure.get());
+	}
+
+	private static NPC npc(int id, WorldPoint location)
+	{
+		NPC npc = mock(NPC.class);
+		lenient().when(npc.getId()).thenReturn(id);
+		lenient().when(npc.getWorldLocation()).thenReturn(location);
+		return npc;
+	}
+
+	private static WidgetNode widgetNode(int id)
+	{
+		WidgetNode node = mock(WidgetNode.class);
+		when(node.getId()).thenReturn(id);
+		return node;
+	}
+
+	private static void assertInvalid(Runnable read)
+	{
+		try
+		{
+			read.run();
+			fail();
+		}
+		catch (IllegalStateException e)
+		{
+			assertSame(IllegalStateException.class, e.getClass());
+		}
+	}
+}
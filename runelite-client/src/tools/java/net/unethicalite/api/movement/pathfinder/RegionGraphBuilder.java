@@ -0,0 +1,269 @@
+package net.unethicalite.api.movement.pathfinder;
+
+import com.google.gson.Gson;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.coords.WorldPoint;
+import net.unethicalite.api.movement.pathfinder.model.dto.TransportDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Builds the {@code /region-graph} resource from the bundled collision map and transports.
+ * Run it with the {@code regionGraph} task whenever {@code regions} or {@code transports.json} change, or from
+ * the repository root:
+ * <pre>
+ * RegionGraphBuilder [output file]
+ * </pre>
+ */
+@Slf4j
+public class RegionGraphBuilder
+{
+	private static final String DEFAULT_OUTPUT = "runelite-client/src/main/resources/region-graph";
+	// Border openings up to this wide get one portal in the middle, wider ones one at each end
+	private static final int SINGLE_PORTAL_WIDTH = 8;
+
+	private final CollisionMap map;
+	private final Set<Integer> nodes = new HashSet<>();
+	private final Map<Integer, List<Integer>> crossings = new HashMap<>();
+
+	public RegionGraphBuilder(CollisionMap map)
+	{
+		this.map = map;
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		File output = new File(args.length > 0 ? args[0] : DEFAULT_OUTPUT);
+
+		byte[] regions;
+		try (InputStream is = Walker.class.getResourceAsStream("/regions"))
+		{
+			if (is == null)
+			{
+				throw new IOException("Missing /regions resource");
+			}
+			regions = is.readAllBytes();
+		}
+
+		TransportDto[] transports;
+		try (InputStream is = Walker.class.getResourceAsStream("/transports.json"))
+		{
+			if (is == null)
+			{
+				throw new IOException("Missing /transports.json resource");
+			}
+			transports = new Gson().fromJson(new InputStreamReader(is, StandardCharsets.UTF_8), TransportDto[].class);
+		}
+
+		GlobalCollisionMap map = new GlobalCollisionMap(new GZIPInputStream(new ByteArrayInputStream(regions)).readAllBytes());
+		RegionGraphBuilder builder = new RegionGraphBuilder(map);
+		for (int region = 0; region < 256 * 256; region++)
+		{
+			if (map.hasRegion(region))
+			{
+				builder.addBorders(region, region >>> 8 < 255 && map.hasRegion(region + 256), region % 256 < 255 && map.hasRegion(region + 1));
+			}
+		}
+
+		for (TransportDto transport : transports)
+		{
+			for (WorldPoint point : List.of(transport.getSource(), transport.getDestination()))
+			{
+				if (map.hasRegion(point.getRegionID()))
+				{
+					builder.addNode(WorldPointUtil.pack(point));
+				}
+			}
+		}
+
+		long start = System.currentTimeMillis();
+		RegionGraph graph = builder.build(RegionGraph.checksum(regions));
+		log.info("Built region graph with {} nodes in {} ms", graph.nodeCount(), System.currentTimeMillis() - start);
+
+		try (OutputStream out = new FileOutputStream(output))
+		{
+			graph.write(out);
+		}
+		log.info("Wrote region graph to {}", output.getAbsolutePath());
+	}
+
+	public void addNode(int packed)
+	{
+		nodes.add(packed);
+	}
+
+	/**
+	 * Adds portals for every opening in the east and north borders of the region.
+	 */
+	public void addBorders(int region, boolean hasEastNeighbour, boolean hasNorthNeighbour)
+	{
+		int baseX = (region >>> 8) << 6;
+		int baseY = (region & 255) << 6;
+		for (int plane = 0; plane < 4; plane++)
+		{
+			if (hasEastNeighbour)
+			{
+				int x = baseX + 63;
+				int runStart = -1;
+				for (int i = 0; i <= 64; i++)
+				{
+					boolean open = i < 64 && map.e(x, baseY + i, plane);
+					if (open && runStart == -1)
+					{
+						runStart = i;
+					}
+					else if (!open && runStart != -1)
+					{
+						for (int y : portals(baseY + runStart, baseY + i - 1))
+						{
+							addCrossing(WorldPointUtil.pack(x, y, plane), WorldPointUtil.pack(x + 1, y, plane));
+						}
+						runStart = -1;
+					}
+				}
+			}
+
+			if (hasNorthNeighbour)
+			{
+				int y = baseY + 63;
+				int runStart = -1;
+				for (int i = 0; i <= 64; i++)
+				{
+					boolean open = i < 64 && map.n(baseX + i, y, plane);
+					if (open && runStart == -1)
+					{
+						runStart = i;
+					}
+					else if (!open && runStart != -1)
+					{
+						for (int x : portals(baseX + runStart, baseX + i - 1))
+						{
+							addCrossing(WorldPointUtil.pack(x, y, plane), WorldPointUtil.pack(x, y + 1, plane));
+						}
+						runStart = -1;
+					}
+				}
+			}
+		}
+	}
+
+	public RegionGraph build(long sourceChecksum)
+	{
+		long[] keys = new long[nodes.size()];
+		int n = 0;
+		for (int packed : nodes)
+		{
+			keys[n++] = (long) RegionGraph.clusterKey(packed) << 32 | packed;
+		}
+		Arrays.sort(keys);
+
+		int[] positions = new int[keys.length];
+		int clusterCount = 0;
+		for (int i = 0; i < keys.length; i++)
+		{
+			positions[i] = (int) keys[i];
+			if (i == 0 || keys[i] >>> 32 != keys[i - 1] >>> 32)
+			{
+				clusterCount++;
+			}
+		}
+
+		int[] clusterKeys = new int[clusterCount];
+		int[] clusterStart = new int[clusterCount + 1];
+		int cluster = -1;
+		for (int i = 0; i < keys.length; i++)
+		{
+			if (i == 0 || keys[i] >>> 32 != keys[i - 1] >>> 32)
+			{
+				clusterKeys[++cluster] = (int) (keys[i] >>> 32);
+				clusterStart[cluster] = i;
+			}
+		}
+		clusterStart[clusterCount] = keys.length;
+
+		// Lookups during the edge pass only need positions and clusters
+		RegionGraph index = new RegionGraph(sourceChecksum, clusterKeys, clusterStart, positions, new int[1], new int[0], new short[0]);
+
+		int[] edgeStart = new int[positions.length + 1];
+		int[] edgeTargets = new int[positions.length * 8];
+		short[] edgeCosts = new short[positions.length * 8];
+		int edgeCount = 0;
+
+		ClusterFill fill = new ClusterFill();
+		int[] source = new int[1];
+		for (cluster = 0; cluster < clusterCount; cluster++)
+		{
+			for (int node = clusterStart[cluster]; node < clusterStart[cluster + 1]; node++)
+			{
+				edgeStart[node] = edgeCount;
+				source[0] = positions[node];
+				fill.fill(map, source, 1);
+
+				int required = edgeCount + clusterStart[cluster + 1] - clusterStart[cluster] + 2;
+				if (required > edgeTargets.length)
+				{
+					edgeTargets = Arrays.copyOf(edgeTargets, Math.max(required, edgeTargets.length * 2));
+					edgeCosts = Arrays.copyOf(edgeCosts, edgeTargets.length);
+				}
+
+				for (int other = clusterStart[cluster]; other < clusterStart[cluster + 1]; other++)
+				{
+					int distance = fill.distance(positions[other]);
+					if (other != node && distance > 0)
+					{
+						edgeTargets[edgeCount] = other;
+						edgeCosts[edgeCount++] = (short) distance;
+					}
+				}
+
+				for (int neighbour : crossings.getOrDefault(positions[node], List.of()))
+				{
+					edgeTargets[edgeCount] = index.findNode(neighbour);
+					edgeCosts[edgeCount++] = 1;
+				}
+			}
+
+			if (cluster % 1000 == 0)
+			{
+				log.info("Processed {} / {} clusters", cluster, clusterCount);
+			}
+		}
+		edgeStart[positions.length] = edgeCount;
+
+		return new RegionGraph(sourceChecksum, clusterKeys, clusterStart, positions, edgeStart,
+			Arrays.copyOf(edgeTargets, edgeCount), Arrays.copyOf(edgeCosts, edgeCount));
+	}
+
+	private void addCrossing(int from, int to)
+	{
+		addNode(from);
+		addNode(to);
+		crossings.computeIfAbsent(from, k -> new ArrayList<>(2)).add(to);
+		crossings.computeIfAbsent(to, k -> new ArrayList<>(2)).add(from);
+	}
+
+	private static int[] portals(int first, int last)
+	{
+		if (last - first + 1 <= SINGLE_PORTAL_WIDTH)
+		{
+			return new int[]{(first + last) / 2};
+		}
+
+		return new int[]{first, last};
+	}
+}